@@ -1,13 +1,23 @@
 package com.example.imdbdataset;
 
+import com.example.imdbdataset.export.ArrowExportRunner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ImdbDatasetApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(ImdbDatasetApplication.class, args);
+        SpringApplication application = new SpringApplication(ImdbDatasetApplication.class);
+        if (ArrowExportRunner.isRequested(args)) {
+            // Export and exit: no web server
+            application.setWebApplicationType(WebApplicationType.NONE);
+            System.exit(SpringApplication.exit(application.run(args)));
+        }
+        application.run(args);
     }
 
 }
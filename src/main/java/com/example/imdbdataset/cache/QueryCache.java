@@ -0,0 +1,166 @@
+package com.example.imdbdataset.cache;
+
+import com.example.imdbdataset.model.dto.QueryCacheStats;
+import com.example.imdbdataset.model.dto.QueryStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Results of the query methods of the service, keyed by query name, normalized parameters and
+ * content version, so that repeated queries are answered without recomputing them.
+ * <p>
+ * Eviction is Caffeine's W-TinyLFU: a new result only displaces cached ones if a frequency sketch
+ * of recent keys says it is requested more often, so a burst of one-off queries cannot flush the
+ * hot ones. The cache is bounded by the estimated size of its results in bytes (see {@link ResultSize}).
+ * Results are keyed by content version: the first request seeing a new version drops all results
+ * of the previous ones. Hits and misses are counted by query name.
+ * <p>
+ * A result is computed once per key: concurrent misses on the same key, e.g. on a hot query right after
+ * the content version changed, wait for the first one to compute it instead of all running the query.
+ * <p>
+ * Cached results are shared between requests and must not be modified by callers.
+ */
+public class QueryCache {
+
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    /**
+     * Approximate size of a cache entry beyond its parameters and result: node, key and frequency counters.
+     */
+    static final int ENTRY_OVERHEAD = 96;
+
+    private final Cache<Key, Object> results;
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private volatile long version = Long.MIN_VALUE;
+
+    public QueryCache(long maxBytes) {
+        this.results = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Object result) -> (int) Math.min(Integer.MAX_VALUE,
+                        ENTRY_OVERHEAD + ResultSize.estimate(key.params) + ResultSize.estimate(result)))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Changes the byte bound, evicting results if the cache is now over it.
+     */
+    public void resize(long maxBytes) {
+        results.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxBytes));
+    }
+
+    /**
+     * Returns the cached result of a query, or computes and caches it.
+     *
+     * @param query          The name of the query, under which hits and misses are counted.
+     * @param contentVersion The content version of the data, read before the query runs.
+     * @param params         The normalized parameters of the query: equal lists must give equal results.
+     * @param loader         Computes the result on a miss, while other requests for the same key wait for it.
+     *                       Exceptions are thrown to the caller and nothing is cached.
+     * @return The result.
+     */
+    public <T> T get(String query, long contentVersion, List<?> params, Supplier<T> loader) {
+        return get(query, contentVersion, params, loader, result -> true);
+    }
+
+    /**
+     * Returns the cached result of a query, or computes it and caches it if it is cacheable.
+     *
+     * @param cacheable Whether a computed result may be cached, e.g. not when it is partial.
+     * @see #get(String, long, List, Supplier)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String query, long contentVersion, List<?> params, Supplier<T> loader,
+                     Predicate<? super T> cacheable) {
+        if (contentVersion > version) {
+            synchronized (this) {
+                if (contentVersion > version) {
+                    results.invalidateAll();
+                    version = contentVersion;
+                }
+            }
+        }
+        Counters stats = counters.computeIfAbsent(query, name -> new Counters());
+        // Null and uncacheable results are returned to this caller only: the loader leaves the key unmapped
+        Object[] computed = new Object[1];
+        Object cached = results.get(new Key(query, contentVersion, params), key -> {
+            T result = loader.get();
+            computed[0] = result;
+            return result != null && cacheable.test(result) ? result : null;
+        });
+        if (computed[0] == null && cached != null) {
+            stats.hits.increment();
+            return (T) cached;
+        }
+        stats.misses.increment();
+        return (T) computed[0];
+    }
+
+    /**
+     * Drops every cached result, e.g. once the dataset was reloaded.
+     */
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    /**
+     * @return The size of the cache, and its hits and misses by query.
+     */
+    public QueryCacheStats stats() {
+        results.cleanUp();
+        Policy.Eviction<Key, Object> eviction = results.policy().eviction().orElseThrow();
+        List<QueryStats> queries = counters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> {
+                    long hits = entry.getValue().hits.sum();
+                    long misses = entry.getValue().misses.sum();
+                    return new QueryStats(entry.getKey(), hits, misses,
+                            hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+                })
+                .toList();
+        return new QueryCacheStats(results.estimatedSize(), eviction.weightedSize().orElse(0),
+                eviction.getMaximum(), results.stats().evictionCount(), queries);
+    }
+
+    private static final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+
+    /**
+     * The query name, content version and normalized parameters of a result.
+     */
+    private static final class Key {
+        private final String query;
+        private final long contentVersion;
+        private final List<?> params;
+
+        Key(String query, long contentVersion, List<?> params) {
+            this.query = query;
+            this.contentVersion = contentVersion;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return contentVersion == other.contentVersion && query.equals(other.query) && params.equals(other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(contentVersion) * 31 + query.hashCode()) * 31 + params.hashCode();
+        }
+    }
+}
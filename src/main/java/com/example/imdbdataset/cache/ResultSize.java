@@ -0,0 +1,128 @@
+package com.example.imdbdataset.cache;
+
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estimates the heap retained by a cached query result, for the byte bound of the {@link QueryCache}.
+ * <p>
+ * Results are walked once, when they are cached: collections, maps and arrays element by element,
+ * and result DTOs field by field. Titles and people belong to the dataset index, which results
+ * only reference, so they count as references. The estimate assumes compressed references and
+ * Latin-1 strings; it is meant to keep the cache within its bound, not to be exact.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ResultSize {
+
+    static final int HEADER = 16;
+    static final int REFERENCE = 4;
+
+    private static final ClassValue<Field[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    /**
+     * @return The estimated number of bytes retained by a value and what it references, except index entities.
+     */
+    static long estimate(Object value) {
+        return estimate(value, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static long estimate(Object value, Set<Object> seen) {
+        if (value == null || value instanceof Title || value instanceof Person || value instanceof Enum
+                || !seen.add(value)) {
+            return 0;
+        }
+        if (value instanceof String) {
+            // The String and its byte array
+            return 2L * HEADER + 8 + ((String) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return HEADER;
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long size = 2L * HEADER + 8 + (long) REFERENCE * collection.size();
+            for (Object element : collection) {
+                size += estimate(element, seen);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            long size = 2L * HEADER + 16 + (long) (HEADER + 4 * REFERENCE) * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimate(entry.getKey(), seen) + estimate(entry.getValue(), seen);
+            }
+            return size;
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            Class<?> component = type.getComponentType();
+            if (component.isPrimitive()) {
+                return HEADER + (long) length * primitiveSize(component);
+            }
+            long size = HEADER + (long) length * REFERENCE;
+            for (int i = 0; i < length; i++) {
+                size += estimate(Array.get(value, i), seen);
+            }
+            return size;
+        }
+        if (type.getName().startsWith("java.")) {
+            // Other JDK types are not walked: their internals are not accessible
+            return HEADER;
+        }
+        long size = HEADER;
+        for (Field field : FIELDS.get(type)) {
+            if (field.getType().isPrimitive()) {
+                size += primitiveSize(field.getType());
+            } else {
+                try {
+                    size += REFERENCE + estimate(field.get(value), seen);
+                } catch (IllegalAccessException e) {
+                    size += REFERENCE;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+}
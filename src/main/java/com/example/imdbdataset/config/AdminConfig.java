@@ -0,0 +1,28 @@
+package com.example.imdbdataset.config;
+
+import com.example.imdbdataset.controller.AdminTokenInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Requires the admin token on the endpoints that change the served data, see {@link AdminTokenInterceptor}.
+ */
+@Configuration
+public class AdminConfig implements WebMvcConfigurer {
+
+    private final AdminTokenInterceptor adminTokenInterceptor;
+
+    public AdminConfig(AdminTokenInterceptor adminTokenInterceptor) {
+        this.adminTokenInterceptor = adminTokenInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(adminTokenInterceptor)
+                .addPathPatterns(
+                        "/api/imdb/admin/**",
+                        "/api/imdb/person/*/death-year",
+                        "/api/imdb/title/*/rating");
+    }
+}
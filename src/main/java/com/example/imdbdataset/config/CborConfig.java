@@ -0,0 +1,24 @@
+package com.example.imdbdataset.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serves every response as CBOR (RFC 8949) to clients sending {@code Accept: application/cbor}, and
+ * accepts CBOR request bodies. JSON stays the default: this converter takes the place of Spring's
+ * default CBOR converter, after the JSON one, so it is only chosen when CBOR is asked for.
+ * <p>
+ * The CBOR mapper is built from the same Jackson settings as the JSON one, so both encode the same
+ * fields under the same names; see {@code schema/imdb.cddl} for the shape of the main responses.
+ */
+@Configuration
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
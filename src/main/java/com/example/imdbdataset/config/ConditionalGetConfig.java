@@ -0,0 +1,38 @@
+package com.example.imdbdataset.config;
+
+import com.example.imdbdataset.controller.ConditionalGetInterceptor;
+import com.example.imdbdataset.controller.SuccessHeadersFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Answers conditional GETs of the API with ETags of the dataset version, see {@link ConditionalGetInterceptor}.
+ * The statistics endpoints change with every request and are left out. The {@link SuccessHeadersFilter} keeps
+ * error responses out of caches.
+ */
+@Configuration
+public class ConditionalGetConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+    public ConditionalGetConfig(ConditionalGetInterceptor conditionalGetInterceptor) {
+        this.conditionalGetInterceptor = conditionalGetInterceptor;
+    }
+
+    @Bean
+    public FilterRegistrationBean<SuccessHeadersFilter> successHeadersFilter() {
+        FilterRegistrationBean<SuccessHeadersFilter> registration = new FilterRegistrationBean<>(new SuccessHeadersFilter());
+        registration.addUrlPatterns("/api/imdb/*");
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/api/imdb/**")
+                .excludePathPatterns("/api/imdb/stats/**");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.imdbdataset.controller;
+
+import com.example.imdbdataset.exception.AccessDeniedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the endpoints that change the served data (reloads and rating and death year updates):
+ * requests must carry the token of {@code imdb.admin.token} in the {@value #HEADER} header.
+ * Without a configured token, these endpoints are disabled and the data only changes with
+ * scheduled reloads.
+ */
+@Component
+public class AdminTokenInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "X-Admin-Token";
+
+    private final byte[] token;
+
+    public AdminTokenInterceptor(@Value("${imdb.admin.token:}") String token) {
+        this.token = token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Whether the endpoints that change the served data can be called, that is whether a token is configured.
+     */
+    public boolean isEnabled() {
+        return token != null;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (token == null) {
+            throw new AccessDeniedException("Admin endpoints are disabled: imdb.admin.token is not set");
+        }
+        String given = request.getHeader(HEADER);
+        // Constant-time comparison, so that the token cannot be guessed from response times
+        if (given == null || !MessageDigest.isEqual(token, given.getBytes(StandardCharsets.UTF_8))) {
+            throw new AccessDeniedException("Missing or invalid " + HEADER + " header");
+        }
+        return true;
+    }
+}
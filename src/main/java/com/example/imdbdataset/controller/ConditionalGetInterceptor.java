@@ -0,0 +1,173 @@
+package com.example.imdbdataset.controller;
+
+import com.example.imdbdataset.service.ImdbDataService;
+import com.example.imdbdataset.service.ReloadSchedule;
+import com.example.imdbdataset.service.RequestCounterService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers conditional GETs of the API before the handler runs. The data only changes with the dataset,
+ * so a response is identified by the content version of the dataset and the request: every GET gets a
+ * strong ETag computed from both, and a request whose If-None-Match holds the current ETag is answered
+ * with 304 Not Modified without any service work.
+ * <p>
+ * Requests are normalized to the parameters their handler binds: parameters it does not bind are
+ * ignored, missing or empty ones are replaced by their default value, and repeated ones are joined with
+ * commas, as Spring binds them. The Accept header is part of the ETag, since it selects JSON or CBOR.
+ * <p>
+ * The version is read before the handler runs: if the dataset changes meanwhile, the response carries
+ * the ETag of the previous version, which no longer matches, so the client only fetches it once more.
+ * <p>
+ * Cache-Control follows the {@link ReloadSchedule}: responses are fresh until the next scheduled reload,
+ * or must be revalidated on every use if reloads are not scheduled or the data can also change in between,
+ * through the endpoints of the {@link AdminTokenInterceptor}. It is only set on successful responses and
+ * 304s, see {@link SuccessHeadersFilter}.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final ImdbDataService imdbDataService;
+    private final RequestCounterService requestCounterService;
+    private final ReloadSchedule reloadSchedule;
+    private final AdminTokenInterceptor adminTokenInterceptor;
+    private final Map<Method, List<Binding>> bindings = new ConcurrentHashMap<>();
+
+    public ConditionalGetInterceptor(ImdbDataService imdbDataService,
+                                     RequestCounterService requestCounterService,
+                                     ReloadSchedule reloadSchedule,
+                                     AdminTokenInterceptor adminTokenInterceptor) {
+        this.imdbDataService = imdbDataService;
+        this.requestCounterService = requestCounterService;
+        this.reloadSchedule = reloadSchedule;
+        this.adminTokenInterceptor = adminTokenInterceptor;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)
+                || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        String etag = etag(imdbDataService.getContentVersion(), request, (HandlerMethod) handler);
+        String cacheControl = cacheControl().getHeaderValue();
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // Sets the ETag, and the 304 status if If-None-Match holds it
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            requestCounterService.incrementCounter();
+            return false;
+        }
+        SuccessHeadersFilter.setOnSuccess(response, HttpHeaders.CACHE_CONTROL, cacheControl);
+        return true;
+    }
+
+    /**
+     * @return The Cache-Control of responses: fresh until the next scheduled reload, or to be revalidated
+     * on every use if reloads are not scheduled or the admin endpoints can change the data before.
+     */
+    CacheControl cacheControl() {
+        Duration untilNextReload = reloadSchedule.untilNextReload();
+        return untilNextReload == null || adminTokenInterceptor.isEnabled()
+                ? CacheControl.noCache().cachePublic()
+                : CacheControl.maxAge(untilNextReload).cachePublic();
+    }
+
+    /**
+     * @return The strong ETag of a request for a content version: the version, and a hash of the request
+     * path, its normalized parameters and Accept header.
+     */
+    String etag(long contentVersion, HttpServletRequest request, HandlerMethod handler) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        for (Binding binding : bindings.computeIfAbsent(handler.getMethod(), ConditionalGetInterceptor::bindingsOf)) {
+            String value = binding.value(request);
+            if (value != null) {
+                key.append('\n').append(binding.name).append('=').append(value);
+            }
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        key.append("\nAccept: ").append(accept == null ? "" : accept.trim());
+        return "\"" + contentVersion + "-" + hash(key.toString()) + "\"";
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return The request parameters bound by a handler method, by name.
+     */
+    private static List<Binding> bindingsOf(Method method) {
+        List<Binding> bindings = new ArrayList<>();
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            MethodParameter parameter = new MethodParameter(method, i);
+            parameter.initParameterNameDiscovery(PARAMETER_NAMES);
+            RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            if (requestParam == null) {
+                continue;
+            }
+            String name = requestParam.name().isEmpty() ? parameter.getParameterName() : requestParam.name();
+            String defaultValue = ValueConstants.DEFAULT_NONE.equals(requestParam.defaultValue())
+                    ? null
+                    : requestParam.defaultValue();
+            bindings.add(new Binding(name, defaultValue));
+        }
+        bindings.sort(Comparator.comparing(binding -> binding.name));
+        return bindings;
+    }
+
+    /**
+     * A request parameter of a handler method, with its default value if it has one.
+     */
+    private static final class Binding {
+        private final String name;
+        private final String defaultValue;
+
+        Binding(String name, String defaultValue) {
+            this.name = name;
+            this.defaultValue = defaultValue;
+        }
+
+        /**
+         * @return The value the handler receives: the parameter values joined with commas, or the default
+         * value if the parameter is missing or empty.
+         */
+        String value(HttpServletRequest request) {
+            String[] values = request.getParameterValues(name);
+            if (values == null || values.length == 0 || (values.length == 1 && values[0].isEmpty())) {
+                return defaultValue;
+            }
+            return String.join(",", values);
+        }
+    }
+}
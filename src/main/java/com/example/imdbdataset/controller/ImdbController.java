@@ -1,29 +1,70 @@
 package com.example.imdbdataset.controller;
 
+import com.example.imdbdataset.dto.BatchLookupRequest;
+import com.example.imdbdataset.dto.CoAppearanceRequest;
 import com.example.imdbdataset.dto.PagedResponse;
+import com.example.imdbdataset.export.ArrowExporter;
+import com.example.imdbdataset.export.ArrowTable;
 import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.dto.BatchLookupResult;
 import com.example.imdbdataset.model.dto.BestTitlesByYear;
+import com.example.imdbdataset.model.dto.CoAppearanceMatrix;
+import com.example.imdbdataset.model.dto.CollaborationPaths;
+import com.example.imdbdataset.model.dto.Collaborator;
+import com.example.imdbdataset.model.dto.FilmographyEntry;
+import com.example.imdbdataset.model.dto.PageSlice;
+import com.example.imdbdataset.model.dto.QueryCacheStats;
+import com.example.imdbdataset.model.dto.SimilarTitle;
+import com.example.imdbdataset.model.dto.TitleDTO;
+import com.example.imdbdataset.model.dto.TitleStatistics;
 import com.example.imdbdataset.service.ImdbDataService;
 import com.example.imdbdataset.service.RequestCounterService;
 import com.example.imdbdataset.util.PaginationUtil;
+import com.example.imdbdataset.view.EntityWriter;
+import com.example.imdbdataset.view.FragmentCache;
+import com.example.imdbdataset.view.PersonProjection;
+import com.example.imdbdataset.view.Projected;
+import com.example.imdbdataset.view.TitleProjection;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.example.imdbdataset.exception.InvalidParameterException;
 import com.example.imdbdataset.model.Person;
 
+import java.nio.channels.Channels;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/imdb")
 public class ImdbController {
     private final ImdbDataService imdbDataService;
     private final RequestCounterService requestCounterService;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final FragmentCache fragmentCache;
 
     public ImdbController(ImdbDataService imdbDataService,
-                          RequestCounterService requestCounterService) {
+                          RequestCounterService requestCounterService,
+                          ObjectMapper objectMapper,
+                          MappingJackson2CborHttpMessageConverter cborConverter,
+                          FragmentCache fragmentCache) {
         this.imdbDataService = imdbDataService;
         this.requestCounterService = requestCounterService;
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+        this.fragmentCache = fragmentCache;
     }
 
     /**
@@ -31,21 +72,28 @@ public class ImdbController {
      *
      * @param page The page number to retrieve (0-indexed). Default is 0.
      * @param size The number of items per page. Default is 10.
+     * @param cursor The nextCursor of a previous page. When given, the page resumes right after it
+     *               and the page parameter is ignored.
+     * @param view   The response view: summary, detail (default; credited people as id + name) or with-credits.
+     * @param fields The title fields to return (e.g. tconst,primaryTitle,rating), instead of those of the view. Optional.
      * @return A ResponseEntity containing a PagedResponse of Title objects.
      * The PagedResponse includes the requested page of titles, the total number of pages,
-     * and the total number of items.
+     * the total number of items and the cursor of the next page.
+     * @throws InvalidParameterException If the view or a field is unknown.
      */
     @GetMapping("/titles/same-director-writer")
-    public ResponseEntity<PagedResponse<Title>> getTitlesWithSameDirectorAndWriter(
+    public ResponseEntity<PagedResponse<Projected<Title>>> getTitlesWithSameDirectorAndWriter(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
         requestCounterService.incrementCounter();
         PaginationUtil.validatePaginationParams(page, size);
+        EntityWriter<Title> writer = titleWriter(view, fields);
 
-        List<Title> titles = imdbDataService.getTitlesWithSameDirectorAndWriter(page, size);
-        long totalItems = imdbDataService.getTotalTitlesWithSameDirectorAndWriter();
-
-        return ResponseEntity.ok(PagedResponse.of(titles, page, size, totalItems));
+        PageSlice<Title> titles = imdbDataService.getTitlesWithSameDirectorAndWriter(page, size, cursor);
+        return ResponseEntity.ok(PagedResponse.of(Projected.page(titles, writer), page, size, cursor));
     }
 
     /**
@@ -53,24 +101,29 @@ public class ImdbController {
      *
      * @param actorId1 The unique identifier of the first actor. This parameter is required.
      * @param actorId2 The unique identifier of the second actor. This parameter is required.
+     * @param view     The response view: summary, detail (default; credited people as id + name) or with-credits.
+     * @param fields   The title fields to return (e.g. tconst,primaryTitle,rating), instead of those of the view. Optional.
      * @return A ResponseEntity containing a List of Title objects.
      * The List contains titles where both specified actors have acted in.
      * If the actorId1 and actorId2 are the same, an InvalidParameterException is thrown.
      * @throws InvalidParameterException If the actorId1 and actorId2 are the same.
      */
     @GetMapping("/titles/both-actors")
-    public ResponseEntity<List<Title>> getTitlesWithBothActors(
+    public ResponseEntity<List<Projected<Title>>> getTitlesWithBothActors(
             @RequestParam(required = true) String actorId1,
-            @RequestParam(required = true) String actorId2) {
+            @RequestParam(required = true) String actorId2,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
 
         requestCounterService.incrementCounter();
+        EntityWriter<Title> writer = titleWriter(view, fields);
 
         if (actorId1.equals(actorId2)) {
             throw new InvalidParameterException("actor1 and actor2 must be different");
         }
 
         List<Title> titles = imdbDataService.getTitlesWithBothActors(actorId1, actorId2);
-        return ResponseEntity.ok(titles);
+        return ResponseEntity.ok(Projected.all(titles, writer));
     }
 
     /**
@@ -81,25 +134,327 @@ public class ImdbController {
      * @param actorName2 The name of the second actor. This parameter is required.
      * @param page       The page number to retrieve (0-indexed). Default is 0.
      * @param size       The number of items per page. Default is 10.
+     * @param cursor     The nextCursor of a previous page. When given, the page resumes right after it
+     *                   and the page parameter is ignored.
+     * @param view       The response view: summary, detail (default; credited people as id + name) or with-credits.
+     * @param fields     The title fields to return (e.g. tconst,primaryTitle,rating), instead of those of the view. Optional.
      * @return A ResponseEntity containing a PagedResponse of Title objects.
      * The PagedResponse includes the requested page of titles, the total number of pages,
-     * and the total number of items.
-     * @throws InvalidParameterException If the actorName1 and actorName2 are the same.
+     * the total number of items and the cursor of the next page.
+     * @throws InvalidParameterException If the actorName1 and actorName2 are the same, or the view or a field is unknown.
      */
     @GetMapping("/titles/both-actors-by-names")
-    public ResponseEntity<PagedResponse<Title>> getTitlesWithBothActorsByNames(
+    public ResponseEntity<PagedResponse<Projected<Title>>> getTitlesWithBothActorsByNames(
             @RequestParam(required = true) String actorName1,
             @RequestParam(required = true) String actorName2,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
+
+        requestCounterService.incrementCounter();
+        PaginationUtil.validatePaginationParams(page, size);
+        EntityWriter<Title> writer = titleWriter(view, fields);
+
+        PageSlice<Title> titles = imdbDataService.getTitlesWithBothActors(actorName1, actorName2, page, size, cursor);
+        return ResponseEntity.ok(PagedResponse.of(Projected.page(titles, writer), page, size, cursor));
+    }
+
+    /**
+     * Retrieves a paginated list of titles that feature all the specified people.
+     *
+     * @param people The IDs or names of the people (at least two). This parameter is required.
+     * @param roles  Optional role filters (e.g. actor, director, writer): either a single role applied
+     *               to every person, or one role per person in the same order. Default is any credit.
+     * @param page   The page number to retrieve (0-indexed). Default is 0.
+     * @param size   The number of items per page. Default is 10.
+     * @param cursor The nextCursor of a previous page. When given, the page resumes right after it
+     *               and the page parameter is ignored.
+     * @param view   The response view: summary, detail (default; credited people as id + name) or with-credits.
+     * @param fields The title fields to return (e.g. tconst,primaryTitle,rating), instead of those of the view. Optional.
+     * @return A ResponseEntity containing a PagedResponse of Title objects, sorted by primary title.
+     * The PagedResponse includes the requested page of titles, the total number of pages,
+     * the total number of items and the cursor of the next page.
+     * @throws InvalidParameterException If fewer than two people are given, a role is unknown,
+     *                                   the view or a field is unknown, or the pagination parameters are invalid.
+     */
+    @GetMapping("/titles/featuring-all")
+    public ResponseEntity<PagedResponse<Projected<Title>>> getTitlesFeaturingAll(
+            @RequestParam(required = true) List<String> people,
+            @RequestParam(required = false) List<String> roles,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
 
         requestCounterService.incrementCounter();
         PaginationUtil.validatePaginationParams(page, size);
+        EntityWriter<Title> writer = titleWriter(view, fields);
 
-        List<Title> titles = imdbDataService.getTitlesWithBothActors(actorName1, actorName2, page, size);
-        long totalItems = imdbDataService.getTotalTitlesWithBothActors(actorName1, actorName2);
+        PageSlice<Title> titles = imdbDataService.getTitlesFeaturingAll(people, roles, page, size, cursor);
+        return ResponseEntity.ok(PagedResponse.of(Projected.page(titles, writer), page, size, cursor));
+    }
+
+    /**
+     * Counts the titles that feature all the specified people, stopping at the given limit.
+     *
+     * @param people The IDs or names of the people (at least two). This parameter is required.
+     * @param roles  Optional role filters, as for /titles/featuring-all.
+     * @param limit  The count at which to stop. Default is 1000.
+     * @return A ResponseEntity containing a Map with the "count" (at most limit) and whether it is "exact".
+     * @throws InvalidParameterException If fewer than two people are given, a role is unknown or limit is not positive.
+     */
+    @GetMapping("/titles/featuring-all/count")
+    public ResponseEntity<Map<String, Object>> countTitlesFeaturingAll(
+            @RequestParam(required = true) List<String> people,
+            @RequestParam(required = false) List<String> roles,
+            @RequestParam(defaultValue = "1000") int limit) {
+
+        requestCounterService.incrementCounter();
+        long count = imdbDataService.countTitlesFeaturingAll(people, roles, limit);
+        return ResponseEntity.ok(Map.of("count", count, "exact", count < limit));
+    }
 
-        return ResponseEntity.ok(PagedResponse.of(titles, page, size, totalItems));
+    /**
+     * Searches titles with a query such as {@code type:movie genre:Drama year:1990..1999 rating>=8 actor:nm0000158}.
+     * Supported fields: type, genre, adult, year, runtime, votes, rating, and people by role
+     * (person, actor, director, writer, producer, ...) given by ID or quoted name.
+     *
+     * @param q      The search query. Empty matches every title.
+     * @param sort   The sort: title (default), year, rating, votes or weighted (rating), prefixed with '-'
+     *               for descending order.
+     * @param page   The page number to retrieve (0-indexed). Default is 0.
+     * @param size   The number of items per page. Default is 10.
+     * @param cursor The nextCursor of a previous page. When given, the page resumes right after it
+     *               and the page parameter is ignored.
+     * @param view   The response view: summary, detail (default; credited people as id + name) or with-credits.
+     * @param fields The title fields to return (e.g. tconst,primaryTitle,rating), instead of those of the view. Optional.
+     * @return A ResponseEntity containing a PagedResponse of the matching Title objects.
+     * @throws InvalidParameterException If the query, sort, view, fields or pagination parameters are invalid.
+     */
+    @GetMapping("/titles/search")
+    public ResponseEntity<PagedResponse<Projected<Title>>> searchTitles(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "title") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
+
+        requestCounterService.incrementCounter();
+        EntityWriter<Title> writer = titleWriter(view, fields);
+        PageSlice<Title> titles = imdbDataService.searchTitles(q, sort, page, size, cursor);
+        return ResponseEntity.ok(PagedResponse.of(Projected.page(titles, writer), page, size, cursor));
+    }
+
+    /**
+     * Exports every title matching a search query as NDJSON (one JSON title per line), streamed with
+     * chunked transfer in title order. Titles are read from the index one at a time as the client
+     * consumes the response, so the server holds no page of results whatever the size of the export.
+     *
+     * @param q      The search query, see {@link #searchTitles}. Empty exports every title.
+     * @param view   The view of the titles: summary, detail (default; credited people as id + name) or with-credits.
+     * @param fields The title fields to export, instead of those of the view. Optional.
+     * @return A ResponseEntity streaming the matching titles.
+     * @throws InvalidParameterException If the query, view or fields are invalid.
+     */
+    @GetMapping(value = "/titles/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTitles(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
+        requestCounterService.incrementCounter();
+        // Not through the fragment cache: a bulk export would evict the fragments of everyday requests
+        EntityWriter<Title> writer = TitleProjection.of(view, fields);
+        return streamLines(imdbDataService.exportTitles(q).map(title -> new Projected<>(title, writer)));
+    }
+
+    /**
+     * Computes title statistics (number of titles, of rated titles, mean rating and total votes),
+     * grouped by any of genre, start year and title type.
+     *
+     * @param groupBy   The dimensions to group by: genre, year and/or type (repeatable). None gives one overall total.
+     * @param genre     Only count titles of this genre. Optional.
+     * @param titleType Only count titles of this type. Optional.
+     * @param fromYear  The earliest start year (inclusive). Optional.
+     * @param toYear    The latest start year (inclusive). Optional.
+     * @return A ResponseEntity containing the non-empty groups, ordered by genre, year and type.
+     * @throws InvalidParameterException If a dimension is unknown or the year range is invalid.
+     */
+    @GetMapping("/titles/statistics")
+    public ResponseEntity<List<TitleStatistics>> getTitleStatistics(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) String titleType,
+            @RequestParam(required = false) Integer fromYear,
+            @RequestParam(required = false) Integer toYear) {
+
+        requestCounterService.incrementCounter();
+        return ResponseEntity.ok(imdbDataService.getTitleStatistics(groupBy, genre, titleType, fromYear, toYear));
+    }
+
+    /**
+     * Retrieves a page of a leaderboard such as the top rated movies or the most voted TV series.
+     * Leaderboards hold the top 250 titles of all titles, of a title type, of a genre or of a decade.
+     *
+     * @param by        What the titles are ranked by: rating, votes or weighted (rating). Default is weighted.
+     * @param titleType The title type of the leaderboard (e.g. movie, tvSeries). Optional.
+     * @param genre     The genre of the leaderboard. Optional.
+     * @param decade    Any year of the decade of the leaderboard (e.g. 1990). Optional. At most one of
+     *                  titleType, genre and decade may be given; none means all titles.
+     * @param page      The page number to retrieve (0-indexed). Default is 0.
+     * @param size      The number of items per page. Default is 10.
+     * @param cursor    The nextCursor of a previous page. When given, the page resumes right after it
+     *                  and the page parameter is ignored.
+     * @return A ResponseEntity containing a PagedResponse of TitleDTO objects, best first.
+     * @throws InvalidParameterException If the ranking, the leaderboard or the pagination parameters are invalid.
+     */
+    @GetMapping("/titles/leaderboard")
+    public ResponseEntity<PagedResponse<TitleDTO>> getLeaderboard(
+            @RequestParam(defaultValue = "weighted") String by,
+            @RequestParam(required = false) String titleType,
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer decade,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+
+        requestCounterService.incrementCounter();
+        PageSlice<TitleDTO> titles = imdbDataService.getLeaderboard(titleType, genre, decade, by, page, size, cursor);
+        return ResponseEntity.ok(PagedResponse.of(titles, page, size, cursor));
+    }
+
+    /**
+     * Searches people by primary profession, birth year, living status and number of credits.
+     *
+     * @param profession   The primary professions the people must all have (repeatable). Optional.
+     * @param minBirthYear The earliest birth year (inclusive). Optional.
+     * @param maxBirthYear The latest birth year (inclusive). Optional.
+     * @param alive        true for living people, false for deceased people. Optional.
+     * @param minCredits   The minimum number of titles the people are credited on. Optional.
+     * @param sort         The sort: name (default), birthYear or credits, prefixed with '-' for descending order.
+     * @param page         The page number to retrieve (0-indexed). Default is 0.
+     * @param size         The number of items per page. Default is 10.
+     * @param cursor       The nextCursor of a previous page. When given, the page resumes right after it
+     *                     and the page parameter is ignored.
+     * @param view         The response view: summary or detail (default).
+     * @param fields       The person fields to return (e.g. nconst,primaryName), instead of those of the view. Optional.
+     * @return A ResponseEntity containing a PagedResponse of the matching Person objects.
+     * @throws InvalidParameterException If a range, the sort, the view, a field or the pagination parameters are invalid.
+     */
+    @GetMapping("/people/search")
+    public ResponseEntity<PagedResponse<Projected<Person>>> searchPeople(
+            @RequestParam(required = false) List<String> profession,
+            @RequestParam(required = false) Integer minBirthYear,
+            @RequestParam(required = false) Integer maxBirthYear,
+            @RequestParam(required = false) Boolean alive,
+            @RequestParam(required = false) Integer minCredits,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
+
+        requestCounterService.incrementCounter();
+        EntityWriter<Person> writer = personWriter(view, fields);
+        PageSlice<Person> people = imdbDataService.searchPeople(profession, minBirthYear, maxBirthYear, alive,
+                minCredits, sort, page, size, cursor);
+        return ResponseEntity.ok(PagedResponse.of(Projected.page(people, writer), page, size, cursor));
+    }
+
+    /**
+     * Describes how a title search would be executed: which index drives it and how the
+     * other predicates are applied.
+     *
+     * @param q The search query, as for {@link #searchTitles}.
+     * @return A ResponseEntity containing a Map with a single entry "plan": the steps in execution order.
+     */
+    @GetMapping("/titles/search/plan")
+    public ResponseEntity<Map<String, List<String>>> explainTitleSearch(@RequestParam(defaultValue = "") String q) {
+        requestCounterService.incrementCounter();
+        return ResponseEntity.ok(Map.of("plan", imdbDataService.explainTitleSearch(q)));
+    }
+
+    /**
+     * Counts the titles matching a combination of attribute filters, answered from bitmap indexes.
+     *
+     * @param titleTypes    Optional title types (e.g. movie, tvSeries), any of which may match.
+     * @param adult         Optional adult flag.
+     * @param decade        Optional decade of the start year, e.g. 1990.
+     * @param runtimeBucket Optional runtime bucket in minutes: 0, 30, 60, ... 180 (meaning 180 or more).
+     * @param genres        Optional genres, all of which must match.
+     * @param minVotes      Optional minimum number of votes: 10, 100, 1000, 10000, 100000 or 1000000.
+     * @return A ResponseEntity containing a Map with a single entry "count".
+     * @throws InvalidParameterException If minVotes is not one of the indexed thresholds.
+     */
+    @GetMapping("/titles/attributes/count")
+    public ResponseEntity<Map<String, Long>> countTitlesByAttributes(
+            @RequestParam(required = false) List<String> titleTypes,
+            @RequestParam(required = false) Boolean adult,
+            @RequestParam(required = false) Integer decade,
+            @RequestParam(required = false) Integer runtimeBucket,
+            @RequestParam(required = false) List<String> genres,
+            @RequestParam(required = false) Integer minVotes) {
+
+        requestCounterService.incrementCounter();
+        long count = imdbDataService.countTitlesByAttributes(titleTypes, adult, decade, runtimeBucket, genres, minVotes);
+        return ResponseEntity.ok(Map.of("count", count));
+    }
+
+    /**
+     * Computes the pairwise shared-title count matrix for a set of people in one request.
+     *
+     * @param request The people (IDs or names, at most a few hundred), the role they must be credited in
+     *                (default acting credits or knownForTitles, as for the both-actors endpoints) and whether
+     *                to include the shared title IDs for every pair.
+     * @return A ResponseEntity containing the CoAppearanceMatrix.
+     * Entry [i][j] of the matrix is the number of titles shared by the i-th and j-th person.
+     * @throws InvalidParameterException If the people list is empty or too long, or the role is unknown.
+     */
+    @PostMapping("/people/co-appearances")
+    public ResponseEntity<CoAppearanceMatrix> getCoAppearanceMatrix(@RequestBody CoAppearanceRequest request) {
+        requestCounterService.incrementCounter();
+        CoAppearanceMatrix matrix = imdbDataService.getCoAppearanceMatrix(
+                request.getPeople(), request.getRole(), request.isIncludeTitles());
+        return ResponseEntity.ok(matrix);
+    }
+
+    /**
+     * Finds the shortest chains of shared titles linking two people ("degrees of separation").
+     *
+     * @param from             The ID or name of the first person. This parameter is required.
+     * @param to               The ID or name of the second person. This parameter is required.
+     * @param roles            Optional roles in which people must be credited on the linking titles, e.g. actor.
+     * @param maxDepth         The maximum number of titles on a path. Default is 6, at most 10.
+     * @param maxPaths         The maximum number of shortest paths to return. Default is 1, at most 100.
+     * @param timeBudgetMillis How long the search may run. Default is 1000, at most 10000.
+     * @param response         The response, which caches may not store if the time budget ran out.
+     * @return A ResponseEntity containing the CollaborationPaths. No path is returned if the people are
+     * not connected within maxDepth titles, or if the time budget ran out (timedOut is then true).
+     * @throws InvalidParameterException If a parameter is missing or out of range.
+     */
+    @GetMapping("/people/path")
+    public ResponseEntity<CollaborationPaths> findCollaborationPaths(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) List<String> roles,
+            @RequestParam(defaultValue = "6") int maxDepth,
+            @RequestParam(defaultValue = "1") int maxPaths,
+            @RequestParam(defaultValue = "1000") long timeBudgetMillis,
+            HttpServletResponse response) {
+
+        requestCounterService.incrementCounter();
+        CollaborationPaths paths = imdbDataService.findCollaborationPaths(from, to, roles, maxDepth, maxPaths,
+                timeBudgetMillis);
+        if (paths.isTimedOut()) {
+            // Another search may well get further: do not let caches keep this one
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        }
+        return ResponseEntity.ok(paths);
     }
 
     /**
@@ -108,44 +463,351 @@ public class ImdbController {
      * @param genre The genre for which to retrieve the best titles by year. This parameter is required.
      * @param page  The page number to retrieve (0-indexed). Default is 0.
      * @param size  The number of items per page. Default is 10.
+     * @param cursor The nextCursor of a previous page. When given, the page resumes right after it
+     *               and the page parameter is ignored.
+     * @param rankBy How to rank the titles of a year: rating (default; average rating, then votes) or
+     *               weighted (IMDb-style weighted rating, which discounts titles with few votes).
      * @return A ResponseEntity containing a PagedResponse of BestTitlesByYear objects.
      * The PagedResponse includes the requested page of BestTitlesByYear objects,
-     * the total number of pages, and the total number of items.
+     * the total number of pages, the total number of items and the cursor of the next page.
      * Each BestTitlesByYear object contains the year and a list of titles
      * that are considered the best for that year within the specified genre.
-     * @throws InvalidParameterException If the pagination parameters (page or size) are invalid.
+     * @throws InvalidParameterException If the pagination parameters (page or size) or rankBy are invalid.
      */
     @GetMapping("/titles/best-by-genre")
     public ResponseEntity<PagedResponse<BestTitlesByYear>> getBestTitlesByYearForGenre(
             @RequestParam(required = true) String genre,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = ImdbDataService.RANK_BY_RATING) String rankBy) {
 
         requestCounterService.incrementCounter();
         PaginationUtil.validatePaginationParams(page, size);
 
-        List<BestTitlesByYear> bestTitles = imdbDataService.getBestTitlesByYearForGenre(genre, page, size);
-        long totalItems = imdbDataService.getTotalYearsForGenre(genre);
-
-        return ResponseEntity.ok(PagedResponse.of(bestTitles, page, size, totalItems));
+        PageSlice<BestTitlesByYear> bestTitles = imdbDataService.getBestTitlesByYearForGenre(genre, page, size, cursor, rankBy);
+        return ResponseEntity.ok(PagedResponse.of(bestTitles, page, size, cursor));
     }
 
     /**
      * Retrieves a person's details by their unique identifier.
      *
      * @param id The unique identifier of the person to retrieve. This parameter is required and must be a non-empty string.
+     * @param view   The response view: summary or detail (default).
+     * @param fields The person fields to return (e.g. nconst,primaryName), instead of those of the view. Optional.
      * @return A ResponseEntity containing a Person object.
      * The Person object represents the details of the person with the specified unique identifier.
      * If the person with the given id does not exist, a 404 Not Found response is returned.
-     * @throws InvalidParameterException If the id parameter is null or empty.
+     * @throws InvalidParameterException If the id parameter is null or empty, or the view or a field is unknown.
      */
     @GetMapping("/person/{id}")
-    public ResponseEntity<Person> getPersonById(@PathVariable String id) {
+    public ResponseEntity<Projected<Person>> getPersonById(
+            @PathVariable String id,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
         requestCounterService.incrementCounter();
+        EntityWriter<Person> writer = personWriter(view, fields);
         Person person = imdbDataService.getPersonById(id);
+        return ResponseEntity.ok(new Projected<>(person, writer));
+    }
+
+    /**
+     * Retrieves many people by their unique identifiers in one request.
+     *
+     * @param request The identifiers of the people, at most {@value ImdbDataService#MAX_BATCH_IDS}.
+     * @param view    The response view of the people found: summary or detail (default).
+     * @param fields  The person fields to return, instead of those of the view. Optional.
+     * @param accept  The Accept header: the array is streamed as CBOR when application/cbor is preferred to JSON.
+     * @return A ResponseEntity streaming an array of BatchLookupResult objects, one per identifier and
+     * in request order. A person that does not exist is reported in its result (found is false, error says why)
+     * instead of failing the request.
+     * @throws InvalidParameterException If the identifier list is empty or too long, or the view or a field is unknown.
+     */
+    @PostMapping("/people/batch")
+    public ResponseEntity<StreamingResponseBody> getPeopleByIds(
+            @RequestBody BatchLookupRequest request,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        requestCounterService.incrementCounter();
+        EntityWriter<Person> writer = personWriter(view, fields);
+        return streamArray(imdbDataService.getPeopleByIds(request.getIds()).map(result -> project(result, writer)), accept);
+    }
+
+    /**
+     * Retrieves many titles by their unique identifiers in one request.
+     *
+     * @param request The identifiers of the titles, at most {@value ImdbDataService#MAX_BATCH_IDS}.
+     * @param view    The response view of the titles found: summary, detail (default) or with-credits.
+     * @param fields  The title fields to return, instead of those of the view. Optional.
+     * @param accept  The Accept header: the array is streamed as CBOR when application/cbor is preferred to JSON.
+     * @return A ResponseEntity streaming an array of BatchLookupResult objects, one per identifier and
+     * in request order. A title that does not exist is reported in its result (found is false, error says why)
+     * instead of failing the request.
+     * @throws InvalidParameterException If the identifier list is empty or too long, or the view or a field is unknown.
+     */
+    @PostMapping("/titles/batch")
+    public ResponseEntity<StreamingResponseBody> getTitlesByIds(
+            @RequestBody BatchLookupRequest request,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        requestCounterService.incrementCounter();
+        EntityWriter<Title> writer = titleWriter(view, fields);
+        return streamArray(imdbDataService.getTitlesByIds(request.getIds()).map(result -> project(result, writer)), accept);
+    }
+
+    /**
+     * @return The writer of the titles of a response: the requested projection, served from the fragment cache.
+     * @throws InvalidParameterException If the view or a field is unknown.
+     */
+    private EntityWriter<Title> titleWriter(String view, List<String> fields) {
+        return fragmentCache.titles(TitleProjection.of(view, fields), imdbDataService.getContentVersion());
+    }
+
+    /**
+     * @return The writer of the people of a response: the requested projection, served from the fragment cache.
+     * @throws InvalidParameterException If the view or a field is unknown.
+     */
+    private EntityWriter<Person> personWriter(String view, List<String> fields) {
+        return fragmentCache.people(PersonProjection.of(view, fields), imdbDataService.getContentVersion());
+    }
+
+    private static <T> BatchLookupResult<Projected<T>> project(BatchLookupResult<T> result, EntityWriter<? super T> writer) {
+        return new BatchLookupResult<>(result.getId(), result.isFound(),
+                result.isFound() ? new Projected<>(result.getItem(), writer) : null, result.getError());
+    }
+
+    /**
+     * Writes the items of a lazy stream as an array, each one as soon as it is produced: in CBOR when the
+     * client prefers it to JSON, in JSON otherwise.
+     * The stream must already be validated: once the body is being written, errors can no longer change the status.
+     */
+    private ResponseEntity<StreamingResponseBody> streamArray(Stream<?> items, String accept) {
+        MediaType contentType = streamedContentType(accept);
+        ObjectMapper mapper = contentType == MediaType.APPLICATION_CBOR ? cborMapper : objectMapper;
+        StreamingResponseBody body = out -> {
+            try (items; JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                for (Iterator<?> it = items.iterator(); it.hasNext(); ) {
+                    generator.writeObject(it.next());
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    /**
+     * @return The content type of a streamed array for an Accept header: CBOR if the client prefers it to JSON,
+     * JSON otherwise. Accepted media types are ranked by quality and then specificity, as in Spring's content
+     * negotiation, and the first one that includes JSON or CBOR decides.
+     */
+    static MediaType streamedContentType(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_CBOR)) {
+                return MediaType.APPLICATION_CBOR;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Writes the items of a lazy stream as NDJSON, one JSON document per line, each one as soon as it is produced.
+     * Writes block while the client is not reading, which stops the stream from being pulled further: the
+     * generator and the servlet output buffers are all the stream's items ever take on the server.
+     * The stream must already be validated: once the body is being written, errors can no longer change the status.
+     */
+    private ResponseEntity<StreamingResponseBody> streamLines(Stream<?> items) {
+        StreamingResponseBody body = out -> {
+            try (items; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                for (Iterator<?> it = items.iterator(); it.hasNext(); ) {
+                    generator.writeObject(it.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Retrieves a paginated filmography of a person: principal roles, director and writer credits.
+     *
+     * @param id         The ID or name of the person.
+     * @param role       Optional role filter, e.g. actor, director or writer. Default is any credit.
+     * @param titleTypes Optional title types (e.g. movie, tvSeries), any of which may match.
+     * @param sort       The sort: title, year (default descending), rating, votes or weighted (rating),
+     *                   prefixed with '-' for descending order.
+     * @param page       The page number to retrieve (0-indexed). Default is 0.
+     * @param size       The number of items per page. Default is 10.
+     * @param cursor     The nextCursor of a previous page. When given, the page resumes right after it
+     *                   and the page parameter is ignored.
+     * @return A ResponseEntity containing a PagedResponse of FilmographyEntry objects.
+     * @throws InvalidParameterException If the role, sort or pagination parameters are invalid.
+     */
+    @GetMapping("/person/{id}/filmography")
+    public ResponseEntity<PagedResponse<FilmographyEntry>> getFilmography(
+            @PathVariable String id,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) List<String> titleTypes,
+            @RequestParam(defaultValue = "-year") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        requestCounterService.incrementCounter();
+        PageSlice<FilmographyEntry> entries = imdbDataService.getFilmography(id, role, titleTypes, sort, page, size, cursor);
+        return ResponseEntity.ok(PagedResponse.of(entries, page, size, cursor));
+    }
+
+    /**
+     * Exports the whole filmography of a person as NDJSON (one JSON FilmographyEntry per line), streamed
+     * with chunked transfer in title order.
+     *
+     * @param id         The ID or name of the person.
+     * @param role       Optional role filter, e.g. actor, director or writer. Default is any credit.
+     * @param titleTypes Optional title types (e.g. movie, tvSeries), any of which may match.
+     * @return A ResponseEntity streaming the filmography entries.
+     * @throws InvalidParameterException If the role is invalid.
+     */
+    @GetMapping(value = "/person/{id}/filmography/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilmography(
+            @PathVariable String id,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) List<String> titleTypes) {
+        requestCounterService.incrementCounter();
+        return streamLines(imdbDataService.exportFilmography(id, role, titleTypes));
+    }
+
+    /**
+     * Lists the people a person has worked with most often, with the titles they share.
+     *
+     * @param id    The ID or name of the person.
+     * @param kind  The kind of collaboration: any (default), actor-actor, actor-director,
+     *              director-actor, director-writer or writer-director.
+     * @param limit The maximum number of collaborators. Default is 10, at most 20.
+     * @return A ResponseEntity containing the list of Collaborator objects, most shared titles first.
+     * @throws InvalidParameterException If the kind is unknown or the limit is out of range.
+     */
+    @GetMapping("/person/{id}/collaborators")
+    public ResponseEntity<List<Collaborator>> getTopCollaborators(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "any") String kind,
+            @RequestParam(defaultValue = "10") int limit) {
+        requestCounterService.incrementCounter();
+        return ResponseEntity.ok(imdbDataService.getTopCollaborators(id, kind, limit));
+    }
+
+    /**
+     * Updates the death year of a person. Requires the admin token, see {@link AdminTokenInterceptor}.
+     *
+     * @param id        The unique identifier of the person. This parameter is required.
+     * @param deathYear The new death year. Omit it to mark the person as alive.
+     * @return A ResponseEntity containing the updated Person object.
+     * @throws InvalidParameterException If the id parameter is null or empty.
+     */
+    @PutMapping("/person/{id}/death-year")
+    public ResponseEntity<Person> updatePersonDeathYear(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer deathYear) {
+        requestCounterService.incrementCounter();
+        Person person = imdbDataService.updatePersonDeathYear(id, deathYear);
         return ResponseEntity.ok(person);
     }
 
+    /**
+     * Retrieves the titles most similar to a title ("more like this"), by shared cast, crew and genres.
+     *
+     * @param id    The unique identifier of the title.
+     * @param limit The maximum number of titles to return, from 1 to 100. Default is 10.
+     * @return A ResponseEntity containing the similar titles, most similar first.
+     * @throws InvalidParameterException If the limit is out of range.
+     */
+    @GetMapping("/title/{id}/similar")
+    public ResponseEntity<List<SimilarTitle>> getSimilarTitles(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "10") int limit) {
+        requestCounterService.incrementCounter();
+        return ResponseEntity.ok(imdbDataService.getSimilarTitles(id, limit));
+    }
+
+    /**
+     * Updates the rating and number of votes of a title. Rankings and leaderboards are updated accordingly.
+     * Requires the admin token, see {@link AdminTokenInterceptor}.
+     *
+     * @param id       The unique identifier of the title.
+     * @param rating   The new average rating, from 0 to 10.
+     * @param numVotes The new number of votes.
+     * @return A ResponseEntity containing the updated Title object.
+     * @throws InvalidParameterException If the rating or the number of votes is out of range.
+     */
+    @PutMapping("/title/{id}/rating")
+    public ResponseEntity<Title> updateTitleRating(
+            @PathVariable String id,
+            @RequestParam float rating,
+            @RequestParam int numVotes) {
+        requestCounterService.incrementCounter();
+        return ResponseEntity.ok(imdbDataService.updateTitleRating(id, rating, numVotes));
+    }
+
+    /**
+     * Re-reads the ratings file and applies the ratings that changed, without reloading the rest of the dataset.
+     * Requires the admin token, see {@link AdminTokenInterceptor}.
+     *
+     * @return A ResponseEntity containing a Map with the number of titles whose rating changed.
+     */
+    @PostMapping("/admin/ratings/refresh")
+    public ResponseEntity<Map<String, Integer>> refreshRatings() {
+        requestCounterService.incrementCounter();
+        return ResponseEntity.ok(Map.of("changed", imdbDataService.refreshRatings()));
+    }
+
+    /**
+     * Reloads the dataset and swaps it in once it is fully loaded and linked.
+     * Requires the admin token, see {@link AdminTokenInterceptor}.
+     *
+     * @return A ResponseEntity containing a Map with the number of titles and people loaded.
+     */
+    @PostMapping("/admin/reload")
+    public ResponseEntity<Map<String, Long>> reload() {
+        requestCounterService.incrementCounter();
+        imdbDataService.reload();
+        return ResponseEntity.ok(Map.of(
+                "titles", imdbDataService.getTitlesLoaded(),
+                "people", imdbDataService.getPeopleLoaded()));
+    }
+
+    /**
+     * Exports a table of the loaded dataset as an Arrow IPC file, written from the in-memory data
+     * in record batches while it is downloaded.
+     *
+     * @param table The table: titles, people, principals or ratings.
+     * @return A ResponseEntity streaming the Arrow file, as an attachment named after the table (e.g. titles.arrow).
+     * @throws InvalidParameterException If the table is unknown.
+     */
+    @GetMapping(value = "/export/arrow/{table}", produces = ArrowExporter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportArrow(@PathVariable String table) {
+        requestCounterService.incrementCounter();
+        ArrowTable arrowTable = ArrowTable.parse(table);
+        StreamingResponseBody body = out -> imdbDataService.exportArrow(arrowTable, Channels.newChannel(out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ArrowExporter.MEDIA_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(arrowTable.fileName()).build().toString())
+                .body(body);
+    }
+
     /**
      * Retrieves the total number of requests made to the API.
      *
@@ -159,4 +821,16 @@ public class ImdbController {
         long count = requestCounterService.getCount();
         return ResponseEntity.ok(Map.of("count", count));
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves the size of the query result cache, and its hits and misses by query.
+     *
+     * @return A ResponseEntity containing the number of cached results, their estimated size in bytes,
+     * the byte bound, the number of evictions, and the hits, misses and hit rate of each query.
+     */
+    @GetMapping("/stats/query-cache")
+    public ResponseEntity<QueryCacheStats> getQueryCacheStats() {
+        requestCounterService.incrementCounter();
+        return ResponseEntity.ok(imdbDataService.getQueryCacheStats());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.imdbdataset.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lets headers be set before the handler runs that only apply if the response turns out successful, such as
+ * the Cache-Control of the {@link ConditionalGetInterceptor}: errors must not be cached like the data.
+ * <p>
+ * The headers are set when the body is about to be written, once the status is known, if the status is 2xx
+ * and the handler did not set the header itself.
+ */
+public class SuccessHeadersFilter extends OncePerRequestFilter {
+
+    /**
+     * Sets a header on the response if it is successful, or right away if the response does not go through
+     * this filter.
+     */
+    static void setOnSuccess(HttpServletResponse response, String name, String value) {
+        Response deferring = WebUtils.getNativeResponse(response, Response.class);
+        if (deferring != null) {
+            deferring.onSuccess.put(name, value);
+        } else {
+            response.setHeader(name, value);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Response deferring = new Response(response);
+        chain.doFilter(request, deferring);
+        // Responses without a body
+        if (!request.isAsyncStarted()) {
+            deferring.apply();
+        }
+    }
+
+    private static final class Response extends HttpServletResponseWrapper {
+        private final Map<String, String> onSuccess = new LinkedHashMap<>();
+        private boolean applied;
+
+        Response(HttpServletResponse response) {
+            super(response);
+        }
+
+        void apply() {
+            if (applied) {
+                return;
+            }
+            applied = true;
+            int status = getStatus();
+            if (status >= 200 && status < 300) {
+                onSuccess.forEach((name, value) -> {
+                    if (!containsHeader(name)) {
+                        setHeader(name, value);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            apply();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            apply();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            apply();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            applied = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            applied = true;
+            super.sendError(sc);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.imdbdataset.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchLookupRequest {
+    private List<String> ids;
+}
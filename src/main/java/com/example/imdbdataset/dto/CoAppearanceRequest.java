@@ -0,0 +1,12 @@
+package com.example.imdbdataset.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CoAppearanceRequest {
+    private List<String> people;
+    private String role;
+    private boolean includeTitles;
+}
@@ -1,14 +1,16 @@
 package com.example.imdbdataset.dto;
 
+import com.example.imdbdataset.model.dto.PageSlice;
 import lombok.Data;
 import java.util.List;
 
 @Data
 public class PagedResponse<T> {
     private List<T> items;
-    private int currentPage;
+    private Integer currentPage; // null when the page was resumed from a cursor, which ignores page numbers
     private long totalItems;
     private int totalPages;
+    private String nextCursor;
 
     public static <T> PagedResponse<T> of(List<T> items, int page, int size, long total) {
         PagedResponse<T> response = new PagedResponse<>();
@@ -18,4 +20,13 @@ public class PagedResponse<T> {
         response.setTotalPages((int) Math.ceil((double) total / size));
         return response;
     }
-}
\ No newline at end of file
+
+    public static <T> PagedResponse<T> of(PageSlice<T> slice, int page, int size, String cursor) {
+        PagedResponse<T> response = of(slice.getItems(), page, size, slice.getTotalItems());
+        if (cursor != null) {
+            response.setCurrentPage(null);
+        }
+        response.setNextCursor(slice.getNextCursor());
+        return response;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.imdbdataset.exception;
+
+public class AccessDeniedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AccessDeniedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.imdbdataset.export;
+
+import com.example.imdbdataset.service.ImdbDataService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The command-line mode of the Arrow export: started with {@code --export-arrow=<directory>}, the
+ * application loads the dataset, writes every {@link ArrowTable} to its file in the directory and
+ * exits, without starting the web server.
+ */
+@Component
+public class ArrowExportRunner implements ApplicationRunner {
+
+    public static final String OPTION = "export-arrow";
+
+    private final ImdbDataService imdbDataService;
+
+    public ArrowExportRunner(ImdbDataService imdbDataService) {
+        this.imdbDataService = imdbDataService;
+    }
+
+    /**
+     * @return Whether the command line asks for the export instead of the web application.
+     */
+    public static boolean isRequested(String[] args) {
+        return Arrays.stream(args).anyMatch(arg -> arg.startsWith("--" + OPTION + "="));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> values = args.getOptionValues(OPTION);
+        if (values == null) {
+            return;
+        }
+        if (values.size() != 1 || values.get(0).isBlank()) {
+            throw new IllegalArgumentException("--" + OPTION + " takes one directory");
+        }
+        Path directory = Files.createDirectories(Path.of(values.get(0)));
+        for (ArrowTable table : ArrowTable.values()) {
+            Path file = directory.resolve(table.fileName());
+            try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+                imdbDataService.exportArrow(table, channel);
+            }
+            System.out.println("Exported " + table.label() + " to " + file + " (" + Files.size(file) + " bytes)");
+        }
+    }
+}
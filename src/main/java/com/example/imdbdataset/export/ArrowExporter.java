@@ -0,0 +1,330 @@
+package com.example.imdbdataset.export;
+
+import com.example.imdbdataset.index.DatasetIndex;
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.TitlePrincipal;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Writes the loaded dataset as Arrow IPC files (the random-access file format, also known as Feather v2),
+ * straight from the linked titles, people and principals of the service: no TSV is read again, and
+ * readers can memory-map the files instead of parsing them.
+ * <ul>
+ *   <li>titles: tconst, titleType*, primaryTitle, originalTitle, isAdult, startYear, endYear,
+ *       runtimeMinutes, genres* (list)</li>
+ *   <li>people: nconst, primaryName, birthYear, deathYear, primaryProfessions* (list), knownForTitles (list)</li>
+ *   <li>principals: tconst, ordering, nconst, category*, job, characters</li>
+ *   <li>ratings: tconst, averageRating, numVotes; the ratings the service currently answers with, rated titles only</li>
+ * </ul>
+ * Columns marked * are categorical and dictionary-encoded: int32 indices into the sorted distinct
+ * values, written once at the start of the file. Missing values are nulls. Rows are in index
+ * order, in record batches of up to {@value #BATCH_ROWS} rows, so that only one batch is ever in memory.
+ */
+public final class ArrowExporter {
+
+    /**
+     * The media type of Arrow IPC files.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.apache.arrow.file";
+
+    static final int BATCH_ROWS = 65_536;
+
+    private static final ArrowType.Int INDEX_TYPE = new ArrowType.Int(32, true);
+
+    private final DatasetIndex index;
+    private final Map<String, List<TitlePrincipal>> principalsByTitle;
+
+    /**
+     * @param index             The titles and people to export.
+     * @param principalsByTitle The principals of the titles, by tconst. Principals of titles missing
+     *                          from the index are not exported.
+     */
+    public ArrowExporter(DatasetIndex index, Map<String, List<TitlePrincipal>> principalsByTitle) {
+        this.index = index;
+        this.principalsByTitle = principalsByTitle;
+    }
+
+    /**
+     * Writes one table as an Arrow IPC file, then closes the channel.
+     *
+     * @throws IOException If the channel cannot be written to.
+     */
+    public void write(ArrowTable table, WritableByteChannel channel) throws IOException {
+        try (BufferAllocator allocator = new RootAllocator()) {
+            switch (table) {
+                case TITLES -> writeTitles(allocator, channel);
+                case PEOPLE -> writePeople(allocator, channel);
+                case PRINCIPALS -> writePrincipals(allocator, channel);
+                case RATINGS -> writeRatings(allocator, channel);
+            }
+        }
+    }
+
+    private void writeTitles(BufferAllocator allocator, WritableByteChannel channel) throws IOException {
+        Categories titleTypes = new Categories(0, index.attributes().titleTypes());
+        Categories genres = new Categories(1, index.attributes().genres());
+        Schema schema = new Schema(List.of(
+                string("tconst", false),
+                titleTypes.field("titleType"),
+                string("primaryTitle", true),
+                string("originalTitle", true),
+                new Field("isAdult", FieldType.notNullable(ArrowType.Bool.INSTANCE), null),
+                int32("startYear", true),
+                int32("endYear", true),
+                int32("runtimeMinutes", true),
+                list("genres", genres.field("genre"))));
+
+        write(allocator, schema, List.of(titleTypes, genres), titles().iterator(), (root, row, title) -> {
+            setString(root.getVector(0), row, title.getTconst());
+            titleTypes.set(root.getVector(1), row, title.getTitleType());
+            setString(root.getVector(2), row, title.getPrimaryTitle());
+            setString(root.getVector(3), row, title.getOriginalTitle());
+            ((BitVector) root.getVector(4)).setSafe(row, title.isAdult() ? 1 : 0);
+            setInt(root.getVector(5), row, title.getStartYear());
+            setInt(root.getVector(6), row, title.getEndYear());
+            setInt(root.getVector(7), row, title.getRuntimeMinutes());
+            genres.setList(root.getVector(8), row, title.getGenres());
+        }, channel);
+    }
+
+    private void writePeople(BufferAllocator allocator, WritableByteChannel channel) throws IOException {
+        Categories professions = new Categories(0, people()
+                .map(Person::getPrimaryProfessions)
+                .filter(Objects::nonNull)
+                .flatMap(Arrays::stream)
+                .collect(Collectors.toSet()));
+        Schema schema = new Schema(List.of(
+                string("nconst", false),
+                string("primaryName", true),
+                int32("birthYear", true),
+                int32("deathYear", true),
+                list("primaryProfessions", professions.field("profession")),
+                list("knownForTitles", string("tconst", false))));
+
+        write(allocator, schema, List.of(professions), people().iterator(), (root, row, person) -> {
+            setString(root.getVector(0), row, person.getNconst());
+            setString(root.getVector(1), row, person.getPrimaryName());
+            setInt(root.getVector(2), row, person.getBirthYear());
+            setInt(root.getVector(3), row, person.getDeathYear());
+            professions.setList(root.getVector(4), row,
+                    person.getPrimaryProfessions() == null ? null : Arrays.asList(person.getPrimaryProfessions()));
+            setStrings(root.getVector(5), row, person.getKnownForTitles());
+        }, channel);
+    }
+
+    private void writePrincipals(BufferAllocator allocator, WritableByteChannel channel) throws IOException {
+        Categories categories = new Categories(0, principals().map(TitlePrincipal::getCategory).collect(Collectors.toSet()));
+        Schema schema = new Schema(List.of(
+                string("tconst", false),
+                int32("ordering", false),
+                string("nconst", false),
+                categories.field("category"),
+                string("job", true),
+                string("characters", true)));
+
+        write(allocator, schema, List.of(categories), principals().iterator(), (root, row, principal) -> {
+            setString(root.getVector(0), row, principal.getTconst());
+            setInt(root.getVector(1), row, principal.getOrdering());
+            setString(root.getVector(2), row, principal.getNconst());
+            categories.set(root.getVector(3), row, principal.getCategory());
+            setString(root.getVector(4), row, principal.getJob());
+            setString(root.getVector(5), row, principal.getCharacters());
+        }, channel);
+    }
+
+    private void writeRatings(BufferAllocator allocator, WritableByteChannel channel) throws IOException {
+        Schema schema = new Schema(List.of(
+                string("tconst", false),
+                new Field("averageRating", FieldType.notNullable(
+                        new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE)), null),
+                int32("numVotes", true)));
+
+        Iterator<Title> rated = titles().filter(title -> title.getRating() != null).iterator();
+        write(allocator, schema, List.of(), rated, (root, row, title) -> {
+            setString(root.getVector(0), row, title.getTconst());
+            ((Float4Vector) root.getVector(1)).setSafe(row, title.getRating());
+            setInt(root.getVector(2), row, title.getNumVotes());
+        }, channel);
+    }
+
+    private Stream<Title> titles() {
+        return IntStream.range(0, index.titleCount()).mapToObj(index::title);
+    }
+
+    private Stream<Person> people() {
+        return IntStream.range(0, index.personCount()).mapToObj(index::person);
+    }
+
+    private Stream<TitlePrincipal> principals() {
+        return titles().flatMap(title -> principalsByTitle.getOrDefault(title.getTconst(), List.of()).stream());
+    }
+
+    /**
+     * Writes rows as record batches of one schema, after the dictionaries of its categorical columns.
+     */
+    private static <T> void write(BufferAllocator allocator, Schema schema, List<Categories> categories,
+                                  Iterator<T> rows, RowWriter<T> rowWriter, WritableByteChannel channel) throws IOException {
+        DictionaryProvider.MapDictionaryProvider dictionaries = new DictionaryProvider.MapDictionaryProvider();
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator)) {
+            for (Categories category : categories) {
+                dictionaries.put(category.dictionary(allocator));
+            }
+            try (ArrowFileWriter writer = new ArrowFileWriter(root, dictionaries, channel)) {
+                writer.start();
+                while (rows.hasNext()) {
+                    root.allocateNew();
+                    int row = 0;
+                    while (row < BATCH_ROWS && rows.hasNext()) {
+                        rowWriter.write(root, row++, rows.next());
+                    }
+                    root.setRowCount(row);
+                    writer.writeBatch();
+                }
+                writer.end();
+            }
+        } finally {
+            for (long id : dictionaries.getDictionaryIds()) {
+                dictionaries.lookup(id).getVector().close();
+            }
+        }
+    }
+
+    private static Field string(String name, boolean nullable) {
+        return new Field(name, new FieldType(nullable, ArrowType.Utf8.INSTANCE, null), null);
+    }
+
+    private static Field int32(String name, boolean nullable) {
+        return new Field(name, new FieldType(nullable, new ArrowType.Int(32, true), null), null);
+    }
+
+    private static Field list(String name, Field element) {
+        return new Field(name, FieldType.nullable(ArrowType.List.INSTANCE), List.of(element));
+    }
+
+    private static void setString(FieldVector vector, int row, String value) {
+        if (value == null) {
+            ((VarCharVector) vector).setNull(row);
+        } else {
+            ((VarCharVector) vector).setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void setInt(FieldVector vector, int row, Integer value) {
+        if (value == null) {
+            ((IntVector) vector).setNull(row);
+        } else {
+            ((IntVector) vector).setSafe(row, value);
+        }
+    }
+
+    private static void setStrings(FieldVector vector, int row, String[] values) {
+        ListVector list = (ListVector) vector;
+        if (values == null) {
+            list.setNull(row);
+            return;
+        }
+        int offset = list.startNewValue(row);
+        VarCharVector elements = (VarCharVector) list.getDataVector();
+        for (int i = 0; i < values.length; i++) {
+            elements.setSafe(offset + i, values[i].getBytes(StandardCharsets.UTF_8));
+        }
+        list.endValue(row, values.length);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(VectorSchemaRoot root, int row, T item);
+    }
+
+    /**
+     * The sorted distinct values of a categorical column, and their dictionary encoding.
+     */
+    private static final class Categories {
+
+        private final String[] values;
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final DictionaryEncoding encoding;
+
+        Categories(long id, Collection<String> values) {
+            Set<String> sorted = new TreeSet<>();
+            for (String value : values) {
+                if (value != null) {
+                    sorted.add(value);
+                }
+            }
+            this.values = sorted.toArray(String[]::new);
+            for (int i = 0; i < this.values.length; i++) {
+                indices.put(this.values[i], i);
+            }
+            this.encoding = new DictionaryEncoding(id, true, INDEX_TYPE);
+        }
+
+        Field field(String name) {
+            return new Field(name, new FieldType(true, INDEX_TYPE, encoding), null);
+        }
+
+        Dictionary dictionary(BufferAllocator allocator) {
+            VarCharVector vector = new VarCharVector("dictionary-" + encoding.getId(), allocator);
+            vector.allocateNew(values.length);
+            for (int i = 0; i < values.length; i++) {
+                vector.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+            }
+            vector.setValueCount(values.length);
+            return new Dictionary(vector, encoding);
+        }
+
+        void set(FieldVector vector, int row, String value) {
+            Integer position = value == null ? null : indices.get(value);
+            setInt(vector, row, position);
+        }
+
+        void setList(FieldVector vector, int row, Collection<String> values) {
+            ListVector list = (ListVector) vector;
+            if (values == null) {
+                list.setNull(row);
+                return;
+            }
+            int offset = list.startNewValue(row);
+            IntVector elements = (IntVector) list.getDataVector();
+            int count = 0;
+            for (String value : values) {
+                elements.setSafe(offset + count++, indices.get(value));
+            }
+            list.endValue(row, count);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.imdbdataset.export;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The tables of the Arrow export, one Arrow IPC file each. See {@link ArrowExporter} for their columns.
+ */
+public enum ArrowTable {
+    TITLES, PEOPLE, PRINCIPALS, RATINGS;
+
+    /**
+     * @return The name of the table as given in requests, e.g. "titles".
+     */
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return The name of the file the table is exported to, e.g. "titles.arrow".
+     */
+    public String fileName() {
+        return label() + ".arrow";
+    }
+
+    /**
+     * Parses a table given as a request parameter (case-insensitive).
+     *
+     * @throws InvalidParameterException If the value is not a table.
+     */
+    public static ArrowTable parse(String value) {
+        if (value != null) {
+            for (ArrowTable table : values()) {
+                if (table.label().equalsIgnoreCase(value.trim())) {
+                    return table;
+                }
+            }
+        }
+        throw new InvalidParameterException("Unknown table: " + value + ". Supported tables: "
+                + Arrays.stream(values()).map(ArrowTable::label).collect(Collectors.joining(", ")));
+    }
+}
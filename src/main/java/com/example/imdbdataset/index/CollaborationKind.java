@@ -0,0 +1,48 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The kinds of collaborations for which top collaborators are precomputed: the role of the person
+ * and the role of their collaborator on the shared titles.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CollaborationKind {
+    ANY(CreditRole.ANY, CreditRole.ANY),
+    ACTOR_ACTOR(CreditRole.ACTOR, CreditRole.ACTOR),
+    ACTOR_DIRECTOR(CreditRole.ACTOR, CreditRole.DIRECTOR),
+    DIRECTOR_ACTOR(CreditRole.DIRECTOR, CreditRole.ACTOR),
+    DIRECTOR_WRITER(CreditRole.DIRECTOR, CreditRole.WRITER),
+    WRITER_DIRECTOR(CreditRole.WRITER, CreditRole.DIRECTOR);
+
+    private final CreditRole personRole;
+    private final CreditRole collaboratorRole;
+
+    /**
+     * Parses a kind given as a request parameter, e.g. "any" or "actor-director" (case-insensitive).
+     *
+     * @param value The kind. Null or empty means {@link #ANY}.
+     * @return The matching kind.
+     * @throws InvalidParameterException If the value is not a supported kind.
+     */
+    public static CollaborationKind parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return ANY;
+        }
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Unknown collaboration kind: " + value + ". Supported kinds: "
+                    + Arrays.stream(values())
+                    .map(kind -> kind.name().replace('_', '-').toLowerCase(Locale.ROOT))
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.imdbdataset.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the shortest collaboration paths between two people: chains of people where every two
+ * consecutive people are credited on a common title.
+ * <p>
+ * The search is a bidirectional breadth-first search over the person–title bipartite graph, read
+ * straight from the posting lists ({@link DatasetIndex#titlesOf}) and their inverse
+ * ({@link DatasetIndex#peopleOf}). Each step expands one whole level of whichever side has the
+ * smaller frontier, so the search meets in the middle instead of fanning out from one end, and it
+ * stops at the first level where the two sides meet. The visited nodes of every side are kept in
+ * int-keyed open-addressing tables over flat int arrays, so a search allocates per level, not per node.
+ * <p>
+ * Instances hold the state of a single search and are not reusable.
+ */
+public final class CollaborationPathFinder {
+
+    /**
+     * How many edges are followed between two checks of the time budget.
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private static final CreditRole[] ANY_ROLE = {CreditRole.ANY};
+
+    private final DatasetIndex index;
+    private final CreditRole[] roles;
+    private final boolean anyRole;
+    private final int maxPaths;
+    private final long deadline;
+    private int edges;
+    private boolean timedOut;
+
+    /**
+     * @param index           The index to search.
+     * @param roles           The roles in which people must be credited on the titles linking them.
+     *                        Empty, or containing {@link CreditRole#ANY}, means any role.
+     * @param maxPaths        The maximum number of shortest paths to return.
+     * @param timeBudgetNanos How long the search may run before giving up.
+     */
+    public CollaborationPathFinder(DatasetIndex index, Set<CreditRole> roles, int maxPaths, long timeBudgetNanos) {
+        this.index = index;
+        this.anyRole = roles.isEmpty() || roles.contains(CreditRole.ANY);
+        this.roles = anyRole ? ANY_ROLE : EnumSet.copyOf(roles).toArray(new CreditRole[0]);
+        this.maxPaths = maxPaths;
+        this.deadline = System.nanoTime() + timeBudgetNanos;
+    }
+
+    /**
+     * Searches the shortest paths between two people.
+     *
+     * @param from     The ordinal of the first person.
+     * @param to       The ordinal of the second person.
+     * @param maxDepth The maximum number of titles on a path.
+     * @return Up to maxPaths shortest paths, each as alternating person and title ordinals starting
+     * and ending with a person. Empty if the people are not connected within maxDepth titles,
+     * or if the time budget ran out (see {@link #isTimedOut()}).
+     */
+    public List<int[]> find(int from, int to, int maxDepth) {
+        if (from == to) {
+            return List.of(new int[]{from});
+        }
+        Side forward = new Side(from);
+        Side backward = new Side(to);
+
+        while (forward.frontier.length > 0 && backward.frontier.length > 0
+                && forward.depth + backward.depth < 2 * maxDepth) {
+            Side side = forward.frontier.length <= backward.frontier.length ? forward : backward;
+            Side other = side == forward ? backward : forward;
+            if (!expand(side)) {
+                return List.of();
+            }
+
+            List<Integer> meetings = new ArrayList<>();
+            int shortest = Integer.MAX_VALUE;
+            Visits otherVisits = other.visits(side.frontierPeople);
+            for (int node : side.frontier) {
+                int visit = otherVisits.find(node);
+                if (visit < 0) {
+                    continue;
+                }
+                int length = side.depth + otherVisits.depth(visit);
+                if (length < shortest) {
+                    shortest = length;
+                    meetings.clear();
+                }
+                if (length == shortest) {
+                    meetings.add(node);
+                }
+            }
+            if (!meetings.isEmpty() && shortest <= 2 * maxDepth) {
+                return paths(forward, backward, meetings, side.frontierPeople);
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * @return Whether the last search gave up because its time budget ran out.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Expands every node of the side's frontier by one level.
+     *
+     * @return false if the time budget ran out.
+     */
+    private boolean expand(Side side) {
+        Visits targets = side.visits(!side.frontierPeople);
+        int nextDepth = side.depth + 1;
+        int[] next = new int[16];
+        int size = 0;
+
+        for (int node : side.frontier) {
+            for (CreditRole role : side.frontierPeople ? roles : ANY_ROLE) {
+                int[] neighbors = side.frontierPeople ? index.titlesOf(node, role) : index.peopleOf(node);
+                for (int neighbor : neighbors) {
+                    if (++edges % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                        timedOut = true;
+                        return false;
+                    }
+                    if (!side.frontierPeople && !isCredited(neighbor, node)) {
+                        continue;
+                    }
+                    int visit = targets.find(neighbor);
+                    if (visit < 0) {
+                        visit = targets.add(neighbor, nextDepth);
+                        if (size == next.length) {
+                            next = Arrays.copyOf(next, size * 2);
+                        }
+                        next[size++] = neighbor;
+                    }
+                    if (targets.depth(visit) == nextDepth) {
+                        targets.addParent(visit, node, maxPaths);
+                    }
+                }
+            }
+        }
+
+        side.frontier = Arrays.copyOf(next, size);
+        side.frontierPeople = !side.frontierPeople;
+        side.depth = nextDepth;
+        return true;
+    }
+
+    /**
+     * @return Whether the person is credited on the title in one of the searched roles.
+     */
+    private boolean isCredited(int person, int title) {
+        if (anyRole) {
+            return true;
+        }
+        for (CreditRole role : roles) {
+            if (Arrays.binarySearch(index.titlesOf(person, role), title) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Joins the paths from the start to every meeting node with the paths from that node to the end.
+     */
+    private List<int[]> paths(Side forward, Side backward, List<Integer> meetings, boolean meetingPeople) {
+        List<int[]> paths = new ArrayList<>();
+        for (int meeting : meetings) {
+            for (int[] head : pathsTo(forward, meeting, meetingPeople)) {
+                for (int[] tail : pathsTo(backward, meeting, meetingPeople)) {
+                    int[] path = Arrays.copyOf(head, head.length + tail.length - 1);
+                    for (int i = 1; i < tail.length; i++) {
+                        path[head.length - 1 + i] = tail[tail.length - 1 - i];
+                    }
+                    paths.add(path);
+                    if (paths.size() == maxPaths) {
+                        return paths;
+                    }
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @return Up to maxPaths paths from the root of the side to the node, root first.
+     */
+    private List<int[]> pathsTo(Side side, int node, boolean isPerson) {
+        Visits visits = side.visits(isPerson);
+        int visit = visits.find(node);
+        if (visits.depth(visit) == 0) {
+            return List.of(new int[]{node});
+        }
+        List<int[]> paths = new ArrayList<>();
+        for (int link = visits.firstParent(visit); link >= 0 && paths.size() < maxPaths;
+             link = visits.nextParent(link)) {
+            for (int[] prefix : pathsTo(side, visits.parent(link), !isPerson)) {
+                int[] path = Arrays.copyOf(prefix, prefix.length + 1);
+                path[prefix.length] = node;
+                paths.add(path);
+                if (paths.size() == maxPaths) {
+                    break;
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * The state of one direction of the search.
+     */
+    private static final class Side {
+        private final Visits people = new Visits();
+        private final Visits titles = new Visits();
+        private int[] frontier;
+        private boolean frontierPeople = true;
+        private int depth;
+
+        Side(int root) {
+            people.add(root, 0);
+            frontier = new int[]{root};
+        }
+
+        Visits visits(boolean ofPeople) {
+            return ofPeople ? people : titles;
+        }
+    }
+
+    /**
+     * The visited nodes of one kind on one side: for every node, its distance from the root and the
+     * nodes it was first reached from. Only as many parents as there are paths to return are kept.
+     * <p>
+     * Nodes are numbered as visits in the order they are added, through an open-addressing hash table
+     * keyed by ordinal; the depths and parent lists of the visits, and the parent links, are flat int
+     * arrays.
+     */
+    private static final class Visits {
+        private static final int INITIAL_CAPACITY = 64;
+
+        // Hash table: node ordinal + 1 (0 for a free slot), and the visit of the node
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private int[] slotVisits = new int[INITIAL_CAPACITY];
+
+        // By visit: depth, first and last parent link, and parent count
+        private int[] depths = new int[INITIAL_CAPACITY / 2];
+        private int[] firstParents = new int[INITIAL_CAPACITY / 2];
+        private int[] lastParents = new int[INITIAL_CAPACITY / 2];
+        private int[] parentCounts = new int[INITIAL_CAPACITY / 2];
+        private int size;
+
+        // By parent link: the parent, and the next link of the same visit or -1
+        private int[] parents = new int[INITIAL_CAPACITY / 2];
+        private int[] nextParents = new int[INITIAL_CAPACITY / 2];
+        private int links;
+
+        /**
+         * @return The visit of the node, or -1 if it was not visited.
+         */
+        int find(int node) {
+            int mask = keys.length - 1;
+            for (int slot = hash(node) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == node + 1) {
+                    return slotVisits[slot];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a node that was not visited yet.
+         *
+         * @return Its visit.
+         */
+        int add(int node, int depth) {
+            if (2 * (size + 1) > keys.length) {
+                rehash(keys.length * 2);
+            }
+            if (size == depths.length) {
+                depths = Arrays.copyOf(depths, size * 2);
+                firstParents = Arrays.copyOf(firstParents, size * 2);
+                lastParents = Arrays.copyOf(lastParents, size * 2);
+                parentCounts = Arrays.copyOf(parentCounts, size * 2);
+            }
+            int visit = size++;
+            depths[visit] = depth;
+            firstParents[visit] = -1;
+            lastParents[visit] = -1;
+            parentCounts[visit] = 0;
+            insert(node, visit);
+            return visit;
+        }
+
+        int depth(int visit) {
+            return depths[visit];
+        }
+
+        void addParent(int visit, int parent, int maxParents) {
+            int last = lastParents[visit];
+            // A title listed under several roles of the same person is reached from them repeatedly
+            if (parentCounts[visit] == maxParents || (last >= 0 && parents[last] == parent)) {
+                return;
+            }
+            if (links == parents.length) {
+                parents = Arrays.copyOf(parents, links * 2);
+                nextParents = Arrays.copyOf(nextParents, links * 2);
+            }
+            int link = links++;
+            parents[link] = parent;
+            nextParents[link] = -1;
+            if (last < 0) {
+                firstParents[visit] = link;
+            } else {
+                nextParents[last] = link;
+            }
+            lastParents[visit] = link;
+            parentCounts[visit]++;
+        }
+
+        /**
+         * @return The first parent link of the visit, in the order the parents were added, or -1 if it has none.
+         */
+        int firstParent(int visit) {
+            return firstParents[visit];
+        }
+
+        /**
+         * @return The parent link following the given one, or -1 if it was the last.
+         */
+        int nextParent(int link) {
+            return nextParents[link];
+        }
+
+        int parent(int link) {
+            return parents[link];
+        }
+
+        private void insert(int node, int visit) {
+            int mask = keys.length - 1;
+            int slot = hash(node) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = node + 1;
+            slotVisits[slot] = visit;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldVisits = slotVisits;
+            keys = new int[capacity];
+            slotVisits = new int[capacity];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    insert(oldKeys[slot] - 1, oldVisits[slot]);
+                }
+            }
+        }
+
+        private static int hash(int node) {
+            int h = node * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
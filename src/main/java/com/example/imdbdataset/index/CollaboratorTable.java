@@ -0,0 +1,166 @@
+package com.example.imdbdataset.index;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.stream.IntStream;
+
+/**
+ * The precomputed top collaborators of every person, for every {@link CollaborationKind}.
+ * <p>
+ * For each kind, the collaborators of all people are stored in one compressed sparse row layout:
+ * person p's collaborators are {@code collaborators[offsets[p] .. offsets[p + 1])}, most frequent
+ * first, with the number of shared titles at the same positions in {@code counts}.
+ * Only the top {@link #TOP_COLLABORATORS} are kept per person.
+ * <p>
+ * The table is built once per {@link DatasetIndex}, in parallel over people, and keeps a reference
+ * to that index so that ordinals are always resolved against the data they were computed from.
+ */
+public final class CollaboratorTable {
+
+    public static final int TOP_COLLABORATORS = 20;
+
+    private final DatasetIndex index;
+    private final EnumMap<CollaborationKind, Rows> rows;
+
+    private CollaboratorTable(DatasetIndex index, EnumMap<CollaborationKind, Rows> rows) {
+        this.index = index;
+        this.rows = rows;
+    }
+
+    /**
+     * Computes the top collaborators of every person in the index.
+     *
+     * @param index The index to compute them from.
+     * @return The new table.
+     */
+    public static CollaboratorTable build(DatasetIndex index) {
+        EnumMap<CollaborationKind, Rows> rows = new EnumMap<>(CollaborationKind.class);
+        for (CollaborationKind kind : CollaborationKind.values()) {
+            rows.put(kind, buildRows(index, kind));
+        }
+        return new CollaboratorTable(index, rows);
+    }
+
+    private static Rows buildRows(DatasetIndex index, CollaborationKind kind) {
+        int personCount = index.personCount();
+        ThreadLocal<Counter> counters = ThreadLocal.withInitial(Counter::new);
+
+        long[][] top = new long[personCount][];
+        IntStream.range(0, personCount).parallel()
+                .forEach(p -> top[p] = counters.get().topCollaborators(index, kind, p));
+
+        int[] offsets = new int[personCount + 1];
+        for (int p = 0; p < personCount; p++) {
+            offsets[p + 1] = offsets[p] + top[p].length;
+        }
+        int[] collaborators = new int[offsets[personCount]];
+        int[] counts = new int[offsets[personCount]];
+        for (int p = 0; p < personCount; p++) {
+            for (int i = 0; i < top[p].length; i++) {
+                collaborators[offsets[p] + i] = Counter.ordinal(top[p][i]);
+                counts[offsets[p] + i] = Counter.count(top[p][i]);
+            }
+        }
+        return new Rows(offsets, collaborators, counts);
+    }
+
+    /**
+     * Returns the same table over another version of the same index, e.g. after a ratings refresh.
+     * Credits, and so collaborators, are the same in both.
+     *
+     * @param updated The new version of the index the table was computed from.
+     * @return The table resolving ordinals against the new index.
+     */
+    public CollaboratorTable withIndex(DatasetIndex updated) {
+        return new CollaboratorTable(updated, rows);
+    }
+
+    /**
+     * @return The index the table was computed from.
+     */
+    public DatasetIndex index() {
+        return index;
+    }
+
+    /**
+     * @return The ordinals of the person's top collaborators, most frequent first.
+     */
+    public int[] collaborators(CollaborationKind kind, int personOrdinal) {
+        Rows kindRows = rows.get(kind);
+        return Arrays.copyOfRange(kindRows.collaborators, kindRows.offsets[personOrdinal], kindRows.offsets[personOrdinal + 1]);
+    }
+
+    /**
+     * @return The number of titles shared with each of {@link #collaborators}, at the same positions.
+     */
+    public int[] sharedTitleCounts(CollaborationKind kind, int personOrdinal) {
+        Rows kindRows = rows.get(kind);
+        return Arrays.copyOfRange(kindRows.counts, kindRows.offsets[personOrdinal], kindRows.offsets[personOrdinal + 1]);
+    }
+
+    private static final class Rows {
+        private final int[] offsets;
+        private final int[] collaborators;
+        private final int[] counts;
+
+        Rows(int[] offsets, int[] collaborators, int[] counts) {
+            this.offsets = offsets;
+            this.collaborators = collaborators;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * Per-thread scratch space to count the collaborators of one person at a time.
+     * Co-credits are gathered then sorted and counted run by run, so the scratch space grows with
+     * the number of co-credits of the busiest person rather than with the number of people.
+     */
+    private static final class Counter {
+        private int[] coCredits = new int[256];
+
+        /**
+         * @return The person's top collaborators, packed so that ascending order is
+         * most shared titles first, then ascending ordinal.
+         */
+        long[] topCollaborators(DatasetIndex index, CollaborationKind kind, int person) {
+            int size = 0;
+            for (int t : index.titlesOf(person, kind.getPersonRole())) {
+                for (int other : index.peopleOf(t)) {
+                    if (other == person || !isCredited(index, other, kind.getCollaboratorRole(), t)) {
+                        continue;
+                    }
+                    if (size == coCredits.length) {
+                        coCredits = Arrays.copyOf(coCredits, size * 2);
+                    }
+                    coCredits[size++] = other;
+                }
+            }
+            Arrays.sort(coCredits, 0, size);
+
+            long[] packed = new long[size];
+            int n = 0;
+            for (int i = 0; i < size; ) {
+                int other = coCredits[i];
+                int run = i;
+                while (i < size && coCredits[i] == other) {
+                    i++;
+                }
+                packed[n++] = ((long) (Integer.MAX_VALUE - (i - run)) << 32) | other;
+            }
+            Arrays.sort(packed, 0, n);
+            return Arrays.copyOf(packed, Math.min(n, TOP_COLLABORATORS));
+        }
+
+        private static boolean isCredited(DatasetIndex index, int person, CreditRole role, int title) {
+            return role == CreditRole.ANY || Arrays.binarySearch(index.titlesOf(person, role), title) >= 0;
+        }
+
+        static int ordinal(long packed) {
+            return (int) packed;
+        }
+
+        static int count(long packed) {
+            return Integer.MAX_VALUE - (int) (packed >>> 32);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+
+import java.util.Locale;
+
+/**
+ * The roles a person can be credited with on a title.
+ * Principal categories are mapped onto these roles, and crew directors/writers are
+ * mapped onto {@link #DIRECTOR} and {@link #WRITER}. {@link #ANY} matches every credit.
+ */
+public enum CreditRole {
+    ANY,
+    ACTOR,
+    DIRECTOR,
+    WRITER,
+    PRODUCER,
+    COMPOSER,
+    CINEMATOGRAPHER,
+    EDITOR,
+    SELF;
+
+    /**
+     * Maps a principal category (as found in title.principals) to a credit role.
+     *
+     * @param category The principal category, e.g. "actor", "actress" or "director".
+     * @return The matching credit role, or null if the category has no dedicated role.
+     */
+    public static CreditRole fromCategory(String category) {
+        if (category == null) {
+            return null;
+        }
+        return switch (category) {
+            case "actor", "actress" -> ACTOR;
+            case "director" -> DIRECTOR;
+            case "writer" -> WRITER;
+            case "producer" -> PRODUCER;
+            case "composer" -> COMPOSER;
+            case "cinematographer" -> CINEMATOGRAPHER;
+            case "editor" -> EDITOR;
+            case "self" -> SELF;
+            default -> null;
+        };
+    }
+
+    /**
+     * Parses a role given as a request parameter (case-insensitive).
+     *
+     * @param value The role name, e.g. "actor" or "director".
+     * @return The matching credit role.
+     * @throws InvalidParameterException If the value is null, empty or not a known role.
+     */
+    public static CreditRole parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new InvalidParameterException("role parameter cannot be null or empty");
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Unknown role: " + value);
+        }
+    }
+}
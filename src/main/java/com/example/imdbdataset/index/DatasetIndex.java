@@ -0,0 +1,549 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.TitleCrew;
+import com.example.imdbdataset.model.TitlePrincipal;
+import com.example.imdbdataset.model.dto.PageSlice;
+import com.example.imdbdataset.util.PageCursor;
+import com.example.imdbdataset.util.PaginationUtil;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * An immutable, ordinal-based view of the loaded dataset.
+ * Every title and person is given a dense integer ordinal, and every person has one
+ * posting list per {@link CreditRole}: the ascending ordinals of the titles they are credited on.
+ * Queries that combine several people can then intersect plain int arrays instead of
+ * building and probing sets of title IDs.
+ * <p>
+ * Titles are also indexed by attribute, see {@link TitleAttributeIndex}, and their numeric
+ * attributes are stored column by column, see {@link TitleColumns}.
+ * <p>
+ * Title ordinals are assigned in primary title order, so a title's ordinal is also its rank
+ * by name: posting lists are already sorted by name, and ordering titles by name is an int compare.
+ */
+public final class DatasetIndex {
+
+    /**
+     * The order in which title ordinals are assigned. Ties are broken by tconst so the order is stable
+     * across reloads.
+     */
+    public static final Comparator<Title> BY_PRIMARY_TITLE = Comparator
+            .comparing(Title::getPrimaryTitle, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Title::getTconst);
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final Title[] titles;
+    private final Map<String, Integer> titleOrdinals;
+    private final Person[] people;
+    private final Map<String, Integer> personOrdinals;
+    private final Map<String, Person> peopleByName;
+    private final EnumMap<CreditRole, int[][]> postings;
+    private final int[][] knownFor;
+    private final int[][] titleCredits;
+    private final TitleAttributeIndex attributes;
+    private final TitleColumns columns;
+    private final PersonAttributeIndex personAttributes;
+
+    private DatasetIndex(long version, Title[] titles, Map<String, Integer> titleOrdinals,
+                         Person[] people, Map<String, Integer> personOrdinals,
+                         Map<String, Person> peopleByName, EnumMap<CreditRole, int[][]> postings,
+                         int[][] knownFor, int[][] titleCredits, TitleAttributeIndex attributes,
+                         TitleColumns columns, PersonAttributeIndex personAttributes) {
+        this.version = version;
+        this.titles = titles;
+        this.titleOrdinals = titleOrdinals;
+        this.people = people;
+        this.personOrdinals = personOrdinals;
+        this.peopleByName = peopleByName;
+        this.postings = postings;
+        this.knownFor = knownFor;
+        this.titleCredits = titleCredits;
+        this.attributes = attributes;
+        this.columns = columns;
+        this.personAttributes = personAttributes;
+    }
+
+    /**
+     * Returns an index over an empty dataset.
+     */
+    public static DatasetIndex empty() {
+        return build(Map.of(), Map.of(), Map.of(), Map.of());
+    }
+
+    /**
+     * Builds the index from the raw (not necessarily linked) data maps.
+     * Credits referring to titles or people that are not loaded are ignored.
+     * A person's knownForTitles are not credits: they are kept apart, see {@link #knownForTitlesOf(int)}.
+     *
+     * @param titleMap           The loaded titles, keyed by tconst.
+     * @param peopleMap          The loaded people, keyed by nconst.
+     * @param principalsByPerson The loaded principals, grouped by nconst.
+     * @param crews              The loaded crews, keyed by tconst.
+     * @return The new index.
+     */
+    public static DatasetIndex build(Map<String, Title> titleMap,
+                                     Map<String, Person> peopleMap,
+                                     Map<String, List<TitlePrincipal>> principalsByPerson,
+                                     Map<String, TitleCrew> crews) {
+        Title[] titles = titleMap.values().toArray(new Title[0]);
+        Arrays.sort(titles, BY_PRIMARY_TITLE);
+        Map<String, Integer> titleOrdinals = new HashMap<>(titles.length * 2);
+        for (int i = 0; i < titles.length; i++) {
+            titleOrdinals.put(titles[i].getTconst(), i);
+        }
+
+        Person[] people = peopleMap.values().toArray(new Person[0]);
+        Map<String, Integer> personOrdinals = new HashMap<>(people.length * 2);
+        Map<String, Person> peopleByName = new HashMap<>(people.length * 2);
+        for (int i = 0; i < people.length; i++) {
+            personOrdinals.put(people[i].getNconst(), i);
+            if (people[i].getPrimaryName() != null) {
+                peopleByName.putIfAbsent(people[i].getPrimaryName().toLowerCase(Locale.ROOT), people[i]);
+            }
+        }
+
+        EnumMap<CreditRole, CreditBuffer> buffers = new EnumMap<>(CreditRole.class);
+        for (CreditRole role : CreditRole.values()) {
+            buffers.put(role, new CreditBuffer());
+        }
+
+        CreditBuffer knownFor = new CreditBuffer();
+        for (int p = 0; p < people.length; p++) {
+            Person person = people[p];
+            if (person.getKnownForTitles() != null) {
+                for (String tconst : person.getKnownForTitles()) {
+                    Integer t = titleOrdinals.get(tconst);
+                    if (t != null) {
+                        knownFor.add(p, t);
+                    }
+                }
+            }
+            for (TitlePrincipal principal : principalsByPerson.getOrDefault(person.getNconst(), List.of())) {
+                Integer t = titleOrdinals.get(principal.getTconst());
+                if (t == null) {
+                    continue;
+                }
+                CreditRole role = CreditRole.fromCategory(principal.getCategory());
+                if (role != null) {
+                    buffers.get(role).add(p, t);
+                }
+                buffers.get(CreditRole.ANY).add(p, t);
+            }
+        }
+
+        for (TitleCrew crew : crews.values()) {
+            Integer t = titleOrdinals.get(crew.getTconst());
+            if (t == null) {
+                continue;
+            }
+            addCrewCredits(crew.getDirectors(), t, CreditRole.DIRECTOR, personOrdinals, buffers);
+            addCrewCredits(crew.getWriters(), t, CreditRole.WRITER, personOrdinals, buffers);
+        }
+
+        EnumMap<CreditRole, int[][]> postings = new EnumMap<>(CreditRole.class);
+        buffers.forEach((role, buffer) -> postings.put(role, buffer.toPostings(people.length)));
+
+        // The inverse of the ANY postings: for every title, the people credited on it
+        CreditBuffer inverse = new CreditBuffer();
+        int[][] anyPostings = postings.get(CreditRole.ANY);
+        for (int p = 0; p < people.length; p++) {
+            for (int t : anyPostings[p]) {
+                inverse.add(t, p);
+            }
+        }
+
+        return new DatasetIndex(VERSIONS.incrementAndGet(), titles, titleOrdinals, people, personOrdinals,
+                peopleByName, postings, knownFor.toPostings(people.length), inverse.toPostings(titles.length), TitleAttributeIndex.build(titles), TitleColumns.build(titles),
+                PersonAttributeIndex.build(people, anyPostings));
+    }
+
+    /**
+     * Returns a new version of the index with new ratings and votes for some titles. The titles themselves
+     * are not read: the new values only live in the columns of the new index until it is published.
+     * Ordinals, posting lists and the bitmaps that do not depend on ratings are shared; only the
+     * rating and votes columns are copied, and the vote threshold bitmaps the changed titles move between.
+     *
+     * <p>
+     * The version is kept: ordinals do not change, and cursors hold sort keys rather than positions, so
+     * cursors issued before the change still resume right after their last key.
+     *
+     * @param changed The ordinals of the titles whose rating or votes changed.
+     * @param ratings The new ratings of the changed titles, in the same order, NaN for none.
+     * @param votes   The new numbers of votes of the changed titles, in the same order,
+     *                {@link TitleColumns#MISSING} for none.
+     * @return The updated index, with the same version.
+     */
+    public DatasetIndex withRatings(int[] changed, float[] ratings, int[] votes) {
+        TitleColumns updated = columns.withRatings(changed, ratings, votes);
+        return new DatasetIndex(version, titles, titleOrdinals, people, personOrdinals, peopleByName, postings,
+                knownFor, titleCredits, attributes.withVotes(updated, changed), updated, personAttributes);
+    }
+
+    private static void addCrewCredits(String[] nconsts, int titleOrdinal, CreditRole role,
+                                       Map<String, Integer> personOrdinals,
+                                       EnumMap<CreditRole, CreditBuffer> buffers) {
+        if (nconsts == null) {
+            return;
+        }
+        for (String nconst : nconsts) {
+            Integer p = personOrdinals.get(nconst);
+            if (p != null) {
+                buffers.get(role).add(p, titleOrdinal);
+                buffers.get(CreditRole.ANY).add(p, titleOrdinal);
+            }
+        }
+    }
+
+    /**
+     * @return The dataset version: a number that is unique to every index built by this process
+     * and grows with every (re)load. Rating updates keep it, see {@link #withRatings}.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The bitmap indexes over title attributes (type, genre, decade, ...).
+     */
+    public TitleAttributeIndex attributes() {
+        return attributes;
+    }
+
+    /**
+     * @return The numeric title attributes (year, runtime, votes, rating), stored by ordinal.
+     */
+    public TitleColumns columns() {
+        return columns;
+    }
+
+    /**
+     * @return The indexes over person attributes (profession, birth year, credit count).
+     */
+    public PersonAttributeIndex personAttributes() {
+        return personAttributes;
+    }
+
+    public int titleCount() {
+        return titles.length;
+    }
+
+    public int personCount() {
+        return people.length;
+    }
+
+    public Title title(int ordinal) {
+        return titles[ordinal];
+    }
+
+    public Person person(int ordinal) {
+        return people[ordinal];
+    }
+
+    /**
+     * @return The ordinal of the title, or -1 if it is not loaded.
+     */
+    public int titleOrdinal(String tconst) {
+        return titleOrdinals.getOrDefault(tconst, -1);
+    }
+
+    /**
+     * @return The ordinal of the person, or -1 if they are not loaded.
+     */
+    public int personOrdinal(String nconst) {
+        return personOrdinals.getOrDefault(nconst, -1);
+    }
+
+    /**
+     * Finds a person by ID, or failing that by case-insensitive primary name.
+     *
+     * @param key The nconst or name of the person.
+     * @return The person, or null if there is no match.
+     */
+    public Person findPerson(String key) {
+        if (key == null) {
+            return null;
+        }
+        int ordinal = personOrdinal(key);
+        if (ordinal >= 0) {
+            return people[ordinal];
+        }
+        return peopleByName.get(key.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the titles a person is credited on in the given role.
+     * The returned array is shared and must not be modified.
+     *
+     * @param personOrdinal The ordinal of the person.
+     * @param role          The role to look up.
+     * @return The ascending title ordinals.
+     */
+    public int[] titlesOf(int personOrdinal, CreditRole role) {
+        return postings.get(role)[personOrdinal];
+    }
+
+    /**
+     * Returns the titles listed in a person's knownForTitles. These are not credits, and are not
+     * part of any {@link #titlesOf(int, CreditRole)} posting list.
+     * The returned array is shared and must not be modified.
+     *
+     * @param personOrdinal The ordinal of the person.
+     * @return The ascending title ordinals.
+     */
+    public int[] knownForTitlesOf(int personOrdinal) {
+        return knownFor[personOrdinal];
+    }
+
+    /**
+     * Returns the titles {@code getTitlesWithBothActors} considers a person to have acted in:
+     * their acting credits, and their knownForTitles.
+     *
+     * @param nconst The unique identifier of the person.
+     * @return The ascending title ordinals, or an empty list if the person is not loaded.
+     */
+    public int[] actingOrKnownForTitlesOf(String nconst) {
+        int ordinal = personOrdinal(nconst);
+        return ordinal < 0
+                ? PostingLists.EMPTY
+                : PostingLists.union(titlesOf(ordinal, CreditRole.ACTOR), knownForTitlesOf(ordinal));
+    }
+
+    /**
+     * Returns the people credited on a title, in any role.
+     * The returned array is shared and must not be modified.
+     *
+     * @param titleOrdinal The ordinal of the title.
+     * @return The ascending person ordinals.
+     */
+    public int[] peopleOf(int titleOrdinal) {
+        return titleCredits[titleOrdinal];
+    }
+
+    /**
+     * Returns the titles a person is credited on in the given role.
+     *
+     * @param nconst The unique identifier of the person.
+     * @param role   The role to look up.
+     * @return The ascending title ordinals, or an empty list if the person is not loaded.
+     */
+    public int[] titlesOf(String nconst, CreditRole role) {
+        int ordinal = personOrdinal(nconst);
+        return ordinal < 0 ? PostingLists.EMPTY : titlesOf(ordinal, role);
+    }
+
+    /**
+     * Materializes one page of a posting list as titles.
+     * Since ordinals follow primary title order, the page is in primary title order too.
+     *
+     * @param ordinals The ascending title ordinals.
+     * @param page     The page number (0-indexed).
+     * @param size     The page size.
+     * @return The titles of the requested page, possibly empty.
+     * @throws InvalidParameterException If page or size are invalid.
+     */
+    public List<Title> page(int[] ordinals, int page, int size) {
+        return page(ordinals, page, size, null, "").getItems();
+    }
+
+    /**
+     * Materializes one page of a posting list as titles, starting either at {@code page * size}
+     * or, when a cursor is given, right after the title the cursor points to.
+     * Resuming from a cursor is a binary search, so deep pages cost the same as the first one.
+     *
+     * @param ordinals The ascending title ordinals.
+     * @param page     The page number (0-indexed), ignored when a cursor is given.
+     * @param size     The page size.
+     * @param cursor   A cursor returned with a previous page of the same query, or null.
+     * @param scope    The name of the query, used to reject cursors issued by other queries.
+     * @return The titles of the requested page, the size of the whole list and the cursor of the next page.
+     * @throws InvalidParameterException If page, size or cursor are invalid.
+     */
+    public PageSlice<Title> page(int[] ordinals, int page, int size, String cursor, String scope) {
+        PaginationUtil.validatePaginationParams(page, size);
+
+        int from;
+        if (cursor != null) {
+            long lastKey = PageCursor.decode(cursor, version, scope);
+            int pos = Arrays.binarySearch(ordinals, (int) Math.min(lastKey, Integer.MAX_VALUE));
+            from = pos >= 0 ? pos + 1 : -pos - 1;
+        } else {
+            from = (int) Math.min((long) page * size, ordinals.length);
+        }
+        int to = (int) Math.min((long) from + size, ordinals.length);
+
+        List<Title> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(titles[ordinals[i]]);
+        }
+        String nextCursor = to < ordinals.length && to > from
+                ? PageCursor.encode(version, scope, ordinals[to - 1])
+                : null;
+        return new PageSlice<>(items, ordinals.length, nextCursor);
+    }
+
+    /**
+     * Materializes one page of titles sorted by an arbitrary key. Every entry packs the sort key
+     * in its high 32 bits and the title ordinal in its low 32 bits, so sorting the entries sorts
+     * by key then by name, and an entry is a unique keyset position for cursors.
+     *
+     * @param entries The ascending packed (key, ordinal) entries, see {@link #sortEntry(int, int)}.
+     * @param page    The page number (0-indexed), ignored when a cursor is given.
+     * @param size    The page size.
+     * @param cursor  A cursor returned with a previous page of the same query, or null.
+     * @param scope   The name of the query, used to reject cursors issued by other queries.
+     * @return The titles of the requested page, the size of the whole list and the cursor of the next page.
+     * @throws InvalidParameterException If page, size or cursor are invalid.
+     */
+    public PageSlice<Title> pageSorted(long[] entries, int page, int size, String cursor, String scope) {
+        return pageSorted(entries, page, size, cursor, scope, t -> titles[t]);
+    }
+
+    /**
+     * Materializes one page of people sorted by an arbitrary key, like {@link #pageSorted} does for titles.
+     * Person ordinals do not follow name order, so entries pack the person's name rank
+     * ({@link PersonAttributeIndex#nameRank}) instead of their ordinal, and ties sort by name.
+     *
+     * @param entries The ascending packed (key, name rank) entries, see {@link #sortEntry(int, int)}.
+     * @param page    The page number (0-indexed), ignored when a cursor is given.
+     * @param size    The page size.
+     * @param cursor  A cursor returned with a previous page of the same query, or null.
+     * @param scope   The name of the query, used to reject cursors issued by other queries.
+     * @return The people of the requested page, the size of the whole list and the cursor of the next page.
+     * @throws InvalidParameterException If page, size or cursor are invalid.
+     */
+    public PageSlice<Person> pagePeopleSorted(long[] entries, int page, int size, String cursor, String scope) {
+        return pageSorted(entries, page, size, cursor, scope, rank -> people[personAttributes.personAtNameRank(rank)]);
+    }
+
+    private <T> PageSlice<T> pageSorted(long[] entries, int page, int size, String cursor, String scope,
+                                       IntFunction<T> resolve) {
+        PaginationUtil.validatePaginationParams(page, size);
+
+        int from;
+        if (cursor != null) {
+            int pos = Arrays.binarySearch(entries, PageCursor.decode(cursor, version, scope));
+            from = pos >= 0 ? pos + 1 : -pos - 1;
+        } else {
+            from = (int) Math.min((long) page * size, entries.length);
+        }
+        int to = (int) Math.min((long) from + size, entries.length);
+
+        List<T> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(resolve.apply((int) entries[i]));
+        }
+        String nextCursor = to < entries.length && to > from
+                ? PageCursor.encode(version, scope, entries[to - 1])
+                : null;
+        return new PageSlice<>(items, entries.length, nextCursor);
+    }
+
+    /**
+     * Packs a sort key and a title ordinal into one entry for {@link #pageSorted}.
+     */
+    public static long sortEntry(int key, int ordinal) {
+        return ((long) key << 32) | ordinal;
+    }
+
+    /**
+     * Sorts the smallest {@code limit} entries into the head of the array, leaving the others after
+     * them in no particular order. A page read from the head of sorted entries only needs its own
+     * entries and the ones before it in order, so without a cursor there is no need to sort all matches:
+     * the head is selected with a bounded max-heap in O(n log limit), then sorted.
+     *
+     * @param entries The entries, reordered in place.
+     * @param limit   The number of smallest entries to sort. The whole array is sorted if it is not
+     *                much larger than that.
+     */
+    public static void sortHead(long[] entries, int limit) {
+        int n = entries.length;
+        if (limit <= 0) {
+            return;
+        }
+        if (limit >= n / 4) {
+            Arrays.sort(entries);
+            return;
+        }
+        // Max-heap of the smallest entries seen so far, in entries[0..limit)
+        for (int i = limit / 2 - 1; i >= 0; i--) {
+            siftDown(entries, i, limit);
+        }
+        for (int i = limit; i < n; i++) {
+            long entry = entries[i];
+            if (entry < entries[0]) {
+                entries[i] = entries[0];
+                entries[0] = entry;
+                siftDown(entries, 0, limit);
+            }
+        }
+        Arrays.sort(entries, 0, limit);
+    }
+
+    private static void siftDown(long[] heap, int i, int size) {
+        long entry = heap[i];
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= entry) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * Collects (person, title) credit pairs and turns them into one posting list per person.
+     * Also used the other way round, with titles as keys.
+     */
+    private static final class CreditBuffer {
+        private int[] personOrdinals = new int[16];
+        private int[] titleOrdinals = new int[16];
+        private int size;
+
+        void add(int person, int title) {
+            if (size == personOrdinals.length) {
+                personOrdinals = Arrays.copyOf(personOrdinals, size * 2);
+                titleOrdinals = Arrays.copyOf(titleOrdinals, size * 2);
+            }
+            personOrdinals[size] = person;
+            titleOrdinals[size] = title;
+            size++;
+        }
+
+        int[][] toPostings(int personCount) {
+            int[] offsets = new int[personCount + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[personOrdinals[i] + 1]++;
+            }
+            for (int p = 0; p < personCount; p++) {
+                offsets[p + 1] += offsets[p];
+            }
+            int[] grouped = new int[size];
+            int[] cursor = Arrays.copyOf(offsets, personCount);
+            for (int i = 0; i < size; i++) {
+                grouped[cursor[personOrdinals[i]]++] = titleOrdinals[i];
+            }
+
+            int[][] postings = new int[personCount][];
+            for (int p = 0; p < personCount; p++) {
+                int from = offsets[p];
+                int length = offsets[p + 1] - from;
+                postings[p] = length == 0
+                        ? PostingLists.EMPTY
+                        : PostingLists.sortedUnique(Arrays.copyOfRange(grouped, from, from + length), length);
+            }
+            return postings;
+        }
+    }
+}
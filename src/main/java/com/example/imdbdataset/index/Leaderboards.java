@@ -0,0 +1,389 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.model.Title;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The top {@value #SIZE} titles of every leaderboard: all titles, and every title type, genre and
+ * decade, each ranked by rating, number of votes and weighted rating.
+ * <p>
+ * Every board keeps its best entries sorted, packed like {@link DatasetIndex#sortEntry} so that
+ * ascending order is best first, plus up to {@value #SIZE} more as slack. A board always holds
+ * an exact prefix of the full ranking, so reading it costs O(K) whatever the number of titles.
+ * <p>
+ * When ratings change, {@link #update} moves only the changed titles within the boards they
+ * belong to. A title that drops out of a full board can only be replaced by one the board no
+ * longer knows about, so the board shrinks into its slack instead; it is rebuilt from the
+ * attribute bitmaps only once fewer than {@value #SIZE} entries are left.
+ * <p>
+ * The weighted boards are only maintained this way while m and C are unchanged: a new C changes
+ * every weighted score, and those boards are then rebuilt from all titles. Rankings updated with
+ * {@link WeightedRatingIndex#withRatings} hold C, so rating updates stay incremental; only a ratings
+ * refresh, a reload or new ranking parameters, with C computed from the ratings, rebuild them.
+ * <p>
+ * Instances are immutable: updates share the boards they do not touch and copy the others.
+ * The leaderboards keep a reference to the {@link WeightedRatingIndex} (and so to the
+ * {@link DatasetIndex}) they were computed from.
+ */
+public final class Leaderboards {
+
+    public static final int SIZE = 250;
+    static final int CAPACITY = 2 * SIZE;
+
+    public static final String ALL = "all";
+
+    /**
+     * What a leaderboard is ranked by. Ties are broken by primary title.
+     */
+    public enum Metric {
+        RATING, VOTES, WEIGHTED;
+
+        /**
+         * Parses a metric given as a request parameter (case-insensitive).
+         *
+         * @throws InvalidParameterException If the value is not a metric.
+         */
+        public static Metric parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new InvalidParameterException("Unknown leaderboard ranking: " + value + ". Supported rankings: "
+                        + Arrays.stream(values()).map(m -> m.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")));
+            }
+        }
+
+        /**
+         * @return The sort key of the title (lower is better), or {@link TitleColumns#MISSING} if it is
+         * not on this kind of board.
+         */
+        int key(WeightedRatingIndex ranking, int t) {
+            TitleColumns columns = ranking.index().columns();
+            if (Float.isNaN(columns.rating(t)) || columns.numVotes(t) == TitleColumns.MISSING) {
+                return TitleColumns.MISSING;
+            }
+            // Non-negative floats order like their bits
+            switch (this) {
+                case RATING:
+                    return -Float.floatToIntBits(columns.rating(t));
+                case VOTES:
+                    return -columns.numVotes(t);
+                default:
+                    return -Float.floatToIntBits(ranking.score(t));
+            }
+        }
+    }
+
+    private final WeightedRatingIndex ranking;
+    private final Map<String, Board> boards;
+
+    private Leaderboards(WeightedRatingIndex ranking, Map<String, Board> boards) {
+        this.ranking = ranking;
+        this.boards = boards;
+    }
+
+    /**
+     * Computes every leaderboard in one pass over the titles, keeping a bounded heap per board.
+     *
+     * @param ranking The weighted ranking, and through it the index, to compute the boards from.
+     * @return The new leaderboards.
+     */
+    public static Leaderboards build(WeightedRatingIndex ranking) {
+        Map<String, Board> boards = new HashMap<>();
+        buildBoards(ranking, Metric.values(), boards);
+        return new Leaderboards(ranking, boards);
+    }
+
+    private static void buildBoards(WeightedRatingIndex ranking, Metric[] metrics, Map<String, Board> boards) {
+        DatasetIndex index = ranking.index();
+        Map<String, TopHeap> heaps = new HashMap<>();
+        for (int t = 0; t < index.titleCount(); t++) {
+            for (Metric metric : metrics) {
+                int key = metric.key(ranking, t);
+                if (key == TitleColumns.MISSING) {
+                    continue;
+                }
+                for (String dimension : dimensionsOf(index.title(t))) {
+                    heaps.computeIfAbsent(boardKey(dimension, metric), k -> new TopHeap())
+                            .offer(DatasetIndex.sortEntry(key, t));
+                }
+            }
+        }
+        for (Metric metric : metrics) {
+            boards.keySet().removeIf(boardKey -> boardKey.startsWith(metric + "/"));
+        }
+        heaps.forEach((boardKey, heap) -> boards.put(boardKey, heap.toBoard()));
+    }
+
+    /**
+     * Applies rating changes to the leaderboards.
+     * Titles keep their type, genres and year, so only their position within their own boards can change.
+     * If the weighted rating parameters changed, every weighted score changed too and the weighted
+     * boards are rebuilt.
+     *
+     * @param updated The ranking computed after the change. Its index must have the same titles.
+     * @param changed The ordinals of the titles whose rating or votes changed.
+     * @return The updated leaderboards.
+     */
+    public Leaderboards update(WeightedRatingIndex updated, int[] changed) {
+        boolean rescored = updated.getMinVotes() != ranking.getMinVotes()
+                || Float.compare(updated.getGlobalMean(), ranking.getGlobalMean()) != 0;
+        Map<String, Board> next = new HashMap<>(boards);
+
+        for (int t : changed) {
+            for (Metric metric : Metric.values()) {
+                if (rescored && metric == Metric.WEIGHTED) {
+                    continue;
+                }
+                int oldKey = metric.key(ranking, t);
+                int newKey = metric.key(updated, t);
+                if (oldKey == newKey) {
+                    continue;
+                }
+                for (String dimension : dimensionsOf(updated.index().title(t))) {
+                    String boardKey = boardKey(dimension, metric);
+                    Board board = next.getOrDefault(boardKey, Board.EMPTY);
+                    Board moved = board.move(
+                            oldKey == TitleColumns.MISSING ? Board.NONE : DatasetIndex.sortEntry(oldKey, t),
+                            newKey == TitleColumns.MISSING ? Board.NONE : DatasetIndex.sortEntry(newKey, t));
+                    next.put(boardKey, moved != null ? moved : rebuild(updated, dimension, metric));
+                }
+            }
+        }
+        if (rescored) {
+            buildBoards(updated, new Metric[]{Metric.WEIGHTED}, next);
+        }
+        return new Leaderboards(updated, next);
+    }
+
+    /**
+     * Re-ranks the weighted boards after the weighted rating parameters changed.
+     *
+     * @param updated The ranking computed with the new parameters, over the same index.
+     * @return The updated leaderboards.
+     */
+    public Leaderboards withRanking(WeightedRatingIndex updated) {
+        Map<String, Board> next = new HashMap<>(boards);
+        buildBoards(updated, new Metric[]{Metric.WEIGHTED}, next);
+        return new Leaderboards(updated, next);
+    }
+
+    /**
+     * @return The ranking, and through it the index, the leaderboards were computed from.
+     */
+    public WeightedRatingIndex ranking() {
+        return ranking;
+    }
+
+    /**
+     * Returns the top of a leaderboard, at most {@value #SIZE} entries.
+     *
+     * @param dimension The board, see {@link #dimension}.
+     * @param metric    What the board is ranked by.
+     * @return The ascending packed (key, ordinal) entries, best first; empty if no title is on the board.
+     */
+    public long[] top(String dimension, Metric metric) {
+        Board board = boards.getOrDefault(boardKey(dimension, metric), Board.EMPTY);
+        return Arrays.copyOf(board.entries, Math.min(board.entries.length, SIZE));
+    }
+
+    /**
+     * Names the board of a title type, a genre, a decade or, if none is given, of all titles.
+     *
+     * @throws InvalidParameterException If more than one of them is given.
+     */
+    public static String dimension(String titleType, String genre, Integer decade) {
+        int given = (titleType != null ? 1 : 0) + (genre != null ? 1 : 0) + (decade != null ? 1 : 0);
+        if (given > 1) {
+            throw new InvalidParameterException("Leaderboards are by titleType, genre or decade, not a combination of them");
+        }
+        if (titleType != null) {
+            return "type:" + titleType;
+        }
+        if (genre != null) {
+            return "genre:" + genre;
+        }
+        if (decade != null) {
+            return "decade:" + TitleAttributeIndex.decadeOf(decade);
+        }
+        return ALL;
+    }
+
+    private static List<String> dimensionsOf(Title title) {
+        List<String> dimensions = new ArrayList<>(4);
+        dimensions.add(ALL);
+        if (title.getTitleType() != null) {
+            dimensions.add("type:" + title.getTitleType());
+        }
+        if (title.getGenres() != null) {
+            for (String genre : title.getGenres()) {
+                dimensions.add("genre:" + genre);
+            }
+        }
+        if (title.getStartYear() != null) {
+            dimensions.add("decade:" + TitleAttributeIndex.decadeOf(title.getStartYear()));
+        }
+        return dimensions;
+    }
+
+    private static String boardKey(String dimension, Metric metric) {
+        return metric + "/" + dimension;
+    }
+
+    /**
+     * Recomputes one board from the titles of its dimension.
+     */
+    private static Board rebuild(WeightedRatingIndex ranking, String dimension, Metric metric) {
+        TitleAttributeIndex attributes = ranking.index().attributes();
+        RoaringBitmap titles;
+        if (dimension.startsWith("type:")) {
+            titles = attributes.titleType(dimension.substring("type:".length()));
+        } else if (dimension.startsWith("genre:")) {
+            titles = attributes.genre(dimension.substring("genre:".length()));
+        } else if (dimension.startsWith("decade:")) {
+            titles = attributes.decade(Integer.parseInt(dimension.substring("decade:".length())));
+        } else {
+            titles = attributes.all();
+        }
+        TopHeap heap = new TopHeap();
+        titles.forEach(t -> {
+            int key = metric.key(ranking, t);
+            if (key != TitleColumns.MISSING) {
+                heap.offer(DatasetIndex.sortEntry(key, t));
+            }
+        });
+        return heap.toBoard();
+    }
+
+    /**
+     * The best entries of one leaderboard, ascending.
+     * The board is complete when it holds every title of its dimension; otherwise it holds the best
+     * {@code entries.length} of them.
+     */
+    static final class Board {
+        static final Board EMPTY = new Board(new long[0], true);
+
+        /**
+         * Stands for no entry: keys are never positive, so no packed entry is this large.
+         */
+        static final long NONE = Long.MAX_VALUE;
+
+        private final long[] entries;
+        private final boolean complete;
+
+        Board(long[] entries, boolean complete) {
+            this.entries = entries;
+            this.complete = complete;
+        }
+
+        /**
+         * Moves a title from one entry to another.
+         *
+         * @param oldEntry The title's entry before the change, or {@link #NONE} if it was not ranked.
+         * @param newEntry The title's entry after the change, or {@link #NONE} if it is no longer ranked.
+         * @return The updated board, or null if too few entries are left and it must be rebuilt.
+         */
+        Board move(long oldEntry, long newEntry) {
+            long[] next = new long[entries.length + 1];
+            int size = 0;
+            for (long entry : entries) {
+                if (entry != oldEntry) {
+                    next[size++] = entry;
+                }
+            }
+            // Beyond the last entry of an incomplete board, the title's position is unknown.
+            // A board rebuilt earlier in the same update may already hold the entry.
+            int pos = newEntry == NONE ? 0 : Arrays.binarySearch(next, 0, size, newEntry);
+            if (pos < 0 && (complete || -pos - 1 < size)) {
+                pos = -pos - 1;
+                System.arraycopy(next, pos, next, pos + 1, size - pos);
+                next[pos] = newEntry;
+                size++;
+            }
+
+            boolean stillComplete = complete;
+            if (size > CAPACITY) {
+                size = CAPACITY;
+                stillComplete = false;
+            }
+            if (!stillComplete && size < SIZE) {
+                return null;
+            }
+            return new Board(Arrays.copyOf(next, size), stillComplete);
+        }
+    }
+
+    /**
+     * A bounded max-heap keeping the {@link #CAPACITY} smallest entries offered to it.
+     */
+    private static final class TopHeap {
+        private long[] heap = new long[16];
+        private int size;
+        private boolean overflowed;
+
+        void offer(long entry) {
+            if (size < CAPACITY) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, Math.min(size * 2, CAPACITY));
+                }
+                heap[size] = entry;
+                siftUp(size++);
+            } else {
+                overflowed = true;
+                if (entry < heap[0]) {
+                    heap[0] = entry;
+                    siftDown(0);
+                }
+            }
+        }
+
+        Board toBoard() {
+            long[] entries = Arrays.copyOf(heap, size);
+            Arrays.sort(entries);
+            return new Board(entries, !overflowed);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (heap[parent] >= heap[i]) {
+                    return;
+                }
+                swap(parent, i);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left] > heap[largest]) {
+                    largest = left;
+                }
+                if (right < size && heap[right] > heap[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.model.Person;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Indexes over person attributes, by person ordinal:
+ * <ul>
+ *     <li>one bitmap per primary profession,</li>
+ *     <li>birth years and credit counts, each as a column and as a sorted (value, ordinal) array, so
+ *     a range is found with two binary searches and counted without being materialized,</li>
+ *     <li>the rank of every person by primary name, to sort people by name with an int compare.</li>
+ * </ul>
+ * Death years are not indexed: they can be updated in place, see {@code updatePersonDeathYear}.
+ */
+public final class PersonAttributeIndex {
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final RoaringBitmap all;
+    private final Map<String, RoaringBitmap> byProfession;
+    private final int[] birthYears;
+    private final long[] byBirthYear;
+    private final int[] credits;
+    private final long[] byCredits;
+    private final int[] nameRanks;
+    private final int[] byName;
+
+    private PersonAttributeIndex(RoaringBitmap all, Map<String, RoaringBitmap> byProfession,
+                                 int[] birthYears, long[] byBirthYear, int[] credits, long[] byCredits,
+                                 int[] nameRanks, int[] byName) {
+        this.all = all;
+        this.byProfession = byProfession;
+        this.birthYears = birthYears;
+        this.byBirthYear = byBirthYear;
+        this.credits = credits;
+        this.byCredits = byCredits;
+        this.nameRanks = nameRanks;
+        this.byName = byName;
+    }
+
+    /**
+     * @param people      The people, indexed by ordinal.
+     * @param anyPostings The titles every person is credited on, in any role.
+     * @return The new index.
+     */
+    static PersonAttributeIndex build(Person[] people, int[][] anyPostings) {
+        Map<String, RoaringBitmap> byProfession = new HashMap<>();
+        int[] birthYears = new int[people.length];
+        int[] credits = new int[people.length];
+        long[] byBirthYear = new long[people.length];
+        long[] byCredits = new long[people.length];
+        int born = 0;
+
+        for (int p = 0; p < people.length; p++) {
+            Person person = people[p];
+            if (person.getPrimaryProfessions() != null) {
+                for (String profession : person.getPrimaryProfessions()) {
+                    byProfession.computeIfAbsent(profession, k -> new RoaringBitmap()).add(p);
+                }
+            }
+            birthYears[p] = person.getBirthYear() == null ? TitleColumns.MISSING : person.getBirthYear();
+            if (person.getBirthYear() != null) {
+                byBirthYear[born++] = DatasetIndex.sortEntry(person.getBirthYear(), p);
+            }
+            credits[p] = anyPostings[p].length;
+            byCredits[p] = DatasetIndex.sortEntry(credits[p], p);
+        }
+        byBirthYear = Arrays.copyOf(byBirthYear, born);
+        Arrays.sort(byBirthYear);
+        Arrays.sort(byCredits);
+
+        int[] byName = IntStream.range(0, people.length).boxed()
+                .sorted(Comparator.comparing((Integer p) -> people[p].getPrimaryName(), Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(p -> people[p].getNconst()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] nameRanks = new int[people.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            nameRanks[byName[rank]] = rank;
+        }
+
+        return new PersonAttributeIndex(RoaringBitmap.range(people.length), byProfession, birthYears, byBirthYear,
+                credits, byCredits, nameRanks, byName);
+    }
+
+    public RoaringBitmap all() {
+        return all;
+    }
+
+    public RoaringBitmap profession(String profession) {
+        return byProfession.getOrDefault(profession, EMPTY);
+    }
+
+    public Set<String> professions() {
+        return byProfession.keySet();
+    }
+
+    /**
+     * @return The birth year of the person, or {@link TitleColumns#MISSING}.
+     */
+    public int birthYear(int personOrdinal) {
+        return birthYears[personOrdinal];
+    }
+
+    /**
+     * @return The number of titles the person is credited on, in any role.
+     */
+    public int credits(int personOrdinal) {
+        return credits[personOrdinal];
+    }
+
+    /**
+     * @return The position of the person in primary name order.
+     */
+    public int nameRank(int personOrdinal) {
+        return nameRanks[personOrdinal];
+    }
+
+    /**
+     * @return The ordinal of the person at the given position in primary name order.
+     */
+    public int personAtNameRank(int rank) {
+        return byName[rank];
+    }
+
+    /**
+     * @return The number of people born between min and max (inclusive), without materializing them.
+     */
+    public int countBirthYears(int min, int max) {
+        return to(byBirthYear, max) - from(byBirthYear, min);
+    }
+
+    /**
+     * @return The people born between min and max (inclusive).
+     */
+    public RoaringBitmap birthYears(int min, int max) {
+        return bitmapOf(byBirthYear, from(byBirthYear, min), to(byBirthYear, max));
+    }
+
+    /**
+     * @return The number of people credited on at least min titles, without materializing them.
+     */
+    public int countMinCredits(int min) {
+        return byCredits.length - from(byCredits, min);
+    }
+
+    /**
+     * @return The people credited on at least min titles.
+     */
+    public RoaringBitmap minCredits(int min) {
+        return bitmapOf(byCredits, from(byCredits, min), byCredits.length);
+    }
+
+    /**
+     * @return The position of the first entry whose value is >= min.
+     */
+    private static int from(long[] sorted, int min) {
+        int pos = Arrays.binarySearch(sorted, DatasetIndex.sortEntry(min, 0));
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    /**
+     * @return The position after the last entry whose value is <= max.
+     */
+    private static int to(long[] sorted, int max) {
+        if (max == Integer.MAX_VALUE) {
+            return sorted.length;
+        }
+        return from(sorted, max + 1);
+    }
+
+    private static RoaringBitmap bitmapOf(long[] sorted, int from, int to) {
+        int[] ordinals = new int[Math.max(0, to - from)];
+        for (int i = from; i < to; i++) {
+            ordinals[i - from] = (int) sorted[i];
+        }
+        Arrays.sort(ordinals);
+        return RoaringBitmap.fromSorted(ordinals);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.imdbdataset.index;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Operations on posting lists: strictly ascending arrays of ordinals.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PostingLists {
+
+    public static final int[] EMPTY = new int[0];
+
+    /**
+     * When one list is this many times longer than the other, the intersection gallops
+     * through the longer list instead of merging both element by element.
+     */
+    private static final int GALLOP_RATIO = 8;
+
+    /**
+     * Intersects any number of posting lists.
+     * The lists are processed smallest first, so the running result can only shrink,
+     * and the method returns as soon as the result becomes empty.
+     *
+     * @param lists The posting lists to intersect. None of them may be null.
+     * @return A new posting list containing the ordinals present in every list.
+     */
+    public static int[] intersectAll(int[]... lists) {
+        if (lists.length == 0) {
+            return EMPTY;
+        }
+        int[][] sorted = lists.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(list -> list.length));
+
+        int[] result = sorted[0];
+        for (int i = 1; i < sorted.length && result.length > 0; i++) {
+            result = intersect(result, sorted[i]);
+        }
+        return result == sorted[0] ? result.clone() : result;
+    }
+
+    /**
+     * Counts the ordinals present in every list, stopping as soon as {@code limit} is reached.
+     * Nothing is materialized: each ordinal of the smallest list is probed in the other lists
+     * with a galloping search that never moves backwards.
+     *
+     * @param limit The count at which to stop.
+     * @param lists The posting lists to intersect. None of them may be null.
+     * @return The size of the intersection, or {@code limit} if it is at least that large.
+     */
+    public static int countIntersection(int limit, int[]... lists) {
+        if (lists.length == 0 || limit <= 0) {
+            return 0;
+        }
+        int[][] sorted = lists.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(list -> list.length));
+        int[] positions = new int[sorted.length];
+
+        int count = 0;
+        candidates:
+        for (int value : sorted[0]) {
+            for (int k = 1; k < sorted.length; k++) {
+                int pos = gallop(sorted[k], positions[k], value);
+                positions[k] = pos;
+                if (pos == sorted[k].length) {
+                    break candidates;
+                }
+                if (sorted[k][pos] != value) {
+                    continue candidates;
+                }
+            }
+            if (++count >= limit) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Intersects two posting lists, choosing between a linear merge and a galloping
+     * search depending on how different their sizes are.
+     *
+     * @param a The first posting list.
+     * @param b The second posting list.
+     * @return A new posting list containing the ordinals present in both lists.
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0) {
+            return EMPTY;
+        }
+        return (long) a.length * GALLOP_RATIO < b.length ? gallopIntersect(a, b) : mergeIntersect(a, b);
+    }
+
+    private static int[] mergeIntersect(int[] a, int[] b) {
+        int[] out = new int[a.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static int[] gallopIntersect(int[] small, int[] large) {
+        int[] out = new int[small.length];
+        int n = 0;
+        int from = 0;
+        for (int value : small) {
+            from = gallop(large, from, value);
+            if (from == large.length) {
+                break;
+            }
+            if (large[from] == value) {
+                out[n++] = value;
+                from++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Finds the first index at or after {@code from} whose value is >= {@code target},
+     * probing exponentially growing steps before binary searching the last step.
+     *
+     * @return The index found, or {@code list.length} if every remaining value is smaller.
+     */
+    static int gallop(int[] list, int from, int target) {
+        if (from >= list.length || list[from] >= target) {
+            return from;
+        }
+        int step = 1;
+        int lo = from;
+        int hi = from + 1;
+        while (hi < list.length && list[hi] < target) {
+            lo = hi;
+            step <<= 1;
+            hi = from + step;
+        }
+        hi = Math.min(hi, list.length);
+        // Invariant: list[lo] < target, and list[hi] >= target (or hi == length)
+        while (lo + 1 < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (list[mid] < target) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * Merges two posting lists.
+     *
+     * @param a The first posting list.
+     * @param b The second posting list.
+     * @return A posting list containing the ordinals present in either list; one of the lists if the other is empty.
+     */
+    public static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[n++] = a[i++];
+        }
+        while (j < b.length) {
+            result[n++] = b[j++];
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Sorts the first {@code length} values of an array and removes duplicates.
+     *
+     * @return A new, strictly ascending posting list.
+     */
+    public static int[] sortedUnique(int[] values, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+        int[] copy = Arrays.copyOf(values, length);
+        Arrays.sort(copy);
+        int n = 1;
+        for (int i = 1; i < copy.length; i++) {
+            if (copy[i] != copy[n - 1]) {
+                copy[n++] = copy[i];
+            }
+        }
+        return n == copy.length ? copy : Arrays.copyOf(copy, n);
+    }
+}
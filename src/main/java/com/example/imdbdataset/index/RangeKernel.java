@@ -0,0 +1,26 @@
+package com.example.imdbdataset.index;
+
+/**
+ * Evaluates a range predicate over a primitive column and narrows a selection bitmap with the result.
+ * <p>
+ * A selection holds one bit per row, 64 rows per word: bit {@code i & 63} of word {@code i >>> 6} is
+ * set if row {@code i} is selected. Kernels clear the bits of the rows whose value is outside the
+ * range and skip the words that are already empty, so a chain of predicates gets cheaper as it narrows.
+ */
+interface RangeKernel {
+
+    /**
+     * Keeps the selected rows whose value is between min and max (inclusive).
+     */
+    void select(int[] column, int min, int max, long[] selection);
+
+    /**
+     * Keeps the selected rows whose value is between min and max (inclusive). NaN is never kept.
+     */
+    void select(float[] column, float min, float max, long[] selection);
+
+    /**
+     * @return A short name for the kernel, shown in query plans.
+     */
+    String name();
+}
@@ -0,0 +1,53 @@
+package com.example.imdbdataset.index;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Picks the {@link RangeKernel} column scans run on, once per JVM.
+ * <p>
+ * The {@link VectorRangeKernel} is used when the {@code jdk.incubator.vector} module is in the boot
+ * layer (start the JVM with {@code --add-modules jdk.incubator.vector}) and the
+ * {@value #VECTOR_PROPERTY} system property is not {@code false}. Otherwise, the
+ * {@link ScalarRangeKernel} is used. Both select exactly the same rows; query plans show which one runs.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class RangeKernels {
+
+    static final String VECTOR_PROPERTY = "imdb.scan.vector";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final RangeKernel SCALAR = new ScalarRangeKernel();
+    private static final RangeKernel PREFERRED = load();
+
+    /**
+     * @return The fastest kernel available.
+     */
+    static RangeKernel preferred() {
+        return PREFERRED;
+    }
+
+    /**
+     * @return The portable kernel.
+     */
+    static RangeKernel scalar() {
+        return SCALAR;
+    }
+
+    private static RangeKernel load() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) {
+            return SCALAR;
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return SCALAR;
+        }
+        try {
+            // Loaded by name, so that this class never links against the incubator module itself
+            return (RangeKernel) Class.forName(RangeKernels.class.getPackageName() + ".VectorRangeKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.imdbdataset.index;
+
+/**
+ * The portable {@link RangeKernel}: one comparison per row, the bits of a word collected in a register.
+ */
+final class ScalarRangeKernel implements RangeKernel {
+
+    @Override
+    public void select(int[] column, int min, int max, long[] selection) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] != 0) {
+                selection[w] &= word(column, min, max, w);
+            }
+        }
+    }
+
+    @Override
+    public void select(float[] column, float min, float max, long[] selection) {
+        for (int w = 0; w < selection.length; w++) {
+            if (selection[w] != 0) {
+                selection[w] &= word(column, min, max, w);
+            }
+        }
+    }
+
+    /**
+     * @return The bits of the rows of word w whose value is between min and max.
+     */
+    static long word(int[] column, int min, int max, int w) {
+        int base = w << 6;
+        int end = Math.min(base + 64, column.length);
+        long keep = 0;
+        for (int i = base; i < end; i++) {
+            int value = column[i];
+            if (value >= min && value <= max) {
+                keep |= 1L << (i - base);
+            }
+        }
+        return keep;
+    }
+
+    /**
+     * @return The bits of the rows of word w whose value is between min and max.
+     */
+    static long word(float[] column, float min, float max, int w) {
+        int base = w << 6;
+        int end = Math.min(base + 64, column.length);
+        long keep = 0;
+        for (int i = base; i < end; i++) {
+            float value = column[i];
+            if (value >= min && value <= max) {
+                keep |= 1L << (i - base);
+            }
+        }
+        return keep;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
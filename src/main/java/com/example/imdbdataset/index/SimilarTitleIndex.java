@@ -0,0 +1,314 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.model.Title;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Finds titles similar to a given title, by Jaccard similarity of their token sets: the people
+ * credited on them (in any role) and their genres.
+ * <p>
+ * Every title gets a MinHash signature of {@value #SIGNATURE_SIZE} values, computed in parallel when
+ * the index is built. Only the lowest byte of every value is kept (b-bit MinHash), packed eight to a
+ * long, so a signature takes 64 bytes. The probability that two titles agree on a value is about
+ * their Jaccard similarity, plus 1/256 for bytes that are equal by chance.
+ * <p>
+ * The signatures are cut into {@value #BANDS} bands of {@value #ROWS} values, and titles with the
+ * same band key, the {@value #ROWS} bytes of the band, become candidates (locality-sensitive hashing).
+ * Titles that do not agree on these values only share a key with a probability of 2<sup>-32</sup>.
+ * For each band, the title ordinals are kept sorted by band key, so a bucket is found with a binary
+ * search, for another 64 bytes per title.
+ * <p>
+ * Candidates are first ranked by how many signature values they share with the title, which
+ * estimates their similarity, and only a shortlist of the best ones is re-ranked by exact Jaccard
+ * similarity.
+ */
+public final class SimilarTitleIndex {
+
+    public static final int SIGNATURE_SIZE = 64;
+    static final int BANDS = 16;
+    static final int ROWS = SIGNATURE_SIZE / BANDS;
+
+    // Signature bytes are packed into longs, each holding 64 / 8 / ROWS = 2 band keys
+    private static final int WORDS = SIGNATURE_SIZE / Long.BYTES;
+    private static final int BANDS_PER_WORD = Long.BYTES / ROWS;
+
+    /**
+     * At most this many titles are read from one bucket. Titles sharing no people, with the same
+     * genres, all fall into the same huge buckets.
+     */
+    static final int MAX_BUCKET_READ = 1_000;
+
+    /**
+     * How many of the best estimated candidates are re-ranked exactly.
+     */
+    static final int SHORTLIST = 200;
+
+    private final DatasetIndex index;
+    private final Map<String, Integer> genreIds;
+    private final long[] signatures;
+    private final int[][] bands;
+
+    private SimilarTitleIndex(DatasetIndex index, Map<String, Integer> genreIds, long[] signatures, int[][] bands) {
+        this.index = index;
+        this.genreIds = genreIds;
+        this.signatures = signatures;
+        this.bands = bands;
+    }
+
+    /**
+     * Computes the signatures and the band buckets of every title in the index.
+     *
+     * @param index The index to compute them from.
+     * @return The new similarity index.
+     * @throws IllegalArgumentException If the index has too many titles for the signatures to fit in one array.
+     */
+    public static SimilarTitleIndex build(DatasetIndex index) {
+        Map<String, Integer> genreIds = new HashMap<>();
+        index.attributes().genres().stream().sorted().forEach(genre -> genreIds.put(genre, genreIds.size()));
+
+        int titleCount = index.titleCount();
+        long words = (long) titleCount * WORDS;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many titles for the similarity index: " + titleCount);
+        }
+        long[] signatures = new long[(int) words];
+        boolean[] hasTokens = new boolean[titleCount];
+        IntStream.range(0, titleCount).parallel().forEach(t -> {
+            int[] tokens = tokens(index, genreIds, t);
+            hasTokens[t] = tokens.length > 0;
+            sign(tokens, signatures, t * WORDS);
+        });
+
+        // One band at a time, so that only one array of sort entries is ever allocated
+        int[][] bands = new int[BANDS][];
+        long[] entries = new long[titleCount];
+        for (int band = 0; band < BANDS; band++) {
+            int n = 0;
+            for (int t = 0; t < titleCount; t++) {
+                if (hasTokens[t]) {
+                    entries[n++] = DatasetIndex.sortEntry(bandKey(signatures, t, band), t);
+                }
+            }
+            Arrays.parallelSort(entries, 0, n);
+            int[] ordinals = new int[n];
+            for (int i = 0; i < n; i++) {
+                ordinals[i] = (int) entries[i];
+            }
+            bands[band] = ordinals;
+        }
+        return new SimilarTitleIndex(index, genreIds, signatures, bands);
+    }
+
+    /**
+     * Returns the same signatures over another version of the same index, e.g. after a ratings refresh.
+     * Credits and genres, and so signatures, are the same in both.
+     *
+     * @param updated The new version of the index the signatures were computed from.
+     * @return The similarity index resolving ordinals against the new index.
+     */
+    public SimilarTitleIndex withIndex(DatasetIndex updated) {
+        return new SimilarTitleIndex(updated, genreIds, signatures, bands);
+    }
+
+    /**
+     * @return The index the signatures were computed from.
+     */
+    public DatasetIndex index() {
+        return index;
+    }
+
+    /**
+     * Finds the titles most similar to a title.
+     *
+     * @param titleOrdinal The ordinal of the title.
+     * @param limit        The maximum number of titles to return.
+     * @return Up to limit similar titles, most similar first, ties in title order.
+     */
+    public List<Match> similar(int titleOrdinal, int limit) {
+        int[] tokens = tokens(index, genreIds, titleOrdinal);
+        if (tokens.length == 0) {
+            return List.of();
+        }
+
+        // Gather the titles sharing at least one band bucket
+        int[] candidates = new int[64];
+        int size = 0;
+        for (int band = 0; band < BANDS; band++) {
+            int[] ordinals = bands[band];
+            int key = bandKey(signatures, titleOrdinal, band);
+            int pos = firstOfBucket(ordinals, band, key);
+            for (int read = 0; pos < ordinals.length && bandKey(signatures, ordinals[pos], band) == key
+                    && read < MAX_BUCKET_READ; pos++, read++) {
+                int t = ordinals[pos];
+                if (t == titleOrdinal) {
+                    continue;
+                }
+                if (size == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, size * 2);
+                }
+                candidates[size++] = t;
+            }
+        }
+        Arrays.sort(candidates, 0, size);
+
+        // Shortlist by estimated similarity: the number of equal signature values
+        long[] estimated = new long[size];
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) {
+                continue;
+            }
+            estimated[unique++] = DatasetIndex.sortEntry(-agreement(titleOrdinal, candidates[i]), candidates[i]);
+        }
+        Arrays.sort(estimated, 0, unique);
+        int shortlist = Math.min(unique, Math.max(SHORTLIST, limit));
+
+        // Re-rank the shortlist exactly
+        List<Match> matches = new ArrayList<>(shortlist);
+        for (int i = 0; i < shortlist; i++) {
+            int candidate = (int) estimated[i];
+            int[] other = tokens(index, genreIds, candidate);
+            int shared = intersectionSize(tokens, other);
+            matches.add(new Match(candidate, (double) shared / (tokens.length + other.length - shared),
+                    intersectionSize(index.peopleOf(titleOrdinal), index.peopleOf(candidate))));
+        }
+        matches.sort((a, b) -> a.similarity != b.similarity
+                ? Double.compare(b.similarity, a.similarity)
+                : Integer.compare(a.titleOrdinal, b.titleOrdinal));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    /**
+     * @return The title's tokens, ascending: its people's ordinals, then its genres after all people.
+     */
+    private static int[] tokens(DatasetIndex index, Map<String, Integer> genreIds, int titleOrdinal) {
+        int[] people = index.peopleOf(titleOrdinal);
+        Title title = index.title(titleOrdinal);
+        if (title.getGenres() == null || title.getGenres().isEmpty()) {
+            return people;
+        }
+        int[] tokens = Arrays.copyOf(people, people.length + title.getGenres().size());
+        int n = people.length;
+        for (String genre : title.getGenres()) {
+            Integer id = genreIds.get(genre);
+            if (id != null) {
+                tokens[n++] = index.personCount() + id;
+            }
+        }
+        Arrays.sort(tokens, people.length, n);
+        return n == tokens.length ? tokens : Arrays.copyOf(tokens, n);
+    }
+
+    /**
+     * Writes the b-bit MinHash signature of the tokens: the lowest byte of every minimum, packed eight
+     * to a long. The {@value #SIGNATURE_SIZE} hash functions are derived from two halves of one 64-bit
+     * hash per token (h1 + i * h2).
+     */
+    private static void sign(int[] tokens, long[] signatures, int offset) {
+        int[] minimums = new int[SIGNATURE_SIZE];
+        Arrays.fill(minimums, Integer.MAX_VALUE);
+        for (int token : tokens) {
+            long hash = mix(token);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                int value = (h1 + i * h2) & Integer.MAX_VALUE;
+                if (value < minimums[i]) {
+                    minimums[i] = value;
+                }
+            }
+        }
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            signatures[offset + i / Long.BYTES] |= (long) (minimums[i] & 0xFF) << (i % Long.BYTES * Byte.SIZE);
+        }
+    }
+
+    /**
+     * @return The {@value #ROWS} signature bytes of a band of a title, as one int.
+     */
+    private static int bandKey(long[] signatures, int titleOrdinal, int band) {
+        long word = signatures[titleOrdinal * WORDS + band / BANDS_PER_WORD];
+        return (int) (word >>> (band % BANDS_PER_WORD * Integer.SIZE));
+    }
+
+    /**
+     * @return The position of the first title with the band key in the ordinals of the band, or of the
+     * first title with a greater key if there is none.
+     */
+    private int firstOfBucket(int[] ordinals, int band, int key) {
+        int low = 0;
+        int high = ordinals.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bandKey(signatures, ordinals[mid], band) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The number of signature values two titles agree on: the zero bytes of their XOR.
+     */
+    private int agreement(int a, int b) {
+        int equal = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long difference = signatures[a * WORDS + i] ^ signatures[b * WORDS + i];
+            // Per byte, the high bit is set by the carry of the sum if any low bit is set, or by the byte itself
+            long nonZero = ((difference & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL) | difference;
+            equal += Long.bitCount(~(nonZero | 0x7F7F7F7F7F7F7F7FL));
+        }
+        return equal;
+    }
+
+    private static int intersectionSize(int[] a, int[] b) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * The SplitMix64 finalizer.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A similar title: its ordinal, its exact Jaccard similarity, and the number of people it shares.
+     */
+    @Getter
+    public static final class Match {
+        private final int titleOrdinal;
+        private final double similarity;
+        private final int sharedPeople;
+
+        Match(int titleOrdinal, double similarity, int sharedPeople) {
+            this.titleOrdinal = titleOrdinal;
+            this.similarity = similarity;
+            this.sharedPeople = sharedPeople;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.model.Title;
+
+import java.util.*;
+
+/**
+ * Compressed bitmap indexes over title ordinals, one bitmap per value of each title attribute:
+ * type, adult flag, decade, runtime bucket, genre and vote-count threshold.
+ * Filters on several attributes are answered by combining bitmaps, without scanning titles.
+ */
+public final class TitleAttributeIndex {
+
+    public static final int DECADE_YEARS = 10;
+    public static final int RUNTIME_BUCKET_MINUTES = 30;
+    public static final int MAX_RUNTIME_BUCKET = 180;
+    public static final int[] VOTE_THRESHOLDS = {10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final RoaringBitmap all;
+    private final RoaringBitmap adult;
+    private final RoaringBitmap nonAdult;
+    private final Map<String, RoaringBitmap> byType;
+    private final Map<Integer, RoaringBitmap> byDecade;
+    private final Map<Integer, RoaringBitmap> byRuntimeBucket;
+    private final Map<String, RoaringBitmap> byGenre;
+    private final Map<Integer, RoaringBitmap> byMinVotes;
+
+    private TitleAttributeIndex(RoaringBitmap all, RoaringBitmap adult, RoaringBitmap nonAdult,
+                                Map<String, RoaringBitmap> byType, Map<Integer, RoaringBitmap> byDecade,
+                                Map<Integer, RoaringBitmap> byRuntimeBucket, Map<String, RoaringBitmap> byGenre,
+                                Map<Integer, RoaringBitmap> byMinVotes) {
+        this.all = all;
+        this.adult = adult;
+        this.nonAdult = nonAdult;
+        this.byType = byType;
+        this.byDecade = byDecade;
+        this.byRuntimeBucket = byRuntimeBucket;
+        this.byGenre = byGenre;
+        this.byMinVotes = byMinVotes;
+    }
+
+    /**
+     * Builds the bitmaps for titles given in ordinal order. Ordinals are visited in ascending
+     * order, so every bitmap is built by appending.
+     *
+     * @param titles The titles, indexed by ordinal.
+     * @return The new index.
+     */
+    static TitleAttributeIndex build(Title[] titles) {
+        RoaringBitmap all = RoaringBitmap.range(titles.length);
+        RoaringBitmap adult = new RoaringBitmap();
+        RoaringBitmap nonAdult = new RoaringBitmap();
+        Map<String, RoaringBitmap> byType = new HashMap<>();
+        Map<Integer, RoaringBitmap> byDecade = new HashMap<>();
+        Map<Integer, RoaringBitmap> byRuntimeBucket = new HashMap<>();
+        Map<String, RoaringBitmap> byGenre = new HashMap<>();
+        Map<Integer, RoaringBitmap> byMinVotes = new HashMap<>();
+        for (int threshold : VOTE_THRESHOLDS) {
+            byMinVotes.put(threshold, new RoaringBitmap());
+        }
+
+        for (int t = 0; t < titles.length; t++) {
+            Title title = titles[t];
+            (title.isAdult() ? adult : nonAdult).add(t);
+            if (title.getTitleType() != null) {
+                byType.computeIfAbsent(title.getTitleType(), k -> new RoaringBitmap()).add(t);
+            }
+            if (title.getStartYear() != null) {
+                byDecade.computeIfAbsent(decadeOf(title.getStartYear()), k -> new RoaringBitmap()).add(t);
+            }
+            if (title.getRuntimeMinutes() != null) {
+                byRuntimeBucket.computeIfAbsent(runtimeBucketOf(title.getRuntimeMinutes()), k -> new RoaringBitmap()).add(t);
+            }
+            if (title.getGenres() != null) {
+                for (String genre : title.getGenres()) {
+                    byGenre.computeIfAbsent(genre, k -> new RoaringBitmap()).add(t);
+                }
+            }
+            if (title.getNumVotes() != null) {
+                for (int threshold : VOTE_THRESHOLDS) {
+                    if (title.getNumVotes() >= threshold) {
+                        byMinVotes.get(threshold).add(t);
+                    }
+                }
+            }
+        }
+
+        return new TitleAttributeIndex(all, adult, nonAdult, byType, byDecade, byRuntimeBucket, byGenre, byMinVotes);
+    }
+
+    /**
+     * Returns a copy of the index with the vote threshold bitmaps updated for the titles whose votes
+     * changed. Only the bitmaps a changed title enters or leaves are copied; the others are shared.
+     *
+     * @param columns The title columns holding the new votes.
+     * @param changed The ordinals of the titles whose votes may have changed.
+     * @return The updated index.
+     */
+    TitleAttributeIndex withVotes(TitleColumns columns, int[] changed) {
+        Map<Integer, RoaringBitmap> updatedMinVotes = new HashMap<>(byMinVotes);
+        int[] titles = PostingLists.sortedUnique(changed, changed.length);
+        for (int threshold : VOTE_THRESHOLDS) {
+            RoaringBitmap current = byMinVotes.get(threshold);
+            RoaringBitmap entering = new RoaringBitmap();
+            RoaringBitmap leaving = new RoaringBitmap();
+            for (int t : titles) {
+                int votes = columns.numVotes(t);
+                boolean member = votes != TitleColumns.MISSING && votes >= threshold;
+                if (member != current.contains(t)) {
+                    (member ? entering : leaving).add(t);
+                }
+            }
+            if (!entering.isEmpty() || !leaving.isEmpty()) {
+                updatedMinVotes.put(threshold, current.andNot(leaving).or(entering));
+            }
+        }
+        return new TitleAttributeIndex(all, adult, nonAdult, byType, byDecade, byRuntimeBucket, byGenre, updatedMinVotes);
+    }
+
+    public static int decadeOf(int year) {
+        return Math.floorDiv(year, DECADE_YEARS) * DECADE_YEARS;
+    }
+
+    /**
+     * @return The start of the runtime bucket, in minutes: 0, 30, 60, ... up to {@value #MAX_RUNTIME_BUCKET}
+     * which holds every longer runtime.
+     */
+    public static int runtimeBucketOf(int minutes) {
+        return Math.min(Math.max(minutes, 0) / RUNTIME_BUCKET_MINUTES * RUNTIME_BUCKET_MINUTES, MAX_RUNTIME_BUCKET);
+    }
+
+    public RoaringBitmap all() {
+        return all;
+    }
+
+    public RoaringBitmap adult(boolean isAdult) {
+        return isAdult ? adult : nonAdult;
+    }
+
+    public RoaringBitmap titleType(String titleType) {
+        return byType.getOrDefault(titleType, EMPTY);
+    }
+
+    public RoaringBitmap decade(int decade) {
+        return byDecade.getOrDefault(decade, EMPTY);
+    }
+
+    public RoaringBitmap runtimeBucket(int bucket) {
+        return byRuntimeBucket.getOrDefault(bucket, EMPTY);
+    }
+
+    public RoaringBitmap genre(String genre) {
+        return byGenre.getOrDefault(genre, EMPTY);
+    }
+
+    /**
+     * @param threshold One of {@link #VOTE_THRESHOLDS}.
+     * @return The titles with at least that many votes.
+     * @throws InvalidParameterException If the threshold is not one of the indexed thresholds.
+     */
+    public RoaringBitmap minVotes(int threshold) {
+        RoaringBitmap bitmap = byMinVotes.get(threshold);
+        if (bitmap == null) {
+            throw new InvalidParameterException("minVotes must be one of " + Arrays.toString(VOTE_THRESHOLDS));
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return Whether the value is one of {@link #VOTE_THRESHOLDS}.
+     */
+    public static boolean isVoteThreshold(int votes) {
+        return Arrays.stream(VOTE_THRESHOLDS).anyMatch(threshold -> threshold == votes);
+    }
+
+    public Set<String> titleTypes() {
+        return Collections.unmodifiableSet(byType.keySet());
+    }
+
+    public Set<String> genres() {
+        return Collections.unmodifiableSet(byGenre.keySet());
+    }
+
+    public Set<Integer> decades() {
+        return Collections.unmodifiableSet(byDecade.keySet());
+    }
+
+    public Set<Integer> runtimeBuckets() {
+        return Collections.unmodifiableSet(byRuntimeBucket.keySet());
+    }
+
+    /**
+     * Intersects the given bitmaps smallest first and returns the size of the result.
+     * The last intersection is only counted, never materialized.
+     *
+     * @param filters The bitmaps to intersect. An empty list means "all titles".
+     * @return The number of titles present in every bitmap.
+     */
+    public int countAll(List<RoaringBitmap> filters) {
+        if (filters.isEmpty()) {
+            return all.cardinality();
+        }
+        List<RoaringBitmap> sorted = new ArrayList<>(filters);
+        sorted.sort(Comparator.comparingInt(RoaringBitmap::cardinality));
+        RoaringBitmap result = sorted.get(0);
+        for (int i = 1; i < sorted.size() - 1 && !result.isEmpty(); i++) {
+            result = result.and(sorted.get(i));
+        }
+        return sorted.size() == 1 ? result.cardinality() : result.andCardinality(sorted.get(sorted.size() - 1));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.model.Title;
+
+import java.util.Arrays;
+
+/**
+ * The numeric title attributes stored column by column, indexed by title ordinal.
+ * Filters and sorts read these primitive arrays instead of dereferencing {@link Title} objects,
+ * which keeps full scans sequential and cache friendly.
+ * Missing values are stored as {@link #MISSING}, or NaN for ratings.
+ */
+public final class TitleColumns {
+
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private final int[] startYears;
+    private final int[] runtimes;
+    private final int[] votes;
+    private final float[] ratings;
+
+    private TitleColumns(int[] startYears, int[] runtimes, int[] votes, float[] ratings) {
+        this.startYears = startYears;
+        this.runtimes = runtimes;
+        this.votes = votes;
+        this.ratings = ratings;
+    }
+
+    /**
+     * @param titles The titles, indexed by ordinal.
+     * @return The columns of the given titles.
+     */
+    static TitleColumns build(Title[] titles) {
+        int[] startYears = new int[titles.length];
+        int[] runtimes = new int[titles.length];
+        int[] votes = new int[titles.length];
+        float[] ratings = new float[titles.length];
+        Arrays.fill(ratings, Float.NaN);
+
+        for (int t = 0; t < titles.length; t++) {
+            Title title = titles[t];
+            startYears[t] = orMissing(title.getStartYear());
+            runtimes[t] = orMissing(title.getRuntimeMinutes());
+            votes[t] = orMissing(title.getNumVotes());
+            if (title.getRating() != null) {
+                ratings[t] = title.getRating();
+            }
+        }
+        return new TitleColumns(startYears, runtimes, votes, ratings);
+    }
+
+    /**
+     * Returns a copy of the columns with new ratings and votes for the changed titles. The other columns
+     * are shared.
+     *
+     * @param changed    The ordinals of the titles whose rating or votes changed.
+     * @param newRatings The new ratings of the changed titles, in the same order, NaN for none.
+     * @param newVotes   The new numbers of votes of the changed titles, in the same order, {@link #MISSING} for none.
+     * @return The updated columns.
+     */
+    TitleColumns withRatings(int[] changed, float[] newRatings, int[] newVotes) {
+        int[] updatedVotes = votes.clone();
+        float[] updatedRatings = ratings.clone();
+        for (int i = 0; i < changed.length; i++) {
+            updatedVotes[changed[i]] = newVotes[i];
+            updatedRatings[changed[i]] = newRatings[i];
+        }
+        return new TitleColumns(startYears, runtimes, updatedVotes, updatedRatings);
+    }
+
+    private static int orMissing(Integer value) {
+        return value == null ? MISSING : value;
+    }
+
+    public int startYear(int ordinal) {
+        return startYears[ordinal];
+    }
+
+    public int runtimeMinutes(int ordinal) {
+        return runtimes[ordinal];
+    }
+
+    public int numVotes(int ordinal) {
+        return votes[ordinal];
+    }
+
+    /**
+     * @return The rating of the title, or NaN if it has none.
+     */
+    public float rating(int ordinal) {
+        return ratings[ordinal];
+    }
+
+    // The whole columns, for the kernels of a TitleScan
+
+    int[] startYears() {
+        return startYears;
+    }
+
+    int[] runtimes() {
+        return runtimes;
+    }
+
+    int[] votes() {
+        return votes;
+    }
+
+    float[] ratings() {
+        return ratings;
+    }
+}
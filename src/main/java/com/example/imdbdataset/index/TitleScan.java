@@ -0,0 +1,142 @@
+package com.example.imdbdataset.index;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * A scan over the {@link TitleColumns} of an index: a selection bitmap of all titles, narrowed by
+ * range predicates evaluated column by column with the {@link RangeKernels#preferred() preferred}
+ * {@link RangeKernel}, by bitmaps, and by arbitrary checks, in any order.
+ * <p>
+ * Range predicates never keep missing values. Narrow with the most selective predicate first:
+ * the kernels skip the 64-title words that are already empty.
+ */
+public final class TitleScan {
+
+    private final TitleColumns columns;
+    private final RangeKernel kernel;
+    private final int titleCount;
+    private final long[] selection;
+
+    TitleScan(TitleColumns columns, int titleCount, RangeKernel kernel) {
+        this.columns = columns;
+        this.kernel = kernel;
+        this.titleCount = titleCount;
+        this.selection = new long[(titleCount + 63) >>> 6];
+        Arrays.fill(selection, -1L);
+        if ((titleCount & 63) != 0) {
+            selection[selection.length - 1] = (1L << titleCount) - 1;
+        }
+    }
+
+    /**
+     * Starts a scan selecting every title of an index.
+     */
+    public static TitleScan of(DatasetIndex index) {
+        return new TitleScan(index.columns(), index.titleCount(), RangeKernels.preferred());
+    }
+
+    /**
+     * @return The name of the kernel scans run on: "scalar", or "vector" and its number of lanes.
+     */
+    public static String kernelName() {
+        return RangeKernels.preferred().name();
+    }
+
+    /**
+     * Keeps the titles started between min and max (inclusive).
+     */
+    public TitleScan startYear(int min, int max) {
+        kernel.select(columns.startYears(), present(min), max, selection);
+        return this;
+    }
+
+    /**
+     * Keeps the titles whose runtime is between min and max minutes (inclusive).
+     */
+    public TitleScan runtimeMinutes(int min, int max) {
+        kernel.select(columns.runtimes(), present(min), max, selection);
+        return this;
+    }
+
+    /**
+     * Keeps the titles with between min and max votes (inclusive).
+     */
+    public TitleScan numVotes(int min, int max) {
+        kernel.select(columns.votes(), present(min), max, selection);
+        return this;
+    }
+
+    /**
+     * Keeps the titles rated between min and max (inclusive).
+     */
+    public TitleScan rating(float min, float max) {
+        kernel.select(columns.ratings(), min, max, selection);
+        return this;
+    }
+
+    /**
+     * Keeps the titles that are in a bitmap.
+     */
+    public TitleScan within(RoaringBitmap bitmap) {
+        long[] words = new long[selection.length];
+        bitmap.forEach(t -> {
+            if (t < titleCount) {
+                words[t >>> 6] |= 1L << t;
+            }
+        });
+        for (int w = 0; w < selection.length; w++) {
+            selection[w] &= words[w];
+        }
+        return this;
+    }
+
+    /**
+     * Keeps the titles that pass a check. The check is only run on the titles still selected.
+     */
+    public TitleScan filter(IntPredicate check) {
+        for (int w = 0; w < selection.length; w++) {
+            long word = selection[w];
+            for (long bits = word; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                if (!check.test((w << 6) + bit)) {
+                    word &= ~(1L << bit);
+                }
+            }
+            selection[w] = word;
+        }
+        return this;
+    }
+
+    /**
+     * @return The number of titles selected.
+     */
+    public int count() {
+        int count = 0;
+        for (long word : selection) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return The ordinals of the titles selected, ascending.
+     */
+    public int[] toArray() {
+        int[] ordinals = new int[count()];
+        int n = 0;
+        for (int w = 0; w < selection.length; w++) {
+            for (long bits = selection[w]; bits != 0; bits &= bits - 1) {
+                ordinals[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Missing values are stored as the smallest int, so an open lower bound starts right above it.
+     */
+    private static int present(int min) {
+        return Math.max(min, TitleColumns.MISSING + 1);
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.model.Title;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Title statistics (number of titles, of rated titles, sum of ratings and of votes) for every
+ * genre × start year × title type cell. A title counts once in each of its genres, and once more in
+ * an extra "any genre" slab that totals not broken down by genre are read from, so that they count
+ * every title once. Titles without a start year or a type are left out.
+ * <p>
+ * The cube is computed with a fork-join reduction: the title ordinals are split into ranges,
+ * every worker thread accumulates the ranges it runs into its own cell arrays, read from the
+ * {@link TitleColumns}, and the per-thread arrays are summed once all ranges are done.
+ * Coarser groupings are rolled up from the cells on read, and remembered, since a cube never
+ * changes once built. The cube keeps a reference to the {@link DatasetIndex} it was computed from.
+ */
+public final class TitleStatisticsCube {
+
+    /**
+     * Ranges of at most this many titles are not split further.
+     */
+    static final int PARTITION_SIZE = 8_192;
+
+    /**
+     * At most this many roll-ups are remembered per cube.
+     */
+    static final int MAX_CACHED_ROLLUPS = 256;
+
+    /**
+     * A dimension of the cube.
+     */
+    public enum Dimension {
+        GENRE, YEAR, TYPE;
+
+        /**
+         * Parses a dimension given as a request parameter (case-insensitive).
+         *
+         * @throws InvalidParameterException If the value is not a dimension.
+         */
+        public static Dimension parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidParameterException("Unknown dimension: " + value + ". Supported dimensions: "
+                        + Arrays.stream(values()).map(d -> d.name().toLowerCase(Locale.ROOT)).collect(Collectors.joining(", ")));
+            }
+        }
+    }
+
+    private final DatasetIndex index;
+    private final String[] genres;
+    private final int minYear;
+    private final int years;
+    private final String[] types;
+    private final Cells cells;
+    private final Map<String, List<Group>> rollups = new ConcurrentHashMap<>();
+
+    private TitleStatisticsCube(DatasetIndex index, String[] genres, int minYear, int years, String[] types, Cells cells) {
+        this.index = index;
+        this.genres = genres;
+        this.minYear = minYear;
+        this.years = years;
+        this.types = types;
+        this.cells = cells;
+    }
+
+    /**
+     * Computes the cube of an index on the common fork-join pool.
+     *
+     * @param index The index to compute the statistics from.
+     * @return The new cube.
+     */
+    public static TitleStatisticsCube build(DatasetIndex index) {
+        String[] genres = index.attributes().genres().stream().sorted().toArray(String[]::new);
+        String[] types = index.attributes().titleTypes().stream().sorted().toArray(String[]::new);
+        Map<String, Integer> genreIds = ids(genres);
+        Map<String, Integer> typeIds = ids(types);
+
+        TitleColumns columns = index.columns();
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        for (int t = 0; t < index.titleCount(); t++) {
+            int year = columns.startYear(t);
+            if (year != TitleColumns.MISSING) {
+                minYear = Math.min(minYear, year);
+                maxYear = Math.max(maxYear, year);
+            }
+        }
+        int years = minYear > maxYear ? 0 : maxYear - minYear + 1;
+        // The last genre slot is the "any genre" slab
+        int cellCount = (genres.length + 1) * years * types.length;
+
+        Queue<Cells> partials = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Cells> local = ThreadLocal.withInitial(() -> {
+            Cells partial = new Cells(cellCount);
+            partials.add(partial);
+            return partial;
+        });
+        int firstYear = minYear;
+        ForkJoinPool.commonPool().invoke(new Partition(0, index.titleCount(), t -> {
+            Title title = index.title(t);
+            int year = columns.startYear(t);
+            Integer type = typeIds.get(title.getTitleType());
+            if (year == TitleColumns.MISSING || type == null) {
+                return;
+            }
+            Cells partial = local.get();
+            partial.add(((genres.length * years) + (year - firstYear)) * types.length + type,
+                    columns.rating(t), columns.numVotes(t));
+            if (title.getGenres() != null) {
+                for (String genre : title.getGenres()) {
+                    Integer g = genreIds.get(genre);
+                    if (g != null) {
+                        partial.add(((g * years) + (year - firstYear)) * types.length + type,
+                                columns.rating(t), columns.numVotes(t));
+                    }
+                }
+            }
+        }));
+
+        Cells total = new Cells(cellCount);
+        partials.forEach(total::merge);
+        return new TitleStatisticsCube(index, genres, firstYear, years, types, total);
+    }
+
+    private static Map<String, Integer> ids(String[] values) {
+        Map<String, Integer> ids = new HashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            ids.put(values[i], i);
+        }
+        return ids;
+    }
+
+    /**
+     * @return The index the cube was computed from.
+     */
+    public DatasetIndex index() {
+        return index;
+    }
+
+    /**
+     * Rolls the cube up to the given dimensions, keeping only the cells that match the filters.
+     *
+     * @param groupBy   The dimensions to group by; the others are summed over. Empty gives one total.
+     * @param genre     Only count this genre, or null.
+     * @param titleType Only count this title type, or null.
+     * @param fromYear  The earliest start year (inclusive), or null.
+     * @param toYear    The latest start year (inclusive), or null.
+     * @return The non-empty groups, ordered by genre, year and type.
+     */
+    public List<Group> rollUp(List<Dimension> groupBy, String genre, String titleType, Integer fromYear, Integer toYear) {
+        String key = groupBy + "|" + genre + "|" + titleType + "|" + fromYear + "|" + toYear;
+        List<Group> cached = rollups.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean byGenre = groupBy.contains(Dimension.GENRE);
+        boolean byYear = groupBy.contains(Dimension.YEAR);
+        boolean byType = groupBy.contains(Dimension.TYPE);
+        TreeMap<String, Group> groups = new TreeMap<>();
+        boolean perGenre = byGenre || genre != null;
+        for (int g = perGenre ? 0 : genres.length; g < (perGenre ? genres.length : genres.length + 1); g++) {
+            if (genre != null && !genre.equals(genres[g])) {
+                continue;
+            }
+            for (int y = 0; y < years; y++) {
+                int year = minYear + y;
+                if ((fromYear != null && year < fromYear) || (toYear != null && year > toYear)) {
+                    continue;
+                }
+                for (int type = 0; type < types.length; type++) {
+                    if (titleType != null && !titleType.equals(types[type])) {
+                        continue;
+                    }
+                    int cell = ((g * years) + y) * types.length + type;
+                    if (cells.counts[cell] == 0) {
+                        continue;
+                    }
+                    String groupGenre = byGenre ? genres[g] : null;
+                    Integer groupYear = byYear ? year : null;
+                    String groupType = byType ? types[type] : null;
+                    // Sorts by genre, then year (fixed width, years are non-negative), then type
+                    String sortKey = (groupGenre == null ? "" : groupGenre) + '\0'
+                            + (groupYear == null ? "" : String.format("%06d", groupYear)) + '\0'
+                            + (groupType == null ? "" : groupType);
+                    groups.computeIfAbsent(sortKey, k -> new Group(groupGenre, groupYear, groupType)).add(cells, cell);
+                }
+            }
+        }
+
+        List<Group> result = List.copyOf(groups.values());
+        if (rollups.size() < MAX_CACHED_ROLLUPS) {
+            rollups.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Splits a range of title ordinals until it is small enough, then visits every title in it.
+     */
+    private static final class Partition extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer visit;
+
+        Partition(int from, int to, IntConsumer visit) {
+            this.from = from;
+            this.to = to;
+            this.visit = visit;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARTITION_SIZE) {
+                for (int t = from; t < to; t++) {
+                    visit.accept(t);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Partition(from, middle, visit), new Partition(middle, to, visit));
+        }
+    }
+
+    /**
+     * The statistics of every cell, one array per statistic.
+     */
+    private static final class Cells {
+        private final int[] counts;
+        private final int[] ratedCounts;
+        private final double[] ratingSums;
+        private final long[] voteSums;
+
+        Cells(int cellCount) {
+            counts = new int[cellCount];
+            ratedCounts = new int[cellCount];
+            ratingSums = new double[cellCount];
+            voteSums = new long[cellCount];
+        }
+
+        void add(int cell, float rating, int votes) {
+            counts[cell]++;
+            if (!Float.isNaN(rating)) {
+                ratedCounts[cell]++;
+                ratingSums[cell] += rating;
+            }
+            if (votes != TitleColumns.MISSING) {
+                voteSums[cell] += votes;
+            }
+        }
+
+        void merge(Cells other) {
+            Arrays.setAll(counts, i -> counts[i] + other.counts[i]);
+            Arrays.setAll(ratedCounts, i -> ratedCounts[i] + other.ratedCounts[i]);
+            Arrays.setAll(ratingSums, i -> ratingSums[i] + other.ratingSums[i]);
+            Arrays.setAll(voteSums, i -> voteSums[i] + other.voteSums[i]);
+        }
+    }
+
+    /**
+     * The statistics of one group of cells. Dimensions that are not grouped by are null.
+     */
+    @Getter
+    public static final class Group {
+        private final String genre;
+        private final Integer year;
+        private final String titleType;
+        private long titleCount;
+        private long ratedCount;
+        @Getter(AccessLevel.NONE)
+        private double ratingSum;
+        private long totalVotes;
+
+        Group(String genre, Integer year, String titleType) {
+            this.genre = genre;
+            this.year = year;
+            this.titleType = titleType;
+        }
+
+        void add(Cells cells, int cell) {
+            titleCount += cells.counts[cell];
+            ratedCount += cells.ratedCounts[cell];
+            ratingSum += cells.ratingSums[cell];
+            totalVotes += cells.voteSums[cell];
+        }
+
+        /**
+         * @return The mean rating of the rated titles, or null if none is rated.
+         */
+        public Double getMeanRating() {
+            return ratedCount == 0 ? null : ratingSum / ratedCount;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.imdbdataset.index;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link RangeKernel} on the JDK Vector API: every comparison covers as many rows as the
+ * preferred vector shape of the CPU has lanes (8 ints with AVX2, 16 with AVX-512), and the lane
+ * mask is shifted straight into the selection word. The last, partial word is done row by row.
+ * <p>
+ * This class needs the {@code jdk.incubator.vector} module at run time; it is only loaded through
+ * {@link RangeKernels}, which falls back to the {@link ScalarRangeKernel} when the module is missing.
+ */
+final class VectorRangeKernel implements RangeKernel {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void select(int[] column, int min, int max, long[] selection) {
+        int lanes = INTS.length();
+        int fullWords = column.length >>> 6;
+        for (int w = 0; w < fullWords; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            long keep = 0;
+            for (int j = 0; j < 64; j += lanes) {
+                IntVector values = IntVector.fromArray(INTS, column, base + j);
+                VectorMask<Integer> inRange = values.compare(VectorOperators.GE, min)
+                        .and(values.compare(VectorOperators.LE, max));
+                keep |= inRange.toLong() << j;
+            }
+            selection[w] &= keep;
+        }
+        if (fullWords < selection.length && selection[fullWords] != 0) {
+            selection[fullWords] &= ScalarRangeKernel.word(column, min, max, fullWords);
+        }
+    }
+
+    @Override
+    public void select(float[] column, float min, float max, long[] selection) {
+        int lanes = FLOATS.length();
+        int fullWords = column.length >>> 6;
+        for (int w = 0; w < fullWords; w++) {
+            if (selection[w] == 0) {
+                continue;
+            }
+            int base = w << 6;
+            long keep = 0;
+            for (int j = 0; j < 64; j += lanes) {
+                FloatVector values = FloatVector.fromArray(FLOATS, column, base + j);
+                // Ordered comparisons: NaN fails both
+                VectorMask<Float> inRange = values.compare(VectorOperators.GE, min)
+                        .and(values.compare(VectorOperators.LE, max));
+                keep |= inRange.toLong() << j;
+            }
+            selection[w] &= keep;
+        }
+        if (fullWords < selection.length && selection[fullWords] != 0) {
+            selection[fullWords] &= ScalarRangeKernel.word(column, min, max, fullWords);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + INTS.length() + " lanes)";
+    }
+}
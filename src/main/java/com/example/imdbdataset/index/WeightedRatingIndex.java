@@ -0,0 +1,197 @@
+package com.example.imdbdataset.index;
+
+import java.util.Arrays;
+
+/**
+ * The IMDb-style weighted (Bayesian) rating of every rated title, and the titles ranked by it.
+ * <pre>
+ * WR = v / (v + m) * R + m / (v + m) * C
+ * </pre>
+ * where R is the title's average rating, v its number of votes, m the minimum votes threshold and
+ * C the global mean rating. Titles with few votes are pulled towards the global mean, so a 10.0
+ * from 5 votes no longer outranks an 8.9 from a million votes.
+ * <p>
+ * Scores are computed once per index, and titles are kept sorted by score, so ranking a set of titles
+ * is an int compare. The index keeps a reference to the {@link DatasetIndex} it was computed from.
+ * <p>
+ * C is held for the life of the ranking: {@link #withRatings} rescores only the titles whose rating
+ * changed, with the same C, even when C is the mean of all ratings. Only {@link #build} computes it
+ * again, so that rating updates do not rescore and re-sort every title.
+ */
+public final class WeightedRatingIndex {
+
+    public static final int DEFAULT_MIN_VOTES = 25_000;
+
+    private final DatasetIndex index;
+    private final int minVotes;
+    private final float globalMean;
+    private final float[] scores;
+    private final long[] ranked;
+
+    private WeightedRatingIndex(DatasetIndex index, int minVotes, float globalMean, float[] scores, long[] ranked) {
+        this.index = index;
+        this.minVotes = minVotes;
+        this.globalMean = globalMean;
+        this.scores = scores;
+        this.ranked = ranked;
+    }
+
+    /**
+     * Scores and ranks every rated title of the index.
+     *
+     * @param index      The index to compute the ranking from.
+     * @param minVotes   The minimum votes threshold m. Must be >= 0.
+     * @param globalMean The global mean rating C, or null to use the mean rating of all rated titles.
+     * @return The new ranking.
+     */
+    public static WeightedRatingIndex build(DatasetIndex index, int minVotes, Float globalMean) {
+        TitleColumns columns = index.columns();
+        int titleCount = index.titleCount();
+
+        float mean;
+        if (globalMean != null) {
+            mean = globalMean;
+        } else {
+            double sum = 0;
+            int rated = 0;
+            for (int t = 0; t < titleCount; t++) {
+                if (!Float.isNaN(columns.rating(t))) {
+                    sum += columns.rating(t);
+                    rated++;
+                }
+            }
+            mean = rated == 0 ? 0f : (float) (sum / rated);
+        }
+
+        float[] scores = new float[titleCount];
+        long[] entries = new long[titleCount];
+        int n = 0;
+        for (int t = 0; t < titleCount; t++) {
+            float rating = columns.rating(t);
+            int votes = columns.numVotes(t);
+            if (Float.isNaN(rating) || votes == TitleColumns.MISSING) {
+                scores[t] = Float.NaN;
+                continue;
+            }
+            scores[t] = weightedRating(rating, votes, minVotes, mean);
+            entries[n++] = rankEntry(scores[t], t);
+        }
+        Arrays.sort(entries, 0, n);
+        return new WeightedRatingIndex(index, minVotes, mean, scores, Arrays.copyOf(entries, n));
+    }
+
+    /**
+     * Returns the ranking of an index derived by {@link DatasetIndex#withRatings}: the changed titles are
+     * rescored with the same m and C, and moved within the ranking in one merge pass, without sorting.
+     *
+     * @param updated The index with the new ratings. It must have the same titles.
+     * @param changed The ordinals of the titles whose rating or votes changed.
+     * @return The updated ranking.
+     */
+    public WeightedRatingIndex withRatings(DatasetIndex updated, int[] changed) {
+        TitleColumns columns = updated.columns();
+        int[] titles = PostingLists.sortedUnique(changed, changed.length);
+        float[] updatedScores = scores.clone();
+        long[] removed = new long[titles.length];
+        long[] added = new long[titles.length];
+        int r = 0;
+        int a = 0;
+        for (int t : titles) {
+            if (!Float.isNaN(scores[t])) {
+                removed[r++] = rankEntry(scores[t], t);
+            }
+            float rating = columns.rating(t);
+            int votes = columns.numVotes(t);
+            if (Float.isNaN(rating) || votes == TitleColumns.MISSING) {
+                updatedScores[t] = Float.NaN;
+            } else {
+                updatedScores[t] = weightedRating(rating, votes, minVotes, globalMean);
+                added[a++] = rankEntry(updatedScores[t], t);
+            }
+        }
+        Arrays.sort(removed, 0, r);
+        Arrays.sort(added, 0, a);
+
+        // Merge the remaining entries with the added ones, skipping the removed ones
+        long[] merged = new long[ranked.length - r + a];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < ranked.length || k < a) {
+            if (i < ranked.length && j < r && ranked[i] == removed[j]) {
+                i++;
+                j++;
+            } else if (k < a && (i == ranked.length || added[k] < ranked[i])) {
+                merged[n++] = added[k++];
+            } else {
+                merged[n++] = ranked[i++];
+            }
+        }
+        return new WeightedRatingIndex(updated, minVotes, globalMean, updatedScores, merged);
+    }
+
+    /**
+     * Best score first, ties in title order; non-negative floats order like their bits.
+     */
+    private static long rankEntry(float score, int titleOrdinal) {
+        return DatasetIndex.sortEntry(-Float.floatToIntBits(score), titleOrdinal);
+    }
+
+    /**
+     * @return The weighted rating of a title with the given rating and votes.
+     */
+    public static float weightedRating(float rating, int votes, int minVotes, float globalMean) {
+        double v = Math.max(votes, 0);
+        double total = v + minVotes;
+        if (total == 0) {
+            return rating;
+        }
+        return (float) (v / total * rating + minVotes / total * globalMean);
+    }
+
+    /**
+     * @return The index the ranking was computed from.
+     */
+    public DatasetIndex index() {
+        return index;
+    }
+
+    public int getMinVotes() {
+        return minVotes;
+    }
+
+    public float getGlobalMean() {
+        return globalMean;
+    }
+
+    /**
+     * @return The weighted rating of the title, or NaN if it is not rated.
+     */
+    public float score(int titleOrdinal) {
+        return scores[titleOrdinal];
+    }
+
+    /**
+     * @return The position of the title in the ranking (0 is the best), or {@link Integer#MAX_VALUE}
+     * if it is not rated.
+     */
+    public int rank(int titleOrdinal) {
+        float score = scores[titleOrdinal];
+        return Float.isNaN(score) ? Integer.MAX_VALUE : Arrays.binarySearch(ranked, rankEntry(score, titleOrdinal));
+    }
+
+    /**
+     * @return The number of ranked (rated) titles.
+     */
+    public int rankedCount() {
+        return ranked.length;
+    }
+
+    /**
+     * @return The ordinal of the title at the given position of the ranking.
+     */
+    public int titleAt(int rank) {
+        return (int) ranked[rank];
+    }
+}
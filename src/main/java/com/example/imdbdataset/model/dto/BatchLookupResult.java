@@ -0,0 +1,18 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchLookupResult<T> {
+    private String id;          // the ID as requested
+    private boolean found;
+    private T item;             // null if not found
+    private String error;       // why the item was not found, null if found
+
+}
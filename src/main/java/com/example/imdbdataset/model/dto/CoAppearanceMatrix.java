@@ -0,0 +1,19 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CoAppearanceMatrix {
+    private List<String> people;            // nconsts, in request order
+    private int[][] sharedTitleCounts;      // [i][j] = titles shared by people i and j; [i][i] = titles of person i
+    private List<SharedTitles> sharedTitles; // pairs with at least one shared title, only when requested
+
+}
@@ -0,0 +1,18 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CollaborationPath {
+    private List<String> people; // nconsts, from the first person to the second
+    private List<String> titles; // tconsts; titles[i] is shared by people[i] and people[i + 1]
+
+}
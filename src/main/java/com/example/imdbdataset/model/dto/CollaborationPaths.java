@@ -0,0 +1,21 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CollaborationPaths {
+    private String from;                   // nconst of the first person
+    private String to;                     // nconst of the second person
+    private Integer degrees;               // number of titles on the shortest paths, null if none was found
+    private List<CollaborationPath> paths; // shortest paths, empty if none was found
+    private boolean timedOut;              // whether the search gave up before finding a path
+
+}
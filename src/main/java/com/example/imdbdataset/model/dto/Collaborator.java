@@ -0,0 +1,20 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class Collaborator {
+    private String nconst;
+    private String primaryName;
+    private int sharedTitleCount;
+    private List<String> titles; // tconsts of the shared titles, sorted by primary title
+
+}
@@ -0,0 +1,24 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmographyEntry {
+    private String tconst;
+    private String primaryTitle;
+    private String titleType;
+    private Integer startYear;
+    private Float rating;
+    private Integer numVotes;
+    private List<String> roles; // the person's credit roles on the title, e.g. actor, director
+    private boolean knownFor;    // whether the title is one of the person's knownForTitles
+
+}
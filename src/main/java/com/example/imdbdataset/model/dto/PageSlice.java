@@ -0,0 +1,19 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageSlice<T> {
+    private List<T> items;
+    private long totalItems;    // exact size of the whole result, computed in the same execution as the page
+    private String nextCursor;  // cursor for the page after this one, null on the last page
+
+}
@@ -0,0 +1,21 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueryCacheStats {
+    private long entries;           // results currently cached
+    private long weightBytes;       // estimated size of the cached results
+    private long maxBytes;          // bound on weightBytes
+    private long evictions;         // results evicted to stay within maxBytes
+    private List<QueryStats> queries; // hits and misses by query, by name
+
+}
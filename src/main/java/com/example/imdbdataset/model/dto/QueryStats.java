@@ -0,0 +1,18 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueryStats {
+    private String query;       // name of the query method
+    private long hits;          // results served from the cache
+    private long misses;        // results computed
+    private double hitRate;     // hits / (hits + misses), 0 before the first request
+
+}
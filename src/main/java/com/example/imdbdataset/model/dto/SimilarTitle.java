@@ -0,0 +1,23 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimilarTitle {
+    private String tconst;
+    private String primaryTitle;
+    private String titleType;
+    private Integer startYear;
+    private double similarity;      // Jaccard similarity of the people and genres of both titles, from 0 to 1
+    private int sharedPeopleCount;
+    private List<String> sharedGenres;
+
+}
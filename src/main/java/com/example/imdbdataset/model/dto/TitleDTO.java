@@ -15,5 +15,6 @@ public class TitleDTO {
     private Integer startYear;
     private Float rating;
     private Integer numVotes;
+    private Float weightedRating; // IMDb-style weighted rating, null if the title is not rated
 
 }
\ No newline at end of file
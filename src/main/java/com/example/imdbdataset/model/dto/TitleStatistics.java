@@ -0,0 +1,21 @@
+package com.example.imdbdataset.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TitleStatistics {
+    private String genre;       // null unless grouped by genre
+    private Integer year;       // null unless grouped by year
+    private String titleType;   // null unless grouped by type
+    private long titleCount;
+    private long ratedCount;
+    private Double meanRating;  // mean rating of the rated titles, null if none is rated
+    private long totalVotes;
+
+}
@@ -0,0 +1,25 @@
+package com.example.imdbdataset.search;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A people search: a conjunction of predicates, every one of which is optional.
+ * Numeric bounds are inclusive; a null bound means "unbounded".
+ *
+ * @see PersonQueryPlanner
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class PersonQuery {
+    private List<String> professions = new ArrayList<>(); // all of these primary professions
+    private Integer minBirthYear;
+    private Integer maxBirthYear;
+    private Boolean alive;
+    private Integer minCredits; // titles credited on, in any role
+}
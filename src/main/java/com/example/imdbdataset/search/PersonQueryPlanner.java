@@ -0,0 +1,115 @@
+package com.example.imdbdataset.search;
+
+import com.example.imdbdataset.index.DatasetIndex;
+import com.example.imdbdataset.index.PersonAttributeIndex;
+import com.example.imdbdataset.index.RoaringBitmap;
+import com.example.imdbdataset.index.TitleColumns;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs a {@link PersonQuery} over the {@link PersonAttributeIndex} of a {@link DatasetIndex}.
+ * <p>
+ * Professions are bitmaps; birth-year and credit-count ranges are found in sorted arrays, so every
+ * indexed predicate knows exactly how many people it keeps before anything is materialized. The
+ * most selective one drives: the other profession bitmaps are ANDed into it, while ranges that keep
+ * more people than the driver are checked against their column rather than materialized. Living
+ * status is always a check, as death years can change in place. Without any indexed predicate,
+ * every person is scanned.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PersonQueryPlanner {
+
+    /**
+     * Runs a query.
+     *
+     * @param query The query.
+     * @param index The dataset index to run it against.
+     * @return The ordinals of the matching people, ascending.
+     */
+    public static int[] execute(PersonQuery query, DatasetIndex index) {
+        PersonAttributeIndex attributes = index.personAttributes();
+        List<Filter> filters = new ArrayList<>();
+
+        for (String profession : query.getProfessions()) {
+            RoaringBitmap bitmap = attributes.profession(profession);
+            filters.add(new Filter(bitmap.cardinality(), () -> bitmap, bitmap::contains, true));
+        }
+        if (query.getMinBirthYear() != null || query.getMaxBirthYear() != null) {
+            int min = query.getMinBirthYear() == null ? Integer.MIN_VALUE : query.getMinBirthYear();
+            int max = query.getMaxBirthYear() == null ? Integer.MAX_VALUE : query.getMaxBirthYear();
+            filters.add(new Filter(attributes.countBirthYears(min, max), () -> attributes.birthYears(min, max),
+                    p -> attributes.birthYear(p) != TitleColumns.MISSING
+                            && attributes.birthYear(p) >= min && attributes.birthYear(p) <= max, false));
+        }
+        if (query.getMinCredits() != null) {
+            int min = query.getMinCredits();
+            filters.add(new Filter(attributes.countMinCredits(min), () -> attributes.minCredits(min),
+                    p -> attributes.credits(p) >= min, false));
+        }
+        filters.sort(Comparator.comparingInt(f -> f.estimate));
+
+        List<IntPredicate> checks = new ArrayList<>();
+        if (query.getAlive() != null) {
+            boolean alive = query.getAlive();
+            checks.add(p -> index.person(p).isAlive() == alive);
+        }
+
+        int[] candidates;
+        if (filters.isEmpty()) {
+            candidates = null;
+        } else {
+            RoaringBitmap bits = filters.get(0).bitmap.get();
+            for (int i = 1; i < filters.size(); i++) {
+                Filter filter = filters.get(i);
+                // Profession bitmaps are already built; ranges are only worth building while they are small
+                if (filter.materialized || filter.estimate <= bits.cardinality()) {
+                    bits = bits.and(filter.bitmap.get());
+                } else {
+                    checks.add(filter.check);
+                }
+            }
+            candidates = bits.toArray();
+        }
+
+        int count = candidates == null ? index.personCount() : candidates.length;
+        int[] matches = new int[count];
+        int n = 0;
+        candidates:
+        for (int i = 0; i < count; i++) {
+            int p = candidates == null ? i : candidates[i];
+            for (IntPredicate check : checks) {
+                if (!check.test(p)) {
+                    continue candidates;
+                }
+            }
+            matches[n++] = p;
+        }
+        return n == count ? matches : Arrays.copyOf(matches, n);
+    }
+
+    /**
+     * One indexed predicate: how many people it keeps, how to materialize them (and whether they already are),
+     * and how to check one person.
+     */
+    private static final class Filter {
+        private final int estimate;
+        private final Supplier<RoaringBitmap> bitmap;
+        private final IntPredicate check;
+        private final boolean materialized;
+
+        Filter(int estimate, Supplier<RoaringBitmap> bitmap, IntPredicate check, boolean materialized) {
+            this.estimate = estimate;
+            this.bitmap = bitmap;
+            this.check = check;
+            this.materialized = materialized;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.imdbdataset.search;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.index.DatasetIndex;
+import com.example.imdbdataset.index.PersonAttributeIndex;
+import com.example.imdbdataset.index.TitleColumns;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * The orders in which people search results can be returned. Ties, and people missing the sort value,
+ * are ordered by primary name; people missing the sort value always come last.
+ */
+public enum PersonSort {
+    NAME,
+    BIRTH_YEAR,
+    CREDITS;
+
+    /**
+     * Parses a sort parameter: a sort name, optionally prefixed with '-' for descending order.
+     *
+     * @param value The parameter, e.g. "name" or "-credits". Null means ascending by name.
+     * @return The sort, and whether it is descending.
+     * @throws InvalidParameterException If the sort name is unknown.
+     */
+    public static Order parse(String value) {
+        if (value == null || value.isBlank()) {
+            return new Order(NAME, false);
+        }
+        String name = value.trim();
+        boolean descending = name.startsWith("-");
+        if (descending) {
+            name = name.substring(1);
+        }
+        try {
+            return new Order(valueOf(name.replace("birthYear", "birth_year").toUpperCase(Locale.ROOT)), descending);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Unknown sort: " + value + ". Use name, birthYear or credits, "
+                    + "optionally prefixed with '-' for descending order");
+        }
+    }
+
+    /**
+     * A sort and its direction.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Order {
+        private final PersonSort sort;
+        private final boolean descending;
+
+        /**
+         * Sorts person ordinals, returning packed entries for {@link DatasetIndex#pagePeopleSorted}.
+         * Only the entries a page needs are sorted, into the head of the array, see {@link DatasetIndex#sortHead}.
+         *
+         * @param ordinals The person ordinals to sort.
+         * @param index    The index whose person attributes hold the sort values.
+         * @param limit    The number of smallest entries to sort.
+         * @return The (key, name rank) entries of all the ordinals, the first {@code limit} of them sorted.
+         */
+        public long[] sortEntries(int[] ordinals, DatasetIndex index, int limit) {
+            PersonAttributeIndex attributes = index.personAttributes();
+            long[] entries = new long[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                int p = ordinals[i];
+                entries[i] = DatasetIndex.sortEntry(key(p, attributes), attributes.nameRank(p));
+            }
+            DatasetIndex.sortHead(entries, limit);
+            return entries;
+        }
+
+        private int key(int ordinal, PersonAttributeIndex attributes) {
+            int value = switch (sort) {
+                case NAME -> attributes.nameRank(ordinal);
+                case BIRTH_YEAR -> attributes.birthYear(ordinal);
+                case CREDITS -> attributes.credits(ordinal);
+            };
+            if (value == TitleColumns.MISSING) {
+                return Integer.MAX_VALUE;
+            }
+            return descending ? -value : value;
+        }
+
+        @Override
+        public String toString() {
+            return (descending ? "-" : "") + (sort == BIRTH_YEAR ? "birthYear" : sort.name().toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.imdbdataset.search;
+
+import com.example.imdbdataset.index.CreditRole;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parsed title search: a conjunction of predicates, every one of which is optional.
+ * Numeric bounds are inclusive; a null bound means "unbounded".
+ *
+ * @see TitleQueryParser
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class TitleQuery {
+    private Set<String> titleTypes = new LinkedHashSet<>(); // any of these types
+    private List<String> genres = new ArrayList<>();        // all of these genres
+    private Boolean adult;
+    private Integer minYear;
+    private Integer maxYear;
+    private Integer minRuntime;
+    private Integer maxRuntime;
+    private Integer minVotes;
+    private Integer maxVotes;
+    private Float minRating;
+    private Float maxRating;
+    private List<PersonTerm> people = new ArrayList<>();    // all of these people, each in their role
+
+    /**
+     * A person who must be credited on the title in the given role.
+     */
+    @Setter
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PersonTerm {
+        private CreditRole role;
+        private String person; // nconst or primary name
+    }
+}
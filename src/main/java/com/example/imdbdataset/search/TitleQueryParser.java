@@ -0,0 +1,249 @@
+package com.example.imdbdataset.search;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.index.CreditRole;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses the title search language: whitespace-separated terms, all of which must match.
+ * <pre>
+ * type:movie,tvSeries        any of the types
+ * genre:Drama genre:Comedy   every genre (genre:Drama,Comedy is the same)
+ * adult:false
+ * year:1990..1999            inclusive range; either end may be omitted (year:2000..)
+ * year&gt;=2000  runtime&lt;90  votes&gt;=10000  rating&gt;8.5  rating:7..9  year:1994
+ * actor:nm0000158  director:"Christopher Nolan"  person:nm0000229
+ * </pre>
+ * People may be given by ID or by (quoted) name, and any credit role can be used as a field:
+ * actor, director, writer, producer, composer, cinematographer, editor, self; {@code person} means any role.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TitleQueryParser {
+
+    private static final String[] OPERATORS = {">=", "<=", ">", "<", ":", "="};
+    private static final String RANGE = "..";
+
+    /**
+     * Parses a search query.
+     *
+     * @param text The query. Null or blank matches every title.
+     * @return The parsed query.
+     * @throws InvalidParameterException If the query is malformed or uses an unknown field.
+     */
+    public static TitleQuery parse(String text) {
+        TitleQuery query = new TitleQuery();
+        if (text == null) {
+            return query;
+        }
+        for (String term : tokenize(text)) {
+            parseTerm(query, term);
+        }
+        return query;
+    }
+
+    /**
+     * Splits the query on whitespace outside double quotes, and removes the quotes.
+     */
+    private static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (!term.isEmpty()) {
+                    terms.add(term.toString());
+                    term.setLength(0);
+                }
+            } else {
+                term.append(c);
+            }
+        }
+        if (quoted) {
+            throw new InvalidParameterException("Unterminated quote in query");
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+        return terms;
+    }
+
+    private static void parseTerm(TitleQuery query, String term) {
+        int fieldEnd = 0;
+        while (fieldEnd < term.length() && Character.isLetter(term.charAt(fieldEnd))) {
+            fieldEnd++;
+        }
+        String field = term.substring(0, fieldEnd).toLowerCase(Locale.ROOT);
+        String operator = null;
+        for (String candidate : OPERATORS) {
+            if (term.startsWith(candidate, fieldEnd)) {
+                operator = candidate;
+                break;
+            }
+        }
+        if (field.isEmpty() || operator == null) {
+            throw new InvalidParameterException("Invalid search term: " + term);
+        }
+        String value = term.substring(fieldEnd + operator.length()).trim();
+        if (value.isEmpty()) {
+            throw new InvalidParameterException("Missing value in search term: " + term);
+        }
+        if (operator.equals("=")) {
+            operator = ":";
+        }
+
+        switch (field) {
+            case "type" -> {
+                requireEquality(term, operator);
+                for (String titleType : value.split(",")) {
+                    query.getTitleTypes().add(titleType.trim());
+                }
+            }
+            case "genre" -> {
+                requireEquality(term, operator);
+                for (String genre : value.split(",")) {
+                    query.getGenres().add(genre.trim());
+                }
+            }
+            case "adult" -> {
+                requireEquality(term, operator);
+                if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                    throw new InvalidParameterException("adult must be true or false");
+                }
+                query.setAdult(Boolean.parseBoolean(value));
+            }
+            case "year" -> {
+                int[] bounds = intBounds(term, operator, value, query.getMinYear(), query.getMaxYear());
+                query.setMinYear(nullIfUnbounded(bounds[0]));
+                query.setMaxYear(nullIfUnbounded(bounds[1]));
+            }
+            case "runtime" -> {
+                int[] bounds = intBounds(term, operator, value, query.getMinRuntime(), query.getMaxRuntime());
+                query.setMinRuntime(nullIfUnbounded(bounds[0]));
+                query.setMaxRuntime(nullIfUnbounded(bounds[1]));
+            }
+            case "votes" -> {
+                int[] bounds = intBounds(term, operator, value, query.getMinVotes(), query.getMaxVotes());
+                query.setMinVotes(nullIfUnbounded(bounds[0]));
+                query.setMaxVotes(nullIfUnbounded(bounds[1]));
+            }
+            case "rating" -> parseRating(query, term, operator, value);
+            default -> {
+                requireEquality(term, operator);
+                CreditRole role = field.equals("person") ? CreditRole.ANY : parseRole(field);
+                query.getPeople().add(new TitleQuery.PersonTerm(role, value));
+            }
+        }
+    }
+
+    private static CreditRole parseRole(String field) {
+        if (field.equals("any")) {
+            throw new InvalidParameterException("Unknown search field: " + field);
+        }
+        try {
+            return CreditRole.parse(field);
+        } catch (InvalidParameterException e) {
+            throw new InvalidParameterException("Unknown search field: " + field);
+        }
+    }
+
+    private static void requireEquality(String term, String operator) {
+        if (!operator.equals(":")) {
+            throw new InvalidParameterException("Only ':' is supported in search term: " + term);
+        }
+    }
+
+    /**
+     * Narrows the current integer bounds with a comparison or range term.
+     * Unbounded ends are represented by {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE}.
+     */
+    private static int[] intBounds(String term, String operator, String value, Integer currentMin, Integer currentMax) {
+        int min = currentMin == null ? Integer.MIN_VALUE : currentMin;
+        int max = currentMax == null ? Integer.MAX_VALUE : currentMax;
+        switch (operator) {
+            case ">=" -> min = Math.max(min, parseInt(term, value));
+            case ">" -> min = Math.max(min, parseInt(term, value) + 1);
+            case "<=" -> max = Math.min(max, parseInt(term, value));
+            case "<" -> max = Math.min(max, parseInt(term, value) - 1);
+            default -> {
+                int range = value.indexOf(RANGE);
+                if (range < 0) {
+                    int exact = parseInt(term, value);
+                    min = Math.max(min, exact);
+                    max = Math.min(max, exact);
+                } else {
+                    String from = value.substring(0, range);
+                    String to = value.substring(range + RANGE.length());
+                    if (!from.isEmpty()) {
+                        min = Math.max(min, parseInt(term, from));
+                    }
+                    if (!to.isEmpty()) {
+                        max = Math.min(max, parseInt(term, to));
+                    }
+                }
+            }
+        }
+        return new int[]{min, max};
+    }
+
+    private static Integer nullIfUnbounded(int bound) {
+        return bound == Integer.MIN_VALUE || bound == Integer.MAX_VALUE ? null : bound;
+    }
+
+    private static void parseRating(TitleQuery query, String term, String operator, String value) {
+        float min = query.getMinRating() == null ? Float.NEGATIVE_INFINITY : query.getMinRating();
+        float max = query.getMaxRating() == null ? Float.POSITIVE_INFINITY : query.getMaxRating();
+        switch (operator) {
+            case ">=" -> min = Math.max(min, parseFloat(term, value));
+            case ">" -> min = Math.max(min, Math.nextUp(parseFloat(term, value)));
+            case "<=" -> max = Math.min(max, parseFloat(term, value));
+            case "<" -> max = Math.min(max, Math.nextDown(parseFloat(term, value)));
+            default -> {
+                int range = value.indexOf(RANGE);
+                if (range < 0) {
+                    float exact = parseFloat(term, value);
+                    min = Math.max(min, exact);
+                    max = Math.min(max, exact);
+                } else {
+                    String from = value.substring(0, range);
+                    String to = value.substring(range + RANGE.length());
+                    if (!from.isEmpty()) {
+                        min = Math.max(min, parseFloat(term, from));
+                    }
+                    if (!to.isEmpty()) {
+                        max = Math.min(max, parseFloat(term, to));
+                    }
+                }
+            }
+        }
+        query.setMinRating(Float.isInfinite(min) ? null : min);
+        query.setMaxRating(Float.isInfinite(max) ? null : max);
+    }
+
+    private static int parseInt(String term, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterException("Invalid number in search term: " + term);
+        }
+    }
+
+    private static float parseFloat(String term, String value) {
+        try {
+            float parsed = Float.parseFloat(value.trim());
+            if (!Float.isFinite(parsed)) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterException("Invalid number in search term: " + term);
+        }
+    }
+}
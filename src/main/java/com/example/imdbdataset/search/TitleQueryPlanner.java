@@ -0,0 +1,370 @@
+package com.example.imdbdataset.search;
+
+import com.example.imdbdataset.exception.ResourceNotFoundException;
+import com.example.imdbdataset.index.DatasetIndex;
+import com.example.imdbdataset.index.PostingLists;
+import com.example.imdbdataset.index.RoaringBitmap;
+import com.example.imdbdataset.index.TitleAttributeIndex;
+import com.example.imdbdataset.index.TitleColumns;
+import com.example.imdbdataset.index.TitleScan;
+import com.example.imdbdataset.model.Person;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Turns a {@link TitleQuery} into an execution plan over a {@link DatasetIndex}.
+ * <p>
+ * Every predicate becomes a filter. A filter backed by an index (a person's posting list, or a
+ * bitmap over types, genres, decades, runtime buckets or vote thresholds) knows exactly how many
+ * titles it keeps, which is its cost estimate. Predicates without an exact index (ratings, or year
+ * ranges that cut through a decade) are checked against the {@link TitleColumns}.
+ * <p>
+ * The most selective indexed filter drives the plan: other posting lists are intersected into it,
+ * other bitmaps are ANDed into it, and the remaining filters are probed title by title, most
+ * selective first. When even the most selective index keeps more than {@link #SCAN_FRACTION} of
+ * the titles, materializing it would cost more than it saves, and the plan scans the columns instead:
+ * range predicates and bitmaps narrow a {@link TitleScan} selection, many titles at a time, and only
+ * the remaining filters are checked title by title.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TitleQueryPlanner {
+
+    /**
+     * Above this fraction of all titles, the driving index is not worth materializing.
+     */
+    static final double SCAN_FRACTION = 0.5;
+
+    /**
+     * Plans a query against an index.
+     *
+     * @param query The parsed query.
+     * @param index The dataset index to run it against.
+     * @return The plan, ready to be executed or explained.
+     * @throws ResourceNotFoundException If one of the people is not found.
+     */
+    public static QueryPlan plan(TitleQuery query, DatasetIndex index) {
+        List<Filter> filters = filters(query, index);
+        filters.sort(Comparator.comparingInt(Filter::estimate));
+
+        Filter driver = filters.stream().filter(Filter::isIndexed).findFirst().orElse(null);
+        if (driver == null || driver.estimate() > index.titleCount() * SCAN_FRACTION) {
+            return new QueryPlan(index, null, List.of(), filters);
+        }
+
+        List<Filter> combined = new ArrayList<>();
+        List<Filter> probes = new ArrayList<>();
+        for (Filter filter : filters) {
+            if (filter == driver) {
+                continue;
+            }
+            boolean sameKind = driver.postings != null ? filter.postings != null : filter.bitmap != null;
+            if (sameKind) {
+                combined.add(filter);
+            } else {
+                probes.add(filter);
+            }
+        }
+        return new QueryPlan(index, driver, combined, probes);
+    }
+
+    private static List<Filter> filters(TitleQuery query, DatasetIndex index) {
+        TitleAttributeIndex attributes = index.attributes();
+        TitleColumns columns = index.columns();
+        List<Filter> filters = new ArrayList<>();
+
+        for (TitleQuery.PersonTerm term : query.getPeople()) {
+            Person person = index.findPerson(term.getPerson());
+            if (person == null) {
+                throw new ResourceNotFoundException("Person", "id/name", term.getPerson());
+            }
+            int[] postings = index.titlesOf(index.personOrdinal(person.getNconst()), term.getRole());
+            filters.add(Filter.postings(term.getRole().name().toLowerCase(Locale.ROOT) + ":" + person.getNconst(), postings));
+        }
+
+        if (!query.getTitleTypes().isEmpty()) {
+            RoaringBitmap types = new RoaringBitmap();
+            for (String titleType : query.getTitleTypes()) {
+                types = types.or(attributes.titleType(titleType));
+            }
+            filters.add(Filter.bitmap("type:" + String.join(",", query.getTitleTypes()), types, null)
+                    .scannedAs(scanWithin(types)));
+        }
+        for (String genre : query.getGenres()) {
+            RoaringBitmap bitmap = attributes.genre(genre);
+            filters.add(Filter.bitmap("genre:" + genre, bitmap, null).scannedAs(scanWithin(bitmap)));
+        }
+        if (query.getAdult() != null) {
+            RoaringBitmap bitmap = attributes.adult(query.getAdult());
+            filters.add(Filter.bitmap("adult:" + query.getAdult(), bitmap, null).scannedAs(scanWithin(bitmap)));
+        }
+
+        if (query.getMinYear() != null || query.getMaxYear() != null) {
+            int min = query.getMinYear() == null ? Integer.MIN_VALUE : query.getMinYear();
+            int max = query.getMaxYear() == null ? Integer.MAX_VALUE : query.getMaxYear();
+            IntPredicate inRange = t -> columns.startYear(t) != TitleColumns.MISSING
+                    && columns.startYear(t) >= min && columns.startYear(t) <= max;
+            filters.add(bucketFilter("year", min, max, TitleAttributeIndex.DECADE_YEARS, Integer.MAX_VALUE,
+                    attributes.decades(), attributes::decade, inRange)
+                    .scannedAs(scan -> scan.startYear(min, max)));
+        }
+        if (query.getMinRuntime() != null || query.getMaxRuntime() != null) {
+            int min = query.getMinRuntime() == null ? Integer.MIN_VALUE : query.getMinRuntime();
+            int max = query.getMaxRuntime() == null ? Integer.MAX_VALUE : query.getMaxRuntime();
+            IntPredicate inRange = t -> columns.runtimeMinutes(t) != TitleColumns.MISSING
+                    && columns.runtimeMinutes(t) >= min && columns.runtimeMinutes(t) <= max;
+            filters.add(bucketFilter("runtime", min, max, TitleAttributeIndex.RUNTIME_BUCKET_MINUTES,
+                    TitleAttributeIndex.MAX_RUNTIME_BUCKET, attributes.runtimeBuckets(), attributes::runtimeBucket,
+                    inRange)
+                    .scannedAs(scan -> scan.runtimeMinutes(min, max)));
+        }
+        if (query.getMinVotes() != null || query.getMaxVotes() != null) {
+            int min = query.getMinVotes() == null ? Integer.MIN_VALUE : query.getMinVotes();
+            int max = query.getMaxVotes() == null ? Integer.MAX_VALUE : query.getMaxVotes();
+            filters.add(votesFilter(min, max, attributes, columns, index.titleCount())
+                    .scannedAs(scan -> scan.numVotes(min, max)));
+        }
+        if (query.getMinRating() != null || query.getMaxRating() != null) {
+            float min = query.getMinRating() == null ? Float.NEGATIVE_INFINITY : query.getMinRating();
+            float max = query.getMaxRating() == null ? Float.POSITIVE_INFINITY : query.getMaxRating();
+            // NaN (no rating) fails both comparisons
+            filters.add(Filter.column("rating:" + min + ".." + max, index.titleCount(),
+                    t -> columns.rating(t) >= min && columns.rating(t) <= max)
+                    .scannedAs(scan -> scan.rating(min, max)));
+        }
+        return filters;
+    }
+
+    private static Consumer<TitleScan> scanWithin(RoaringBitmap bitmap) {
+        return scan -> scan.within(bitmap);
+    }
+
+    /**
+     * Builds the filter of a range predicate over an attribute indexed in fixed-width buckets
+     * (decades, runtime buckets). The bitmaps of the buckets overlapping the range are ORed; if
+     * some of them are only partly inside the range, the column is checked as well.
+     */
+    private static Filter bucketFilter(String name, int min, int max, int width, int lastBucket,
+                                       Set<Integer> buckets, IntFunction<RoaringBitmap> bitmapOf,
+                                       IntPredicate inRange) {
+        RoaringBitmap covered = new RoaringBitmap();
+        boolean exact = true;
+        for (int bucket : buckets) {
+            long end = bucket == lastBucket ? Integer.MAX_VALUE : (long) bucket + width - 1;
+            if (end < min || bucket > max) {
+                continue;
+            }
+            covered = covered.or(bitmapOf.apply(bucket));
+            exact &= bucket >= min && end <= max;
+        }
+        String label = name + ":" + (min == Integer.MIN_VALUE ? "" : min) + ".." + (max == Integer.MAX_VALUE ? "" : max);
+        return Filter.bitmap(label, covered, exact ? null : inRange);
+    }
+
+    /**
+     * Builds the filter of a votes predicate. The vote bitmaps are cumulative ("at least N"),
+     * so the largest threshold not above the minimum gives a superset of the matching titles.
+     */
+    private static Filter votesFilter(int min, int max, TitleAttributeIndex attributes, TitleColumns columns,
+                                      int titleCount) {
+        String label = "votes:" + (min == Integer.MIN_VALUE ? "" : min) + ".." + (max == Integer.MAX_VALUE ? "" : max);
+        IntPredicate inRange = t -> columns.numVotes(t) != TitleColumns.MISSING
+                && columns.numVotes(t) >= min && columns.numVotes(t) <= max;
+
+        int threshold = -1;
+        for (int candidate : TitleAttributeIndex.VOTE_THRESHOLDS) {
+            if (candidate <= min) {
+                threshold = candidate;
+            }
+        }
+        if (threshold < 0) {
+            return Filter.column(label, titleCount, inRange);
+        }
+        boolean exact = threshold == min && max == Integer.MAX_VALUE;
+        return Filter.bitmap(label, attributes.minVotes(threshold), exact ? null : inRange);
+    }
+
+    /**
+     * One predicate of a query: an optional index (posting list or bitmap) and an optional
+     * residual check against the columns. A title matches if it is in the index and passes the check.
+     * Predicates that can narrow a whole {@link TitleScan} at once say how, for plans without a driver.
+     */
+    static final class Filter {
+        private final String label;
+        private final int estimate;
+        private final int[] postings;
+        private final RoaringBitmap bitmap;
+        private final IntPredicate residual;
+        private Consumer<TitleScan> scan;
+
+        private Filter(String label, int estimate, int[] postings, RoaringBitmap bitmap, IntPredicate residual) {
+            this.label = label;
+            this.estimate = estimate;
+            this.postings = postings;
+            this.bitmap = bitmap;
+            this.residual = residual;
+        }
+
+        static Filter postings(String label, int[] postings) {
+            return new Filter(label, postings.length, postings, null, null);
+        }
+
+        static Filter bitmap(String label, RoaringBitmap bitmap, IntPredicate residual) {
+            return new Filter(label, bitmap.cardinality(), null, bitmap, residual);
+        }
+
+        static Filter column(String label, int estimate, IntPredicate residual) {
+            return new Filter(label, estimate, null, null, residual);
+        }
+
+        /**
+         * Sets how the predicate narrows a scan; it must keep exactly the titles {@link #test} accepts.
+         */
+        Filter scannedAs(Consumer<TitleScan> scan) {
+            this.scan = scan;
+            return this;
+        }
+
+        int estimate() {
+            return estimate;
+        }
+
+        boolean isIndexed() {
+            return postings != null || bitmap != null;
+        }
+
+        boolean test(int ordinal) {
+            if (postings != null && Arrays.binarySearch(postings, ordinal) < 0) {
+                return false;
+            }
+            if (bitmap != null && !bitmap.contains(ordinal)) {
+                return false;
+            }
+            return residual == null || residual.test(ordinal);
+        }
+
+        @Override
+        public String toString() {
+            return label + (isIndexed() ? " (" + estimate + " titles)" : "");
+        }
+    }
+
+    /**
+     * An executable plan: a driving index combined with the indexes of the same kind,
+     * then a title-by-title probe of the other filters. Without a driver, every title is scanned.
+     */
+    public static final class QueryPlan {
+        private final DatasetIndex index;
+        private final Filter driver;
+        private final List<Filter> combined;
+        private final List<Filter> probes;
+
+        private QueryPlan(DatasetIndex index, Filter driver, List<Filter> combined, List<Filter> probes) {
+            this.index = index;
+            this.driver = driver;
+            this.combined = combined;
+            this.probes = probes;
+        }
+
+        /**
+         * Runs the plan.
+         *
+         * @return The ascending ordinals of the matching titles.
+         */
+        public int[] execute() {
+            if (driver == null) {
+                TitleScan scan = TitleScan.of(index);
+                for (Filter filter : probes) {
+                    if (filter.scan != null) {
+                        filter.scan.accept(scan);
+                    } else {
+                        scan.filter(filter::test);
+                    }
+                }
+                return scan.toArray();
+            }
+
+            int[] candidates;
+            if (driver.postings != null) {
+                candidates = driver.postings;
+                for (Filter filter : combined) {
+                    candidates = PostingLists.intersect(candidates, filter.postings);
+                }
+            } else {
+                RoaringBitmap bits = driver.bitmap;
+                for (int i = 0; i < combined.size() && !bits.isEmpty(); i++) {
+                    bits = bits.and(combined.get(i).bitmap);
+                }
+                candidates = bits.toArray();
+            }
+
+            List<IntPredicate> checks = new ArrayList<>();
+            addResidual(checks, driver);
+            combined.forEach(filter -> addResidual(checks, filter));
+            probes.forEach(filter -> checks.add(filter::test));
+
+            int count = candidates.length;
+            int[] matches = new int[count];
+            int n = 0;
+            candidates:
+            for (int i = 0; i < count; i++) {
+                int t = candidates[i];
+                for (IntPredicate check : checks) {
+                    if (!check.test(t)) {
+                        continue candidates;
+                    }
+                }
+                matches[n++] = t;
+            }
+            return n == count ? matches : Arrays.copyOf(matches, n);
+        }
+
+        private static void addResidual(List<IntPredicate> checks, Filter filter) {
+            if (filter.residual != null) {
+                checks.add(filter.residual);
+            }
+        }
+
+        /**
+         * @return A human-readable description of every step of the plan, in execution order.
+         */
+        public List<String> explain() {
+            List<String> steps = new ArrayList<>();
+            if (driver == null) {
+                steps.add("scan " + index.titleCount() + " titles");
+            } else {
+                steps.add((driver.postings != null ? "read postings " : "read bitmap ") + driver);
+                for (Filter filter : combined) {
+                    steps.add((filter.postings != null ? "intersect postings " : "and bitmap ") + filter);
+                }
+                if (driver.residual != null) {
+                    steps.add("check " + driver.label);
+                }
+                for (Filter filter : combined) {
+                    if (filter.residual != null) {
+                        steps.add("check " + filter.label);
+                    }
+                }
+            }
+            for (Filter filter : probes) {
+                if (driver != null) {
+                    steps.add("probe " + filter);
+                } else if (filter.scan != null) {
+                    steps.add("select " + filter.label + " (" + TitleScan.kernelName() + ")");
+                } else {
+                    steps.add("check " + filter);
+                }
+            }
+            return steps;
+        }
+    }
+}
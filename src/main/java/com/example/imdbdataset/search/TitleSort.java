@@ -0,0 +1,109 @@
+package com.example.imdbdataset.search;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.index.DatasetIndex;
+import com.example.imdbdataset.index.TitleColumns;
+import com.example.imdbdataset.index.WeightedRatingIndex;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * The orders in which search results can be returned. Ties, and titles missing the sort value,
+ * are ordered by primary title; titles missing the sort value always come last.
+ */
+public enum TitleSort {
+    TITLE,
+    YEAR,
+    RATING,
+    VOTES,
+    WEIGHTED;
+
+    /**
+     * Parses a sort parameter: a sort name, optionally prefixed with '-' for descending order.
+     *
+     * @param value The parameter, e.g. "year" or "-rating". Null means ascending by title.
+     * @return The sort, and whether it is descending.
+     * @throws InvalidParameterException If the sort name is unknown.
+     */
+    public static Order parse(String value) {
+        if (value == null || value.isBlank()) {
+            return new Order(TITLE, false);
+        }
+        String name = value.trim();
+        boolean descending = name.startsWith("-");
+        if (descending) {
+            name = name.substring(1);
+        }
+        try {
+            return new Order(valueOf(name.toUpperCase(Locale.ROOT)), descending);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Unknown sort: " + value + ". Use title, year, rating, votes or weighted, "
+                    + "optionally prefixed with '-' for descending order");
+        }
+    }
+
+    /**
+     * A sort and its direction.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Order {
+        private final TitleSort sort;
+        private final boolean descending;
+
+        /**
+         * @return Whether results in ordinal order are already sorted.
+         */
+        public boolean isOrdinalOrder() {
+            return sort == TITLE && !descending;
+        }
+
+        /**
+         * Sorts title ordinals, returning packed entries for {@link DatasetIndex#pageSorted}.
+         * Only the entries a page needs are sorted, into the head of the array, see {@link DatasetIndex#sortHead}.
+         *
+         * @param ordinals The ascending title ordinals to sort.
+         * @param ranking  The weighted ratings, and the index whose columns hold the other sort values.
+         * @param limit    The number of smallest entries to sort.
+         * @return The (key, ordinal) entries of all the ordinals, the first {@code limit} of them sorted.
+         */
+        public long[] sortEntries(int[] ordinals, WeightedRatingIndex ranking, int limit) {
+            TitleColumns columns = ranking.index().columns();
+            long[] entries = new long[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                int t = ordinals[i];
+                entries[i] = DatasetIndex.sortEntry(key(t, columns, ranking), t);
+            }
+            DatasetIndex.sortHead(entries, limit);
+            return entries;
+        }
+
+        private int key(int ordinal, TitleColumns columns, WeightedRatingIndex ranking) {
+            int value = switch (sort) {
+                case TITLE -> ordinal;
+                case YEAR -> columns.startYear(ordinal);
+                case VOTES -> columns.numVotes(ordinal);
+                case RATING -> floatKey(columns.rating(ordinal));
+                case WEIGHTED -> floatKey(ranking.score(ordinal));
+            };
+            if (value == TitleColumns.MISSING) {
+                return Integer.MAX_VALUE;
+            }
+            return descending ? -value : value;
+        }
+
+        /**
+         * Non-negative floats order the same way as their bit patterns.
+         */
+        private static int floatKey(float value) {
+            return Float.isNaN(value) ? TitleColumns.MISSING : Float.floatToIntBits(value);
+        }
+
+        @Override
+        public String toString() {
+            return (descending ? "-" : "") + sort.name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.imdbdataset.service;
+
+import com.example.imdbdataset.index.CollaboratorTable;
+import com.example.imdbdataset.index.DatasetIndex;
+import com.example.imdbdataset.index.Leaderboards;
+import com.example.imdbdataset.index.PostingLists;
+import com.example.imdbdataset.index.SimilarTitleIndex;
+import com.example.imdbdataset.index.WeightedRatingIndex;
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Rating;
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.TitleCrew;
+import com.example.imdbdataset.model.TitlePrincipal;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything the service answers from: the loaded entities, the load counters, and the indexes
+ * computed from them. The service publishes the dataset through a single volatile reference to a
+ * snapshot, so a request that reads that reference once sees one consistent dataset, and a reload
+ * or an update swaps all of it at once.
+ * <p>
+ * Snapshots are immutable: updates return a new snapshot sharing what they do not change. The
+ * entity maps are filled while the data is loaded, before the snapshot is indexed and published,
+ * and are read-only afterwards, except the ratings map and the rating, votes and death year of
+ * the entities themselves, which are updated in place right after the snapshot holding their new
+ * values, in its index columns or precomputed titles, is published.
+ */
+@Getter
+final class DatasetSnapshot {
+
+    private final Map<String, Title> titles;
+    private final Map<String, Person> people;
+    private final Map<String, List<TitlePrincipal>> principalsByTitle;
+    private final Map<String, List<TitlePrincipal>> principalsByPerson;
+    private final Map<String, TitleCrew> crews;
+    private final Map<String, Rating> ratings;
+
+    // Counters of the data loaded from the files
+    private final long titlesLoaded;
+    private final long peopleLoaded;
+    private final long principalsLoaded;
+    private final long crewsLoaded;
+    private final long ratingsLoaded;
+
+    // Ordinal-based index over the loaded data
+    private final DatasetIndex index;
+
+    // Title ordinals (hence in primary title order) with a living director who is also a writer, computed on link
+    private final int[] sameDirectorWriterTitles;
+
+    // Top collaborators of every person
+    private final CollaboratorTable collaboratorTable;
+
+    // MinHash signatures of every title's people and genres, banded for "more like this" lookups
+    private final SimilarTitleIndex similarTitles;
+
+    // Weighted ratings of every title, and the top titles by type, genre and decade ranked with them
+    private final WeightedRatingIndex weightedRatings;
+    private final Leaderboards leaderboards;
+
+    private DatasetSnapshot(Map<String, Title> titles, Map<String, Person> people,
+                            Map<String, List<TitlePrincipal>> principalsByTitle,
+                            Map<String, List<TitlePrincipal>> principalsByPerson,
+                            Map<String, TitleCrew> crews, Map<String, Rating> ratings,
+                            long[] loaded, DatasetIndex index, int[] sameDirectorWriterTitles,
+                            CollaboratorTable collaboratorTable, SimilarTitleIndex similarTitles,
+                            WeightedRatingIndex weightedRatings, Leaderboards leaderboards) {
+        this.titles = titles;
+        this.people = people;
+        this.principalsByTitle = principalsByTitle;
+        this.principalsByPerson = principalsByPerson;
+        this.crews = crews;
+        this.ratings = ratings;
+        this.titlesLoaded = loaded[0];
+        this.peopleLoaded = loaded[1];
+        this.principalsLoaded = loaded[2];
+        this.crewsLoaded = loaded[3];
+        this.ratingsLoaded = loaded[4];
+        this.index = index;
+        this.sameDirectorWriterTitles = sameDirectorWriterTitles;
+        this.collaboratorTable = collaboratorTable;
+        this.similarTitles = similarTitles;
+        this.weightedRatings = weightedRatings;
+        this.leaderboards = leaderboards;
+    }
+
+    /**
+     * @return A snapshot without data, whose empty entity maps are to be filled by the loader.
+     */
+    static DatasetSnapshot empty(int minVotes) {
+        DatasetIndex index = DatasetIndex.empty();
+        WeightedRatingIndex ranking = WeightedRatingIndex.build(index, minVotes, null);
+        return new DatasetSnapshot(new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(),
+                new HashMap<>(), new ConcurrentHashMap<>(), new long[5], index, PostingLists.EMPTY,
+                CollaboratorTable.build(index), SimilarTitleIndex.build(index), ranking, Leaderboards.build(ranking));
+    }
+
+    /**
+     * Indexes the entities of this snapshot. Titles are not linked to their people yet.
+     *
+     * @param loaded     The numbers of titles, people, principals, crews and ratings loaded.
+     * @param minVotes   The minimum votes threshold m of the weighted ratings.
+     * @param globalMean The global mean rating C, or null to use the mean rating of all rated titles.
+     * @return A snapshot of the same entities with all the indexes computed from them.
+     */
+    DatasetSnapshot indexed(long[] loaded, int minVotes, Float globalMean) {
+        DatasetIndex built = DatasetIndex.build(titles, people, principalsByPerson, crews);
+        WeightedRatingIndex ranking = WeightedRatingIndex.build(built, minVotes, globalMean);
+        return new DatasetSnapshot(titles, people, principalsByTitle, principalsByPerson, crews, ratings,
+                loaded.clone(), built, PostingLists.EMPTY, CollaboratorTable.build(built),
+                SimilarTitleIndex.build(built), ranking, Leaderboards.build(ranking));
+    }
+
+    /**
+     * @return A snapshot with new same-director-and-writer titles.
+     */
+    DatasetSnapshot withSameDirectorWriterTitles(int[] updated) {
+        return new DatasetSnapshot(titles, people, principalsByTitle, principalsByPerson, crews, ratings,
+                loaded(), index, updated, collaboratorTable, similarTitles, weightedRatings, leaderboards);
+    }
+
+    /**
+     * @return A snapshot with a new weighted ranking of the same index, and the leaderboards ranked with it.
+     */
+    DatasetSnapshot withRanking(WeightedRatingIndex ranking, Leaderboards boards) {
+        return new DatasetSnapshot(titles, people, principalsByTitle, principalsByPerson, crews, ratings,
+                loaded(), index, sameDirectorWriterTitles, collaboratorTable, similarTitles, ranking, boards);
+    }
+
+    /**
+     * @param updated The index derived with the new ratings, see {@link DatasetIndex#withRatings}.
+     * @param ranking The weighted ranking of the new index.
+     * @param boards  The leaderboards updated with the new ranking.
+     * @return A snapshot of new ratings: the indexes computed from the previous index now refer to the new one.
+     */
+    DatasetSnapshot withRatings(DatasetIndex updated, WeightedRatingIndex ranking, Leaderboards boards) {
+        return new DatasetSnapshot(titles, people, principalsByTitle, principalsByPerson, crews, ratings,
+                loaded(), updated, sameDirectorWriterTitles, collaboratorTable.withIndex(updated),
+                similarTitles.withIndex(updated), ranking, boards);
+    }
+
+    private long[] loaded() {
+        return new long[]{titlesLoaded, peopleLoaded, principalsLoaded, crewsLoaded, ratingsLoaded};
+    }
+}
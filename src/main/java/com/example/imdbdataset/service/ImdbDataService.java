@@ -1,76 +1,176 @@
 package com.example.imdbdataset.service;
 
 
+import com.example.imdbdataset.cache.QueryCache;
 import com.example.imdbdataset.exception.DataImportException;
 import com.example.imdbdataset.exception.InvalidParameterException;
 import com.example.imdbdataset.exception.ResourceNotFoundException;
+import com.example.imdbdataset.export.ArrowExporter;
+import com.example.imdbdataset.export.ArrowTable;
+import com.example.imdbdataset.index.CollaborationKind;
+import com.example.imdbdataset.index.CollaborationPathFinder;
+import com.example.imdbdataset.index.CollaboratorTable;
+import com.example.imdbdataset.index.CreditRole;
+import com.example.imdbdataset.index.DatasetIndex;
+import com.example.imdbdataset.index.Leaderboards;
+import com.example.imdbdataset.index.PostingLists;
+import com.example.imdbdataset.index.RoaringBitmap;
+import com.example.imdbdataset.index.SimilarTitleIndex;
+import com.example.imdbdataset.index.TitleAttributeIndex;
+import com.example.imdbdataset.index.TitleColumns;
+import com.example.imdbdataset.index.TitleScan;
+import com.example.imdbdataset.index.TitleStatisticsCube;
+import com.example.imdbdataset.index.WeightedRatingIndex;
 import com.example.imdbdataset.model.*;
+import com.example.imdbdataset.model.dto.BatchLookupResult;
 import com.example.imdbdataset.model.dto.BestTitlesByYear;
+import com.example.imdbdataset.model.dto.CoAppearanceMatrix;
+import com.example.imdbdataset.model.dto.CollaborationPath;
+import com.example.imdbdataset.model.dto.Collaborator;
+import com.example.imdbdataset.model.dto.FilmographyEntry;
+import com.example.imdbdataset.model.dto.CollaborationPaths;
+import com.example.imdbdataset.model.dto.PageSlice;
+import com.example.imdbdataset.model.dto.QueryCacheStats;
+import com.example.imdbdataset.model.dto.SharedTitles;
+import com.example.imdbdataset.model.dto.SimilarTitle;
 import com.example.imdbdataset.model.dto.TitleDTO;
+import com.example.imdbdataset.model.dto.TitleStatistics;
+import com.example.imdbdataset.search.PersonQuery;
+import com.example.imdbdataset.search.PersonQueryPlanner;
+import com.example.imdbdataset.search.PersonSort;
+import com.example.imdbdataset.search.TitleQuery;
+import com.example.imdbdataset.search.TitleQueryParser;
+import com.example.imdbdataset.search.TitleQueryPlanner;
+import com.example.imdbdataset.search.TitleSort;
+import com.example.imdbdataset.util.PageCursor;
+import com.example.imdbdataset.util.PaginationUtil;
 import com.example.imdbdataset.util.ResourceReader;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.io.*;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 
 @Service
 @Getter
 public class ImdbDataService {
-    // In-memory data structures
-    private Map<String, Title> titles = new HashMap<>();
-    private Map<String, Person> people = new HashMap<>();
-    private Map<String, List<TitlePrincipal>> principalsByTitle = new HashMap<>();
-    private Map<String, List<TitlePrincipal>> principalsByPerson = new HashMap<>();
-    private Map<String, TitleCrew> crews = new HashMap<>();
-    private Map<String, Rating> ratings = new HashMap<>();
-
-    // Counters for data loading
-    private long titlesLoaded = 0;
-    private long peopleLoaded = 0;
-    private long principalsLoaded = 0;
-    private long crewsLoaded = 0;
-    private long ratingsLoaded = 0;
+    // The loaded data and the indexes computed from it, replaced as a whole on reload and on every update
+    @Getter(AccessLevel.NONE)
+    private volatile DatasetSnapshot dataset = DatasetSnapshot.empty(WeightedRatingIndex.DEFAULT_MIN_VOTES);
+
+    // Changes with every change to the data served, including in-place updates that keep the index version
+    private final AtomicLong contentVersion = new AtomicLong();
+
+    // Weighted rating parameters: WR = v / (v + m) * R + m / (v + m) * C
+    @Value("${imdb.ranking.min-votes:" + WeightedRatingIndex.DEFAULT_MIN_VOTES + "}")
+    private int rankingMinVotes = WeightedRatingIndex.DEFAULT_MIN_VOTES;
+    @Value("${imdb.ranking.global-mean:#{null}}")
+    private Float rankingGlobalMean; // null means the mean rating of all rated titles
+
+    // Results of the query methods, by normalized parameters and content version
+    private final QueryCache queryCache = new QueryCache(QueryCache.DEFAULT_MAX_BYTES);
+    @Value("${imdb.query-cache.max-bytes:" + QueryCache.DEFAULT_MAX_BYTES + "}")
+    private long queryCacheMaxBytes = QueryCache.DEFAULT_MAX_BYTES;
+
+    // Grouped title statistics, computed on first use for every dataset version
+    private volatile TitleStatisticsCube statisticsCube;
+    private final Object statisticsLock = new Object();
+
+    // Upper bound on the number of people accepted by getTitlesFeaturingAll
+    public static final int MAX_FEATURED_PEOPLE = 100;
+
+    // Upper bound on the number of people accepted by getCoAppearanceMatrix
+    public static final int MAX_MATRIX_PEOPLE = 500;
+
+    /** Ranking modes of the best titles by year. */
+    public static final String RANK_BY_RATING = "rating";
+    public static final String RANK_BY_WEIGHTED = "weighted";
+
+    private static final String RATINGS_RESOURCE = "/dataset/title.ratings_demo.tsv";
+
+    public static final int MAX_SIMILAR_TITLES = 100;
+
+    // Upper bound on the number of IDs accepted by the batch lookups
+    public static final int MAX_BATCH_IDS = 5_000;
+
+    // Batch lookups are resolved chunk by chunk, each chunk in parallel when there is more than one
+    static final int BATCH_CHUNK_SIZE = 500;
+
+    /** Upper bounds of the collaboration path search parameters. */
+    public static final int MAX_PATH_DEPTH = 10;
+    public static final int MAX_PATHS = 100;
+    public static final long MAX_PATH_TIME_BUDGET_MILLIS = 10_000;
 
     /**
      * Initializes the IMDB data by loading and linking the data.
      * This method is annotated with {@link PostConstruct} to ensure it is executed after the bean is constructed.
      *
+     * @throws InvalidParameterException If the configured weighted rating parameters are invalid.
      * @throws DataImportException If an error occurs while loading or linking the IMDB data.
      */
     @PostConstruct
     public void init() {
-        try {
-            loadData();
-            linkData();
-        } catch (IOException e) {
-            throw new DataImportException("Failed to load IMDB data", e);
-        }
+        validateWeightedRating(rankingMinVotes, rankingGlobalMean);
+        queryCache.resize(queryCacheMaxBytes);
+        dataset = loadSnapshot();
+        contentVersion.incrementAndGet();
     }
 
     /**
-     * Loads data from demo files into the respective maps.
+     * Loads data from demo files into a new snapshot, and indexes it. Titles are not linked to their people
+     * until {@link #linkData()}.
      *
      * @throws IOException If there's an error reading the files or if the resource cannot be found.
      */
     public void loadData() throws IOException {
+        dataset = readSnapshot();
+        contentVersion.incrementAndGet();
+    }
+
+    /**
+     * Loads, indexes and links the demo files into a new snapshot, with the configuration of this service.
+     *
+     * @return The new snapshot, not published yet.
+     * @throws DataImportException If an error occurs while loading the IMDB data.
+     */
+    DatasetSnapshot loadSnapshot() {
+        return link(readSnapshot());
+    }
+
+    /**
+     * Loads data from demo files into the maps of a new snapshot, and indexes it.
+     *
+     * @return The indexed snapshot, whose titles are not linked to their people yet.
+     * @throws DataImportException If an error occurs while loading the IMDB data.
+     */
+    private DatasetSnapshot readSnapshot() {
+        DatasetSnapshot data = DatasetSnapshot.empty(rankingMinVotes);
         try {
             // Now load from demo files
-//            loadTitles("/dataset/title.basics_demo.tsv.gz");
-//            loadPeople("/dataset/name.basics_demo.tsv.gz");
-//            loadPrincipals("/dataset/title.principals_demo.tsv.gz");
-//            loadCrews("/dataset/title.crew_demo.tsv.gz");
-//            loadRatings("/dataset/title.ratings_demo.tsv.gz");
-
-            loadTitles("/dataset/title.basics_demo.tsv");
-            loadPeople("/dataset/name.basics_demo.tsv");
-            loadPrincipals("/dataset/title.principals_demo.tsv");
-            loadCrews("/dataset/title.crew_demo.tsv");
-            loadRatings("/dataset/title.ratings_demo.tsv");
+//            loadTitles(data, "/dataset/title.basics_demo.tsv.gz");
+//            loadPeople(data, "/dataset/name.basics_demo.tsv.gz");
+//            loadPrincipals(data, "/dataset/title.principals_demo.tsv.gz");
+//            loadCrews(data, "/dataset/title.crew_demo.tsv.gz");
+//            loadRatings(data, "/dataset/title.ratings_demo.tsv.gz");
+
+            long titlesLoaded = loadTitles(data, "/dataset/title.basics_demo.tsv");
+            long peopleLoaded = loadPeople(data, "/dataset/name.basics_demo.tsv");
+            long principalsLoaded = loadPrincipals(data, "/dataset/title.principals_demo.tsv");
+            long crewsLoaded = loadCrews(data, "/dataset/title.crew_demo.tsv");
+            long ratingsLoaded = loadRatings(data, RATINGS_RESOURCE);
 
             System.out.println("Data loaded from demo files: " +
                     titlesLoaded + " titles, " +
@@ -78,6 +178,8 @@ public class ImdbDataService {
                     principalsLoaded + " principals, " +
                     crewsLoaded + " crews, " +
                     ratingsLoaded + " ratings");
+            return data.indexed(new long[]{titlesLoaded, peopleLoaded, principalsLoaded, crewsLoaded, ratingsLoaded},
+                    rankingMinVotes, rankingGlobalMean);
         } catch (IOException e) {
             System.err.println("Error loading or saving IMDB data: " + e.getMessage());
             throw new DataImportException("Error loading or saving IMDB data", e);
@@ -86,7 +188,7 @@ public class ImdbDataService {
 
     /**
      * Retrieves a list of Title objects where both the specified actors have played together.
-     * The function first retrieves the sets of titles for each actor, then finds the common titles.
+     * The function intersects the acting credits of both actors, together with their knownForTitles.
      *
      * @param actor1Id The unique identifier of the first actor. Must not be null or empty.
      * @param actor2Id The unique identifier of the second actor. Must not be null or empty.
@@ -103,8 +205,9 @@ public class ImdbDataService {
             throw new InvalidParameterException("actor2 parameter cannot be null or empty");
         }
 
-        Person actor1 = people.get(actor1Id);
-        Person actor2 = people.get(actor2Id);
+        DatasetSnapshot data = dataset;
+        Person actor1 = data.getPeople().get(actor1Id);
+        Person actor2 = data.getPeople().get(actor2Id);
 
         if (actor1 == null) {
             throw new ResourceNotFoundException("Actor", "id", actor1Id);
@@ -113,43 +216,19 @@ public class ImdbDataService {
             throw new ResourceNotFoundException("Actor", "id", actor2Id);
         }
 
-        // Get all titles for actor1 (including knownForTitles)
-        Set<String> actor1Titles = new HashSet<>();
-        if (actor1.getKnownForTitles() != null) {
-            actor1Titles.addAll(Arrays.asList(actor1.getKnownForTitles()));
-        }
-        principalsByPerson.getOrDefault(actor1Id, Collections.emptyList())
-                .stream()
-                .filter(p -> "actor".equals(p.getCategory()) || "actress".equals(p.getCategory()))
-                .map(TitlePrincipal::getTconst)
-                .forEach(actor1Titles::add);
+        // Acting credits and knownForTitles, already in primary title order
+        DatasetIndex index = data.getIndex();
+        int[] common = PostingLists.intersect(
+                index.actingOrKnownForTitlesOf(actor1Id),
+                index.actingOrKnownForTitlesOf(actor2Id));
 
-        // Get all titles for actor2 (including knownForTitles)
-        Set<String> actor2Titles = new HashSet<>();
-        if (actor2.getKnownForTitles() != null) {
-            actor2Titles.addAll(Arrays.asList(actor2.getKnownForTitles()));
-        }
-        principalsByPerson.getOrDefault(actor2Id, Collections.emptyList())
-                .stream()
-                .filter(p -> "actor".equals(p.getCategory()) || "actress".equals(p.getCategory()))
-                .map(TitlePrincipal::getTconst)
-                .forEach(actor2Titles::add);
-
-        // Find common titles
-        List<Title> result = actor1Titles.stream()
-                .filter(actor2Titles::contains)
-                .map(titles::get)
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(Title::getPrimaryTitle))
-                .collect(Collectors.toList());
-
-        if (result.isEmpty()) {
+        if (common.length == 0) {
             throw new ResourceNotFoundException(
                     "No titles found where both actors " + actor1.getPrimaryName() +
                             " and " + actor2.getPrimaryName() + " played together");
         }
 
-        return result;
+        return index.page(common, 0, common.length);
     }
 
     /**
@@ -163,83 +242,151 @@ public class ImdbDataService {
      * @throws ResourceNotFoundException If no titles are found for the given genre.
      */
     public List<BestTitlesByYear> getBestTitlesByYearForGenre(String genre, int page, int size) {
+        return getBestTitlesByYearForGenre(genre, page, size, null).getItems();
+    }
+
+    /**
+     * Retrieves a page of the best titles by year for a given genre, ranked by raw rating.
+     *
+     * @see #getBestTitlesByYearForGenre(String, int, int, String, String)
+     */
+    public PageSlice<BestTitlesByYear> getBestTitlesByYearForGenre(String genre, int page, int size, String cursor) {
+        return getBestTitlesByYearForGenre(genre, page, size, cursor, RANK_BY_RATING);
+    }
+
+    /**
+     * Retrieves a page of the best titles by year for a given genre, starting either at
+     * {@code page * size} or right after the year the cursor points to.
+     * The top titles are only computed for the years on the returned page.
+     *
+     * @param genre  The genre for which to retrieve the best titles.
+     * @param page   The page number for pagination. Must be >= 0. Ignored when a cursor is given.
+     * @param size   The number of years per page. Must be > 0.
+     * @param cursor A cursor returned with a previous page for the same genre, or null.
+     * @param rankBy How to rank the titles of a year: "rating" (average rating, then votes) or
+     *               "weighted" (the precomputed weighted rating, see {@link WeightedRatingIndex}).
+     * @return The BestTitlesByYear objects of the page, the total number of years and the cursor of the next page.
+     * @throws InvalidParameterException If the genre parameter is null or empty, if rankBy is unknown,
+     *                                   or if page, size or cursor are invalid.
+     * @throws ResourceNotFoundException If no titles are found for the given genre.
+     */
+    public PageSlice<BestTitlesByYear> getBestTitlesByYearForGenre(String genre, int page, int size, String cursor,
+                                                                   String rankBy) {
         if (genre == null || genre.trim().isEmpty()) {
             throw new InvalidParameterException("genre parameter cannot be null or empty");
         }
         if (page < 0 || size <= 0) {
             throw new InvalidParameterException("Page must be >= 0 and size must be > 0");
         }
+        if (!RANK_BY_RATING.equals(rankBy) && !RANK_BY_WEIGHTED.equals(rankBy)) {
+            throw new InvalidParameterException("rankBy must be " + RANK_BY_RATING + " or " + RANK_BY_WEIGHTED);
+        }
+        return cached("bestTitlesByYearForGenre", () -> {
+            WeightedRatingIndex ranking = dataset.getWeightedRatings();
+            DatasetIndex index = ranking.index();
+            long version = index.getVersion();
+            Comparator<Title> bestFirst = RANK_BY_WEIGHTED.equals(rankBy)
+                    ? Comparator.comparingInt(t -> weightedRank(ranking, index, t))
+                    : Comparator.comparing((Title t) -> rating(index, t), Comparator.<Float>reverseOrder())
+                    .thenComparing(t -> numVotes(index, t), Comparator.reverseOrder());
+
+            // Select the rated titles of the genre with a start year over the columns, and group them by year, in year order
+            int[] candidates = TitleScan.of(index)
+                    .within(index.attributes().genre(genre))
+                    .rating(Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY)
+                    .numVotes(Integer.MIN_VALUE, Integer.MAX_VALUE)
+                    .startYear(Integer.MIN_VALUE, Integer.MAX_VALUE)
+                    .toArray();
+            TreeMap<Integer, List<Title>> titlesByYear = Arrays.stream(candidates)
+                    .mapToObj(index::title)
+                    .collect(Collectors.groupingBy(Title::getStartYear, TreeMap::new, Collectors.toList()));
+
+            if (titlesByYear.isEmpty()) {
+                throw new ResourceNotFoundException("No titles found for genre: " + genre);
+            }
 
-        // Filter titles by genre
-        List<Title> genreTitles = titles.values().stream()
-                .filter(title -> title.getGenres() != null && title.getGenres().contains(genre))
-                .filter(title -> title.getRating() != null && title.getNumVotes() != null)
-                .filter(title -> title.getStartYear() != null)
-                .collect(Collectors.toList());
+            // Resume right after the cursor's year, or skip whole pages of years
+            NavigableMap<Integer, List<Title>> remaining = cursor != null
+                    ? titlesByYear.tailMap((int) PageCursor.decode(cursor, version, "best-by-genre:" + genre), false)
+                    : titlesByYear;
+            long skip = cursor != null ? 0 : (long) page * size;
+
+            List<BestTitlesByYear> pageYears = remaining.entrySet().stream()
+                    .skip(skip)
+                    .limit(size)
+                    .map(entry -> {
+                        Integer year = entry.getKey();
+                        List<Title> yearTitles = entry.getValue();
+
+                        // Sort by rating and number of votes, or by weighted rating
+                        List<TitleDTO> bestTitles = yearTitles.stream()
+                                .sorted(bestFirst)
+                                .limit(5) // Get top 5
+                                .map(t -> new TitleDTO(
+                                        t.getTconst(),
+                                        t.getPrimaryTitle(),
+                                        t.getStartYear(),
+                                        rating(index, t),
+                                        numVotes(index, t),
+                                        weightedRating(ranking, index, t)))
+                                .collect(Collectors.toList());
+
+                        return new BestTitlesByYear(year, bestTitles);
+                    })
+                    .collect(Collectors.toList());
+
+            String nextCursor = null;
+            if (!pageYears.isEmpty()) {
+                int lastYear = pageYears.get(pageYears.size() - 1).getYear();
+                if (titlesByYear.higherKey(lastYear) != null) {
+                    nextCursor = PageCursor.encode(version, "best-by-genre:" + genre, lastYear);
+                }
+            }
+            return new PageSlice<>(pageYears, titlesByYear.size(), nextCursor);
+        }, genre, pageKey(page, cursor), size, cursor, rankBy);
+    }
 
-        if (genreTitles.isEmpty()) {
-            throw new ResourceNotFoundException("No titles found for genre: " + genre);
-        }
-
-        // Group by year
-        Map<Integer, List<Title>> titlesByYear = genreTitles.stream()
-                .collect(Collectors.groupingBy(Title::getStartYear));
-
-        // Get sorted list of BestTitlesByYear
-        List<BestTitlesByYear> allYears = titlesByYear.entrySet().stream()
-                .map(entry -> {
-                    Integer year = entry.getKey();
-                    List<Title> yearTitles = entry.getValue();
-
-                    // Sort by rating and number of votes
-                    List<TitleDTO> bestTitles = yearTitles.stream()
-                            .sorted(Comparator
-                                    .comparing(Title::getRating, Comparator.reverseOrder())
-                                    .thenComparing(Title::getNumVotes, Comparator.reverseOrder()))
-                            .limit(5) // Get top 5
-                            .map(t -> new TitleDTO(
-                                    t.getTconst(),
-                                    t.getPrimaryTitle(),
-                                    t.getStartYear(),
-                                    t.getRating(),
-                                    t.getNumVotes()))
-                            .collect(Collectors.toList());
-
-                    return new BestTitlesByYear(year, bestTitles);
-                })
-                .sorted(Comparator.comparing(BestTitlesByYear::getYear))
-                .collect(Collectors.toList());
+    /**
+     * @return The position of the title in the weighted rating ranking, {@link Integer#MAX_VALUE} if it is not ranked.
+     */
+    private static int weightedRank(WeightedRatingIndex ranking, DatasetIndex index, Title title) {
+        int ordinal = index.titleOrdinal(title.getTconst());
+        return ordinal < 0 ? Integer.MAX_VALUE : ranking.rank(ordinal);
+    }
 
-        // Apply pagination
-        return allYears.stream()
-                .skip((long) page * size)
-                .limit(size)
-                .collect(Collectors.toList());
+    /**
+     * @return The rating of the title in the columns of the index, or null if it has none or is not indexed.
+     * Rating updates are published through new columns before they reach the titles, so DTOs read them here.
+     */
+    private static Float rating(DatasetIndex index, Title title) {
+        int ordinal = index.titleOrdinal(title.getTconst());
+        return ordinal < 0 ? title.getRating() : rating(index, ordinal);
+    }
+
+    private static Float rating(DatasetIndex index, int ordinal) {
+        float rating = index.columns().rating(ordinal);
+        return Float.isNaN(rating) ? null : rating;
     }
 
     /**
-     * Retrieves the total number of unique years for which titles exist in the database,
-     * given a specific genre. This method is used for pagination in the context of retrieving
-     * the best titles by year for a given genre.
-     *
-     * @param genre The genre for which to retrieve the total number of unique years.
-     *              Must not be null or empty.
-     * @return The total number of unique years for which titles exist in the database,
-     * given the specified genre.
-     * @throws InvalidParameterException If the genre parameter is null or empty.
+     * @return The number of votes of the title in the columns of the index, or null if it has none or is not indexed.
      */
-    public long getTotalYearsForGenre(String genre) {
-        if (genre == null || genre.trim().isEmpty()) {
-            throw new InvalidParameterException("genre parameter cannot be null or empty");
-        }
+    private static Integer numVotes(DatasetIndex index, Title title) {
+        int ordinal = index.titleOrdinal(title.getTconst());
+        return ordinal < 0 ? title.getNumVotes() : numVotes(index, ordinal);
+    }
 
-        return titles.values().stream()
-                .filter(title -> title.getGenres() != null && title.getGenres().contains(genre))
-                .filter(title -> title.getRating() != null && title.getNumVotes() != null)
-                .filter(title -> title.getStartYear() != null)
-                .map(Title::getStartYear)
-                .distinct()
-                .count();
+    private static Integer numVotes(DatasetIndex index, int ordinal) {
+        int votes = index.columns().numVotes(ordinal);
+        return votes == TitleColumns.MISSING ? null : votes;
+    }
+
+    /**
+     * @return The weighted rating of the title, or null if it is not rated or not indexed.
+     */
+    private static Float weightedRating(WeightedRatingIndex ranking, DatasetIndex index, Title title) {
+        int ordinal = index.titleOrdinal(title.getTconst());
+        return ordinal < 0 || Float.isNaN(ranking.score(ordinal)) ? null : ranking.score(ordinal);
     }
 
     /**
@@ -258,7 +405,7 @@ public class ImdbDataService {
             throw new InvalidParameterException("personId parameter cannot be null or empty");
         }
 
-        Person person = people.get(personId);
+        Person person = dataset.getPeople().get(personId);
         if (person == null) {
             throw new ResourceNotFoundException("Person", "id", personId);
         }
@@ -266,16 +413,81 @@ public class ImdbDataService {
         return person;
     }
 
+    /**
+     * Looks up many people by their unique identifier at once.
+     *
+     * @param personIds The identifiers, at most {@value #MAX_BATCH_IDS}. Duplicates are looked up again.
+     * @return One result per identifier, in request order; people that are not found are reported
+     * in their result rather than with a ResourceNotFoundException.
+     * @throws InvalidParameterException If the list is null, empty or too long.
+     * @see #lookUpBatch(List, Function, String)
+     */
+    public Stream<BatchLookupResult<Person>> getPeopleByIds(List<String> personIds) {
+        return lookUpBatch(personIds, dataset.getPeople()::get, "Person");
+    }
+
+    /**
+     * Looks up many titles by their unique identifier at once.
+     *
+     * @param titleIds The identifiers, at most {@value #MAX_BATCH_IDS}. Duplicates are looked up again.
+     * @return One result per identifier, in request order; titles that are not found are reported
+     * in their result rather than with a ResourceNotFoundException.
+     * @throws InvalidParameterException If the list is null, empty or too long.
+     * @see #lookUpBatch(List, Function, String)
+     */
+    public Stream<BatchLookupResult<Title>> getTitlesByIds(List<String> titleIds) {
+        return lookUpBatch(titleIds, dataset.getTitles()::get, "Title");
+    }
+
+    /**
+     * Validates a batch of identifiers right away, then returns a lazy stream of their results: the
+     * identifiers are resolved {@value #BATCH_CHUNK_SIZE} at a time as the stream is consumed, each chunk
+     * in parallel when the batch has several, so that the first results can be sent while the rest are
+     * still being looked up. The map is captured when the method is called, so a reload does not mix
+     * two datasets in one batch.
+     */
+    private <T> Stream<BatchLookupResult<T>> lookUpBatch(List<String> ids, Function<String, T> lookup,
+                                                         String resourceName) {
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidParameterException("ids cannot be null or empty");
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new InvalidParameterException("At most " + MAX_BATCH_IDS + " ids are allowed");
+        }
+        List<String> batch = new ArrayList<>(ids);
+        int chunks = (batch.size() + BATCH_CHUNK_SIZE - 1) / BATCH_CHUNK_SIZE;
+        return IntStream.range(0, chunks).boxed().flatMap(chunk -> {
+            List<String> chunkIds = batch.subList(chunk * BATCH_CHUNK_SIZE,
+                    Math.min(batch.size(), (chunk + 1) * BATCH_CHUNK_SIZE));
+            return (chunks > 1 ? chunkIds.parallelStream() : chunkIds.stream())
+                    .map(id -> lookUpOne(id, lookup, resourceName))
+                    .collect(Collectors.toList())
+                    .stream();
+        });
+    }
+
+    private static <T> BatchLookupResult<T> lookUpOne(String id, Function<String, T> lookup, String resourceName) {
+        if (id == null || id.trim().isEmpty()) {
+            return new BatchLookupResult<>(id, false, null, "id cannot be null or empty");
+        }
+        T item = lookup.apply(id);
+        return item != null
+                ? new BatchLookupResult<>(id, true, item, null)
+                : new BatchLookupResult<>(id, false, null, resourceName + " not found with id : '" + id + "'");
+    }
+
     /**
      * Loads title data from a TSV file into the titles map.
      * This method reads the file line by line, parsing each line into a Title object
-     * and storing it in the titles map. It also keeps track of the number of titles loaded.
+     * and storing it in the titles map. It also returns the number of titles loaded.
      *
      * @param resourcePath The path to the TSV file containing title data.
      *                     This should be a resource path that can be loaded via getResourceAsStream.
      * @throws IOException If there's an error reading the file or if the resource cannot be found.
      */
-    private void loadTitles(String resourcePath) throws IOException {
+    private long loadTitles(DatasetSnapshot data, String resourcePath) throws IOException {
+        Map<String, Title> titles = data.getTitles();
+        long titlesLoaded = 0;
         try (BufferedReader reader = ResourceReader.getReader(resourcePath, false)) { // false for non-gzipped
             // Skip header
             reader.readLine();
@@ -311,18 +523,21 @@ public class ImdbDataService {
                 }
             }
         }
+        return titlesLoaded;
     }
 
     /**
      * Loads person data from a TSV file into the people map.
      * This method reads the file line by line, parsing each line into a Person object
-     * and storing it in the people map. It also keeps track of the number of people loaded.
+     * and storing it in the people map. It also returns the number of people loaded.
      *
      * @param resourcePath The path to the TSV file containing person data.
      *                     This should be a resource path that can be loaded via getResourceAsStream.
      * @throws IOException If there's an error reading the file or if the resource cannot be found.
      */
-    private void loadPeople(String resourcePath) throws IOException {
+    private long loadPeople(DatasetSnapshot data, String resourcePath) throws IOException {
+        Map<String, Person> people = data.getPeople();
+        long peopleLoaded = 0;
         try (BufferedReader reader = ResourceReader.getReader(resourcePath, false)) { // false for non-gzipped
             // Skip header
             reader.readLine();
@@ -356,18 +571,23 @@ public class ImdbDataService {
                 }
             }
         }
+        return peopleLoaded;
     }
 
     /**
      * Loads title principal data from a TSV file into the principalsByTitle and principalsByPerson maps.
      * This method reads the file line by line, parsing each line into a TitlePrincipal object,
-     * and storing it in the principalsByTitle and principalsByPerson maps. It also keeps track of the number of principals loaded.
+     * and storing it in the principalsByTitle and principalsByPerson maps. It also returns the number of principals loaded.
      *
      * @param resourcePath The path to the TSV file containing title principal data.
      *                     This should be a resource path that can be loaded via getResourceAsStream.
      * @throws IOException If there's an error reading the file or if the resource cannot be found.
      */
-    private void loadPrincipals(String resourcePath) throws IOException {
+    private long loadPrincipals(DatasetSnapshot data, String resourcePath) throws IOException {
+        Map<String, Title> titles = data.getTitles();
+        Map<String, List<TitlePrincipal>> principalsByTitle = data.getPrincipalsByTitle();
+        Map<String, List<TitlePrincipal>> principalsByPerson = data.getPrincipalsByPerson();
+        long principalsLoaded = 0;
         try (BufferedReader reader = ResourceReader.getReader(resourcePath, false)) { // false for non-gzipped
             // Skip header
             reader.readLine();
@@ -402,18 +622,22 @@ public class ImdbDataService {
                 }
             }
         }
+        return principalsLoaded;
     }
 
     /**
      * Loads title crew data from a TSV file into the crewsByTitle and crewsByPerson maps.
      * This method reads the file line by line, parsing each line into a TitleCrew object,
-     * and storing it in the crewsByTitle and crewsByPerson maps. It also keeps track of the number of crews loaded.
+     * and storing it in the crewsByTitle and crewsByPerson maps. It also returns the number of crews loaded.
      *
      * @param resourcePath The path to the TSV file containing title crew data.
      *                     This should be a resource path that can be loaded via getResourceAsStream.
      * @throws IOException If there's an error reading the file or if the resource cannot be found.
      */
-    private void loadCrews(String resourcePath) throws IOException {
+    private long loadCrews(DatasetSnapshot data, String resourcePath) throws IOException {
+        Map<String, Title> titles = data.getTitles();
+        Map<String, TitleCrew> crews = data.getCrews();
+        long crewsLoaded = 0;
         try (BufferedReader reader = ResourceReader.getReader(resourcePath, false)) { // false for non-gzipped
             // Skip header
             reader.readLine();
@@ -442,18 +666,44 @@ public class ImdbDataService {
                 }
             }
         }
+        return crewsLoaded;
     }
 
     /**
      * Loads title rating data from a TSV file into the ratings map.
      * This method reads the file line by line, parsing each line into a Rating object
-     * and storing it in the ratings map. It also keeps track of the number of ratings loaded.
+     * and storing it in the ratings map. It also returns the number of ratings loaded.
      *
      * @param resourcePath The path to the TSV file containing title rating data.
      *                     This should be a resource path that can be loaded via getResourceAsStream.
      * @throws IOException If there's an error reading the file or if the resource cannot be found.
      */
-    private void loadRatings(String resourcePath) throws IOException {
+    private long loadRatings(DatasetSnapshot data, String resourcePath) throws IOException {
+        Map<String, Title> titles = data.getTitles();
+        Map<String, Rating> ratings = data.getRatings();
+        long ratingsLoaded = 0;
+        for (Rating rating : readRatings(titles, resourcePath)) {
+            ratings.put(rating.getTconst(), rating);
+            ratingsLoaded++;
+
+            // Apply rating to title
+            Title title = titles.get(rating.getTconst());
+            title.setRating(rating.getAverageRating());
+            title.setNumVotes(rating.getNumVotes());
+        }
+        return ratingsLoaded;
+    }
+
+    /**
+     * Reads the ratings of the loaded titles from a TSV file.
+     *
+     * @param titles       The loaded titles, by ID.
+     * @param resourcePath The path to the TSV file containing title rating data.
+     * @return The ratings, in file order.
+     * @throws IOException If there's an error reading the file or if the resource cannot be found.
+     */
+    private List<Rating> readRatings(Map<String, Title> titles, String resourcePath) throws IOException {
+        List<Rating> read = new ArrayList<>();
         try (BufferedReader reader = ResourceReader.getReader(resourcePath, false)) { // false for non-gzipped
             // Skip header
             reader.readLine();
@@ -471,23 +721,16 @@ public class ImdbDataService {
 
                     Float averageRating = Float.parseFloat(fields[1]);
                     Integer numVotes = Integer.parseInt(fields[2]);
-
-                    Rating rating = new Rating(tconst, averageRating, numVotes);
-                    ratings.put(tconst, rating);
-                    ratingsLoaded++;
-
-                    // Apply rating to title
-                    Title title = titles.get(tconst);
-                    title.setRating(averageRating);
-                    title.setNumVotes(numVotes);
+                    read.add(new Rating(tconst, averageRating, numVotes));
 
                     // Only load a subset for demo purposes
-                    if (ratingsLoaded >= 100000) {
+                    if (read.size() >= 100000) {
                         break;
                     }
                 }
             }
         }
+        return read;
     }
 
     /**
@@ -495,13 +738,25 @@ public class ImdbDataService {
      * This method iterates through all titles, retrieves their corresponding crew and principal data,
      * and adds the directors, writers, and actors to the title objects.
      */
-    private void linkData() {
+    void linkData() {
+        dataset = link(dataset);
+    }
+
+    /**
+     * Links the titles of a snapshot with their directors, writers, and actors.
+     *
+     * @return The snapshot with the same-director-and-writer titles computed from the links.
+     */
+    private DatasetSnapshot link(DatasetSnapshot data) {
+        Map<String, Person> people = data.getPeople();
+        Map<String, List<TitlePrincipal>> principalsByTitle = data.getPrincipalsByTitle();
+
         // Link titles with their directors, writers, and actors
-        for (Title title : titles.values()) {
+        for (Title title : data.getTitles().values()) {
             String tconst = title.getTconst();
 
             // Add crew (directors and writers)
-            TitleCrew crew = crews.get(tconst);
+            TitleCrew crew = data.getCrews().get(tconst);
             if (crew != null) {
                 // Add directors
                 List<Person> directors = new ArrayList<>();
@@ -536,6 +791,8 @@ public class ImdbDataService {
                 title.setActors(actors);
             }
         }
+
+        return data.withSameDirectorWriterTitles(computeSameDirectorWriterTitles(data.getIndex()));
     }
 
     /**
@@ -544,50 +801,141 @@ public class ImdbDataService {
      * @return the total number of titles with the same director and writer.
      */
     public long getTotalTitlesWithSameDirectorAndWriter() {
-        return titles.values().stream()
-                .filter(title -> {
-                    List<Person> directors = title.getDirectors();
-                    List<Person> writers = title.getWriters();
-
-                    if (directors == null || writers == null || directors.isEmpty() || writers.isEmpty()) {
-                        return false;
-                    }
-
-                    return directors.stream()
-                            .filter(Person::isAlive)
-                            .anyMatch(director -> writers.contains(director));
-                })
-                .count();
+        return dataset.getSameDirectorWriterTitles().length;
     }
 
     /**
      * Retrieves a list of titles that have the same director and writer,
      * sorted by primary title in ascending order.
+     * The result set is precomputed when the data is linked, so only the requested page is materialized.
      *
      * @param page The page number to retrieve (0-indexed).
      * @param size The number of titles to retrieve per page.
      * @return A list of titles that have the same director and writer.
      * The list is sorted by primary title in ascending order.
      * Only titles with at least one director and one writer are included.
+     * @throws InvalidParameterException If page or size are invalid.
      */
     public List<Title> getTitlesWithSameDirectorAndWriter(int page, int size) {
-        return titles.values().stream()
-                .filter(title -> {
-                    List<Person> directors = title.getDirectors();
-                    List<Person> writers = title.getWriters();
+        return getTitlesWithSameDirectorAndWriter(page, size, null).getItems();
+    }
 
-                    if (directors == null || writers == null || directors.isEmpty() || writers.isEmpty()) {
-                        return false;
-                    }
+    /**
+     * Retrieves a page of titles that have the same director and writer, starting either at
+     * {@code page * size} or right after the title the cursor points to.
+     *
+     * @param page   The page number to retrieve (0-indexed). Ignored when a cursor is given.
+     * @param size   The number of titles to retrieve per page.
+     * @param cursor A cursor returned with a previous page, or null.
+     * @return The titles of the page, sorted by primary title, the total number of titles and the cursor
+     * of the next page.
+     * @throws InvalidParameterException If page, size or cursor are invalid.
+     */
+    public PageSlice<Title> getTitlesWithSameDirectorAndWriter(int page, int size, String cursor) {
+        DatasetSnapshot data = dataset;
+        return data.getIndex().page(data.getSameDirectorWriterTitles(), page, size, cursor, "same-director-writer");
+    }
 
-                    return directors.stream()
-                            .filter(Person::isAlive)
-                            .anyMatch(director -> writers.contains(director));
-                })
-                .sorted(Comparator.comparing(Title::getPrimaryTitle))
-                .skip((long) page * size)
-                .limit(size)
-                .collect(Collectors.toList());
+    /**
+     * Checks whether a linked title has a living director who is also one of its writers.
+     */
+    private static boolean hasLivingDirectorWriter(Title title) {
+        return hasLivingDirectorWriter(title, Person::isAlive);
+    }
+
+    /**
+     * Checks whether a linked title has a director who is also one of its writers and is alive as told
+     * by the given predicate.
+     */
+    private static boolean hasLivingDirectorWriter(Title title, Predicate<Person> alive) {
+        List<Person> directors = title.getDirectors();
+        List<Person> writers = title.getWriters();
+
+        if (directors == null || writers == null || directors.isEmpty() || writers.isEmpty()) {
+            return false;
+        }
+
+        return directors.stream()
+                .filter(alive)
+                .anyMatch(director -> writers.contains(director));
+    }
+
+    /**
+     * Computes the ordinals of all titles with a living director who is also a writer,
+     * sorted by primary title. Called at the end of {@link #linkData()}.
+     */
+    private int[] computeSameDirectorWriterTitles(DatasetIndex index) {
+        // Ordinals follow primary title order, so filtering in ordinal order needs no sort
+        return IntStream.range(0, index.titleCount())
+                .filter(t -> hasLivingDirectorWriter(index.title(t)))
+                .toArray();
+    }
+
+    /**
+     * Updates the death year of a person and re-evaluates the precomputed
+     * same-director-and-writer titles the person directs.
+     * The re-evaluated titles are computed with the new death year before anything is changed, and the
+     * person is only updated once they are published, so readers never see the new death year with the
+     * previous titles.
+     *
+     * @param personId  The unique identifier of the person.
+     * @param deathYear The new death year, or null if the person is alive.
+     * @return The updated person.
+     * @throws InvalidParameterException If the personId parameter is null or empty.
+     * @throws ResourceNotFoundException If no person with the given identifier exists.
+     */
+    public synchronized Person updatePersonDeathYear(String personId, Integer deathYear) {
+        Person person = getPersonById(personId);
+
+        DatasetSnapshot data = dataset;
+        DatasetIndex index = data.getIndex();
+        int personOrdinal = index.personOrdinal(person.getNconst());
+        if (personOrdinal < 0) {
+            person.setDeathYear(deathYear);
+            contentVersion.incrementAndGet();
+            return person;
+        }
+        Predicate<Person> alive = p -> p == person ? deathYear == null : p.isAlive();
+
+        // Only titles the person directs can change membership; both lists are ascending, so merge them
+        int[] directed = index.titlesOf(personOrdinal, CreditRole.DIRECTOR);
+        int[] current = data.getSameDirectorWriterTitles();
+        int[] updated = new int[current.length + directed.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < current.length || j < directed.length) {
+            if (j == directed.length || (i < current.length && current[i] < directed[j])) {
+                updated[n++] = current[i++];
+            } else {
+                int t = directed[j++];
+                if (i < current.length && current[i] == t) {
+                    i++;
+                }
+                if (hasLivingDirectorWriter(index.title(t), alive)) {
+                    updated[n++] = t;
+                }
+            }
+        }
+        dataset = data.withSameDirectorWriterTitles(Arrays.copyOf(updated, n));
+        person.setDeathYear(deathYear);
+        contentVersion.incrementAndGet();
+        return person;
+    }
+
+    /**
+     * Reloads the dataset from the demo files into a new snapshot, with the current configuration of
+     * this service, and swaps it in with a single write of the snapshot reference. Requests served during the reload keep using the previous
+     * snapshot; requests started after the swap only see the new one.
+     *
+     * @throws DataImportException If an error occurs while loading or linking the IMDB data.
+     */
+    public synchronized void reload() {
+        DatasetSnapshot fresh = loadSnapshot();
+
+        dataset = fresh;
+        contentVersion.incrementAndGet();
+        queryCache.invalidateAll();
     }
 
 
@@ -605,6 +953,25 @@ public class ImdbDataService {
      * @throws ResourceNotFoundException If either actor1 or actor2 is not found.
      */
     public List<Title> getTitlesWithBothActors(String actor1Key, String actor2Key, int page, int size) {
+        return getTitlesWithBothActors(actor1Key, actor2Key, page, size, null).getItems();
+    }
+
+    /**
+     * Retrieves a page of titles that have both the specified actors, starting either at
+     * {@code page * size} or right after the title the cursor points to.
+     *
+     * @param actor1Key The ID or name of the first actor.
+     * @param actor2Key The ID or name of the second actor.
+     * @param page      The page number to retrieve (0-indexed). Ignored when a cursor is given.
+     * @param size      The number of titles to retrieve per page.
+     * @param cursor    A cursor returned with a previous page, or null.
+     * @return The titles of the page, sorted by primary title, the total number of titles and the cursor
+     * of the next page.
+     * @throws InvalidParameterException If either actor key is null or empty, or if page, size or cursor are invalid.
+     * @throws ResourceNotFoundException If either actor1 or actor2 is not found.
+     */
+    public PageSlice<Title> getTitlesWithBothActors(String actor1Key, String actor2Key, int page, int size,
+                                                    String cursor) {
         if (actor1Key == null || actor1Key.trim().isEmpty()) {
             throw new InvalidParameterException("actor1 parameter cannot be null or empty");
         }
@@ -623,19 +990,17 @@ public class ImdbDataService {
             throw new ResourceNotFoundException("Actor", "id/name", actor2Key);
         }
 
-        // Get all titles including knownForTitles
-        Set<String> actor1Titles = getAllActorTitles(actor1);
-        Set<String> actor2Titles = getAllActorTitles(actor2);
-
-        // Find common titles and convert to Title objects
-        return actor1Titles.stream()
-                .filter(actor2Titles::contains)
-                .map(titles::get)
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(Title::getPrimaryTitle))
-                .skip((long) page * size)
-                .limit(size)
-                .collect(Collectors.toList());
+        // The pair is unordered: key it by the sorted IDs
+        String first = actor1.getNconst().compareTo(actor2.getNconst()) <= 0 ? actor1.getNconst() : actor2.getNconst();
+        String second = first.equals(actor1.getNconst()) ? actor2.getNconst() : actor1.getNconst();
+        return cached("titlesWithBothActors", () -> {
+            // Acting credits and knownForTitles, already in primary title order
+            DatasetIndex index = dataset.getIndex();
+            int[] common = PostingLists.intersect(
+                    index.actingOrKnownForTitlesOf(actor1.getNconst()),
+                    index.actingOrKnownForTitlesOf(actor2.getNconst()));
+            return index.page(common, page, size, cursor, "both-actors");
+        }, first, second, pageKey(page, cursor), size, cursor);
     }
 
     /**
@@ -647,44 +1012,14 @@ public class ImdbDataService {
      */
     private Person findActor(String key) {
         // Try to find by ID first
-        Person actor = people.get(key);
+        DatasetSnapshot data = dataset;
+        Person actor = data.getPeople().get(key);
         if (actor != null) {
             return actor;
         }
 
         // If not found by ID, try to find by name
-        return people.values().stream()
-                .filter(p -> p.getPrimaryName().equalsIgnoreCase(key))
-                .findFirst()
-                .orElse(null);
-    }
-
-
-    /**
-     * Retrieves a set of all titles that the specified actor has acted in.
-     * The set includes titles from both the 'knownForTitles' field of the actor
-     * and the 'principals' map where the actor has acted.
-     *
-     * @param actor The actor for whom to retrieve the titles.
-     * @return A set of all titles that the specified actor has acted in.
-     * The set is empty if the actor has not acted in any titles.
-     */
-    private Set<String> getAllActorTitles(Person actor) {
-        Set<String> allTitles = new HashSet<>();
-
-        // Add known for titles
-        if (actor.getKnownForTitles() != null) {
-            allTitles.addAll(Arrays.asList(actor.getKnownForTitles()));
-        }
-
-        // Add titles from principals where they acted
-        principalsByPerson.getOrDefault(actor.getNconst(), Collections.emptyList())
-                .stream()
-                .filter(p -> "actor".equals(p.getCategory()) || "actress".equals(p.getCategory()))
-                .map(TitlePrincipal::getTconst)
-                .forEach(allTitles::add);
-
-        return allTitles;
+        return data.getIndex().findPerson(key);
     }
 
 
@@ -715,13 +1050,1068 @@ public class ImdbDataService {
             throw new ResourceNotFoundException("Actor", "id/name", actor2Key);
         }
 
-        Set<String> actor1Titles = getAllActorTitles(actor1);
-        Set<String> actor2Titles = getAllActorTitles(actor2);
+        DatasetIndex index = dataset.getIndex();
+        return PostingLists.intersect(
+                index.actingOrKnownForTitlesOf(actor1.getNconst()),
+                index.actingOrKnownForTitlesOf(actor2.getNconst())).length;
+    }
+
+    /**
+     * Retrieves a page of titles that feature all the given people, sorted by primary title
+     * in ascending order.
+     *
+     * @param personKeys The IDs or names of the people. At least two and at most
+     *                   {@link #MAX_FEATURED_PEOPLE} are required.
+     * @param roles      Optional role filters: either empty (any credit), a single role applied to
+     *                   every person, or one role per person in the same order as personKeys.
+     * @param page       The page number to retrieve (0-indexed).
+     * @param size       The number of titles to retrieve per page.
+     * @return A list of titles on which every person is credited in the requested role.
+     * @throws InvalidParameterException If the people or roles are invalid, or if page or size are invalid.
+     * @throws ResourceNotFoundException If one of the people is not found.
+     */
+    public List<Title> getTitlesFeaturingAll(List<String> personKeys, List<String> roles, int page, int size) {
+        return getTitlesFeaturingAll(personKeys, roles, page, size, null).getItems();
+    }
+
+    /**
+     * Retrieves a page of titles that feature all the given people, starting either at
+     * {@code page * size} or right after the title the cursor points to.
+     *
+     * @param personKeys The IDs or names of the people.
+     * @param roles      Optional role filters, see {@link #getTitlesFeaturingAll(List, List, int, int)}.
+     * @param page       The page number to retrieve (0-indexed). Ignored when a cursor is given.
+     * @param size       The number of titles to retrieve per page.
+     * @param cursor     A cursor returned with a previous page, or null.
+     * @return The titles of the page, sorted by primary title, the total number of titles and the cursor
+     * of the next page.
+     * @throws InvalidParameterException If the people, roles, page, size or cursor are invalid.
+     * @throws ResourceNotFoundException If one of the people is not found.
+     */
+    public PageSlice<Title> getTitlesFeaturingAll(List<String> personKeys, List<String> roles, int page, int size,
+                                                  String cursor) {
+        if (page < 0 || size <= 0) {
+            throw new InvalidParameterException("Page must be >= 0 and size must be > 0");
+        }
+
+        return cached("titlesFeaturingAll", () -> {
+            DatasetIndex index = dataset.getIndex();
+            return index.page(findTitlesFeaturingAll(index, personKeys, roles), page, size, cursor, "featuring-all");
+        }, personKeys, roles, pageKey(page, cursor), size, cursor);
+    }
+
+    /**
+     * Retrieves the total number of titles that feature all the given people.
+     *
+     * @param personKeys The IDs or names of the people.
+     * @param roles      Optional role filters, see {@link #getTitlesFeaturingAll(List, List, int, int)}.
+     * @return The total number of titles on which every person is credited in the requested role.
+     * @throws InvalidParameterException If the people or roles are invalid.
+     * @throws ResourceNotFoundException If one of the people is not found.
+     */
+    public long getTotalTitlesFeaturingAll(List<String> personKeys, List<String> roles) {
+        return findTitlesFeaturingAll(dataset.getIndex(), personKeys, roles).length;
+    }
+
+    /**
+     * Resolves the people and roles, then intersects their posting lists smallest first.
+     *
+     * @return The ordinals of the titles featuring every person.
+     */
+    private int[] findTitlesFeaturingAll(DatasetIndex index, List<String> personKeys, List<String> roles) {
+        return PostingLists.intersectAll(resolveFeaturedPostings(index, personKeys, roles));
+    }
+
+    /**
+     * Counts the titles that feature all the given people, stopping as soon as the limit is reached.
+     * This is cheaper than {@link #getTotalTitlesFeaturingAll(List, List)} when only a bound is needed,
+     * e.g. to display "1000+ titles".
+     *
+     * @param personKeys The IDs or names of the people.
+     * @param roles      Optional role filters, see {@link #getTitlesFeaturingAll(List, List, int, int)}.
+     * @param limit      The count at which to stop. Must be > 0.
+     * @return The number of titles, or limit if there are at least that many.
+     * @throws InvalidParameterException If the people, roles or limit are invalid.
+     * @throws ResourceNotFoundException If one of the people is not found.
+     */
+    public long countTitlesFeaturingAll(List<String> personKeys, List<String> roles, int limit) {
+        if (limit <= 0) {
+            throw new InvalidParameterException("limit must be > 0");
+        }
+        return PostingLists.countIntersection(limit, resolveFeaturedPostings(dataset.getIndex(), personKeys, roles));
+    }
+
+    /**
+     * Resolves the people and roles of a featuring-all query to their posting lists.
+     */
+    private int[][] resolveFeaturedPostings(DatasetIndex index, List<String> personKeys, List<String> roles) {
+        if (personKeys == null || personKeys.size() < 2) {
+            throw new InvalidParameterException("At least two people are required");
+        }
+        if (personKeys.size() > MAX_FEATURED_PEOPLE) {
+            throw new InvalidParameterException("At most " + MAX_FEATURED_PEOPLE + " people are allowed");
+        }
+        List<String> roleNames = roles == null ? Collections.emptyList() : roles;
+        if (roleNames.size() > 1 && roleNames.size() != personKeys.size()) {
+            throw new InvalidParameterException("roles must contain either one role or one role per person");
+        }
+
+        int[][] lists = new int[personKeys.size()][];
+        for (int i = 0; i < personKeys.size(); i++) {
+            String key = personKeys.get(i);
+            CreditRole role = roleNames.isEmpty()
+                    ? CreditRole.ANY
+                    : CreditRole.parse(roleNames.get(roleNames.size() == 1 ? 0 : i));
 
-        return actor1Titles.stream()
-                .filter(actor2Titles::contains)
-                .map(titles::get)
-                .filter(Objects::nonNull)
-                .count();
+            Person person = resolvePerson(index, key);
+            lists[i] = index.titlesOf(index.personOrdinal(person.getNconst()), role);
+        }
+        return lists;
+    }
+
+    /**
+     * Computes how many titles each pair of the given people share.
+     * All the people's posting lists are first folded into one inverted index (title to the
+     * people credited on it), then every row of the matrix is filled in parallel with a single
+     * walk over that person's titles.
+     *
+     * @param personKeys    The IDs or names of the people. At most {@link #MAX_MATRIX_PEOPLE} are allowed.
+     * @param role          The role in which the people must be credited (e.g. actor). Null means acting
+     *                      credits or knownForTitles, matching {@link #getTitlesWithBothActors(String, String)}.
+     * @param includeTitles Whether to also list the shared title IDs for every pair.
+     * @return The symmetric shared-title count matrix, in request order. The diagonal holds the
+     * number of titles of each person.
+     * @throws InvalidParameterException If the people list is empty or too long, or the role is unknown.
+     * @throws ResourceNotFoundException If one of the people is not found.
+     */
+    public CoAppearanceMatrix getCoAppearanceMatrix(List<String> personKeys, String role, boolean includeTitles) {
+        if (personKeys == null || personKeys.isEmpty()) {
+            throw new InvalidParameterException("people parameter cannot be null or empty");
+        }
+        if (personKeys.size() > MAX_MATRIX_PEOPLE) {
+            throw new InvalidParameterException("At most " + MAX_MATRIX_PEOPLE + " people are allowed");
+        }
+        CreditRole creditRole = role == null ? null : CreditRole.parse(role);
+
+        return cached("coAppearanceMatrix", () -> {
+            DatasetIndex index = dataset.getIndex();
+            int n = personKeys.size();
+            int[][] lists = new int[n][];
+            List<String> nconsts = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                Person person = resolvePerson(index, personKeys.get(i));
+                nconsts.add(person.getNconst());
+                lists[i] = creditRole == null
+                        ? index.actingOrKnownForTitlesOf(person.getNconst())
+                        : index.titlesOf(index.personOrdinal(person.getNconst()), creditRole);
+            }
+
+            InvertedPostings peopleByTitle = new InvertedPostings(lists);
+
+            int[][] counts = new int[n][n];
+            int[][][] titlesByPair = includeTitles ? new int[n][n][] : null;
+            IntStream.range(0, n).parallel().forEach(i -> {
+                int[] row = counts[i];
+                int[] groups = peopleByTitle.groupOf[i];
+                for (int g : groups) {
+                    for (int m = peopleByTitle.groupStart[g]; m < peopleByTitle.groupStart[g + 1]; m++) {
+                        int j = peopleByTitle.members[m];
+                        if (j >= i) {
+                            row[j]++;
+                        }
+                    }
+                }
+                if (titlesByPair != null) {
+                    int[] filled = new int[n];
+                    for (int j = i + 1; j < n; j++) {
+                        titlesByPair[i][j] = new int[row[j]];
+                    }
+                    for (int p = 0; p < groups.length; p++) {
+                        int g = groups[p];
+                        for (int m = peopleByTitle.groupStart[g]; m < peopleByTitle.groupStart[g + 1]; m++) {
+                            int j = peopleByTitle.members[m];
+                            if (j > i) {
+                                titlesByPair[i][j][filled[j]++] = lists[i][p];
+                            }
+                        }
+                    }
+                }
+            });
+
+            // Mirror the upper triangle
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < i; j++) {
+                    counts[i][j] = counts[j][i];
+                }
+            }
+
+            List<SharedTitles> sharedTitles = null;
+            if (titlesByPair != null) {
+                sharedTitles = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        if (counts[i][j] > 0) {
+                            List<String> tconsts = Arrays.stream(titlesByPair[i][j])
+                                    .mapToObj(t -> index.title(t).getTconst())
+                                    .collect(Collectors.toList());
+                            sharedTitles.add(new SharedTitles(nconsts.get(i), nconsts.get(j), tconsts));
+                        }
+                    }
+                }
+            }
+
+            return new CoAppearanceMatrix(nconsts, counts, sharedTitles);
+        }, personKeys, creditRole, includeTitles);
+    }
+
+    /**
+     * The inverted index of a set of posting lists, in flat int arrays: the titles of the lists are
+     * numbered in ascending order as groups, and every group holds the ascending indices of the lists
+     * that contain its title.
+     */
+    private static final class InvertedPostings {
+        // Indices of the lists of group g, from groupStart[g] to groupStart[g + 1]
+        private final int[] members;
+        private final int[] groupStart;
+        // Group of every title of every list, by list index and position in the list
+        private final int[][] groupOf;
+
+        InvertedPostings(int[][] lists) {
+            int total = 0;
+            groupOf = new int[lists.length][];
+            for (int i = 0; i < lists.length; i++) {
+                total += lists[i].length;
+                groupOf[i] = new int[lists[i].length];
+            }
+            // Pack (title, list index) into one long so a single sort groups by title
+            long[] pairs = new long[total];
+            int k = 0;
+            for (int i = 0; i < lists.length; i++) {
+                for (int t : lists[i]) {
+                    pairs[k++] = ((long) t << 32) | i;
+                }
+            }
+            Arrays.parallelSort(pairs);
+
+            // Lists are ascending, so the titles of a list come up in the order of its positions
+            members = new int[total];
+            int[] starts = new int[total + 1];
+            int[] positions = new int[lists.length];
+            int groups = 0;
+            for (int m = 0; m < total; m++) {
+                if (m == 0 || (pairs[m] >>> 32) != (pairs[m - 1] >>> 32)) {
+                    starts[groups++] = m;
+                }
+                int i = (int) pairs[m];
+                members[m] = i;
+                groupOf[i][positions[i]++] = groups - 1;
+            }
+            starts[groups] = total;
+            groupStart = Arrays.copyOf(starts, groups + 1);
+        }
+    }
+
+    /**
+     * Counts the titles matching a combination of attribute filters using the bitmap indexes,
+     * without scanning or materializing titles. Every given filter must match; within
+     * titleTypes any of the types may match, while every genre in genres must match.
+     *
+     * @param titleTypes    Optional title types (e.g. movie, tvSeries), any of which may match.
+     * @param adult         Optional adult flag.
+     * @param decade        Optional decade of the start year, e.g. 1990.
+     * @param runtimeBucket Optional runtime bucket: a multiple of 30 minutes, 180 meaning 180 minutes or more.
+     * @param genres        Optional genres, all of which must match.
+     * @param minVotes      Optional minimum number of votes; one of 10, 100, 1000, 10000, 100000, 1000000.
+     * @return The number of matching titles.
+     * @throws InvalidParameterException If minVotes is not one of the indexed thresholds.
+     */
+    public long countTitlesByAttributes(List<String> titleTypes, Boolean adult, Integer decade,
+                                        Integer runtimeBucket, List<String> genres, Integer minVotes) {
+        TitleAttributeIndex attributes = dataset.getIndex().attributes();
+        List<RoaringBitmap> filters = new ArrayList<>();
+
+        if (titleTypes != null && !titleTypes.isEmpty()) {
+            RoaringBitmap types = new RoaringBitmap();
+            for (String titleType : titleTypes) {
+                types = types.or(attributes.titleType(titleType));
+            }
+            filters.add(types);
+        }
+        if (adult != null) {
+            filters.add(attributes.adult(adult));
+        }
+        if (decade != null) {
+            filters.add(attributes.decade(decade));
+        }
+        if (runtimeBucket != null) {
+            filters.add(attributes.runtimeBucket(runtimeBucket));
+        }
+        if (genres != null) {
+            for (String genre : genres) {
+                filters.add(attributes.genre(genre));
+            }
+        }
+        if (minVotes != null) {
+            filters.add(attributes.minVotes(minVotes));
+        }
+
+        return attributes.countAll(filters);
+    }
+
+    /**
+     * Computes title statistics (number of titles, of rated titles, mean rating and total votes)
+     * grouped by any of genre, start year and title type.
+     * The statistics come from a genre × year × type cube computed once per dataset version with a
+     * fork-join reduction, see {@link TitleStatisticsCube}; the groups are rolled up from it.
+     *
+     * @param groupBy   The dimensions to group by: genre, year and/or type. Empty gives one overall total.
+     * @param genre     Only count titles of this genre, or null.
+     * @param titleType Only count titles of this type, or null.
+     * @param fromYear  The earliest start year (inclusive), or null.
+     * @param toYear    The latest start year (inclusive), or null.
+     * @return The non-empty groups, ordered by genre, year and type.
+     * @throws InvalidParameterException If a dimension is unknown or the year range is invalid.
+     */
+    public List<TitleStatistics> getTitleStatistics(List<String> groupBy, String genre, String titleType,
+                                                    Integer fromYear, Integer toYear) {
+        if (fromYear != null && toYear != null && fromYear > toYear) {
+            throw new InvalidParameterException("fromYear must be <= toYear");
+        }
+        List<TitleStatisticsCube.Dimension> dimensions = groupBy == null ? List.of() : groupBy.stream()
+                .filter(dimension -> dimension != null && !dimension.trim().isEmpty())
+                .map(TitleStatisticsCube.Dimension::parse)
+                .distinct()
+                .sorted()
+                .toList();
+
+        return cached("titleStatistics", () -> statisticsCube()
+                .rollUp(dimensions, blankToNull(genre), blankToNull(titleType), fromYear, toYear)
+                .stream()
+                .map(group -> new TitleStatistics(group.getGenre(), group.getYear(), group.getTitleType(),
+                        group.getTitleCount(), group.getRatedCount(), group.getMeanRating(), group.getTotalVotes()))
+                .toList(), dimensions, blankToNull(genre), blankToNull(titleType), fromYear, toYear);
+    }
+
+    /**
+     * @return The statistics cube of the current dataset version, computing it if needed.
+     */
+    private TitleStatisticsCube statisticsCube() {
+        DatasetIndex index = dataset.getIndex();
+        TitleStatisticsCube cube = statisticsCube;
+        if (cube != null && cube.index() == index) {
+            return cube;
+        }
+        synchronized (statisticsLock) {
+            cube = statisticsCube;
+            if (cube == null || cube.index() != index) {
+                cube = TitleStatisticsCube.build(index);
+                statisticsCube = cube;
+            }
+            return cube;
+        }
+    }
+
+    /**
+     * Finds the shortest chains of collaborations linking two people ("degrees of separation"):
+     * each consecutive pair of people on a path is credited on a common title.
+     * The search is a bidirectional breadth-first search over the posting lists, see {@link CollaborationPathFinder}.
+     *
+     * @param fromKey         The ID or name of the first person.
+     * @param toKey           The ID or name of the second person.
+     * @param roles           Optional roles in which people must be credited on the linking titles
+     *                        (e.g. actor); empty means any role.
+     * @param maxDepth        The maximum number of titles on a path, at most {@link #MAX_PATH_DEPTH}.
+     * @param maxPaths        The maximum number of shortest paths to return, at most {@link #MAX_PATHS}.
+     * @param timeBudgetMillis How long the search may run, at most {@link #MAX_PATH_TIME_BUDGET_MILLIS}.
+     * @return The shortest paths found, or no path if the people are not connected within maxDepth
+     * titles or the time budget ran out.
+     * @throws InvalidParameterException If a parameter is missing or out of range, or a role is unknown.
+     * @throws ResourceNotFoundException If one of the people is not found.
+     */
+    public CollaborationPaths findCollaborationPaths(String fromKey, String toKey, List<String> roles,
+                                                     int maxDepth, int maxPaths, long timeBudgetMillis) {
+        if (maxDepth < 1 || maxDepth > MAX_PATH_DEPTH) {
+            throw new InvalidParameterException("maxDepth must be between 1 and " + MAX_PATH_DEPTH);
+        }
+        if (maxPaths < 1 || maxPaths > MAX_PATHS) {
+            throw new InvalidParameterException("maxPaths must be between 1 and " + MAX_PATHS);
+        }
+        if (timeBudgetMillis < 1 || timeBudgetMillis > MAX_PATH_TIME_BUDGET_MILLIS) {
+            throw new InvalidParameterException("timeBudgetMillis must be between 1 and " + MAX_PATH_TIME_BUDGET_MILLIS);
+        }
+        Set<CreditRole> creditRoles = EnumSet.noneOf(CreditRole.class);
+        if (roles != null) {
+            roles.forEach(role -> creditRoles.add(CreditRole.parse(role)));
+        }
+
+        return queryCache.get("collaborationPaths", contentVersion.get(),
+                Arrays.asList(fromKey, toKey, creditRoles, maxDepth, maxPaths), () -> {
+            DatasetIndex index = dataset.getIndex();
+            Person from = resolvePerson(index, fromKey);
+            Person to = resolvePerson(index, toKey);
+
+            CollaborationPathFinder finder = new CollaborationPathFinder(index, creditRoles, maxPaths,
+                    timeBudgetMillis * 1_000_000L);
+            List<int[]> found = finder.find(index.personOrdinal(from.getNconst()), index.personOrdinal(to.getNconst()),
+                    maxDepth);
+
+            List<CollaborationPath> paths = new ArrayList<>(found.size());
+            for (int[] nodes : found) {
+                List<String> pathPeople = new ArrayList<>();
+                List<String> pathTitles = new ArrayList<>();
+                for (int i = 0; i < nodes.length; i++) {
+                    if (i % 2 == 0) {
+                        pathPeople.add(index.person(nodes[i]).getNconst());
+                    } else {
+                        pathTitles.add(index.title(nodes[i]).getTconst());
+                    }
+                }
+                paths.add(new CollaborationPath(pathPeople, pathTitles));
+            }
+            Integer degrees = found.isEmpty() ? null : found.get(0).length / 2;
+            return new CollaborationPaths(from.getNconst(), to.getNconst(), degrees, paths, finder.isTimedOut());
+        }, paths -> !paths.isTimedOut());
+    }
+
+    /**
+     * Retrieves everything a person is credited on: principal roles (actor, producer, ...), and crew
+     * director and writer credits. Entries of titles the person is known for are flagged as such.
+     * Served from the person's posting lists, which are already sorted by title; other sorts
+     * only order that list by the title columns.
+     *
+     * @param personKey  The ID or name of the person.
+     * @param role       Optional role filter, e.g. actor or director. Null means any credit.
+     * @param titleTypes Optional title types (e.g. movie, tvSeries), any of which may match.
+     * @param sort       The sort: title, year, rating, votes or weighted (rating), prefixed with '-'
+     *                   for descending order.
+     *                   Null means ascending by title.
+     * @param page       The page number (0-indexed), ignored when a cursor is given.
+     * @param size       The page size.
+     * @param cursor     The nextCursor of a previous page of the same filmography, or null.
+     * @return The requested page of the filmography, its total size and the cursor of the next page.
+     * Every entry lists the person's roles on the title, and whether it is one of their knownForTitles.
+     * @throws InvalidParameterException If the role, sort or pagination parameters are invalid.
+     * @throws ResourceNotFoundException If the person is not found.
+     */
+    public PageSlice<FilmographyEntry> getFilmography(String personKey, String role, List<String> titleTypes,
+                                                      String sort, int page, int size, String cursor) {
+        PaginationUtil.validatePaginationParams(page, size);
+        CreditRole creditRole = role == null || role.isBlank() ? CreditRole.ANY : CreditRole.parse(role);
+        TitleSort.Order order = TitleSort.parse(sort);
+        // Keyed by ID, whether the person was given by ID or by name
+        String nconst = resolvePerson(dataset.getIndex(), personKey).getNconst();
+        List<String> types = titleTypes == null ? List.of() : titleTypes;
+        return cached("filmography", () -> {
+            WeightedRatingIndex ranking = dataset.getWeightedRatings();
+            DatasetIndex index = ranking.index();
+            Person person = resolvePerson(index, nconst);
+            int personOrdinal = index.personOrdinal(person.getNconst());
+            int[] credits = filmographyCredits(index, personOrdinal, creditRole, types);
+
+            String scope = "filmography:" + person.getNconst() + ":" + creditRole + ":" + String.join(",", types) + ":" + order;
+            PageSlice<Title> titlesPage = order.isOrdinalOrder()
+                    ? index.page(credits, page, size, cursor, scope)
+                    : index.pageSorted(order.sortEntries(credits, ranking, sortLimit(page, size, cursor)),
+                            page, size, cursor, scope);
+
+            List<FilmographyEntry> entries = new ArrayList<>(titlesPage.getItems().size());
+            for (Title title : titlesPage.getItems()) {
+                entries.add(filmographyEntry(index, personOrdinal, index.titleOrdinal(title.getTconst())));
+            }
+            return new PageSlice<>(entries, titlesPage.getTotalItems(), titlesPage.getNextCursor());
+        }, nconst, creditRole, types, order.toString(), pageKey(page, cursor), size, cursor);
+    }
+
+    /**
+     * Streams the whole filmography of a person, for bulk export: the entries of
+     * {@link #getFilmography}, in title order, built one at a time as the stream is consumed.
+     *
+     * @param personKey  The ID or name of the person.
+     * @param role       Optional role filter, e.g. actor or director. Null means any credit.
+     * @param titleTypes Optional title types (e.g. movie, tvSeries), any of which may match.
+     * @return A lazy stream of the filmography entries.
+     * @throws InvalidParameterException If the role is invalid.
+     * @throws ResourceNotFoundException If the person is not found.
+     */
+    public Stream<FilmographyEntry> exportFilmography(String personKey, String role, List<String> titleTypes) {
+        CreditRole creditRole = role == null || role.isBlank() ? CreditRole.ANY : CreditRole.parse(role);
+        DatasetIndex index = dataset.getIndex();
+        Person person = resolvePerson(index, personKey);
+        int personOrdinal = index.personOrdinal(person.getNconst());
+        int[] credits = filmographyCredits(index, personOrdinal, creditRole, titleTypes == null ? List.of() : titleTypes);
+        return Arrays.stream(credits).mapToObj(titleOrdinal -> filmographyEntry(index, personOrdinal, titleOrdinal));
+    }
+
+    /**
+     * @return The ordinals of the titles a person is credited on in a role, restricted to some title types
+     * (none means any), ascending.
+     */
+    private static int[] filmographyCredits(DatasetIndex index, int personOrdinal, CreditRole creditRole,
+                                            List<String> titleTypes) {
+        int[] credits = index.titlesOf(personOrdinal, creditRole);
+        if (titleTypes.isEmpty()) {
+            return credits;
+        }
+        RoaringBitmap typeFilter = new RoaringBitmap();
+        for (String titleType : titleTypes) {
+            typeFilter = typeFilter.or(index.attributes().titleType(titleType));
+        }
+        RoaringBitmap allowed = typeFilter;
+        return Arrays.stream(credits).filter(allowed::contains).toArray();
+    }
+
+    private static FilmographyEntry filmographyEntry(DatasetIndex index, int personOrdinal, int titleOrdinal) {
+        Title title = index.title(titleOrdinal);
+        List<String> roles = new ArrayList<>();
+        for (CreditRole candidate : CreditRole.values()) {
+            if (candidate != CreditRole.ANY
+                    && Arrays.binarySearch(index.titlesOf(personOrdinal, candidate), titleOrdinal) >= 0) {
+                roles.add(candidate.name().toLowerCase(Locale.ROOT));
+            }
+        }
+        boolean knownFor = Arrays.binarySearch(index.knownForTitlesOf(personOrdinal), titleOrdinal) >= 0;
+        return new FilmographyEntry(title.getTconst(), title.getPrimaryTitle(), title.getTitleType(),
+                title.getStartYear(), rating(index, titleOrdinal), numVotes(index, titleOrdinal), roles, knownFor);
+    }
+
+    /**
+     * Lists the people a person has worked with most often, with the titles they share.
+     * Served from the collaborator table precomputed at load time, see {@link CollaboratorTable}.
+     *
+     * @param personKey The ID or name of the person.
+     * @param kind      The kind of collaboration: any (default), actor-actor, actor-director,
+     *                  director-actor, director-writer or writer-director. The first role is the
+     *                  person's, the second their collaborator's.
+     * @param limit     The maximum number of collaborators, at most {@link CollaboratorTable#TOP_COLLABORATORS}.
+     * @return The collaborators, most shared titles first.
+     * @throws InvalidParameterException If the kind is unknown or the limit is out of range.
+     * @throws ResourceNotFoundException If the person is not found.
+     */
+    public List<Collaborator> getTopCollaborators(String personKey, String kind, int limit) {
+        if (limit < 1 || limit > CollaboratorTable.TOP_COLLABORATORS) {
+            throw new InvalidParameterException("limit must be between 1 and " + CollaboratorTable.TOP_COLLABORATORS);
+        }
+        CollaborationKind collaborationKind = CollaborationKind.parse(kind);
+        CollaboratorTable table = dataset.getCollaboratorTable();
+        DatasetIndex index = table.index();
+        int personOrdinal = index.personOrdinal(resolvePerson(index, personKey).getNconst());
+
+        int[] collaborators = table.collaborators(collaborationKind, personOrdinal);
+        int[] counts = table.sharedTitleCounts(collaborationKind, personOrdinal);
+        int[] personTitles = index.titlesOf(personOrdinal, collaborationKind.getPersonRole());
+
+        List<Collaborator> result = new ArrayList<>(Math.min(limit, collaborators.length));
+        for (int i = 0; i < collaborators.length && i < limit; i++) {
+            Person collaborator = index.person(collaborators[i]);
+            int[] shared = PostingLists.intersect(personTitles,
+                    index.titlesOf(collaborators[i], collaborationKind.getCollaboratorRole()));
+            List<String> tconsts = Arrays.stream(shared).mapToObj(t -> index.title(t).getTconst()).toList();
+            result.add(new Collaborator(collaborator.getNconst(), collaborator.getPrimaryName(), counts[i], tconsts));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the titles most similar to a title, by the people credited on both and their genres.
+     * Candidates come from the MinHash LSH buckets computed at load time, see {@link SimilarTitleIndex},
+     * and only a shortlist of them is compared exactly.
+     *
+     * @param titleId The unique identifier of the title.
+     * @param limit   The maximum number of titles to return, at most {@value #MAX_SIMILAR_TITLES}.
+     * @return The similar titles, most similar first.
+     * @throws InvalidParameterException If the titleId is null or empty, or the limit is out of range.
+     * @throws ResourceNotFoundException If the title is not found.
+     */
+    public List<SimilarTitle> getSimilarTitles(String titleId, int limit) {
+        if (titleId == null || titleId.trim().isEmpty()) {
+            throw new InvalidParameterException("titleId parameter cannot be null or empty");
+        }
+        if (limit < 1 || limit > MAX_SIMILAR_TITLES) {
+            throw new InvalidParameterException("limit must be between 1 and " + MAX_SIMILAR_TITLES);
+        }
+        return cached("similarTitles", () -> {
+            SimilarTitleIndex similarity = dataset.getSimilarTitles();
+            DatasetIndex index = similarity.index();
+            int titleOrdinal = index.titleOrdinal(titleId.trim());
+            if (titleOrdinal < 0) {
+                throw new ResourceNotFoundException("Title", "id", titleId);
+            }
+
+            Set<String> genres = index.title(titleOrdinal).getGenres() == null
+                    ? Set.of()
+                    : index.title(titleOrdinal).getGenres();
+            List<SimilarTitle> result = new ArrayList<>();
+            for (SimilarTitleIndex.Match match : similarity.similar(titleOrdinal, limit)) {
+                Title title = index.title(match.getTitleOrdinal());
+                List<String> sharedGenres = title.getGenres() == null
+                        ? List.of()
+                        : title.getGenres().stream().filter(genres::contains).sorted().toList();
+                result.add(new SimilarTitle(title.getTconst(), title.getPrimaryTitle(), title.getTitleType(),
+                        title.getStartYear(), match.getSimilarity(), match.getSharedPeople(), sharedGenres));
+            }
+            return result;
+        }, titleId.trim(), limit);
+    }
+
+    /**
+     * Resolves a person by ID or name.
+     *
+     * @throws InvalidParameterException If the key is null or empty.
+     * @throws ResourceNotFoundException If the person is not found.
+     */
+    private static Person resolvePerson(DatasetIndex index, String key) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new InvalidParameterException("person parameter cannot be null or empty");
+        }
+        Person person = index.findPerson(key.trim());
+        if (person == null) {
+            throw new ResourceNotFoundException("Person", "id/name", key);
+        }
+        return person;
+    }
+
+    /**
+     * Searches titles with the query language described in {@link TitleQueryParser}, e.g.
+     * {@code type:movie genre:Drama year:1990..1999 rating>=8 director:"Christopher Nolan"}.
+     * The query is planned against the indexes (see {@link TitleQueryPlanner}) so that its most
+     * selective predicate is evaluated first, and no query needs dedicated code.
+     *
+     * @param query  The search query. Null or blank matches every title.
+     * @param sort   The sort: title (default), year, rating, votes or weighted (rating), prefixed with '-'
+     *               for descending order.
+     * @param page   The page number (0-indexed), ignored when a cursor is given.
+     * @param size   The page size.
+     * @param cursor The nextCursor of a previous page of the same search, or null.
+     * @return The requested page of matching titles, their total number and the cursor of the next page.
+     * @throws InvalidParameterException If the query, sort or pagination parameters are invalid.
+     * @throws ResourceNotFoundException If one of the people in the query is not found.
+     */
+    public PageSlice<Title> searchTitles(String query, String sort, int page, int size, String cursor) {
+        PaginationUtil.validatePaginationParams(page, size);
+        TitleQuery parsed = TitleQueryParser.parse(query);
+        TitleSort.Order order = TitleSort.parse(sort);
+        String trimmed = query == null ? "" : query.trim();
+        return cached("searchTitles", () -> {
+            WeightedRatingIndex ranking = dataset.getWeightedRatings();
+            DatasetIndex index = ranking.index();
+
+            int[] matches = TitleQueryPlanner.plan(parsed, index).execute();
+            String scope = "search:" + order + ":" + trimmed;
+            if (order.isOrdinalOrder()) {
+                return index.page(matches, page, size, cursor, scope);
+            }
+            long[] entries = order.sortEntries(matches, ranking, sortLimit(page, size, cursor));
+            return index.pageSorted(entries, page, size, cursor, scope);
+        }, trimmed, order.toString(), pageKey(page, cursor), size, cursor);
+    }
+
+    /**
+     * Streams every title matching a search query, for bulk export: the matches of
+     * {@link #searchTitles} in title order, without pagination. Only the ordinals of the matches
+     * are held; titles are read from the index as the stream is consumed.
+     *
+     * @param query The search query. Null or blank matches every title.
+     * @return A lazy stream of the matching titles.
+     * @throws InvalidParameterException If the query is invalid.
+     * @throws ResourceNotFoundException If one of the people in the query is not found.
+     */
+    public Stream<Title> exportTitles(String query) {
+        DatasetIndex index = dataset.getIndex();
+        int[] matches = TitleQueryPlanner.plan(TitleQueryParser.parse(query), index).execute();
+        return Arrays.stream(matches).mapToObj(index::title);
+    }
+
+    /**
+     * Writes a table of the loaded dataset as an Arrow IPC file, from the linked in-memory data,
+     * then closes the channel. See {@link ArrowExporter} for the tables and their columns.
+     *
+     * @param table   The table to export.
+     * @param channel Where to write the file.
+     * @throws IOException If the channel cannot be written to.
+     */
+    public void exportArrow(ArrowTable table, WritableByteChannel channel) throws IOException {
+        DatasetSnapshot data = dataset;
+        new ArrowExporter(data.getIndex(), data.getPrincipalsByTitle()).write(table, channel);
+    }
+
+    /**
+     * Searches people by primary profession, birth year, living status and number of credits.
+     * Every filter is optional, and all given filters must match.
+     *
+     * @param professions  The primary professions the people must all have, e.g. actor, director. Optional.
+     * @param minBirthYear The earliest birth year (inclusive), or null.
+     * @param maxBirthYear The latest birth year (inclusive), or null.
+     * @param alive        true for living people, false for deceased people, null for both.
+     * @param minCredits   The minimum number of titles the people are credited on, in any role, or null.
+     * @param sort         The sort: name (default), birthYear or credits, prefixed with '-' for descending order.
+     * @param page         The page number (0-indexed), ignored when a cursor is given.
+     * @param size         The page size.
+     * @param cursor       The nextCursor of a previous page of the same search, or null.
+     * @return The requested page of matching people, their total number and the cursor of the next page.
+     * @throws InvalidParameterException If a range, the sort or the pagination parameters are invalid.
+     */
+    public PageSlice<Person> searchPeople(List<String> professions, Integer minBirthYear, Integer maxBirthYear,
+                                          Boolean alive, Integer minCredits, String sort,
+                                          int page, int size, String cursor) {
+        PaginationUtil.validatePaginationParams(page, size);
+        if (minBirthYear != null && maxBirthYear != null && minBirthYear > maxBirthYear) {
+            throw new InvalidParameterException("minBirthYear must be <= maxBirthYear");
+        }
+        if (minCredits != null && minCredits < 0) {
+            throw new InvalidParameterException("minCredits must be >= 0");
+        }
+        PersonSort.Order order = PersonSort.parse(sort);
+
+        // Normalized once, so that the query, its cursor scope and its cache key agree whatever the order
+        PersonQuery query = new PersonQuery();
+        if (professions != null) {
+            professions.stream()
+                    .filter(profession -> profession != null && !profession.trim().isEmpty())
+                    .map(String::trim)
+                    .distinct()
+                    .sorted()
+                    .forEach(query.getProfessions()::add);
+        }
+        query.setMinBirthYear(minBirthYear);
+        query.setMaxBirthYear(maxBirthYear);
+        query.setAlive(alive);
+        query.setMinCredits(minCredits);
+
+        return cached("searchPeople", () -> {
+            DatasetIndex index = dataset.getIndex();
+            int[] matches = PersonQueryPlanner.execute(query, index);
+            String scope = "people-search:" + order + ":" + query.getProfessions() + ":" + minBirthYear + ".." + maxBirthYear
+                    + ":" + alive + ":" + minCredits;
+            long[] entries = order.sortEntries(matches, index, sortLimit(page, size, cursor));
+            return index.pagePeopleSorted(entries, page, size, cursor, scope);
+        }, List.copyOf(query.getProfessions()), minBirthYear, maxBirthYear, alive, minCredits,
+                order.toString(), pageKey(page, cursor), size, cursor);
+    }
+
+    /**
+     * Describes how a title search would be executed, without executing it.
+     *
+     * @param query The search query, see {@link #searchTitles}.
+     * @return The steps of the plan, in execution order.
+     * @throws InvalidParameterException If the query is invalid.
+     * @throws ResourceNotFoundException If one of the people in the query is not found.
+     */
+    public List<String> explainTitleSearch(String query) {
+        return TitleQueryPlanner.plan(TitleQueryParser.parse(query), dataset.getIndex()).explain();
+    }
+
+    /**
+     * Returns the size of the query result cache, and its hits and misses by query.
+     *
+     * @return The query cache statistics.
+     */
+    public QueryCacheStats getQueryCacheStats() {
+        return queryCache.stats();
+    }
+
+    /**
+     * Serves a query from the result cache, or runs it and caches its result. The content version is read
+     * before the query reads the indexes, and changed after they are, so a result is never cached under a
+     * version newer than its data.
+     *
+     * @param query  The name of the query.
+     * @param loader Runs the query. It must read the indexes itself.
+     * @param params The normalized parameters of the query.
+     */
+    private <T> T cached(String query, Supplier<T> loader, Object... params) {
+        return queryCache.get(query, contentVersion.get(), Arrays.asList(params), loader);
+    }
+
+    /**
+     * @return The page parameter as far as the result depends on it: pages are ignored when a cursor is given.
+     */
+    private static int pageKey(int page, String cursor) {
+        return cursor == null ? page : 0;
+    }
+
+    /**
+     * @return How many sorted results a page needs: the results up to the end of the page, or all of them
+     * when a cursor is given, since it is looked up in the sorted results.
+     */
+    private static int sortLimit(int page, int size, String cursor) {
+        return cursor == null ? (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return The loaded titles, by ID.
+     */
+    public Map<String, Title> getTitles() {
+        return dataset.getTitles();
+    }
+
+    /**
+     * @return The loaded people, by ID.
+     */
+    public Map<String, Person> getPeople() {
+        return dataset.getPeople();
+    }
+
+    /**
+     * @return The loaded principals, by title ID.
+     */
+    public Map<String, List<TitlePrincipal>> getPrincipalsByTitle() {
+        return dataset.getPrincipalsByTitle();
+    }
+
+    /**
+     * @return The loaded principals, by person ID.
+     */
+    public Map<String, List<TitlePrincipal>> getPrincipalsByPerson() {
+        return dataset.getPrincipalsByPerson();
+    }
+
+    /**
+     * @return The loaded crews, by title ID.
+     */
+    public Map<String, TitleCrew> getCrews() {
+        return dataset.getCrews();
+    }
+
+    /**
+     * @return The loaded ratings, by title ID.
+     */
+    public Map<String, Rating> getRatings() {
+        return dataset.getRatings();
+    }
+
+    // Numbers of records loaded from the files
+    public long getTitlesLoaded() {
+        return dataset.getTitlesLoaded();
+    }
+
+    public long getPeopleLoaded() {
+        return dataset.getPeopleLoaded();
+    }
+
+    public long getPrincipalsLoaded() {
+        return dataset.getPrincipalsLoaded();
+    }
+
+    public long getCrewsLoaded() {
+        return dataset.getCrewsLoaded();
+    }
+
+    public long getRatingsLoaded() {
+        return dataset.getRatingsLoaded();
+    }
+
+    /**
+     * Returns the version of the currently loaded dataset. It changes on every (re)load,
+     * which invalidates cursors issued for the previous data.
+     *
+     * @return The dataset version.
+     */
+    public long getDatasetVersion() {
+        return dataset.getIndex().getVersion();
+    }
+
+    /**
+     * Returns the version of the data the service answers with. Unlike the dataset version, it also changes
+     * when loaded entities are updated in place (death years) or titles are re-ranked, so that anything derived
+     * from responses (serialized entities, cached results, ETags) can be keyed on it.
+     *
+     * @return The content version.
+     */
+    public long getContentVersion() {
+        return contentVersion.get();
+    }
+
+    /**
+     * Rebuilds the ordinal-based index, and the collaborator table, similarity index, ranking and leaderboards
+     * computed from it, from the currently loaded data, counting the records in the maps as loaded.
+     */
+    void buildIndexes() {
+        DatasetSnapshot data = dataset;
+        long[] loaded = {
+                data.getTitles().size(),
+                data.getPeople().size(),
+                data.getPrincipalsByTitle().values().stream().mapToLong(List::size).sum(),
+                data.getCrews().size(),
+                data.getRatings().size()};
+        dataset = data.indexed(loaded, rankingMinVotes, rankingGlobalMean);
+        contentVersion.incrementAndGet();
+    }
+
+    /**
+     * Changes the weighted rating parameters and re-ranks the titles.
+     *
+     * @param minVotes   The minimum votes threshold m. Must be >= 0.
+     * @param globalMean The global mean rating C, between 0 and 10, or null to use the mean rating of all rated titles.
+     * @throws InvalidParameterException If minVotes is negative, or globalMean is not a rating.
+     */
+    public synchronized void configureWeightedRating(int minVotes, Float globalMean) {
+        validateWeightedRating(minVotes, globalMean);
+        rankingMinVotes = minVotes;
+        rankingGlobalMean = globalMean;
+        DatasetSnapshot data = dataset;
+        WeightedRatingIndex ranking = WeightedRatingIndex.build(data.getIndex(), minVotes, globalMean);
+        dataset = data.withRanking(ranking, data.getLeaderboards().withRanking(ranking));
+        contentVersion.incrementAndGet();
+    }
+
+    /**
+     * Checks the weighted rating parameters. Scores are ranked by their bit patterns, which only order
+     * finite non-negative values, so C must be a rating: a finite value between 0 and 10.
+     *
+     * @throws InvalidParameterException If minVotes is negative, or globalMean is not a rating.
+     */
+    private static void validateWeightedRating(int minVotes, Float globalMean) {
+        if (minVotes < 0) {
+            throw new InvalidParameterException("minVotes must be >= 0");
+        }
+        if (globalMean != null && !(globalMean >= 0 && globalMean <= 10)) {
+            throw new InvalidParameterException("globalMean must be between 0 and 10");
+        }
+    }
+
+    /**
+     * Retrieves a page of a leaderboard: the top {@value Leaderboards#SIZE} titles of all titles, of a title type,
+     * of a genre or of a decade, ranked by rating, number of votes or weighted rating.
+     * Leaderboards are maintained as ratings change, so a page costs O(K) whatever the number of titles.
+     *
+     * @param titleType The title type of the leaderboard, or null.
+     * @param genre     The genre of the leaderboard, or null.
+     * @param decade    Any year of the decade of the leaderboard, or null. At most one of titleType, genre and
+     *                  decade may be given; none means all titles.
+     * @param by        What the titles are ranked by: rating, votes or weighted.
+     * @param page      The page number (0-indexed), ignored when a cursor is given.
+     * @param size      The page size.
+     * @param cursor    The nextCursor of a previous page of the same leaderboard, or null.
+     * @return The requested page of the leaderboard, best first, its length and the cursor of the next page.
+     * @throws InvalidParameterException If the ranking, the leaderboard or the pagination parameters are invalid.
+     */
+    public PageSlice<TitleDTO> getLeaderboard(String titleType, String genre, Integer decade, String by,
+                                              int page, int size, String cursor) {
+        Leaderboards.Metric metric = Leaderboards.Metric.parse(by);
+        String dimension = Leaderboards.dimension(blankToNull(titleType), blankToNull(genre), decade);
+        Leaderboards boards = dataset.getLeaderboards();
+        WeightedRatingIndex ranking = boards.ranking();
+        DatasetIndex index = ranking.index();
+
+        PageSlice<Title> slice = index.pageSorted(boards.top(dimension, metric), page, size, cursor,
+                "leaderboard:" + metric + ":" + dimension);
+        List<TitleDTO> items = slice.getItems().stream()
+                .map(t -> new TitleDTO(
+                        t.getTconst(),
+                        t.getPrimaryTitle(),
+                        t.getStartYear(),
+                        rating(index, t),
+                        numVotes(index, t),
+                        weightedRating(ranking, index, t)))
+                .collect(Collectors.toList());
+        return new PageSlice<>(items, slice.getTotalItems(), slice.getNextCursor());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    /**
+     * Re-reads the ratings file and applies the ratings that changed since they were loaded.
+     * Titles missing from the file keep their rating. This is a full refresh: if C is the mean of all
+     * ratings, it is computed again, and the weighted ranking and boards are rebuilt if it moved.
+     *
+     * @return The number of titles whose rating or votes changed.
+     * @throws DataImportException If the ratings file cannot be read.
+     */
+    public synchronized int refreshRatings() {
+        try {
+            return applyRatings(readRatings(dataset.getTitles(), RATINGS_RESOURCE), true);
+        } catch (IOException e) {
+            throw new DataImportException("Failed to refresh IMDB ratings", e);
+        }
+    }
+
+    /**
+     * Sets the rating and number of votes of a title. Only that title is rescored and moved within the
+     * ranking and leaderboards: C is held until the next ratings refresh or reload, see {@link WeightedRatingIndex}.
+     *
+     * @param titleId  The unique identifier of the title.
+     * @param rating   The new average rating, from 0 to 10.
+     * @param numVotes The new number of votes. Must be >= 0.
+     * @return The updated title.
+     * @throws InvalidParameterException If the titleId is null or empty, or the rating or votes are out of range.
+     * @throws ResourceNotFoundException If no title with the given identifier exists.
+     */
+    public synchronized Title updateTitleRating(String titleId, float rating, int numVotes) {
+        if (titleId == null || titleId.trim().isEmpty()) {
+            throw new InvalidParameterException("titleId parameter cannot be null or empty");
+        }
+        if (!(rating >= 0 && rating <= 10) || numVotes < 0) {
+            throw new InvalidParameterException("rating must be between 0 and 10 and numVotes must be >= 0");
+        }
+        Title title = dataset.getTitles().get(titleId);
+        if (title == null) {
+            throw new ResourceNotFoundException("Title", "id", titleId);
+        }
+        applyRatings(List.of(new Rating(titleId, rating, numVotes)), false);
+        return title;
+    }
+
+    /**
+     * Derives a new index with new ratings, sharing everything but the rating columns, moves the changed
+     * titles within the ranking and the leaderboards, and publishes them in a new snapshot. Only then are
+     * the shared titles and ratings map updated, so readers of the previous snapshot never see new ratings
+     * with the previous columns, ranking and vote bitmaps.
+     * Must be called while holding the service lock.
+     *
+     * @param updated       The new ratings. Ratings of titles that are not loaded are ignored.
+     * @param recomputeMean Whether to compute C again when it is the mean of all ratings, which re-ranks
+     *                      every title if it moved. Otherwise C is held and only the changed titles move.
+     * @return The number of titles whose rating or votes changed.
+     */
+    private int applyRatings(List<Rating> updated, boolean recomputeMean) {
+        DatasetSnapshot data = dataset;
+        DatasetIndex index = data.getIndex();
+        TitleColumns columns = index.columns();
+        Rating[] applied = new Rating[updated.size()];
+        int[] changed = new int[updated.size()];
+        float[] ratings = new float[updated.size()];
+        int[] votes = new int[updated.size()];
+        BitSet seen = new BitSet();
+        int n = 0;
+        // Backwards, so that the last rating of a title wins
+        for (int i = updated.size() - 1; i >= 0; i--) {
+            Rating rating = updated.get(i);
+            int ordinal = index.titleOrdinal(rating.getTconst());
+            if (ordinal < 0 || seen.get(ordinal)) {
+                continue;
+            }
+            seen.set(ordinal);
+            if (columns.rating(ordinal) == rating.getAverageRating()
+                    && columns.numVotes(ordinal) == rating.getNumVotes()) {
+                continue;
+            }
+            applied[n] = rating;
+            changed[n] = ordinal;
+            ratings[n] = rating.getAverageRating();
+            votes[n] = rating.getNumVotes();
+            n++;
+        }
+        if (n == 0) {
+            return 0;
+        }
+        changed = Arrays.copyOf(changed, n);
+
+        DatasetIndex updatedIndex = index.withRatings(changed, Arrays.copyOf(ratings, n), Arrays.copyOf(votes, n));
+        WeightedRatingIndex ranking = recomputeMean && rankingGlobalMean == null
+                ? WeightedRatingIndex.build(updatedIndex, rankingMinVotes, null)
+                : data.getWeightedRatings().withRatings(updatedIndex, changed);
+        dataset = data.withRatings(updatedIndex, ranking, data.getLeaderboards().update(ranking, changed));
+
+        for (int i = 0; i < n; i++) {
+            Rating rating = applied[i];
+            data.getRatings().put(rating.getTconst(), rating);
+            Title title = index.title(changed[i]);
+            title.setRating(rating.getAverageRating());
+            title.setNumVotes(rating.getNumVotes());
+        }
+        contentVersion.incrementAndGet();
+        return n;
     }
 }
@@ -0,0 +1,58 @@
+package com.example.imdbdataset.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Reloads the dataset on the cron schedule of {@code imdb.reload.cron}, e.g. {@code 0 0 4 * * *} for
+ * every day at 4:00, after the IMDb files were refreshed. Without a schedule, the dataset is only
+ * reloaded through the admin endpoint.
+ * <p>
+ * The schedule also tells how long responses stay fresh: until the next scheduled reload.
+ */
+@Component
+public class ReloadSchedule {
+
+    private final ImdbDataService imdbDataService;
+    private final CronExpression cron;
+    private volatile boolean reloading;
+
+    public ReloadSchedule(ImdbDataService imdbDataService,
+                          @Value("${imdb.reload.cron:" + Scheduled.CRON_DISABLED + "}") String cron) {
+        this.imdbDataService = imdbDataService;
+        this.cron = cron.isBlank() || cron.equals(Scheduled.CRON_DISABLED) ? null : CronExpression.parse(cron);
+    }
+
+    @Scheduled(cron = "${imdb.reload.cron:" + Scheduled.CRON_DISABLED + "}")
+    public void reload() {
+        reloading = true;
+        try {
+            long start = System.currentTimeMillis();
+            imdbDataService.reload();
+            System.out.println("Scheduled reload of the dataset done in " + (System.currentTimeMillis() - start) + " ms");
+        } finally {
+            reloading = false;
+        }
+    }
+
+    /**
+     * @return How long the loaded data stays current: the time until the next scheduled reload, zero while
+     * a scheduled reload is running, or null if reloads are not scheduled.
+     */
+    public Duration untilNextReload() {
+        if (cron == null) {
+            return null;
+        }
+        if (reloading) {
+            return Duration.ZERO;
+        }
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime next = cron.next(now);
+        return next == null ? null : Duration.between(now, next);
+    }
+}
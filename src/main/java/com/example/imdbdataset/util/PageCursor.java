@@ -0,0 +1,65 @@
+package com.example.imdbdataset.util;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursor tokens used for keyset pagination.
+ * A token carries the dataset version it was issued for, the query it belongs to
+ * and the sort key of the last item returned, so the next page can resume right after it.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PageCursor {
+
+    private static final char SEPARATOR = '.';
+
+    /**
+     * Creates a cursor token.
+     *
+     * @param datasetVersion The version of the dataset the page was read from.
+     * @param scope          The name of the query the cursor belongs to.
+     * @param lastKey        The sort key of the last item returned.
+     * @return The opaque, URL-safe token.
+     */
+    public static String encode(long datasetVersion, String scope, long lastKey) {
+        String raw = datasetVersion + "" + SEPARATOR + scope + SEPARATOR + lastKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor token and checks it against the current dataset version and query.
+     *
+     * @param token          The token received from the client.
+     * @param datasetVersion The version of the dataset about to be read.
+     * @param scope          The name of the query being executed.
+     * @return The sort key of the last item of the previous page.
+     * @throws InvalidParameterException If the token is malformed, belongs to another query,
+     *                                   or was issued for a different dataset version.
+     */
+    public static long decode(String token, long datasetVersion, String scope) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Invalid cursor");
+        }
+        // The scope may itself contain separators, so split on the first and last one only
+        int first = raw.indexOf(SEPARATOR);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last || !scope.equals(raw.substring(first + 1, last))) {
+            throw new InvalidParameterException("Invalid cursor");
+        }
+        try {
+            if (Long.parseLong(raw.substring(0, first)) != datasetVersion) {
+                throw new InvalidParameterException("Cursor has expired because the dataset was reloaded");
+            }
+            return Long.parseLong(raw.substring(last + 1));
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.imdbdataset.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Writes one entity as a JSON object, without going through bean introspection.
+ *
+ * @param <T> The type of the entity.
+ */
+@FunctionalInterface
+public interface EntityWriter<T> {
+
+    void write(T value, JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,139 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * Titles and people in their named views, pre-serialized to UTF-8 JSON. The data only changes on
+ * reload or through the update endpoints, so an entity is encoded once per view and content version,
+ * and responses copy its bytes instead of walking the object graph again.
+ * <p>
+ * The cache is bounded by the total size of the fragments, {@code imdb.fragments.max-bytes}, and evicts
+ * by frequency and recency. Fragments are keyed by content version: the first request seeing a new
+ * version drops the fragments of the previous ones. Projections with an explicit field list are not
+ * cached, as every combination would need its own fragments, and neither are responses in binary
+ * formats; both are written directly.
+ */
+@Component
+public class FragmentCache {
+
+    /**
+     * Approximate size of a cache entry beyond its bytes: key, node and array headers.
+     */
+    static final int ENTRY_OVERHEAD = 96;
+
+    private final JsonFactory jsonFactory;
+    private final Cache<Key, JsonFragment> fragments;
+    private volatile long version = Long.MIN_VALUE;
+
+    public FragmentCache(ObjectMapper objectMapper, @Value("${imdb.fragments.max-bytes:67108864}") long maxBytes) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, JsonFragment fragment) -> fragment.byteLength() + ENTRY_OVERHEAD)
+                .build();
+    }
+
+    /**
+     * @param projection     The projection to write titles with.
+     * @param contentVersion The content version of the data the titles come from.
+     * @return A writer serving titles from the cache, or the projection itself if it cannot be cached.
+     */
+    public EntityWriter<Title> titles(TitleProjection projection, long contentVersion) {
+        return cached(projection, projection.name() == null ? null : "title:" + projection.name(), Title::getTconst, contentVersion);
+    }
+
+    /**
+     * @param projection     The projection to write people with.
+     * @param contentVersion The content version of the data the people come from.
+     * @return A writer serving people from the cache, or the projection itself if it cannot be cached.
+     */
+    public EntityWriter<Person> people(PersonProjection projection, long contentVersion) {
+        return cached(projection, projection.name() == null ? null : "person:" + projection.name(), Person::getNconst, contentVersion);
+    }
+
+    /**
+     * @return The number of fragments cached.
+     */
+    long size() {
+        fragments.cleanUp();
+        return fragments.estimatedSize();
+    }
+
+    private <T> EntityWriter<T> cached(EntityWriter<T> writer, String view, Function<T, String> idOf, long contentVersion) {
+        if (view == null) {
+            return writer;
+        }
+        if (contentVersion > version) {
+            synchronized (this) {
+                if (contentVersion > version) {
+                    fragments.invalidateAll();
+                    version = contentVersion;
+                }
+            }
+        }
+        return (value, generator) -> {
+            if (!(generator instanceof JsonGeneratorImpl)) {
+                // Fragments are JSON text: other formats (CBOR) are written by the projection
+                writer.write(value, generator);
+                return;
+            }
+            JsonFragment fragment = fragments.get(new Key(contentVersion, view, idOf.apply(value)),
+                    key -> encode(writer, value));
+            generator.writeRawValue(fragment);
+        };
+    }
+
+    private <T> JsonFragment encode(EntityWriter<T> writer, T value) {
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(256)) {
+            try (JsonGenerator generator = jsonFactory.createGenerator(bytes)) {
+                writer.write(value, generator);
+            }
+            return new JsonFragment(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The content version, view and identifier of a fragment.
+     */
+    private static final class Key {
+        private final long contentVersion;
+        private final String view;
+        private final String id;
+
+        Key(long contentVersion, String view, String id) {
+            this.contentVersion = contentVersion;
+            this.view = view;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return contentVersion == other.contentVersion && view.equals(other.view) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(contentVersion) * 31 + view.hashCode()) * 31 + id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.model.Person;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a {@link Person} to write in a response: those of a {@link View}, or those listed
+ * in a {@code fields=} parameter. Fields are written in declaration order, which is the order, and
+ * under the names, of the full {@link Person} JSON.
+ */
+public final class PersonProjection implements EntityWriter<Person> {
+
+    /**
+     * The fields of a person, by their JSON name.
+     */
+    public enum Field {
+        NCONST("nconst"),
+        PRIMARY_NAME("primaryName"),
+        BIRTH_YEAR("birthYear"),
+        DEATH_YEAR("deathYear"),
+        PRIMARY_PROFESSIONS("primaryProfessions"),
+        KNOWN_FOR_TITLES("knownForTitles"),
+        ALIVE("alive");
+
+        private final String jsonName;
+
+        Field(String jsonName) {
+            this.jsonName = jsonName;
+        }
+
+        public String jsonName() {
+            return jsonName;
+        }
+    }
+
+    private static final Set<Field> SUMMARY_FIELDS = EnumSet.of(Field.NCONST, Field.PRIMARY_NAME,
+            Field.BIRTH_YEAR, Field.DEATH_YEAR);
+
+    /** Every field: the person as returned before projections existed. */
+    public static final PersonProjection DETAIL = new PersonProjection(View.DETAIL, EnumSet.allOf(Field.class), true);
+
+    private final View view;
+    private final Set<Field> fields;
+    private final boolean named;
+
+    private PersonProjection(View view, Set<Field> fields, boolean named) {
+        this.view = view;
+        this.fields = Collections.unmodifiableSet(fields);
+        this.named = named;
+    }
+
+    /**
+     * Parses the projection of a request.
+     *
+     * @param view   The name of a {@link View}, or null for the detail view.
+     * @param fields The JSON names of the fields to write, or null or empty for those of the view.
+     * @return The projection.
+     * @throws InvalidParameterException If the view or a field is unknown.
+     */
+    public static PersonProjection of(String view, List<String> fields) {
+        View parsed = View.parse(view);
+        if (fields != null && !fields.isEmpty()) {
+            return new PersonProjection(parsed, parseFields(fields), false);
+        }
+        return parsed == View.SUMMARY ? new PersonProjection(parsed, SUMMARY_FIELDS, true) : DETAIL;
+    }
+
+    private static Set<Field> parseFields(List<String> names) {
+        Set<Field> fields = EnumSet.noneOf(Field.class);
+        for (String name : names) {
+            fields.add(Arrays.stream(Field.values())
+                    .filter(field -> field.jsonName.equals(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidParameterException("Unknown person field: " + name + ". Supported fields: "
+                            + Arrays.stream(Field.values()).map(Field::jsonName).collect(Collectors.joining(", ")))));
+        }
+        return fields;
+    }
+
+    public View view() {
+        return view;
+    }
+
+    public Set<Field> fields() {
+        return fields;
+    }
+
+    /**
+     * @return The name of the view, or null if the fields were listed in the request.
+     */
+    public String name() {
+        return named ? view.label() : null;
+    }
+
+    @Override
+    public void write(Person person, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (Field field : fields) {
+            generator.writeFieldName(field.jsonName);
+            switch (field) {
+                case NCONST -> generator.writeString(person.getNconst());
+                case PRIMARY_NAME -> generator.writeString(person.getPrimaryName());
+                case BIRTH_YEAR -> writeNumber(generator, person.getBirthYear());
+                case DEATH_YEAR -> writeNumber(generator, person.getDeathYear());
+                case PRIMARY_PROFESSIONS -> writeStrings(generator, person.getPrimaryProfessions());
+                case KNOWN_FOR_TITLES -> writeStrings(generator, person.getKnownForTitles());
+                case ALIVE -> generator.writeBoolean(person.isAlive());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a person credited on a title as a reference: its id and name only.
+     */
+    public static void writeReference(Person person, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(Field.NCONST.jsonName, person.getNconst());
+        generator.writeStringField(Field.PRIMARY_NAME.jsonName, person.getPrimaryName());
+        generator.writeEndObject();
+    }
+
+    static void writeNumber(JsonGenerator generator, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeStrings(JsonGenerator generator, String[] values) throws IOException {
+        if (values == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (String value : values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+}
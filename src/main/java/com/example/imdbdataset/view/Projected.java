@@ -0,0 +1,63 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.model.dto.PageSlice;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An entity paired with the {@link EntityWriter} of its projection, so that it can be returned
+ * anywhere in a response body (alone, in a list or in a page) and be serialized by the projection.
+ *
+ * @param <T> The type of the entity.
+ */
+@JsonSerialize(using = Projected.Serializer.class)
+public final class Projected<T> {
+
+    private final T value;
+    private final EntityWriter<? super T> writer;
+
+    public Projected(T value, EntityWriter<? super T> writer) {
+        this.value = value;
+        this.writer = writer;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return The entities, each paired with the writer, in the same order.
+     */
+    public static <T> List<Projected<T>> all(List<T> values, EntityWriter<? super T> writer) {
+        List<Projected<T>> projected = new ArrayList<>(values.size());
+        for (T value : values) {
+            projected.add(new Projected<>(value, writer));
+        }
+        return projected;
+    }
+
+    /**
+     * @return The same page, with every entity paired with the writer.
+     */
+    public static <T> PageSlice<Projected<T>> page(PageSlice<T> slice, EntityWriter<? super T> writer) {
+        return new PageSlice<>(all(slice.getItems(), writer), slice.getTotalItems(), slice.getNextCursor());
+    }
+
+    static final class Serializer extends JsonSerializer<Projected<?>> {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public void serialize(Projected<?> projected, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (projected.value == null) {
+                generator.writeNull();
+            } else {
+                ((EntityWriter) projected.writer).write(projected.value, generator);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a {@link Title} to write in a response: those of a {@link View}, or those listed
+ * in a {@code fields=} parameter. Fields are written in declaration order, which is the order, and
+ * under the names, of the full {@link Title} JSON. The people credited on the title (directors, writers, actors) are
+ * written as id + name references, unless the view is with-credits.
+ */
+public final class TitleProjection implements EntityWriter<Title> {
+
+    /**
+     * The fields of a title, by their JSON name.
+     */
+    public enum Field {
+        TCONST("tconst"),
+        TITLE_TYPE("titleType"),
+        PRIMARY_TITLE("primaryTitle"),
+        ORIGINAL_TITLE("originalTitle"),
+        START_YEAR("startYear"),
+        END_YEAR("endYear"),
+        RUNTIME_MINUTES("runtimeMinutes"),
+        GENRES("genres"),
+        RATING("rating"),
+        NUM_VOTES("numVotes"),
+        DIRECTORS("directors"),
+        WRITERS("writers"),
+        ACTORS("actors"),
+        ADULT("adult");
+
+        private final String jsonName;
+
+        Field(String jsonName) {
+            this.jsonName = jsonName;
+        }
+
+        public String jsonName() {
+            return jsonName;
+        }
+    }
+
+    private static final Set<Field> SUMMARY_FIELDS = EnumSet.of(Field.TCONST, Field.TITLE_TYPE,
+            Field.PRIMARY_TITLE, Field.START_YEAR, Field.GENRES, Field.RATING, Field.NUM_VOTES);
+
+    /** The default projection: every field, credited people as references. */
+    public static final TitleProjection DETAIL = new TitleProjection(View.DETAIL, EnumSet.allOf(Field.class), true);
+
+    private final View view;
+    private final Set<Field> fields;
+    private final boolean named;
+
+    private TitleProjection(View view, Set<Field> fields, boolean named) {
+        this.view = view;
+        this.fields = Collections.unmodifiableSet(fields);
+        this.named = named;
+    }
+
+    /**
+     * Parses the projection of a request.
+     *
+     * @param view   The name of a {@link View}, or null for the detail view. With fields, only
+     *               tells whether credited people are written in full (with-credits) or as references.
+     * @param fields The JSON names of the fields to write, or null or empty for those of the view.
+     * @return The projection.
+     * @throws InvalidParameterException If the view or a field is unknown.
+     */
+    public static TitleProjection of(String view, List<String> fields) {
+        View parsed = View.parse(view);
+        if (fields != null && !fields.isEmpty()) {
+            return new TitleProjection(parsed, parseFields(fields), false);
+        }
+        return switch (parsed) {
+            case SUMMARY -> new TitleProjection(parsed, SUMMARY_FIELDS, true);
+            case DETAIL -> DETAIL;
+            case WITH_CREDITS -> new TitleProjection(parsed, EnumSet.allOf(Field.class), true);
+        };
+    }
+
+    private static Set<Field> parseFields(List<String> names) {
+        Set<Field> fields = EnumSet.noneOf(Field.class);
+        for (String name : names) {
+            fields.add(Arrays.stream(Field.values())
+                    .filter(field -> field.jsonName.equals(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidParameterException("Unknown title field: " + name + ". Supported fields: "
+                            + Arrays.stream(Field.values()).map(Field::jsonName).collect(Collectors.joining(", ")))));
+        }
+        return fields;
+    }
+
+    public View view() {
+        return view;
+    }
+
+    public Set<Field> fields() {
+        return fields;
+    }
+
+    /**
+     * @return The name of the view, or null if the fields were listed in the request.
+     */
+    public String name() {
+        return named ? view.label() : null;
+    }
+
+    /**
+     * @return Whether credited people are written in full rather than as references.
+     */
+    public boolean fullCredits() {
+        return view == View.WITH_CREDITS;
+    }
+
+    @Override
+    public void write(Title title, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (Field field : fields) {
+            generator.writeFieldName(field.jsonName);
+            switch (field) {
+                case TCONST -> generator.writeString(title.getTconst());
+                case TITLE_TYPE -> generator.writeString(title.getTitleType());
+                case PRIMARY_TITLE -> generator.writeString(title.getPrimaryTitle());
+                case ORIGINAL_TITLE -> generator.writeString(title.getOriginalTitle());
+                case START_YEAR -> PersonProjection.writeNumber(generator, title.getStartYear());
+                case END_YEAR -> PersonProjection.writeNumber(generator, title.getEndYear());
+                case RUNTIME_MINUTES -> PersonProjection.writeNumber(generator, title.getRuntimeMinutes());
+                case GENRES -> writeStrings(generator, title.getGenres());
+                case RATING -> {
+                    if (title.getRating() == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(title.getRating());
+                    }
+                }
+                case NUM_VOTES -> PersonProjection.writeNumber(generator, title.getNumVotes());
+                case DIRECTORS -> writePeople(generator, title.getDirectors());
+                case WRITERS -> writePeople(generator, title.getWriters());
+                case ACTORS -> writePeople(generator, title.getActors());
+                case ADULT -> generator.writeBoolean(title.isAdult());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writePeople(JsonGenerator generator, List<Person> people) throws IOException {
+        if (people == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (Person person : people) {
+            if (fullCredits()) {
+                PersonProjection.DETAIL.write(person, generator);
+            } else {
+                PersonProjection.writeReference(person, generator);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeStrings(JsonGenerator generator, Collection<String> values) throws IOException {
+        if (values == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (String value : values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+}
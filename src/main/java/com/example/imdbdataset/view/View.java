@@ -0,0 +1,44 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The named response views of titles and people.
+ * <ul>
+ *     <li>summary: the identifying fields only,</li>
+ *     <li>detail (default): every field, with the people credited on a title as id + name references,</li>
+ *     <li>with-credits: every field, with the people credited on a title in full.</li>
+ * </ul>
+ */
+public enum View {
+    SUMMARY, DETAIL, WITH_CREDITS;
+
+    /**
+     * @return The name of the view as given in requests, e.g. "with-credits".
+     */
+    public String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Parses a view given as a request parameter (case-insensitive). Null or blank is the detail view.
+     *
+     * @throws InvalidParameterException If the value is not a view.
+     */
+    public static View parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DETAIL;
+        }
+        for (View view : values()) {
+            if (view.label().equalsIgnoreCase(value.trim())) {
+                return view;
+            }
+        }
+        throw new InvalidParameterException("Unknown view: " + value + ". Supported views: "
+                + Arrays.stream(values()).map(View::label).collect(Collectors.joining(", ")));
+    }
+}
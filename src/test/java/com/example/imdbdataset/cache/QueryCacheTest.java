@@ -0,0 +1,119 @@
+package com.example.imdbdataset.cache;
+
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.dto.QueryCacheStats;
+import com.example.imdbdataset.model.dto.QueryStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+
+    @Test
+    void get_shouldComputeOncePerParametersAndVersion() {
+        QueryCache cache = new QueryCache(QueryCache.DEFAULT_MAX_BYTES);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<String> first = cache.get("q", 1, List.of("a", 1), () -> List.of("r" + loads.incrementAndGet()));
+        assertSame(first, cache.get("q", 1, List.of("a", 1), () -> List.of("r" + loads.incrementAndGet())));
+        assertNotSame(first, cache.get("q", 1, List.of("a", 2), () -> List.of("r" + loads.incrementAndGet())));
+        assertNotSame(first, cache.get("other", 1, List.of("a", 1), () -> List.of("r" + loads.incrementAndGet())));
+        assertEquals(3, loads.get());
+
+        // A newer version drops the results of older ones
+        cache.get("q", 2, List.of("a", 1), () -> List.of("r" + loads.incrementAndGet()));
+        assertEquals(4, loads.get());
+        assertEquals(1, cache.stats().getEntries());
+
+        List<QueryStats> queries = cache.stats().getQueries();
+        assertEquals(List.of("other", "q"), queries.stream().map(QueryStats::getQuery).toList());
+        QueryStats q = queries.get(1);
+        assertEquals(1, q.getHits());
+        assertEquals(3, q.getMisses());
+    }
+
+    @Test
+    void get_shouldNotCacheNullOrUncacheableResults() {
+        QueryCache cache = new QueryCache(QueryCache.DEFAULT_MAX_BYTES);
+
+        assertNull(cache.get("q", 1, List.of(), () -> null));
+        assertEquals("partial", cache.get("q", 1, List.of(), () -> "partial", result -> false));
+        assertThrows(IllegalStateException.class, () -> cache.get("q", 1, List.of(), () -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    @Test
+    void get_shouldLoadConcurrentMissesOnce() throws Exception {
+        QueryCache cache = new QueryCache(QueryCache.DEFAULT_MAX_BYTES);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("q", 1, List.of(), () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "result";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get("q", 1, List.of(), () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        release.countDown();
+
+        assertEquals("result", first.get(5, TimeUnit.SECONDS));
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        QueryStats q = cache.stats().getQueries().get(0);
+        assertEquals(1, q.getHits());
+        assertEquals(1, q.getMisses());
+    }
+
+    @Test
+    void cache_shouldStayWithinItsByteBound() {
+        QueryCache cache = new QueryCache(64 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            int key = i;
+            cache.get("q", 1, List.of(key), () -> "x".repeat(1000));
+        }
+
+        QueryCacheStats stats = cache.stats();
+        assertTrue(stats.getWeightBytes() <= 64 * 1024, "weight " + stats.getWeightBytes());
+        assertTrue(stats.getEntries() > 0 && stats.getEntries() < 1000);
+        assertTrue(stats.getEvictions() > 0);
+
+        cache.resize(1024);
+        assertTrue(cache.stats().getWeightBytes() <= 1024);
+        cache.invalidateAll();
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    @Test
+    void resultSize_shouldCountResultsButNotIndexEntities() {
+        Title title = new Title("tt01", "movie", "Alpha", "Alpha", false, 1994, null, 100, Set.of("Drama"));
+
+        assertEquals(0, ResultSize.estimate(title));
+        assertEquals(ResultSize.estimate(List.of()) + ResultSize.REFERENCE, ResultSize.estimate(List.of(title)));
+        assertTrue(ResultSize.estimate("a".repeat(100)) > 100);
+        assertEquals(ResultSize.HEADER + 40, ResultSize.estimate(new int[10]));
+
+        // Shared values count once
+        String shared = "a".repeat(100);
+        assertEquals(ResultSize.estimate(List.of(shared, "")) - ResultSize.estimate(""),
+                ResultSize.estimate(List.of(shared, shared)));
+    }
+}
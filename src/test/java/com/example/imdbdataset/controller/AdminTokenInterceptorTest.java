@@ -0,0 +1,72 @@
+package com.example.imdbdataset.controller;
+
+import com.example.imdbdataset.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+class AdminTokenInterceptorTest {
+
+    private final StubController controller = new StubController();
+
+    @Test
+    void preHandle_shouldRequireTheConfiguredToken() throws Exception {
+        MockMvc mvc = mvc("s3cret");
+
+        assertEquals(403, mvc.perform(put("/api/imdb/title/tt01/rating")).andReturn().getResponse().getStatus());
+        assertEquals(403, mvc.perform(put("/api/imdb/title/tt01/rating")
+                .header(AdminTokenInterceptor.HEADER, "guess")).andReturn().getResponse().getStatus());
+        assertEquals(0, controller.updates.get());
+
+        assertEquals(200, mvc.perform(put("/api/imdb/title/tt01/rating")
+                .header(AdminTokenInterceptor.HEADER, "s3cret")).andReturn().getResponse().getStatus());
+        assertEquals(1, controller.updates.get());
+
+        // Reads are not guarded
+        assertEquals(200, mvc.perform(get("/api/imdb/title/tt01/similar")).andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void preHandle_shouldDisableTheEndpointsWithoutToken() throws Exception {
+        AdminTokenInterceptor interceptor = new AdminTokenInterceptor("");
+        assertFalse(interceptor.isEnabled());
+
+        MockMvc mvc = mvc("");
+        assertEquals(403, mvc.perform(put("/api/imdb/title/tt01/rating")
+                .header(AdminTokenInterceptor.HEADER, "")).andReturn().getResponse().getStatus());
+        assertEquals(0, controller.updates.get());
+    }
+
+    private MockMvc mvc(String token) {
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addMappedInterceptors(new String[]{"/api/imdb/title/*/rating"}, new AdminTokenInterceptor(token))
+                .build();
+    }
+
+    @RestController
+    static class StubController {
+        private final AtomicInteger updates = new AtomicInteger();
+
+        @PutMapping("/api/imdb/title/{id}/rating")
+        public String updateRating(@PathVariable String id) {
+            updates.incrementAndGet();
+            return id;
+        }
+
+        @GetMapping("/api/imdb/title/{id}/similar")
+        public String similar(@PathVariable String id) {
+            return id;
+        }
+    }
+}
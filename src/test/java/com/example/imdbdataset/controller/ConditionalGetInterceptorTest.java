@@ -0,0 +1,177 @@
+package com.example.imdbdataset.controller;
+
+import com.example.imdbdataset.exception.GlobalExceptionHandler;
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.exception.ResourceNotFoundException;
+import com.example.imdbdataset.service.ImdbDataService;
+import com.example.imdbdataset.service.ReloadSchedule;
+import com.example.imdbdataset.service.RequestCounterService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class ConditionalGetInterceptorTest {
+
+    private final AtomicLong contentVersion = new AtomicLong(1);
+    private final RequestCounterService requestCounterService = new RequestCounterService();
+    private final StubController controller = new StubController();
+
+    private final ImdbDataService imdbDataService = new ImdbDataService() {
+        @Override
+        public long getContentVersion() {
+            return contentVersion.get();
+        }
+    };
+
+    @Test
+    void preHandle_shouldAnswerMatchingRequestsWithoutRunningTheHandler() throws Exception {
+        MockMvc mvc = mvc(Scheduled.CRON_DISABLED);
+
+        MvcResult first = mvc.perform(get("/api/imdb/titles/search").param("q", "genre:Drama")).andReturn();
+        assertEquals(200, first.getResponse().getStatus());
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("\"1-"), etag);
+        assertEquals("no-cache, public", first.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(HttpHeaders.ACCEPT, first.getResponse().getHeader(HttpHeaders.VARY));
+        assertEquals(1, controller.calls.get());
+
+        // Defaults, empty values and unbound parameters do not change the ETag
+        MvcResult second = mvc.perform(get("/api/imdb/titles/search?q=genre:Drama&page=0&size=&utm_source=x")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertEquals(304, second.getResponse().getStatus());
+        assertEquals(etag, second.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals("no-cache, public", second.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(1, controller.calls.get());
+        assertEquals(1, requestCounterService.getCount());
+
+        // Other parameters, representations and versions do
+        assertEquals(200, mvc.perform(get("/api/imdb/titles/search").param("q", "genre:Comedy")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse().getStatus());
+        assertEquals(200, mvc.perform(get("/api/imdb/titles/search").param("q", "genre:Drama")
+                .header(HttpHeaders.ACCEPT, "application/cbor")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse().getStatus());
+        contentVersion.incrementAndGet();
+        MvcResult reloaded = mvc.perform(get("/api/imdb/titles/search").param("q", "genre:Drama")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertEquals(200, reloaded.getResponse().getStatus());
+        assertNotEquals(etag, reloaded.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(4, controller.calls.get());
+    }
+
+    @Test
+    void etag_shouldJoinRepeatedParametersAsSpringBindsThem() throws Exception {
+        MockMvc mvc = mvc(Scheduled.CRON_DISABLED);
+
+        String repeated = mvc.perform(get("/api/imdb/titles/search?q=x&fields=tconst&fields=rating"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String joined = mvc.perform(get("/api/imdb/titles/search?fields=tconst,rating&q=x"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String reordered = mvc.perform(get("/api/imdb/titles/search?fields=rating,tconst&q=x"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(repeated, joined);
+        assertNotEquals(joined, reordered);
+    }
+
+    @Test
+    void cacheControl_shouldKeepResponsesFreshUntilTheNextScheduledReload() throws Exception {
+        MockMvc mvc = mvc("0 0 4 * * *");
+
+        String cacheControl = mvc.perform(get("/api/imdb/titles/search").param("q", "x"))
+                .andReturn().getResponse().getHeader(HttpHeaders.CACHE_CONTROL);
+        assertTrue(cacheControl.matches("max-age=\\d+, public"), cacheControl);
+        long maxAge = Long.parseLong(cacheControl.substring("max-age=".length(), cacheControl.indexOf(',')));
+        assertTrue(maxAge >= 0 && maxAge <= 24 * 3600, cacheControl);
+
+        // Handlers can still keep a response out of caches
+        assertEquals(List.of("no-store"), mvc.perform(get("/api/imdb/partial")).andReturn().getResponse()
+                .getHeaders(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void cacheControl_shouldRequireRevalidationWhileTheAdminEndpointsCanChangeTheData() throws Exception {
+        MockMvc mvc = mvc("0 0 4 * * *", "s3cret");
+
+        assertEquals("no-cache, public", mvc.perform(get("/api/imdb/titles/search").param("q", "x"))
+                .andReturn().getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void cacheControl_shouldOnlyBeSetOnSuccessfulResponses() throws Exception {
+        MockMvc mvc = mvc("0 0 4 * * *");
+
+        MvcResult missing = mvc.perform(get("/api/imdb/person/nm99")).andReturn();
+        assertEquals(404, missing.getResponse().getStatus());
+        assertNull(missing.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+        MvcResult invalid = mvc.perform(get("/api/imdb/titles/search").param("q", "x").param("page", "-1"))
+                .andReturn();
+        assertEquals(400, invalid.getResponse().getStatus());
+        assertNull(invalid.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+
+        // Revalidated responses keep theirs
+        String etag = mvc.perform(get("/api/imdb/titles/search").param("q", "x"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult revalidated = mvc.perform(get("/api/imdb/titles/search").param("q", "x")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertEquals(304, revalidated.getResponse().getStatus());
+        assertNotNull(revalidated.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    private MockMvc mvc(String cron) {
+        return mvc(cron, "");
+    }
+
+    private MockMvc mvc(String cron, String adminToken) {
+        ConditionalGetInterceptor interceptor = new ConditionalGetInterceptor(imdbDataService, requestCounterService,
+                new ReloadSchedule(imdbDataService, cron), new AdminTokenInterceptor(adminToken));
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(new SuccessHeadersFilter())
+                .addMappedInterceptors(new String[]{"/api/imdb/**"}, interceptor)
+                .build();
+    }
+
+    @RestController
+    static class StubController {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @GetMapping("/api/imdb/titles/search")
+        public String search(@RequestParam String q,
+                             @RequestParam(defaultValue = "0") int page,
+                             @RequestParam(defaultValue = "10") int size,
+                             @RequestParam(required = false) List<String> fields) {
+            calls.incrementAndGet();
+            if (page < 0) {
+                throw new InvalidParameterException("Page must be >= 0");
+            }
+            return q;
+        }
+
+        @GetMapping("/api/imdb/person/{id}")
+        public String person(@PathVariable String id) {
+            throw new ResourceNotFoundException("Person", "id", id);
+        }
+
+        @GetMapping("/api/imdb/partial")
+        public ResponseEntity<String> partial(HttpServletResponse response) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            return ResponseEntity.ok("partial");
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.imdbdataset.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImdbControllerTest {
+
+    @Test
+    void streamedContentType_shouldHonourQualityValues() {
+        assertEquals(MediaType.APPLICATION_JSON, ImdbController.streamedContentType(null));
+        assertEquals(MediaType.APPLICATION_JSON, ImdbController.streamedContentType("*/*"));
+        assertEquals(MediaType.APPLICATION_CBOR, ImdbController.streamedContentType("application/cbor"));
+        assertEquals(MediaType.APPLICATION_JSON, ImdbController.streamedContentType("application/json, application/cbor"));
+
+        // Quality first, whatever the order in the header
+        assertEquals(MediaType.APPLICATION_CBOR,
+                ImdbController.streamedContentType("application/json;q=0.5, application/cbor"));
+        assertEquals(MediaType.APPLICATION_JSON,
+                ImdbController.streamedContentType("application/cbor;q=0.2, application/json"));
+        assertEquals(MediaType.APPLICATION_JSON,
+                ImdbController.streamedContentType("application/cbor;q=0.2, */*"));
+        assertEquals(MediaType.APPLICATION_JSON,
+                ImdbController.streamedContentType("application/cbor;q=0, application/json;q=0.1"));
+
+        // Then specificity
+        assertEquals(MediaType.APPLICATION_CBOR, ImdbController.streamedContentType("*/*, application/cbor"));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.imdbdataset.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetIndexTest {
+
+    @Test
+    void sortHead_shouldSortTheSmallestEntriesAndKeepTheOthers() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            long[] entries = new long[1 + random.nextInt(2000)];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = DatasetIndex.sortEntry(random.nextInt(100) - 50, i);
+            }
+            long[] expected = entries.clone();
+            Arrays.sort(expected);
+            int limit = 1 + random.nextInt(Math.max(1, entries.length / 8));
+
+            DatasetIndex.sortHead(entries, limit);
+
+            assertArrayEquals(Arrays.copyOf(expected, limit), Arrays.copyOf(entries, limit));
+            long[] all = entries.clone();
+            Arrays.sort(all);
+            assertArrayEquals(expected, all);
+        }
+    }
+}
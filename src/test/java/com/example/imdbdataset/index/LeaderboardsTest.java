@@ -0,0 +1,150 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.model.Title;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardsTest {
+
+    private static final String[] TYPES = {"movie", "tvSeries", "short"};
+    private static final String[] GENRES = {"Drama", "Comedy", "Action"};
+
+    @Test
+    void update_shouldMatchFullRebuild() {
+        Random random = new Random(7);
+        Map<String, Title> titles = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String tconst = String.format("tt%05d", i);
+            Title title = new Title(tconst, TYPES[i % TYPES.length], tconst, tconst, false,
+                    1950 + random.nextInt(70), null, 90, Set.of(GENRES[random.nextInt(GENRES.length)]));
+            if (random.nextInt(10) > 0) {
+                title.setRating(1 + random.nextInt(90) / 10f);
+                title.setNumVotes(random.nextInt(100_000));
+            }
+            titles.put(tconst, title);
+        }
+        DatasetIndex index = DatasetIndex.build(titles, Map.of(), Map.of(), Map.of());
+        WeightedRatingIndex ranking = WeightedRatingIndex.build(index, 1000, 6f);
+        Leaderboards boards = Leaderboards.build(ranking);
+
+        // Sink the best titles one batch at a time, so that boards shrink into their slack and get rebuilt
+        for (int round = 0; round < 20; round++) {
+            int[] changed = new int[50];
+            for (int i = 0; i < changed.length; i++) {
+                int t = round % 2 == 0
+                        ? (int) boards.top(Leaderboards.ALL, Leaderboards.Metric.RATING)[i]
+                        : random.nextInt(index.titleCount());
+                changed[i] = t;
+                Title title = index.title(t);
+                title.setRating(random.nextInt(5) == 0 ? null : random.nextInt(30) / 10f);
+                title.setNumVotes(title.getRating() == null ? null : random.nextInt(100_000));
+            }
+            index = withRatingsOfTitles(index, changed);
+            ranking = ranking.withRatings(index, changed);
+            boards = boards.update(ranking, changed);
+
+            // The incremental ranking and vote bitmaps match those built from scratch
+            WeightedRatingIndex rescored = WeightedRatingIndex.build(index, 1000, 6f);
+            assertEquals(rescored.rankedCount(), ranking.rankedCount());
+            for (int t = 0; t < index.titleCount(); t++) {
+                assertEquals(rescored.score(t), ranking.score(t));
+                assertEquals(rescored.rank(t), ranking.rank(t));
+            }
+            TitleAttributeIndex attributes = TitleAttributeIndex.build(titles.values().stream()
+                    .sorted(DatasetIndex.BY_PRIMARY_TITLE).toArray(Title[]::new));
+            for (int threshold : TitleAttributeIndex.VOTE_THRESHOLDS) {
+                assertArrayEquals(attributes.minVotes(threshold).toArray(), index.attributes().minVotes(threshold).toArray());
+            }
+
+            Leaderboards rebuilt = Leaderboards.build(ranking);
+            for (Leaderboards.Metric metric : Leaderboards.Metric.values()) {
+                assertBoardsEqual(rebuilt, boards, Leaderboards.ALL, metric);
+                for (String type : TYPES) {
+                    assertBoardsEqual(rebuilt, boards, Leaderboards.dimension(type, null, null), metric);
+                }
+                for (String genre : GENRES) {
+                    assertBoardsEqual(rebuilt, boards, Leaderboards.dimension(null, genre, null), metric);
+                }
+                for (int decade = 1950; decade < 2020; decade += 10) {
+                    assertBoardsEqual(rebuilt, boards, Leaderboards.dimension(null, null, decade), metric);
+                }
+            }
+        }
+    }
+
+    @Test
+    void update_shouldRescoreWeightedBoardsWhenTheGlobalMeanChanges() {
+        Map<String, Title> titles = new HashMap<>();
+        titles.put("tt1", rated("tt1", 9.0f, 100_000));
+        titles.put("tt2", rated("tt2", 7.0f, 100_000));
+        DatasetIndex index = DatasetIndex.build(titles, Map.of(), Map.of(), Map.of());
+        Leaderboards boards = Leaderboards.build(WeightedRatingIndex.build(index, 1000, null));
+        // C = 8.0: tt1 stays close to 8.0, tt2 close to 7.0
+        assertEquals(index.titleOrdinal("tt1"), (int) boards.top(Leaderboards.ALL, Leaderboards.Metric.WEIGHTED)[0]);
+
+        titles.get("tt1").setRating(1.0f);
+        int[] changed = {index.titleOrdinal("tt1")};
+        index = withRatingsOfTitles(index, changed);
+        WeightedRatingIndex ranking = WeightedRatingIndex.build(index, 1000, null);
+        boards = boards.update(ranking, changed);
+
+        assertArrayEquals(Leaderboards.build(ranking).top(Leaderboards.ALL, Leaderboards.Metric.WEIGHTED),
+                boards.top(Leaderboards.ALL, Leaderboards.Metric.WEIGHTED));
+        assertEquals(index.titleOrdinal("tt2"), (int) boards.top(Leaderboards.ALL, Leaderboards.Metric.WEIGHTED)[0]);
+    }
+
+    @Test
+    void withRatings_shouldHoldTheGlobalMean() {
+        Map<String, Title> titles = new HashMap<>();
+        titles.put("tt1", rated("tt1", 9.0f, 100_000));
+        titles.put("tt2", rated("tt2", 7.0f, 100_000));
+        DatasetIndex index = DatasetIndex.build(titles, Map.of(), Map.of(), Map.of());
+        WeightedRatingIndex ranking = WeightedRatingIndex.build(index, 1000, null);
+        Leaderboards boards = Leaderboards.build(ranking);
+
+        titles.get("tt1").setRating(1.0f);
+        int[] changed = {index.titleOrdinal("tt1")};
+        index = withRatingsOfTitles(index, changed);
+        WeightedRatingIndex updated = ranking.withRatings(index, changed);
+
+        // C stays 8.0 instead of moving to 4.0, so tt2 keeps its score and the boards are not rebuilt
+        assertEquals(8.0f, updated.getGlobalMean());
+        assertEquals(ranking.score(index.titleOrdinal("tt2")), updated.score(index.titleOrdinal("tt2")));
+        assertEquals(0, updated.rank(index.titleOrdinal("tt2")));
+        assertEquals(1, updated.rank(index.titleOrdinal("tt1")));
+        assertEquals(index.titleOrdinal("tt2"),
+                (int) boards.update(updated, changed).top(Leaderboards.ALL, Leaderboards.Metric.WEIGHTED)[0]);
+    }
+
+    /**
+     * @return The index with the ratings and votes the changed titles were given.
+     */
+    private static DatasetIndex withRatingsOfTitles(DatasetIndex index, int[] changed) {
+        float[] ratings = new float[changed.length];
+        int[] votes = new int[changed.length];
+        for (int i = 0; i < changed.length; i++) {
+            Title title = index.title(changed[i]);
+            ratings[i] = title.getRating() == null ? Float.NaN : title.getRating();
+            votes[i] = title.getNumVotes() == null ? TitleColumns.MISSING : title.getNumVotes();
+        }
+        return index.withRatings(changed, ratings, votes);
+    }
+
+    private static Title rated(String tconst, float rating, int votes) {
+        Title title = new Title(tconst, "movie", tconst, tconst, false, 2000, null, 90, Set.of("Drama"));
+        title.setRating(rating);
+        title.setNumVotes(votes);
+        return title;
+    }
+
+    private static void assertBoardsEqual(Leaderboards expected, Leaderboards actual, String dimension,
+                                          Leaderboards.Metric metric) {
+        assertArrayEquals(expected.top(dimension, metric), actual.top(dimension, metric), metric + "/" + dimension);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.imdbdataset.index;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the scan throughput of the scalar and vector {@link RangeKernel}s on synthetic columns
+ * shaped like the title columns. Not a test: run it by hand, with the vector module added, e.g.
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.example.imdbdataset.index.RangeKernelBenchmark
+ * </pre>
+ */
+public final class RangeKernelBenchmark {
+
+    private static final int ROWS = 10_000_000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        int[] years = new int[ROWS];
+        int[] votes = new int[ROWS];
+        float[] ratings = new float[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            years[i] = random.nextInt(20) == 0 ? TitleColumns.MISSING : 1890 + random.nextInt(135);
+            votes[i] = random.nextInt(4) == 0 ? TitleColumns.MISSING : random.nextInt(1_000_000);
+            ratings[i] = votes[i] == TitleColumns.MISSING ? Float.NaN : 1 + random.nextInt(90) / 10f;
+        }
+
+        RangeKernel scalar = RangeKernels.scalar();
+        RangeKernel preferred = RangeKernels.preferred();
+        if (preferred == scalar) {
+            System.out.println("Vector kernel not available (add --add-modules jdk.incubator.vector): comparing scalar with itself");
+        }
+        long[] expected = run(scalar, years, votes, ratings);
+        long[] actual = run(preferred, years, votes, ratings);
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException("Kernels disagree");
+        }
+
+        double scalarRate = measure(scalar, years, votes, ratings);
+        double preferredRate = measure(preferred, years, votes, ratings);
+        System.out.printf("%-20s %8.0f M rows/s%n", scalar.name(), scalarRate);
+        System.out.printf("%-20s %8.0f M rows/s (x%.1f)%n", preferred.name(), preferredRate, preferredRate / scalarRate);
+    }
+
+    /**
+     * The predicates of a best-titles-by-year scan: rated, with votes, with a start year in a range.
+     */
+    private static long[] run(RangeKernel kernel, int[] years, int[] votes, float[] ratings) {
+        long[] selection = new long[(ROWS + 63) >>> 6];
+        Arrays.fill(selection, -1L);
+        kernel.select(ratings, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, selection);
+        kernel.select(votes, 0, Integer.MAX_VALUE, selection);
+        kernel.select(years, 1950, 2020, selection);
+        return selection;
+    }
+
+    /**
+     * @return Millions of rows scanned per second, per predicate, best of {@value #ROUNDS} rounds after warm-up.
+     */
+    private static double measure(RangeKernel kernel, int[] years, int[] votes, float[] ratings) {
+        for (int i = 0; i < ROUNDS; i++) {
+            run(kernel, years, votes, ratings);
+        }
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            checksum += run(kernel, years, votes, ratings)[i];
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (checksum == 42) {
+            System.out.println();
+        }
+        return 3.0 * ROWS / best * 1_000;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.model.Title;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RangeKernelTest {
+
+    @Test
+    void vectorKernel_shouldSelectTheSameRowsAsTheScalarKernel() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector not added");
+        RangeKernel vector = new VectorRangeKernel();
+        RangeKernel scalar = RangeKernels.scalar();
+        Random random = new Random(3);
+
+        // Lengths around word and vector boundaries
+        for (int length : new int[]{0, 1, 7, 63, 64, 65, 128, 1000, 4099}) {
+            int[] ints = new int[length];
+            float[] floats = new float[length];
+            for (int i = 0; i < length; i++) {
+                ints[i] = random.nextInt(10) == 0 ? TitleColumns.MISSING : 1900 + random.nextInt(130);
+                floats[i] = random.nextInt(10) == 0 ? Float.NaN : random.nextInt(100) / 10f;
+            }
+            long[] initial = new long[(length + 63) >>> 6];
+            for (int w = 0; w < initial.length; w++) {
+                initial[w] = w % 3 == 0 ? 0 : random.nextLong();
+            }
+            if (length % 64 != 0) {
+                initial[initial.length - 1] &= (1L << length) - 1;
+            }
+
+            long[] expected = initial.clone();
+            long[] actual = initial.clone();
+            scalar.select(ints, 1950, 2000, expected);
+            vector.select(ints, 1950, 2000, actual);
+            assertArrayEquals(expected, actual, "ints, length " + length);
+
+            expected = initial.clone();
+            actual = initial.clone();
+            scalar.select(floats, 2.5f, 7.5f, expected);
+            vector.select(floats, 2.5f, 7.5f, actual);
+            assertArrayEquals(expected, actual, "floats, length " + length);
+
+            for (int i = 0; i < length; i++) {
+                boolean selected = (initial[i >>> 6] & (1L << i)) != 0;
+                assertEquals(selected && floats[i] >= 2.5f && floats[i] <= 7.5f, (expected[i >>> 6] & (1L << i)) != 0);
+            }
+        }
+    }
+
+    @Test
+    void titleScan_shouldMatchTheTitlePredicates() {
+        Random random = new Random(11);
+        Map<String, Title> titles = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            String tconst = String.format("tt%05d", i);
+            Title title = new Title(tconst, "movie", tconst, tconst, false,
+                    random.nextInt(8) == 0 ? null : 1950 + random.nextInt(70), null,
+                    random.nextInt(8) == 0 ? null : 60 + random.nextInt(120), Set.of(i % 2 == 0 ? "Drama" : "Comedy"));
+            if (random.nextInt(4) > 0) {
+                title.setRating(1 + random.nextInt(90) / 10f);
+                title.setNumVotes(random.nextInt(100_000));
+            }
+            titles.put(tconst, title);
+        }
+        DatasetIndex index = DatasetIndex.build(titles, Map.of(), Map.of(), Map.of());
+
+        int[] selected = TitleScan.of(index)
+                .within(index.attributes().genre("Drama"))
+                .startYear(1980, Integer.MAX_VALUE)
+                .runtimeMinutes(Integer.MIN_VALUE, 120)
+                .rating(5f, Float.POSITIVE_INFINITY)
+                .filter(t -> index.columns().numVotes(t) % 2 == 0)
+                .toArray();
+
+        int[] expected = IntStream.range(0, index.titleCount()).filter(t -> {
+            Title title = index.title(t);
+            return title.getGenres().contains("Drama")
+                    && title.getStartYear() != null && title.getStartYear() >= 1980
+                    && title.getRuntimeMinutes() != null && title.getRuntimeMinutes() <= 120
+                    && title.getRating() != null && title.getRating() >= 5f
+                    && title.getNumVotes() % 2 == 0;
+        }).toArray();
+        assertTrue(expected.length > 0);
+        assertArrayEquals(expected, selected);
+        assertEquals(expected.length, TitleScan.of(index).within(RoaringBitmap.fromSorted(expected)).count());
+        assertEquals(0, Arrays.stream(TitleScan.of(index).numVotes(Integer.MIN_VALUE, Integer.MAX_VALUE).toArray())
+                .filter(t -> index.title(t).getNumVotes() == null).count());
+    }
+}
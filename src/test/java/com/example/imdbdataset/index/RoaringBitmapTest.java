@@ -0,0 +1,61 @@
+package com.example.imdbdataset.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+
+    @Test
+    void setOperations_shouldMatchBitSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            BitSet expected1 = new BitSet();
+            BitSet expected2 = new BitSet();
+            RoaringBitmap bitmap1 = randomBitmap(random, expected1);
+            RoaringBitmap bitmap2 = randomBitmap(random, expected2);
+
+            BitSet and = (BitSet) expected1.clone();
+            and.and(expected2);
+            BitSet or = (BitSet) expected1.clone();
+            or.or(expected2);
+            BitSet andNot = (BitSet) expected1.clone();
+            andNot.andNot(expected2);
+
+            assertArrayEquals(expected1.stream().toArray(), bitmap1.toArray());
+            assertArrayEquals(and.stream().toArray(), bitmap1.and(bitmap2).toArray());
+            assertArrayEquals(or.stream().toArray(), bitmap1.or(bitmap2).toArray());
+            assertArrayEquals(andNot.stream().toArray(), bitmap1.andNot(bitmap2).toArray());
+            assertEquals(and.cardinality(), bitmap1.andCardinality(bitmap2));
+            assertEquals(andNot.cardinality(), bitmap1.andNotCardinality(bitmap2));
+        }
+    }
+
+    @Test
+    void add_shouldSwitchBetweenArrayAndBitmapContainers() {
+        RoaringBitmap bitmap = RoaringBitmap.range(RoaringBitmap.ARRAY_MAX + 10);
+        bitmap.add(1 << 20);
+        bitmap.add(5);
+
+        assertEquals(RoaringBitmap.ARRAY_MAX + 11, bitmap.cardinality());
+        assertTrue(bitmap.contains(RoaringBitmap.ARRAY_MAX + 9));
+        assertTrue(bitmap.contains(1 << 20));
+        assertFalse(bitmap.contains(RoaringBitmap.ARRAY_MAX + 10));
+        assertFalse(bitmap.contains(-1));
+    }
+
+    private static RoaringBitmap randomBitmap(Random random, BitSet expected) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int count = random.nextBoolean() ? random.nextInt(200) : random.nextInt(100_000);
+        int range = 1 + random.nextInt(300_000);
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(range);
+            bitmap.add(value);
+            expected.set(value);
+        }
+        return bitmap;
+    }
+}
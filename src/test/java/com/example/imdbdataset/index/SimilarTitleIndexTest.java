@@ -0,0 +1,55 @@
+package com.example.imdbdataset.index;
+
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.TitlePrincipal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarTitleIndexTest {
+
+    @Test
+    void similar_shouldFindNearDuplicatesWithExactSimilarity() {
+        Random random = new Random(11);
+        Map<String, Title> titles = new HashMap<>();
+        Map<String, Person> people = new HashMap<>();
+        Map<String, List<TitlePrincipal>> principals = new HashMap<>();
+        for (int p = 0; p < 5000; p++) {
+            String nconst = String.format("nm%05d", p);
+            people.put(nconst, new Person(nconst, nconst, null, null, new String[0], new String[0]));
+        }
+
+        // Pairs of titles sharing 9 of their 10 people; every other title has random people
+        for (int i = 0; i < 1000; i++) {
+            String tconst = String.format("tt%05d", i);
+            titles.put(tconst, new Title(tconst, "movie", tconst, tconst, false, 2000, null, 90, Set.of("Drama")));
+            for (int slot = 0; slot < 10; slot++) {
+                int person = i < 200 && (slot < 9 || i % 2 == 0) ? (i / 2) * 10 + slot : 2000 + random.nextInt(3000);
+                String nconst = String.format("nm%05d", person);
+                principals.computeIfAbsent(nconst, k -> new ArrayList<>())
+                        .add(new TitlePrincipal(tconst, slot, nconst, "actor", null, null));
+            }
+        }
+        DatasetIndex index = DatasetIndex.build(titles, people, principals, Map.of());
+        SimilarTitleIndex similarity = SimilarTitleIndex.build(index);
+
+        for (int i = 0; i < 200; i += 2) {
+            int title = index.titleOrdinal(String.format("tt%05d", i));
+            int twin = index.titleOrdinal(String.format("tt%05d", i + 1));
+            List<SimilarTitleIndex.Match> matches = similarity.similar(title, 5);
+            assertFalse(matches.isEmpty());
+            assertEquals(twin, matches.get(0).getTitleOrdinal());
+            // 9 shared people + Drama, out of 10 + 1 + 1 distinct tokens
+            assertEquals(10.0 / 12, matches.get(0).getSimilarity(), 1e-9);
+            assertEquals(9, matches.get(0).getSharedPeople());
+        }
+    }
+}
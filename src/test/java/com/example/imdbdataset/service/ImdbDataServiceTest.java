@@ -3,13 +3,35 @@ package com.example.imdbdataset.service;
 import com.example.imdbdataset.exception.InvalidParameterException;
 import com.example.imdbdataset.exception.ResourceNotFoundException;
 import com.example.imdbdataset.model.TitlePrincipal;
+import com.example.imdbdataset.model.dto.BatchLookupResult;
+import com.example.imdbdataset.model.dto.BestTitlesByYear;
+import com.example.imdbdataset.model.dto.FilmographyEntry;
+import com.example.imdbdataset.model.dto.PageSlice;
+import com.example.imdbdataset.model.dto.SimilarTitle;
+import com.example.imdbdataset.model.dto.TitleDTO;
+import com.example.imdbdataset.model.dto.TitleStatistics;
+import com.example.imdbdataset.export.ArrowTable;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.util.ByteArrayReadableSeekableByteChannel;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import com.example.imdbdataset.model.Person;
 import com.example.imdbdataset.model.Title;
 class ImdbDataServiceTest {
@@ -462,4 +484,736 @@ class ImdbDataServiceTest {
         assertTrue(imdbDataService.getRatingsLoaded() > 0);
         assertEquals(imdbDataService.getRatings().size(), imdbDataService.getRatingsLoaded());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getTitlesFeaturingAll_shouldIntersectAllPeople() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        List<Title> titles = imdbDataService.getTitlesFeaturingAll(
+                List.of("nm01", "nm02", "nm05"), null, 0, 10);
+
+        assertEquals(List.of("Alpha", "Foxtrot"), titles.stream().map(Title::getPrimaryTitle).toList());
+        assertEquals(2, imdbDataService.getTotalTitlesFeaturingAll(List.of("nm01", "nm02", "nm05"), null));
+    }
+
+    @Test
+    void getTitlesFeaturingAll_shouldApplyRolesAndResolveNames() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        List<Title> titles = imdbDataService.getTitlesFeaturingAll(
+                List.of("Carol Director", "alice actor"), List.of("director", "actor"), 0, 10);
+
+        assertEquals(List.of("tt01", "tt06"), titles.stream().map(Title::getTconst).toList());
+        assertEquals(0, imdbDataService.getTotalTitlesFeaturingAll(List.of("nm03", "nm01"), List.of("writer")));
+    }
+
+    @Test
+    void getTitlesFeaturingAll_shouldRejectInvalidParameters() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.getTitlesFeaturingAll(List.of("nm01"), null, 0, 10));
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.getTitlesFeaturingAll(List.of("nm01", "nm02", "nm05"), List.of("actor", "actor"), 0, 10));
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.getTitlesFeaturingAll(List.of("nm01", "nm02"), List.of("stuntman"), 0, 10));
+        assertThrows(ResourceNotFoundException.class, () ->
+                imdbDataService.getTitlesFeaturingAll(List.of("nm01", "nobody"), null, 0, 10));
+    }
+
+    @Test
+    void getCoAppearanceMatrix_shouldCountSharedTitlesForEveryPair() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var matrix = imdbDataService.getCoAppearanceMatrix(List.of("nm01", "nm02", "nm05"), "actor", true);
+
+        // nm01: tt01 tt02 tt03 tt06, nm02: tt01 tt02 tt04 tt06, nm05: tt01 tt03 tt04 tt06
+        assertArrayEquals(new int[]{4, 3, 3}, matrix.getSharedTitleCounts()[0]);
+        assertArrayEquals(new int[]{3, 4, 3}, matrix.getSharedTitleCounts()[1]);
+        assertArrayEquals(new int[]{3, 3, 4}, matrix.getSharedTitleCounts()[2]);
+        assertEquals(3, matrix.getSharedTitles().size());
+        assertEquals(3, matrix.getSharedTitles().get(0).getTconsts().size());
+        assertEquals(imdbDataService.getTotalTitlesWithBothActors("nm02", "nm05"), matrix.getSharedTitleCounts()[1][2]);
+
+        assertNull(imdbDataService.getCoAppearanceMatrix(List.of("nm01", "nm02"), null, false).getSharedTitles());
+
+        // Without a role, knownForTitles count as acting, as for both-actors: nm03 is known for tt03
+        var actors = imdbDataService.getCoAppearanceMatrix(List.of("nm01", "nm03"), null, false);
+        assertEquals(imdbDataService.getTitlesWithBothActors("nm01", "nm03").size(), actors.getSharedTitleCounts()[0][1]);
+        assertEquals(1, actors.getSharedTitleCounts()[0][1]);
+        assertEquals(0, imdbDataService.getCoAppearanceMatrix(List.of("nm01", "nm03"), "actor", false)
+                .getSharedTitleCounts()[0][1]);
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.getCoAppearanceMatrix(List.of(), "actor", false));
+    }
+
+    @Test
+    void getTitlesWithSameDirectorAndWriter_shouldServePrecomputedPages() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertEquals(2, imdbDataService.getTotalTitlesWithSameDirectorAndWriter());
+        assertEquals(List.of("Alpha", "Foxtrot"), imdbDataService.getTitlesWithSameDirectorAndWriter(0, 10)
+                .stream().map(Title::getPrimaryTitle).toList());
+        assertEquals(List.of("Foxtrot"), imdbDataService.getTitlesWithSameDirectorAndWriter(1, 1)
+                .stream().map(Title::getPrimaryTitle).toList());
+        assertTrue(imdbDataService.getTitlesWithSameDirectorAndWriter(5, 10).isEmpty());
+    }
+
+    @Test
+    void updatePersonDeathYear_shouldRefreshSameDirectorAndWriterTitles() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        imdbDataService.updatePersonDeathYear("nm03", 2020);
+        assertEquals(0, imdbDataService.getTotalTitlesWithSameDirectorAndWriter());
+
+        imdbDataService.updatePersonDeathYear("nm06", null);
+        imdbDataService.updatePersonDeathYear("nm03", null);
+        assertEquals(List.of("Alpha", "Bravo", "Foxtrot"), imdbDataService.getTitlesWithSameDirectorAndWriter(0, 10)
+                .stream().map(Title::getPrimaryTitle).toList());
+    }
+
+    @Test
+    void getTitlesWithBothActors_shouldReturnTitlesInPrimaryTitleOrderWithoutSorting() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertEquals(List.of("Alpha", "Bravo", "Foxtrot"), imdbDataService.getTitlesWithBothActors("nm01", "nm02")
+                .stream().map(Title::getPrimaryTitle).toList());
+        assertEquals(List.of("Bravo"), imdbDataService.getTitlesWithBothActors("Alice Actor", "Bob Actor", 1, 1)
+                .stream().map(Title::getPrimaryTitle).toList());
+        assertEquals(3, imdbDataService.getTotalTitlesWithBothActors("nm01", "nm02"));
+        assertThrows(ResourceNotFoundException.class, () ->
+                imdbDataService.getTitlesWithBothActors("nm03", "nm04"));
+    }
+
+    @Test
+    void cursorPagination_shouldResumeAfterLastItem() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var first = imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 2, null);
+        assertEquals(List.of("Alpha", "Bravo"), first.getItems().stream().map(Title::getPrimaryTitle).toList());
+        assertNotNull(first.getNextCursor());
+
+        var second = imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 2, first.getNextCursor());
+        assertEquals(List.of("Foxtrot"), second.getItems().stream().map(Title::getPrimaryTitle).toList());
+        assertNull(second.getNextCursor());
+
+        var years = imdbDataService.getBestTitlesByYearForGenre("Drama", 0, 2, null);
+        assertEquals(List.of(1994, 1995), years.getItems().stream().map(BestTitlesByYear::getYear).toList());
+        var nextYears = imdbDataService.getBestTitlesByYearForGenre("Drama", 0, 2, years.getNextCursor());
+        assertEquals(List.of(1999), nextYears.getItems().stream().map(BestTitlesByYear::getYear).toList());
+        assertNull(nextYears.getNextCursor());
+    }
+
+    @Test
+    void cursorPagination_shouldRejectForeignOrMalformedCursors() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        String cursor = imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 1, null).getNextCursor();
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.getTitlesWithSameDirectorAndWriter(0, 1, cursor));
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.getTitlesWithSameDirectorAndWriter(0, 1, "not a cursor"));
+
+        ImdbDataService reloaded = ImdbTestData.newService();
+        assertThrows(InvalidParameterException.class, () ->
+                reloaded.getTitlesWithBothActors("nm01", "nm02", 0, 1, cursor));
+    }
+
+    @Test
+    void pagedQueries_shouldReturnPageAndTotalFromOneExecution() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var titles = imdbDataService.getTitlesFeaturingAll(List.of("nm01", "nm02"), null, 1, 2, null);
+        assertEquals(3, titles.getTotalItems());
+        assertEquals(1, titles.getItems().size());
+
+        var years = imdbDataService.getBestTitlesByYearForGenre("Drama", 0, 1, null);
+        assertEquals(3, years.getTotalItems()); // 1994, 1995 and 1999
+
+        assertEquals(2, imdbDataService.countTitlesFeaturingAll(List.of("nm01", "nm02"), null, 2));
+        assertEquals(3, imdbDataService.countTitlesFeaturingAll(List.of("nm01", "nm02"), null, 100));
+    }
+
+    @Test
+    void countTitlesByAttributes_shouldCombineBitmapFilters() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertEquals(6, imdbDataService.countTitlesByAttributes(null, null, null, null, null, null));
+        assertEquals(3, imdbDataService.countTitlesByAttributes(List.of("movie"), false, 1990, null, List.of("Drama"), 1000));
+        assertEquals(1, imdbDataService.countTitlesByAttributes(List.of("movie"), null, null, null, List.of("Comedy", "Drama"), null));
+        assertEquals(2, imdbDataService.countTitlesByAttributes(List.of("short", "tvSeries"), null, null, null, null, null));
+        assertEquals(3, imdbDataService.countTitlesByAttributes(null, null, null, 90, null, null));
+        assertEquals(0, imdbDataService.countTitlesByAttributes(null, true, null, null, null, null));
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.countTitlesByAttributes(null, null, null, null, null, 500));
+    }
+
+    @Test
+    void searchTitles_shouldCombinePredicates() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var result = imdbDataService.searchTitles("type:movie genre:Drama year:1990..1999 rating>=8", null, 0, 10, null);
+        assertEquals(List.of("tt01", "tt06"), result.getItems().stream().map(Title::getTconst).toList());
+        assertEquals(2, result.getTotalItems());
+
+        var votes = imdbDataService.searchTitles("votes>=1000 votes<100000", null, 0, 10, null);
+        assertEquals(List.of("tt01", "tt02"), votes.getItems().stream().map(Title::getTconst).toList());
+
+        var people = imdbDataService.searchTitles("actor:nm01 director:\"Carol Director\"", null, 0, 10, null);
+        assertEquals(List.of("tt01", "tt06"), people.getItems().stream().map(Title::getTconst).toList());
+    }
+
+    @Test
+    void searchTitles_shouldSortAndResumeFromCursor() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var byRating = imdbDataService.searchTitles("director:nm03", "-rating", 0, 10, null);
+        assertEquals(List.of("tt06", "tt01", "tt04"), byRating.getItems().stream().map(Title::getTconst).toList());
+
+        var first = imdbDataService.searchTitles("", "year", 0, 4, null);
+        assertEquals(List.of("tt01", "tt04", "tt02", "tt06"), first.getItems().stream().map(Title::getTconst).toList());
+        assertEquals(6, first.getTotalItems());
+
+        var second = imdbDataService.searchTitles("", "year", 0, 4, first.getNextCursor());
+        assertEquals(List.of("tt03", "tt05"), second.getItems().stream().map(Title::getTconst).toList());
+        assertNull(second.getNextCursor());
+
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.searchTitles("", "-year", 0, 4, first.getNextCursor()));
+    }
+
+    @Test
+    void explainTitleSearch_shouldDriveFromMostSelectiveIndex() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertEquals(List.of("scan 6 titles"), imdbDataService.explainTitleSearch(""));
+        assertEquals("read bitmap type:short (1 titles)",
+                imdbDataService.explainTitleSearch("genre:Comedy type:short").get(0));
+        assertTrue(imdbDataService.explainTitleSearch("genre:Drama actor:nm04 rating>7").get(0)
+                .startsWith("read postings actor:nm04"));
+    }
+
+    @Test
+    void searchTitles_shouldRejectInvalidQueries() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.searchTitles("colour:red", null, 0, 10, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.searchTitles("year>=abc", null, 0, 10, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.searchTitles("actor:\"Alice", null, 0, 10, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.searchTitles("", "length", 0, 10, null));
+        assertThrows(ResourceNotFoundException.class, () -> imdbDataService.searchTitles("actor:nm99", null, 0, 10, null));
+    }
+
+    @Test
+    void findCollaborationPaths_shouldReturnAllShortestPaths() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var result = imdbDataService.findCollaborationPaths("Dan Writer", "nm06", null, 6, 10, 1000);
+
+        assertEquals("nm04", result.getFrom());
+        assertEquals(2, result.getDegrees());
+        assertFalse(result.isTimedOut());
+        var paths = result.getPaths().stream()
+                .map(path -> String.join(",", path.getPeople()) + "/" + String.join(",", path.getTitles()))
+                .sorted()
+                .toList();
+        assertEquals(List.of(
+                "nm04,nm01,nm06/tt01,tt02",
+                "nm04,nm02,nm06/tt01,tt02",
+                "nm04,nm02,nm06/tt04,tt02"), paths);
+
+        assertEquals(1, imdbDataService.findCollaborationPaths("nm04", "nm06", null, 6, 1, 1000).getPaths().size());
+    }
+
+    @Test
+    void findCollaborationPaths_shouldHonourRolesAndMaxDepth() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertNull(imdbDataService.findCollaborationPaths("nm04", "nm06", null, 1, 1, 1000).getDegrees());
+        assertTrue(imdbDataService.findCollaborationPaths("nm04", "nm06", List.of("actor"), 6, 1, 1000)
+                .getPaths().isEmpty());
+        assertEquals(1, imdbDataService.findCollaborationPaths("nm01", "nm02", List.of("actor"), 6, 1, 1000)
+                .getDegrees());
+        assertEquals(0, imdbDataService.findCollaborationPaths("nm01", "Alice Actor", null, 6, 1, 1000)
+                .getDegrees());
+
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.findCollaborationPaths("nm01", "nm02", null, 11, 1, 1000));
+        assertThrows(ResourceNotFoundException.class, () ->
+                imdbDataService.findCollaborationPaths("nm01", "nm99", null, 6, 1, 1000));
+    }
+
+    @Test
+    void getTopCollaborators_shouldRankBySharedTitles() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var collaborators = imdbDataService.getTopCollaborators("nm01", null, 10);
+        assertEquals(5, collaborators.size());
+        assertEquals(Set.of("nm02", "nm05"),
+                Set.of(collaborators.get(0).getNconst(), collaborators.get(1).getNconst()));
+        assertEquals(3, collaborators.get(0).getSharedTitleCount());
+        assertEquals("nm03", collaborators.get(2).getNconst());
+        assertEquals(List.of("tt01", "tt06"), collaborators.get(2).getTitles());
+
+        var directors = imdbDataService.getTopCollaborators("Alice Actor", "actor-director", 1);
+        assertEquals(1, directors.size());
+        assertEquals("Carol Director", directors.get(0).getPrimaryName());
+        assertEquals(2, directors.get(0).getSharedTitleCount());
+        // Carol is known for Charlie, where Alice acts, but does not act herself
+        assertTrue(imdbDataService.getTopCollaborators("nm01", "actor-actor", 10).stream()
+                .noneMatch(collaborator -> collaborator.getNconst().equals("nm03")));
+        assertTrue(imdbDataService.getTopCollaborators("nm03", "director-actor", 10).stream()
+                .noneMatch(collaborator -> collaborator.getTitles().contains("tt03")));
+
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getTopCollaborators("nm01", "actor-editor", 10));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getTopCollaborators("nm01", null, 21));
+        assertThrows(ResourceNotFoundException.class, () -> imdbDataService.getTopCollaborators("nm99", null, 10));
+    }
+
+    @Test
+    void getFilmography_shouldCombineCreditsWithRoles() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var all = imdbDataService.getFilmography("nm03", null, null, "-year", 0, 10, null);
+        assertEquals(List.of("tt06", "tt01", "tt04"), all.getItems().stream().map(FilmographyEntry::getTconst).toList());
+        assertEquals(List.of("director", "writer"), all.getItems().get(1).getRoles());
+        assertEquals(List.of("director"), all.getItems().get(2).getRoles());
+
+        var written = imdbDataService.getFilmography("Carol Director", "writer", null, "title", 0, 10, null);
+        assertEquals(List.of("tt01", "tt06"), written.getItems().stream().map(FilmographyEntry::getTconst).toList());
+
+        var series = imdbDataService.getFilmography("nm01", "actor", List.of("tvSeries"), null, 0, 10, null);
+        assertEquals(List.of("tt03"), series.getItems().stream().map(FilmographyEntry::getTconst).toList());
+
+        var first = imdbDataService.getFilmography("nm01", null, null, "-votes", 0, 2, null);
+        assertEquals(List.of("tt06", "tt02"), first.getItems().stream().map(FilmographyEntry::getTconst).toList());
+        assertEquals(4, first.getTotalItems());
+        var second = imdbDataService.getFilmography("nm01", null, null, "-votes", 0, 2, first.getNextCursor());
+        assertEquals(List.of("tt01", "tt03"), second.getItems().stream().map(FilmographyEntry::getTconst).toList());
+
+        // Known-for titles are flagged, never reported as a role or as a credit of their own
+        assertEquals(List.of(false, false, true), all.getItems().stream().map(FilmographyEntry::isKnownFor).toList());
+        assertTrue(imdbDataService.getFilmography("nm03", "actor", null, null, 0, 10, null).getItems().isEmpty());
+
+        assertThrows(ResourceNotFoundException.class, () -> imdbDataService.getFilmography("nm99", null, null, null, 0, 10, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getFilmography("nm01", "grip", null, null, 0, 10, null));
+    }
+
+    @Test
+    void knownForTitles_shouldOnlyCountAsActingForTitlesWithBothActors() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        // Carol directs, but is known for Charlie, where Alice acts
+        assertEquals(List.of("Charlie"), imdbDataService.getTitlesWithBothActors("nm01", "nm03")
+                .stream().map(Title::getPrimaryTitle).toList());
+        assertEquals(1, imdbDataService.getTotalTitlesWithBothActors("nm01", "nm03"));
+
+        assertEquals(0, imdbDataService.getTotalTitlesFeaturingAll(List.of("nm01", "nm03"), List.of("actor", "actor")));
+        assertEquals(0, imdbDataService.searchTitles("actor:nm03", null, 0, 10, null).getTotalItems());
+    }
+
+    @Test
+    void exports_shouldStreamEveryMatchInTitleOrder() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertEquals(List.of("tt01", "tt06"), imdbDataService.exportTitles("type:movie genre:Drama year:1990..1999 rating>=8")
+                .map(Title::getTconst).toList());
+        assertEquals(6, imdbDataService.exportTitles(null).count());
+
+        var filmography = imdbDataService.exportFilmography("Carol Director", null, null).toList();
+        assertEquals(List.of("tt01", "tt04", "tt06"), filmography.stream().map(FilmographyEntry::getTconst).toList());
+        assertEquals(List.of("director", "writer"), filmography.get(0).getRoles());
+        assertEquals(List.of("tt03"), imdbDataService.exportFilmography("nm01", "actor", List.of("tvSeries"))
+                .map(FilmographyEntry::getTconst).toList());
+
+        // Validated before the stream is returned, while the request can still fail
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.exportTitles("colour:red"));
+        assertThrows(ResourceNotFoundException.class, () -> imdbDataService.exportFilmography("nm99", null, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.exportFilmography("nm01", "grip", null));
+    }
+
+    @Test
+    void queryCache_shouldServeRepeatedQueriesUntilTheDataChanges() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var first = imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 2, null);
+        assertSame(first, imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 2, null));
+        // The pair is unordered, and actors are keyed by ID however they were named
+        assertSame(first, imdbDataService.getTitlesWithBothActors("Bob Actor", "nm01", 0, 2, null));
+        assertNotSame(first, imdbDataService.getTitlesWithBothActors("nm01", "nm02", 1, 2, null));
+
+        var search = imdbDataService.searchTitles(" genre:Drama ", null, 0, 10, null);
+        assertSame(search, imdbDataService.searchTitles("genre:Drama", null, 0, 10, null));
+
+        var stats = imdbDataService.getQueryCacheStats();
+        assertEquals(3, stats.getEntries());
+        assertTrue(stats.getWeightBytes() > 0);
+        var bothActors = stats.getQueries().stream()
+                .filter(query -> query.getQuery().equals("titlesWithBothActors")).findFirst().orElseThrow();
+        assertEquals(2, bothActors.getHits());
+        assertEquals(2, bothActors.getMisses());
+        assertEquals(0.5, bothActors.getHitRate());
+
+        // Changing the data drops every cached result
+        imdbDataService.updateTitleRating("tt02", 9.5f, 60000);
+        var refreshed = imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 2, null);
+        assertNotSame(first, refreshed);
+        assertEquals(9.5f, refreshed.getItems().get(1).getRating());
+        assertEquals(1, imdbDataService.getQueryCacheStats().getEntries());
+    }
+
+    @Test
+    void queryCache_shouldNotCacheFailuresAndIgnoreTheTimeBudgetOfCompletePaths() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertThrows(ResourceNotFoundException.class, () ->
+                imdbDataService.getFilmography("nm99", null, null, null, 0, 10, null));
+        var complete = imdbDataService.findCollaborationPaths("nm04", "nm06", null, 6, 10, 1000);
+        assertFalse(complete.isTimedOut());
+        assertSame(complete, imdbDataService.findCollaborationPaths("nm04", "nm06", null, 6, 10, 500));
+
+        assertEquals(1, imdbDataService.getQueryCacheStats().getEntries());
+    }
+
+    @Test
+    void exportArrow_shouldWriteDictionaryEncodedTablesOfTheLoadedData() throws IOException {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+        imdbDataService.updateTitleRating("tt05", 7.0f, 42);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowFileReader titles = readArrow(imdbDataService, ArrowTable.TITLES, allocator);
+             ArrowFileReader people = readArrow(imdbDataService, ArrowTable.PEOPLE, allocator);
+             ArrowFileReader principals = readArrow(imdbDataService, ArrowTable.PRINCIPALS, allocator);
+             ArrowFileReader ratings = readArrow(imdbDataService, ArrowTable.RATINGS, allocator)) {
+
+            VectorSchemaRoot root = titles.getVectorSchemaRoot();
+            assertTrue(titles.loadNextBatch());
+            assertEquals(6, root.getRowCount());
+            // Index order: by primary title, Alpha to Foxtrot
+            assertEquals("tt03", root.getVector("tconst").getObject(2).toString());
+            List<String> titleTypes = dictionary(titles, root.getVector("titleType"));
+            assertEquals("tvSeries", titleTypes.get((Integer) root.getVector("titleType").getObject(2)));
+            List<String> genres = dictionary(titles, ((ListVector) root.getVector("genres")).getDataVector());
+            assertEquals(List.of("Action", "Comedy", "Drama"), genres);
+            assertEquals(Set.of("Action", "Drama"), ((List<?>) root.getVector("genres").getObject(3)).stream()
+                    .map(genre -> genres.get((Integer) genre))
+                    .collect(Collectors.toSet()));
+            assertEquals(1994, root.getVector("startYear").getObject(0));
+            assertTrue(root.getVector("endYear").isNull(0));
+            assertFalse(titles.loadNextBatch());
+
+            VectorSchemaRoot peopleRoot = people.getVectorSchemaRoot();
+            assertTrue(people.loadNextBatch());
+            assertEquals(6, peopleRoot.getRowCount());
+            int carol = rowOf(peopleRoot, "nconst", "nm03");
+            ListVector professions = (ListVector) peopleRoot.getVector("primaryProfessions");
+            List<String> professionNames = dictionary(people, professions.getDataVector());
+            assertEquals(List.of("director", "writer"), ((List<?>) professions.getObject(carol)).stream()
+                    .map(profession -> professionNames.get((Integer) profession)).toList());
+            int alice = rowOf(peopleRoot, "nconst", "nm01");
+            assertEquals(List.of("tt01", "tt02"), ((List<?>) peopleRoot.getVector("knownForTitles").getObject(alice)).stream()
+                    .map(Object::toString).toList());
+            assertTrue(peopleRoot.getVector("deathYear").isNull(alice));
+
+            VectorSchemaRoot principalsRoot = principals.getVectorSchemaRoot();
+            assertTrue(principals.loadNextBatch());
+            assertEquals(15, principalsRoot.getRowCount());
+            assertEquals("nm01", principalsRoot.getVector("nconst").getObject(0).toString());
+            assertEquals("actress", dictionary(principals, principalsRoot.getVector("category"))
+                    .get((Integer) principalsRoot.getVector("category").getObject(0)));
+
+            VectorSchemaRoot ratingsRoot = ratings.getVectorSchemaRoot();
+            assertTrue(ratings.loadNextBatch());
+            // The ratings the service answers with, including updates since loading
+            assertEquals(6, ratingsRoot.getRowCount());
+            int echo = rowOf(ratingsRoot, "tconst", "tt05");
+            assertEquals(7.0f, ratingsRoot.getVector("averageRating").getObject(echo));
+            assertEquals(42, ratingsRoot.getVector("numVotes").getObject(echo));
+        }
+        assertThrows(InvalidParameterException.class, () -> ArrowTable.parse("crews"));
+    }
+
+    private static ArrowFileReader readArrow(ImdbDataService imdbDataService, ArrowTable table,
+                                             BufferAllocator allocator) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        imdbDataService.exportArrow(table, Channels.newChannel(out));
+        return new ArrowFileReader(new ByteArrayReadableSeekableByteChannel(out.toByteArray()), allocator);
+    }
+
+    /**
+     * @return The values of the dictionary of a dictionary-encoded column, by index.
+     */
+    private static List<String> dictionary(ArrowFileReader reader, FieldVector indices) throws IOException {
+        FieldVector values = reader.getDictionaryVectors().get(indices.getField().getDictionary().getId()).getVector();
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < values.getValueCount(); i++) {
+            dictionary.add(values.getObject(i).toString());
+        }
+        return dictionary;
+    }
+
+    private static int rowOf(VectorSchemaRoot root, String column, String value) {
+        FieldVector vector = root.getVector(column);
+        for (int row = 0; row < root.getRowCount(); row++) {
+            if (value.equals(vector.getObject(row).toString())) {
+                return row;
+            }
+        }
+        throw new AssertionError(value + " not in " + column);
+    }
+
+    @Test
+    void weightedRating_shouldDiscountTitlesWithFewVotes() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var byRating = imdbDataService.searchTitles("", "-rating", 0, 10, null);
+        assertEquals("tt03", byRating.getItems().get(0).getTconst());
+
+        // C = 7.8 (mean of all ratings), m = 25000: tt03 (9.0 from 10 votes) drops to the mean
+        var byWeighted = imdbDataService.searchTitles("", "-weighted", 0, 10, null);
+        assertEquals(List.of("tt06", "tt01", "tt03", "tt04", "tt02", "tt05"),
+                byWeighted.getItems().stream().map(Title::getTconst).toList());
+
+        imdbDataService.configureWeightedRating(0, null);
+        var unweighted = imdbDataService.searchTitles("", "-weighted", 0, 10, null);
+        assertEquals(List.of("tt03", "tt06", "tt01", "tt02", "tt04", "tt05"),
+                unweighted.getItems().stream().map(Title::getTconst).toList());
+
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.configureWeightedRating(-1, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.configureWeightedRating(0, Float.NaN));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.configureWeightedRating(0, -1f));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.configureWeightedRating(0, 10.5f));
+    }
+
+    @Test
+    void init_shouldRejectAConfiguredGlobalMeanThatIsNotARating() {
+        ImdbDataService imdbDataService = new ImdbDataService();
+        ReflectionTestUtils.setField(imdbDataService, "rankingGlobalMean", Float.POSITIVE_INFINITY);
+
+        assertThrows(InvalidParameterException.class, imdbDataService::init);
+    }
+
+    @Test
+    void getBestTitlesByYearForGenre_shouldRankByWeightedRating() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+        imdbDataService.configureWeightedRating(25000, 7.0f);
+
+        var result = imdbDataService.getBestTitlesByYearForGenre("Drama", 0, 10, null, ImdbDataService.RANK_BY_WEIGHTED);
+        BestTitlesByYear year1994 = result.getItems().get(0);
+        assertEquals(1994, year1994.getYear());
+        assertEquals(List.of("tt01", "tt04"), year1994.getBestTitles().stream().map(TitleDTO::getTconst).toList());
+        // (1000 * 8.0 + 25000 * 7.0) / 26000
+        assertEquals(7.0385f, year1994.getBestTitles().get(0).getWeightedRating(), 0.0001f);
+
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.getBestTitlesByYearForGenre("Drama", 0, 10, null, "popularity"));
+    }
+
+    @Test
+    void getLeaderboard_shouldRankByTypeGenreAndDecade() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        var mostVoted = imdbDataService.getLeaderboard(null, null, null, "votes", 0, 10, null);
+        assertEquals(List.of("tt06", "tt02", "tt01", "tt04", "tt03"),
+                mostVoted.getItems().stream().map(TitleDTO::getTconst).toList());
+        assertEquals(5, mostVoted.getTotalItems());
+
+        var topMovies = imdbDataService.getLeaderboard("movie", null, null, "rating", 0, 2, null);
+        assertEquals(List.of("tt06", "tt01"), topMovies.getItems().stream().map(TitleDTO::getTconst).toList());
+        var nextMovies = imdbDataService.getLeaderboard("movie", null, null, "rating", 0, 2, topMovies.getNextCursor());
+        assertEquals(List.of("tt02", "tt04"), nextMovies.getItems().stream().map(TitleDTO::getTconst).toList());
+        assertNull(nextMovies.getNextCursor());
+
+        // C = 7.8: tt03 (9.0 from 10 votes) is pulled below tt01
+        var comedies = imdbDataService.getLeaderboard(null, "Comedy", null, "weighted", 0, 10, null);
+        assertEquals(List.of("tt01", "tt03"), comedies.getItems().stream().map(TitleDTO::getTconst).toList());
+        assertNotNull(comedies.getItems().get(0).getWeightedRating());
+
+        var nineties = imdbDataService.getLeaderboard(null, null, 1994, "rating", 0, 10, null);
+        assertEquals(List.of("tt06", "tt01", "tt02", "tt04"), nineties.getItems().stream().map(TitleDTO::getTconst).toList());
+
+        assertTrue(imdbDataService.getLeaderboard("tvMovie", null, null, "rating", 0, 10, null).getItems().isEmpty());
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getLeaderboard("movie", "Drama", null, "rating", 0, 10, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getLeaderboard(null, null, null, "popularity", 0, 10, null));
+    }
+
+    @Test
+    void updateTitleRating_shouldUpdateLeaderboardsRankingsAndIndexes() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+        long version = imdbDataService.getDatasetVersion();
+        var byTitle = imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 2, null);
+        var byVotes = imdbDataService.searchTitles("type:movie", "-votes", 0, 2, null);
+
+        Title updated = imdbDataService.updateTitleRating("tt04", 9.5f, 400000);
+        assertEquals(9.5f, updated.getRating());
+
+        // Cursors issued before a rating change still resume after their last key
+        assertEquals(version, imdbDataService.getDatasetVersion());
+        assertEquals(List.of("Foxtrot"), imdbDataService.getTitlesWithBothActors("nm01", "nm02", 0, 2, byTitle.getNextCursor())
+                .getItems().stream().map(Title::getPrimaryTitle).toList());
+        assertEquals(List.of("tt01"), imdbDataService.searchTitles("type:movie", "-votes", 0, 2, byVotes.getNextCursor())
+                .getItems().stream().map(Title::getTconst).toList());
+
+        assertEquals(List.of("tt04", "tt06", "tt01", "tt02"), imdbDataService.getLeaderboard("movie", null, null, "rating", 0, 10, null)
+                .getItems().stream().map(TitleDTO::getTconst).toList());
+        assertEquals("tt04", imdbDataService.getLeaderboard(null, null, null, "votes", 0, 1, null).getItems().get(0).getTconst());
+        assertEquals("tt04", imdbDataService.getLeaderboard(null, null, null, "weighted", 0, 1, null).getItems().get(0).getTconst());
+        TitleDTO mostVoted = imdbDataService.getLeaderboard(null, null, null, "votes", 0, 1, null).getItems().get(0);
+        assertEquals(9.5f, mostVoted.getRating());
+        assertEquals(400000, mostVoted.getNumVotes());
+        assertEquals(9.5f, imdbDataService.getRatings().get("tt04").getAverageRating());
+        assertEquals(List.of("tt04", "tt06"), imdbDataService.searchTitles("votes>=100000", "-votes", 0, 10, null)
+                .getItems().stream().map(Title::getTconst).toList());
+
+        assertThrows(ResourceNotFoundException.class, () -> imdbDataService.updateTitleRating("tt99", 5f, 10));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.updateTitleRating("tt04", 11f, 10));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.updateTitleRating("tt04", 5f, -1));
+    }
+
+    @Test
+    void searchPeople_shouldCombineProfessionBirthYearLivingAndCreditFilters() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        assertEquals(List.of("nm03", "nm06"), nconsts(imdbDataService.searchPeople(
+                List.of("director", "writer"), null, null, null, null, null, 0, 10, null)));
+        assertEquals(List.of("nm03"), nconsts(imdbDataService.searchPeople(
+                List.of("director", "writer"), null, null, true, null, null, 0, 10, null)));
+        assertEquals(List.of("nm02", "nm06"), nconsts(imdbDataService.searchPeople(
+                null, null, null, false, null, null, 0, 10, null)));
+        assertEquals(List.of("nm03", "nm02", "nm01", "nm04"), nconsts(imdbDataService.searchPeople(
+                null, 1950, 1970, null, null, "birthYear", 0, 10, null)));
+        assertEquals(List.of("nm01", "nm05"), nconsts(imdbDataService.searchPeople(
+                List.of("actress"), 1950, null, true, 4, null, 0, 10, null)));
+        assertTrue(imdbDataService.searchPeople(List.of("composer"), null, null, null, null, null, 0, 10, null)
+                .getItems().isEmpty());
+    }
+
+    @Test
+    void searchPeople_shouldSortByCreditsAndResumeFromCursor() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        // Credits: nm01, nm02, nm05 = 4, nm03 = 3, nm04 = 2, nm06 = 1; ties by name
+        var first = imdbDataService.searchPeople(null, null, null, null, 2, "-credits", 0, 2, null);
+        assertEquals(List.of("nm01", "nm02"), nconsts(first));
+        assertEquals(5, first.getTotalItems());
+        var second = imdbDataService.searchPeople(null, null, null, null, 2, "-credits", 0, 2, first.getNextCursor());
+        assertEquals(List.of("nm05", "nm03"), nconsts(second));
+        var third = imdbDataService.searchPeople(null, null, null, null, 2, "-credits", 0, 2, second.getNextCursor());
+        assertEquals(List.of("nm04"), nconsts(third));
+        assertNull(third.getNextCursor());
+
+        // By name, both ways
+        assertEquals(List.of("nm01", "nm02", "nm03", "nm04", "nm05", "nm06"), nconsts(imdbDataService.searchPeople(
+                null, null, null, null, null, "name", 0, 10, null)));
+        var byNameDescending = imdbDataService.searchPeople(null, null, null, null, null, "-name", 0, 4, null);
+        assertEquals(List.of("nm06", "nm05", "nm04", "nm03"), nconsts(byNameDescending));
+        assertEquals(List.of("nm02", "nm01"), nconsts(imdbDataService.searchPeople(
+                null, null, null, null, null, "-name", 0, 4, byNameDescending.getNextCursor())));
+
+        // Professions are a set: their order does not change the query or its cursors
+        var directors = imdbDataService.searchPeople(List.of("director", "writer"), null, null, null, null, null, 0, 1, null);
+        assertEquals(List.of("nm06"), nconsts(imdbDataService.searchPeople(
+                List.of("writer", "director", "writer"), null, null, null, null, null, 0, 1, directors.getNextCursor())));
+
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.searchPeople(null, 2000, 1990, null, null, null, 0, 10, null));
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.searchPeople(null, null, null, null, -1, null, 0, 10, null));
+        assertThrows(InvalidParameterException.class, () ->
+                imdbDataService.searchPeople(null, null, null, null, null, "height", 0, 10, null));
+    }
+
+    private static List<String> nconsts(PageSlice<Person> slice) {
+        return slice.getItems().stream().map(Person::getNconst).toList();
+    }
+
+    @Test
+    void getSimilarTitles_shouldRankBySharedPeopleAndGenres() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        // tt01 has nm01-nm05, Comedy and Drama; tt06 shares nm01 nm02 nm03 nm05 and Drama: 5 of 7 tokens
+        List<SimilarTitle> similar = imdbDataService.getSimilarTitles("tt01", 2);
+        assertFalse(similar.isEmpty());
+        assertEquals("tt06", similar.get(0).getTconst());
+        assertEquals(5.0 / 7, similar.get(0).getSimilarity(), 1e-9);
+        assertEquals(4, similar.get(0).getSharedPeopleCount());
+        assertEquals(List.of("Drama"), similar.get(0).getSharedGenres());
+        for (int i = 1; i < similar.size(); i++) {
+            assertTrue(similar.get(i - 1).getSimilarity() >= similar.get(i).getSimilarity());
+        }
+
+        assertThrows(ResourceNotFoundException.class, () -> imdbDataService.getSimilarTitles("tt99", 10));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getSimilarTitles("tt01", 0));
+    }
+
+    @Test
+    void getTitleStatistics_shouldRollUpGenreYearTypeCube() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        // Overall totals count every title once, even with several genres
+        List<TitleStatistics> total = imdbDataService.getTitleStatistics(List.of(), null, null, null, null);
+        assertEquals(1, total.size());
+        assertEquals(6, total.get(0).getTitleCount());
+        assertEquals(5, total.get(0).getRatedCount());
+        assertEquals(7.8, total.get(0).getMeanRating(), 1e-6);
+        assertEquals(351210, total.get(0).getTotalVotes());
+
+        List<TitleStatistics> byGenre = imdbDataService.getTitleStatistics(List.of("genre"), null, null, null, null);
+        assertEquals(List.of("Action", "Comedy", "Drama"), byGenre.stream().map(TitleStatistics::getGenre).toList());
+        assertEquals(3, byGenre.get(1).getTitleCount());
+        assertEquals(8.5, byGenre.get(1).getMeanRating(), 1e-6);
+        assertEquals(351200, byGenre.get(2).getTotalVotes());
+
+        List<TitleStatistics> dramaByYear = imdbDataService.getTitleStatistics(List.of("year", "type"), "Drama", null, null, null);
+        assertEquals(List.of(1994, 1995, 1999), dramaByYear.stream().map(TitleStatistics::getYear).toList());
+        assertEquals(2, dramaByYear.get(0).getTitleCount());
+        assertEquals("movie", dramaByYear.get(0).getTitleType());
+        assertNull(dramaByYear.get(0).getGenre());
+
+        List<TitleStatistics> recent = imdbDataService.getTitleStatistics(List.of("type"), null, null, 2000, null);
+        assertEquals(List.of("short", "tvSeries"), recent.stream().map(TitleStatistics::getTitleType).toList());
+        assertNull(recent.get(0).getMeanRating());
+
+        // A new dataset version gets a new cube
+        imdbDataService.updateTitleRating("tt05", 5.0f, 100);
+        assertEquals(6, imdbDataService.getTitleStatistics(List.of(), null, null, null, null).get(0).getRatedCount());
+
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getTitleStatistics(List.of("country"), null, null, null, null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getTitleStatistics(List.of(), null, null, 2000, 1990));
+    }
+
+    @Test
+    void getPeopleAndTitlesByIds_shouldKeepRequestOrderAndReportMissesInline() {
+        ImdbDataService imdbDataService = ImdbTestData.newService();
+
+        List<BatchLookupResult<Person>> people = imdbDataService.getPeopleByIds(List.of("nm03", "nm99", "nm01", "", "nm03"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("nm03", "nm99", "nm01", "", "nm03"),
+                people.stream().map(BatchLookupResult::getId).collect(Collectors.toList()));
+        assertEquals("Carol Director", people.get(0).getItem().getPrimaryName());
+        assertFalse(people.get(1).isFound());
+        assertNull(people.get(1).getItem());
+        assertEquals("Person not found with id : 'nm99'", people.get(1).getError());
+        assertTrue(people.get(2).isFound());
+        assertFalse(people.get(3).isFound());
+        assertSame(people.get(0).getItem(), people.get(4).getItem());
+
+        // Several chunks, resolved in parallel, still come back in request order
+        List<String> titleIds = new ArrayList<>();
+        for (int i = 0; i < ImdbDataService.BATCH_CHUNK_SIZE * 3 + 7; i++) {
+            titleIds.add(i % 7 == 6 ? "tt99" : "tt0" + (i % 7 + 1));
+        }
+        List<BatchLookupResult<Title>> titles = imdbDataService.getTitlesByIds(titleIds).collect(Collectors.toList());
+        assertEquals(titleIds, titles.stream().map(BatchLookupResult::getId).collect(Collectors.toList()));
+        for (BatchLookupResult<Title> result : titles) {
+            assertEquals(!result.getId().equals("tt99"), result.isFound());
+            assertEquals(result.isFound() ? result.getId() : null,
+                    result.isFound() ? result.getItem().getTconst() : null);
+        }
+
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getPeopleByIds(List.of()));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getTitlesByIds(null));
+        assertThrows(InvalidParameterException.class, () -> imdbDataService.getTitlesByIds(
+                Collections.nCopies(ImdbDataService.MAX_BATCH_IDS + 1, "tt01")));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.imdbdataset.service;
+
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Rating;
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.TitleCrew;
+import com.example.imdbdataset.model.TitlePrincipal;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * A small, hand-written dataset for tests that must not depend on the demo TSV files.
+ *
+ * <pre>
+ * tt01 Alpha   movie    1994 Comedy,Drama  8.0 /   1000  nm01 nm02 nm05, dir nm03, writers nm03 nm04
+ * tt02 Bravo   movie    1995 Drama         7.5 /  50000  nm01 nm02,      dir nm06, writer  nm06 (dead)
+ * tt03 Charlie tvSeries 2001 Comedy        9.0 /     10  nm01 nm05
+ * tt04 Delta   movie    1994 Action,Drama  6.0 /    200  nm02 nm05,      dir nm03, writer  nm04
+ * tt05 Echo    short    2010 Comedy        (no rating)
+ * tt06 Foxtrot movie    1999 Drama         8.5 / 300000  nm01 nm02 nm05, dir nm03, writer  nm03
+ *
+ * known for: nm01 tt01 tt02 (acting credits), nm03 tt03 (no credit) tt04 (directing credit)
+ * </pre>
+ */
+final class ImdbTestData {
+
+    private ImdbTestData() {
+    }
+
+    /**
+     * Fills the service with the test dataset, then indexes and links it the same way
+     * {@link ImdbDataService#init()} does for the real files.
+     */
+    static ImdbDataService newService() {
+        ImdbDataService service = new ImdbDataService();
+
+        title(service, "tt01", "movie", "Alpha", 1994, 100, Set.of("Comedy", "Drama"), 8.0f, 1000);
+        title(service, "tt02", "movie", "Bravo", 1995, 120, Set.of("Drama"), 7.5f, 50000);
+        title(service, "tt03", "tvSeries", "Charlie", 2001, 30, Set.of("Comedy"), 9.0f, 10);
+        title(service, "tt04", "movie", "Delta", 1994, 90, Set.of("Action", "Drama"), 6.0f, 200);
+        title(service, "tt05", "short", "Echo", 2010, 10, Set.of("Comedy"), null, null);
+        title(service, "tt06", "movie", "Foxtrot", 1999, 110, Set.of("Drama"), 8.5f, 300000);
+
+        person(service, "nm01", "Alice Actor", 1960, null, new String[]{"actress"}, new String[]{"tt01", "tt02"});
+        person(service, "nm02", "Bob Actor", 1955, 2015, new String[]{"actor"}, new String[0]);
+        person(service, "nm03", "Carol Director", 1950, null, new String[]{"director", "writer"},
+                new String[]{"tt03", "tt04"});
+        person(service, "nm04", "Dan Writer", 1970, null, new String[]{"writer"}, new String[0]);
+        person(service, "nm05", "Eve Extra", 1980, null, new String[]{"actress"}, new String[0]);
+        person(service, "nm06", "Frank Elder", 1930, 2000, new String[]{"director", "writer"}, new String[0]);
+
+        principal(service, "tt01", 1, "nm01", "actress");
+        principal(service, "tt01", 2, "nm02", "actor");
+        principal(service, "tt01", 3, "nm03", "director");
+        principal(service, "tt01", 4, "nm05", "actress");
+        principal(service, "tt02", 1, "nm01", "actress");
+        principal(service, "tt02", 2, "nm02", "actor");
+        principal(service, "tt02", 3, "nm06", "director");
+        principal(service, "tt03", 1, "nm01", "actress");
+        principal(service, "tt03", 2, "nm05", "actress");
+        principal(service, "tt04", 1, "nm02", "actor");
+        principal(service, "tt04", 2, "nm05", "actress");
+        principal(service, "tt04", 3, "nm03", "director");
+        principal(service, "tt06", 1, "nm01", "actress");
+        principal(service, "tt06", 2, "nm02", "actor");
+        principal(service, "tt06", 3, "nm05", "actress");
+
+        crew(service, "tt01", new String[]{"nm03"}, new String[]{"nm03", "nm04"});
+        crew(service, "tt02", new String[]{"nm06"}, new String[]{"nm06"});
+        crew(service, "tt04", new String[]{"nm03"}, new String[]{"nm04"});
+        crew(service, "tt06", new String[]{"nm03"}, new String[]{"nm03"});
+
+        service.buildIndexes();
+        service.linkData();
+        return service;
+    }
+
+    private static void title(ImdbDataService service, String tconst, String type, String name, int year,
+                              int runtime, Set<String> genres, Float rating, Integer votes) {
+        Title title = new Title(tconst, type, name, name, false, year, null, runtime, genres);
+        service.getTitles().put(tconst, title);
+        if (rating != null) {
+            title.setRating(rating);
+            title.setNumVotes(votes);
+            service.getRatings().put(tconst, new Rating(tconst, rating, votes));
+        }
+    }
+
+    private static void person(ImdbDataService service, String nconst, String name, Integer birthYear,
+                               Integer deathYear, String[] professions, String[] knownFor) {
+        service.getPeople().put(nconst, new Person(nconst, name, birthYear, deathYear, professions, knownFor));
+    }
+
+    private static void principal(ImdbDataService service, String tconst, int ordering, String nconst,
+                                  String category) {
+        TitlePrincipal principal = new TitlePrincipal(tconst, ordering, nconst, category, null, null);
+        service.getPrincipalsByTitle().computeIfAbsent(tconst, k -> new ArrayList<>()).add(principal);
+        service.getPrincipalsByPerson().computeIfAbsent(nconst, k -> new ArrayList<>()).add(principal);
+    }
+
+    private static void crew(ImdbDataService service, String tconst, String[] directors, String[] writers) {
+        service.getCrews().put(tconst, new TitleCrew(tconst, directors, writers));
+    }
+}
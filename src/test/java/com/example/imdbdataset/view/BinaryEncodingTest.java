@@ -0,0 +1,81 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.dto.PagedResponse;
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.dto.BestTitlesByYear;
+import com.example.imdbdataset.model.dto.PageSlice;
+import com.example.imdbdataset.model.dto.TitleDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEncodingTest {
+
+    /**
+     * CBOR keeps floats as 32-bit floats where JSON text reads back as doubles: compare numbers by value.
+     */
+    private static final Comparator<JsonNode> SAME_VALUE = (a, b) -> a.isNumber() && b.isNumber()
+            ? Double.compare(a.doubleValue(), b.doubleValue())
+            : a.equals(b) ? 0 : 1;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @Test
+    void cbor_shouldEncodeTheSameTreeAsJsonInFewerBytes() throws Exception {
+        FragmentCache cache = new FragmentCache(json, 1 << 20);
+        List<Title> titles = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            titles.add(title(i));
+        }
+
+        for (String view : new String[]{"summary", "detail", "with-credits"}) {
+            EntityWriter<Title> writer = cache.titles(TitleProjection.of(view, null), 1);
+            PagedResponse<Projected<Title>> page = PagedResponse.of(
+                    Projected.page(new PageSlice<>(titles, 100, "cursor"), writer), 0, 20, null);
+            // Twice: the second page is written from the fragment cache in JSON, and past it in CBOR
+            for (int round = 0; round < 2; round++) {
+                assertSameTree(page);
+            }
+        }
+
+        // A page resumed from a cursor has no page number
+        PagedResponse<Title> resumed = PagedResponse.of(new PageSlice<>(List.<Title>of(), 100, null), 0, 20, "cursor");
+        assertNull(resumed.getCurrentPage());
+        assertSameTree(resumed);
+
+        List<TitleDTO> best = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            best.add(new TitleDTO("tt" + i, "Title " + i, 2000, 7.5f, 1000 * i, 7.25f));
+        }
+        assertSameTree(PagedResponse.of(List.of(new BestTitlesByYear(2000, best)), 0, 10, 1));
+    }
+
+    private void assertSameTree(Object value) throws Exception {
+        byte[] jsonBytes = json.writeValueAsBytes(value);
+        byte[] cborBytes = cbor.writeValueAsBytes(value);
+        assertTrue(json.readTree(jsonBytes).equals(SAME_VALUE, cbor.readTree(cborBytes)));
+        assertTrue(cborBytes.length < jsonBytes.length, cborBytes.length + " >= " + jsonBytes.length);
+    }
+
+    private static Title title(int i) {
+        Title title = new Title("tt" + i, "movie", "Title " + i, "Original " + i, false, 1990 + i, null, 90 + i,
+                Set.of("Drama", "Comedy"));
+        title.setRating(6.5f);
+        title.setNumVotes(100 * i);
+        Person director = new Person("nm" + i, "Director " + i, 1950, null, new String[]{"director"}, new String[]{"tt" + i});
+        title.setDirectors(List.of(director));
+        title.setWriters(List.of(director));
+        title.setActors(List.of(new Person("nm" + (100 + i), "Actor " + i, 1970, 2020, new String[]{"actor"}, new String[]{})));
+        return title;
+    }
+}
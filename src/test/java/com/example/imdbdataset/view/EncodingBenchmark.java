@@ -0,0 +1,109 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.dto.PagedResponse;
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.example.imdbdataset.model.dto.BestTitlesByYear;
+import com.example.imdbdataset.model.dto.PageSlice;
+import com.example.imdbdataset.model.dto.TitleDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the payload size and encoding time of JSON and CBOR responses, on synthetic pages shaped
+ * like those of the API. Not a test: run it by hand, e.g.
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.imdbdataset.view.EncodingBenchmark
+ * </pre>
+ * The fragment cache is left out, as it only serves JSON.
+ */
+public final class EncodingBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int ROUNDS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        Random random = new Random(5);
+
+        List<Title> titles = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            titles.add(title(random, i));
+        }
+        List<BestTitlesByYear> best = new ArrayList<>();
+        for (int year = 2000; year < 2010; year++) {
+            List<TitleDTO> dtos = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Title title = titles.get(random.nextInt(PAGE_SIZE));
+                dtos.add(new TitleDTO(title.getTconst(), title.getPrimaryTitle(), year, title.getRating(),
+                        title.getNumVotes(), title.getRating() * 0.97f));
+            }
+            best.add(new BestTitlesByYear(year, dtos));
+        }
+
+        System.out.printf("%-28s %10s %10s %6s %12s %12s%n", "response", "JSON B", "CBOR B", "ratio", "JSON us", "CBOR us");
+        for (String view : new String[]{"summary", "detail", "with-credits"}) {
+            PagedResponse<Projected<Title>> page = PagedResponse.of(
+                    Projected.page(new PageSlice<>(titles, 10_000, null), TitleProjection.of(view, null)), 0, PAGE_SIZE, null);
+            compare(PAGE_SIZE + " titles, " + view, page, json, cbor);
+        }
+        compare("best titles, 10 years", PagedResponse.of(best, 0, 10, 100), json, cbor);
+    }
+
+    private static void compare(String label, Object response, ObjectMapper json, ObjectMapper cbor) throws Exception {
+        int jsonBytes = json.writeValueAsBytes(response).length;
+        int cborBytes = cbor.writeValueAsBytes(response).length;
+        System.out.printf("%-28s %10d %10d %6.2f %12.1f %12.1f%n", label, jsonBytes, cborBytes,
+                (double) cborBytes / jsonBytes, measure(json, response), measure(cbor, response));
+    }
+
+    /**
+     * @return Microseconds to encode the response, best of {@value #ROUNDS} rounds after warm-up.
+     */
+    private static double measure(ObjectMapper mapper, Object response) throws Exception {
+        long checksum = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += mapper.writeValueAsBytes(response).length;
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            checksum += mapper.writeValueAsBytes(response).length;
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (checksum == 42) {
+            System.out.println();
+        }
+        return best / 1_000.0;
+    }
+
+    private static Title title(Random random, int i) {
+        String tconst = String.format("tt%07d", 100_000 + i * 37);
+        Title title = new Title(tconst, "movie", "Title number " + i, "Original title " + i, false,
+                1950 + random.nextInt(75), null, 80 + random.nextInt(90), Set.of("Drama", "Romance"));
+        title.setRating(1 + random.nextInt(90) / 10f);
+        title.setNumVotes(random.nextInt(1_000_000));
+        title.setDirectors(people(random, 1));
+        title.setWriters(people(random, 2));
+        title.setActors(people(random, 4));
+        return title;
+    }
+
+    private static List<Person> people(Random random, int count) {
+        List<Person> people = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int id = random.nextInt(10_000_000);
+            people.add(new Person(String.format("nm%07d", id), "Person " + id, 1900 + random.nextInt(100),
+                    random.nextBoolean() ? null : 2000 + random.nextInt(25), new String[]{"actor", "producer"},
+                    new String[]{"tt0000001", "tt0000002", "tt0000003", "tt0000004"}));
+        }
+        return people;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentCacheTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void titles_shouldServeTheSameBytesUntilTheContentVersionChanges() throws Exception {
+        FragmentCache cache = new FragmentCache(mapper, 1 << 20);
+        Title title = new Title("tt1", "movie", "Alpha", "Alpha", false, 1994, null, 100, Set.of("Drama"));
+        title.setActors(List.of(new Person("nm1", "Alice", 1960, null, new String[]{"actress"}, new String[]{"tt1"})));
+
+        String direct = mapper.writeValueAsString(new Projected<>(title, TitleProjection.DETAIL));
+        EntityWriter<Title> writer = cache.titles(TitleProjection.DETAIL, 1);
+        assertEquals(direct, mapper.writeValueAsString(new Projected<>(title, writer)));
+        assertEquals("[" + direct + "," + direct + "]",
+                mapper.writeValueAsString(Projected.all(List.of(title, title), writer)));
+        assertEquals(1, cache.size());
+
+        // Same version: the fragment is reused, even though the title changed in place
+        title.setRating(9.0f);
+        assertEquals(direct, mapper.writeValueAsString(new Projected<>(title, cache.titles(TitleProjection.DETAIL, 1))));
+
+        // A new version drops the old fragments and encodes the title again
+        String updated = mapper.writeValueAsString(new Projected<>(title, cache.titles(TitleProjection.DETAIL, 2)));
+        assertTrue(updated.contains("\"rating\":9.0"));
+        assertEquals(1, cache.size());
+        cache.titles(TitleProjection.of("summary", null), 2).write(title, mapper.createGenerator(new StringWriter()));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void fieldProjections_shouldNotBeCached() throws Exception {
+        FragmentCache cache = new FragmentCache(mapper, 1 << 20);
+        Person person = new Person("nm1", "Alice", 1960, null, new String[]{"actress"}, new String[]{"tt1"});
+        EntityWriter<Person> writer = cache.people(PersonProjection.of(null, List.of("primaryName")), 1);
+
+        assertEquals("{\"primaryName\":\"Alice\"}", mapper.writeValueAsString(new Projected<>(person, writer)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cache_shouldStayWithinItsByteBound() throws Exception {
+        FragmentCache cache = new FragmentCache(mapper, 20L * FragmentCache.ENTRY_OVERHEAD);
+        EntityWriter<Person> writer = cache.people(PersonProjection.DETAIL, 1);
+        for (int i = 0; i < 1000; i++) {
+            Person person = new Person("nm" + i, "Person " + i, 1960, null, new String[]{"actor"}, new String[0]);
+            mapper.writeValueAsString(new Projected<>(person, writer));
+        }
+        assertTrue(cache.size() <= 20, "cached " + cache.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.imdbdataset.view;
+
+import com.example.imdbdataset.exception.InvalidParameterException;
+import com.example.imdbdataset.model.Person;
+import com.example.imdbdataset.model.Title;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void titleProjection_shouldMatchTheFullJsonWithCreditsAsReferences() throws Exception {
+        Title title = title();
+        JsonNode full = mapper.readTree(mapper.writeValueAsString(title));
+
+        // with-credits writes exactly what Jackson writes for the whole graph
+        assertEquals(mapper.writeValueAsString(title),
+                mapper.writeValueAsString(new Projected<>(title, TitleProjection.of("with-credits", null))));
+
+        // detail keeps every field, with people reduced to id + name
+        JsonNode detail = project(title, TitleProjection.of(null, null));
+        ObjectNode expected = full.deepCopy();
+        for (String credits : List.of("directors", "writers", "actors")) {
+            for (JsonNode person : expected.withArray(credits)) {
+                ((ObjectNode) person).retain("nconst", "primaryName");
+            }
+        }
+        assertEquals(expected, detail);
+        assertTrue(mapper.writeValueAsBytes(new Projected<>(title, TitleProjection.DETAIL)).length
+                < mapper.writeValueAsBytes(title).length / 2);
+
+        JsonNode summary = project(title, TitleProjection.of("SUMMARY", null));
+        assertEquals(List.of("tconst", "titleType", "primaryTitle", "startYear", "genres", "rating", "numVotes"), names(summary));
+
+        JsonNode fields = project(title, TitleProjection.of(null, List.of("rating", "tconst", "actors")));
+        assertEquals(List.of("tconst", "rating", "actors"), names(fields));
+        assertEquals("{\"nconst\":\"nm2\",\"primaryName\":\"Actor Two\"}", fields.get("actors").get(1).toString());
+    }
+
+    @Test
+    void personProjection_shouldMatchTheFullJson() throws Exception {
+        Person person = person("nm1", "Director One");
+        assertEquals(mapper.writeValueAsString(person),
+                mapper.writeValueAsString(new Projected<>(person, PersonProjection.of("detail", List.of()))));
+        assertEquals(List.of("nconst", "primaryName", "birthYear", "deathYear"),
+                names(project(person, PersonProjection.of("summary", null))));
+        assertEquals(List.of("primaryName", "alive"),
+                names(project(person, PersonProjection.of(null, List.of("alive", "primaryName")))));
+    }
+
+    @Test
+    void projections_shouldRejectUnknownViewsAndFields() {
+        assertThrows(InvalidParameterException.class, () -> TitleProjection.of("compact", null));
+        assertThrows(InvalidParameterException.class, () -> TitleProjection.of(null, List.of("tconst", "budget")));
+        assertThrows(InvalidParameterException.class, () -> PersonProjection.of(null, List.of("tconst")));
+    }
+
+    private JsonNode project(Object value, EntityWriter<?> writer) throws Exception {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Projected<?> projected = new Projected(value, writer);
+        return mapper.readTree(mapper.writeValueAsString(projected));
+    }
+
+    private static List<String> names(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static Title title() {
+        Title title = new Title("tt1", "movie", "Alpha", "Alpha Original", false, 1994, null, 100, Set.of("Drama"));
+        title.setRating(8.5f);
+        title.setNumVotes(1000);
+        title.setDirectors(List.of(person("nm1", "Director One")));
+        title.setWriters(List.of(person("nm1", "Director One"), person("nm3", "Writer Three")));
+        title.setActors(List.of(person("nm4", "Actor Four"), person("nm2", "Actor Two")));
+        return title;
+    }
+
+    private static Person person(String nconst, String name) {
+        return new Person(nconst, name, 1950, null, new String[]{"director", "writer"},
+                new String[]{"tt1", "tt2", "tt3", "tt4"});
+    }
+}